@@ -0,0 +1,77 @@
+package cs3500.marblesolitaire.archive;
+
+/**
+ * Represents the count, sum, minimum and maximum of a column over a group of games
+ */
+public final class Aggregate {
+  private final long count;
+  private final long sum;
+  private final long min;
+  private final long max;
+
+  /**
+   * Constructs an aggregate
+   *
+   * @param count the number of games in the group
+   * @param sum   the sum of the column over the group
+   * @param min   the smallest value of the column in the group
+   * @param max   the largest value of the column in the group
+   */
+  public Aggregate(long count, long sum, long min, long max) {
+    this.count = count;
+    this.sum = sum;
+    this.min = min;
+    this.max = max;
+  }
+
+  /**
+   * Get the number of games in the group
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return this.count;
+  }
+
+  /**
+   * Get the sum of the column over the group
+   *
+   * @return the sum
+   */
+  public long getSum() {
+    return this.sum;
+  }
+
+  /**
+   * Get the smallest value of the column in the group
+   *
+   * @return the minimum
+   */
+  public long getMin() {
+    return this.min;
+  }
+
+  /**
+   * Get the largest value of the column in the group
+   *
+   * @return the maximum
+   */
+  public long getMax() {
+    return this.max;
+  }
+
+  /**
+   * Get the mean of the column over the group
+   *
+   * @return the mean, or 0 if the group is empty
+   */
+  public double getMean() {
+    return this.count == 0 ? 0 : (double) this.sum / this.count;
+  }
+
+  @Override
+  public String toString() {
+    return "count " + this.count + ", mean " + this.getMean() + ", min " + this.min + ", max "
+            + this.max;
+  }
+}
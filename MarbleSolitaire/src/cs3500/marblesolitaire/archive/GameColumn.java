@@ -0,0 +1,9 @@
+package cs3500.marblesolitaire.archive;
+
+/**
+ * This enum represents the numeric columns of a GameColumnStore that queries can filter, group
+ * and aggregate on. Shapes are stored as the ordinals of BoardShape.
+ */
+public enum GameColumn {
+  Shape, Arm, StartRow, StartCol, Score, Length, Duration
+}
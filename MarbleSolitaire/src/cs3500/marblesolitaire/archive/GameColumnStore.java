@@ -0,0 +1,680 @@
+package cs3500.marblesolitaire.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.solver.Move;
+
+/**
+ * Represents an append-only store of finished games laid out by column. Games are written in
+ * blocks of up to BLOCK_ROWS rows, and every block holds one chunk per column: the shape, arm
+ * thickness, start row and column, score, length and duration of each game, then the moves of all
+ * its games. Each chunk is compressed on its own, as frame-of-reference bit packing or as runs,
+ * whichever is smaller, and carries the minimum and maximum of its values as a zone map.
+ *
+ * <p>Queries filter on inclusive ranges of columns and aggregate one column, optionally grouped
+ * by others. A query skips every block whose zone maps rule out its filter, and in the remaining
+ * blocks decodes only the columns it touches, a whole chunk at a time, narrowing a selection
+ * vector of rows one filter column at a time before aggregating the survivors. A block is</p>
+ * <pre>
+ *   magic:int rows:int moves:int
+ *   (encoding:byte min:long max:long length:int payload)[8]
+ * </pre>
+ * <p>and a block cut short by a crash at the end of the file is ignored and overwritten by the
+ * next writer.</p>
+ */
+public final class GameColumnStore {
+  /**
+   * The largest number of games in a block
+   */
+  public static final int BLOCK_ROWS = 1 << 16;
+
+  /**
+   * The largest number of columns a query can group by
+   */
+  public static final int MAX_GROUP_COLUMNS = 4;
+
+  private static final int MAGIC = 0x4D534743;
+  private static final int BLOCK_HEADER = 12;
+  private static final int CHUNK_HEADER = 21;
+  private static final int COLUMNS = GameColumn.values().length + 1;
+  private static final int MOVES = COLUMNS - 1;
+  private static final byte PACKED = 0;
+  private static final byte RUNS = 1;
+  private static final int GROUP_BITS = 16;
+
+  private final List<Block> blocks;
+  private final long[] firstRows;
+  private final long size;
+
+  private GameColumnStore(List<Block> blocks) {
+    this.blocks = blocks;
+    this.firstRows = new long[blocks.size() + 1];
+    for (int b = 0; b < blocks.size(); b++) {
+      this.firstRows[b + 1] = this.firstRows[b] + blocks.get(b).rows;
+    }
+    this.size = this.firstRows[blocks.size()];
+  }
+
+  /**
+   * Open a store for querying. Games appended after it is opened are not seen.
+   *
+   * @param file the file holding the store
+   * @return the store
+   * @throws IOException if the file cannot be read
+   */
+  public static GameColumnStore open(Path file) throws IOException {
+    List<Block> blocks = new ArrayList<Block>();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long position = 0;
+      while (true) {
+        long length = blockLength(channel, position);
+        if (length < 0) {
+          break;
+        }
+        blocks.add(new Block(channel.map(FileChannel.MapMode.READ_ONLY, position, length)));
+        position += length;
+      }
+    }
+    return new GameColumnStore(blocks);
+  }
+
+  /**
+   * Find the length of the block at a position of a file
+   *
+   * @return the length, or -1 if there is no complete block there
+   */
+  private static long blockLength(FileChannel channel, long position) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER);
+    header.limit(BLOCK_HEADER);
+    if (channel.read(header, position) < BLOCK_HEADER || header.getInt(0) != MAGIC) {
+      return -1;
+    }
+    long length = BLOCK_HEADER;
+    for (int c = 0; c < COLUMNS; c++) {
+      header.clear();
+      if (channel.read(header, position + length) < CHUNK_HEADER) {
+        return -1;
+      }
+      length += CHUNK_HEADER + (header.getInt(17) & 0xFFFFFFFFL);
+    }
+    return position + length <= channel.size() ? length : -1;
+  }
+
+  /**
+   * Get the number of games in the store
+   *
+   * @return the number of games
+   */
+  public long size() {
+    return this.size;
+  }
+
+  /**
+   * Get the number of blocks the games are stored in
+   *
+   * @return the number of blocks
+   */
+  public int getBlockCount() {
+    return this.blocks.size();
+  }
+
+  /**
+   * Count the games a filter accepts
+   *
+   * @param filter the filter
+   * @return the number of games
+   */
+  public long count(GameFilter filter) {
+    Result result = this.query(filter, null);
+    Aggregate all = result.getGroups().get(Collections.<Long>emptyList());
+    return all == null ? 0 : all.getCount();
+  }
+
+  /**
+   * Aggregate a column over the games a filter accepts, grouped by the values of other columns
+   *
+   * @param filter  the filter
+   * @param value   the column to aggregate, or null to only count the games of each group
+   * @param groupBy the columns whose values form the groups, each between 0 and 65535
+   * @return the result of the query
+   * @throws IllegalArgumentException if the filter is null, there are more than
+   *                                  MAX_GROUP_COLUMNS grouping columns, or a grouping column
+   *                                  holds a value out of range in a block the filter reads
+   */
+  public Result query(GameFilter filter, GameColumn value, GameColumn... groupBy) {
+    if (filter == null || groupBy.length > MAX_GROUP_COLUMNS) {
+      throw new IllegalArgumentException();
+    }
+    long[][] vectors = new long[COLUMNS][];
+    boolean[] decoded = new boolean[COLUMNS];
+    int[] selection = new int[BLOCK_ROWS];
+    GroupTable groups = new GroupTable();
+    int read = 0;
+    int skipped = 0;
+
+    for (Block block : this.blocks) {
+      if (!block.mayMatch(filter)) {
+        skipped++;
+        continue;
+      }
+      read++;
+      Arrays.fill(decoded, false);
+      int count = block.rows;
+      for (int i = 0; i < count; i++) {
+        selection[i] = i;
+      }
+
+      for (int p = 0; p < filter.size() && count > 0; p++) {
+        int column = filter.column(p).ordinal();
+        long min = filter.min(p);
+        long max = filter.max(p);
+        if (min <= block.mins[column] && block.maxes[column] <= max) {
+          // Every row of the block passes this range
+          continue;
+        }
+        long[] vector = this.decode(block, column, vectors, decoded);
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+          long v = vector[selection[i]];
+          selection[kept] = selection[i];
+          kept += (v >= min && v <= max) ? 1 : 0;
+        }
+        count = kept;
+      }
+      if (count == 0) {
+        continue;
+      }
+
+      long[] values = value == null ? null : this.decode(block, value.ordinal(), vectors, decoded);
+      long[][] keys = new long[groupBy.length][];
+      for (int g = 0; g < groupBy.length; g++) {
+        int column = groupBy[g].ordinal();
+        if (block.mins[column] < 0 || block.maxes[column] >= 1L << GROUP_BITS) {
+          throw new IllegalArgumentException("Cannot group by " + groupBy[g]);
+        }
+        keys[g] = this.decode(block, column, vectors, decoded);
+      }
+      for (int i = 0; i < count; i++) {
+        int row = selection[i];
+        long key = 0;
+        for (long[] column : keys) {
+          key = (key << GROUP_BITS) | column[row];
+        }
+        groups.add(key, values == null ? 0 : values[row]);
+      }
+    }
+    return new Result(groups.toMap(groupBy.length), read, skipped);
+  }
+
+  private long[] decode(Block block, int column, long[][] vectors, boolean[] decoded) {
+    int rows = column == MOVES ? block.moves : block.rows;
+    if (vectors[column] == null || vectors[column].length < rows) {
+      vectors[column] = new long[Math.max(rows, BLOCK_ROWS)];
+    }
+    if (!decoded[column]) {
+      block.decode(column, vectors[column]);
+      decoded[column] = true;
+    }
+    return vectors[column];
+  }
+
+  /**
+   * Read back a whole game
+   *
+   * @param row the index of the game, in the order games were appended
+   * @return the game
+   * @throws IllegalArgumentException if there is no such game
+   */
+  public GameRecord read(long row) {
+    if (row < 0 || row >= this.size) {
+      throw new IllegalArgumentException("No such game: " + row);
+    }
+    int b = Arrays.binarySearch(this.firstRows, row);
+    b = b >= 0 ? b : -b - 2;
+    // Skip empty blocks sharing the same first row
+    while (this.firstRows[b + 1] <= row) {
+      b++;
+    }
+    Block block = this.blocks.get(b);
+    int index = (int) (row - this.firstRows[b]);
+    long[][] columns = new long[COLUMNS][];
+    for (int c = 0; c < COLUMNS; c++) {
+      columns[c] = new long[c == MOVES ? block.moves : block.rows];
+      block.decode(c, columns[c]);
+    }
+    int first = 0;
+    for (int i = 0; i < index; i++) {
+      first += (int) columns[GameColumn.Length.ordinal()][i];
+    }
+    int arm = (int) columns[GameColumn.Arm.ordinal()][index];
+    int size = 3 * arm - 2;
+    List<Move> moves = new ArrayList<Move>();
+    for (int m = 0; m < columns[GameColumn.Length.ordinal()][index]; m++) {
+      moves.add(decodeMove(columns[MOVES][first + m], size));
+    }
+    return new GameRecord(BoardShape.values()[(int) columns[GameColumn.Shape.ordinal()][index]],
+            arm, (int) columns[GameColumn.StartRow.ordinal()][index],
+            (int) columns[GameColumn.StartCol.ordinal()][index], moves,
+            (int) columns[GameColumn.Score.ordinal()][index],
+            columns[GameColumn.Duration.ordinal()][index]);
+  }
+
+  // Moves are stored as the cell jumped from and one of four directions
+  private static long encodeMove(Move move, int size) {
+    int rowStep = move.getToRow() - move.getFromRow();
+    int colStep = move.getToCol() - move.getFromCol();
+    int direction;
+    if (rowStep == -2 && colStep == 0) {
+      direction = 0;
+    } else if (rowStep == 2 && colStep == 0) {
+      direction = 1;
+    } else if (rowStep == 0 && colStep == -2) {
+      direction = 2;
+    } else if (rowStep == 0 && colStep == 2) {
+      direction = 3;
+    } else {
+      throw new IllegalArgumentException("Not a jump: " + move);
+    }
+    return 4L * (move.getFromRow() * size + move.getFromCol()) + direction;
+  }
+
+  private static Move decodeMove(long code, int size) {
+    int cell = (int) (code >>> 2);
+    int row = cell / size;
+    int col = cell % size;
+    int[][] steps = {{-2, 0}, {2, 0}, {0, -2}, {0, 2}};
+    int[] step = steps[(int) (code & 3)];
+    return new Move(row, col, row + step[0], col + step[1]);
+  }
+
+  /**
+   * Represents the outcome of a query: an aggregate for every group, in increasing order of
+   * their keys, and how many blocks were read or skipped by their zone maps
+   */
+  public static final class Result {
+    private final Map<List<Long>, Aggregate> groups;
+    private final int blocksRead;
+    private final int blocksSkipped;
+
+    private Result(Map<List<Long>, Aggregate> groups, int blocksRead, int blocksSkipped) {
+      this.groups = Collections.unmodifiableMap(groups);
+      this.blocksRead = blocksRead;
+      this.blocksSkipped = blocksSkipped;
+    }
+
+    /**
+     * Get the aggregate of every group with at least one game
+     *
+     * @return the aggregates, keyed by the values of the grouping columns in order
+     */
+    public Map<List<Long>, Aggregate> getGroups() {
+      return this.groups;
+    }
+
+    /**
+     * Get the number of blocks the query decoded columns of
+     *
+     * @return the number of blocks read
+     */
+    public int getBlocksRead() {
+      return this.blocksRead;
+    }
+
+    /**
+     * Get the number of blocks the query skipped because of their zone maps
+     *
+     * @return the number of blocks skipped
+     */
+    public int getBlocksSkipped() {
+      return this.blocksSkipped;
+    }
+  }
+
+  /**
+   * Represents one block of a store: its zone maps and where each chunk's payload starts
+   */
+  private static final class Block {
+    private final MappedByteBuffer buffer;
+    private final int rows;
+    private final int moves;
+    private final byte[] encodings;
+    private final long[] mins;
+    private final long[] maxes;
+    private final int[] payloads;
+
+    private Block(MappedByteBuffer buffer) {
+      this.buffer = buffer;
+      this.rows = buffer.getInt(4);
+      this.moves = buffer.getInt(8);
+      this.encodings = new byte[COLUMNS];
+      this.mins = new long[COLUMNS];
+      this.maxes = new long[COLUMNS];
+      this.payloads = new int[COLUMNS];
+      int position = BLOCK_HEADER;
+      for (int c = 0; c < COLUMNS; c++) {
+        this.encodings[c] = buffer.get(position);
+        this.mins[c] = buffer.getLong(position + 1);
+        this.maxes[c] = buffer.getLong(position + 9);
+        this.payloads[c] = position + CHUNK_HEADER;
+        position += CHUNK_HEADER + buffer.getInt(position + 17);
+      }
+    }
+
+    // Checks the filter against the zone maps; an empty block matches nothing
+    private boolean mayMatch(GameFilter filter) {
+      if (this.rows == 0) {
+        return false;
+      }
+      for (int p = 0; p < filter.size(); p++) {
+        int column = filter.column(p).ordinal();
+        if (filter.max(p) < this.mins[column] || filter.min(p) > this.maxes[column]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void decode(int column, long[] out) {
+      int count = column == MOVES ? this.moves : this.rows;
+      int position = this.payloads[column];
+      long min = this.mins[column];
+      if (this.encodings[column] == RUNS) {
+        int runs = this.buffer.getInt(position);
+        int row = 0;
+        for (int r = 0; r < runs; r++) {
+          int length = this.buffer.getInt(position + 4 + 12 * r);
+          long value = this.buffer.getLong(position + 8 + 12 * r);
+          Arrays.fill(out, row, row + length, value);
+          row += length;
+        }
+        return;
+      }
+      int bits = this.buffer.get(position);
+      if (bits == 0) {
+        Arrays.fill(out, 0, count, min);
+        return;
+      }
+      long mask = bits == 64 ? -1L : (1L << bits) - 1;
+      // Copy the words out in bulk so the unpacking loop runs over a plain array
+      long[] words = new long[(int) (((long) count * bits + 63) >>> 6)];
+      ByteBuffer packed = this.buffer.duplicate();
+      packed.position(position + 1);
+      packed.slice().asLongBuffer().get(words);
+      for (int i = 0; i < count; i++) {
+        long bit = (long) i * bits;
+        int word = (int) (bit >>> 6);
+        int shift = (int) (bit & 63);
+        long v = words[word] >>> shift;
+        if (shift + bits > 64) {
+          v |= words[word + 1] << (64 - shift);
+        }
+        out[i] = min + (v & mask);
+      }
+    }
+  }
+
+  /**
+   * Represents an open-addressing table from packed group keys to running aggregates, so
+   * grouping rows does not allocate per row
+   */
+  private static final class GroupTable {
+    private long[] keys = new long[16];
+    private boolean[] used = new boolean[16];
+    private long[] counts = new long[16];
+    private long[] sums = new long[16];
+    private long[] mins = new long[16];
+    private long[] maxes = new long[16];
+    private int size;
+
+    private static int slotOf(long key, int mask) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void add(long key, long value) {
+      int mask = this.keys.length - 1;
+      int slot = slotOf(key, mask);
+      while (this.used[slot] && this.keys[slot] != key) {
+        slot = (slot + 1) & mask;
+      }
+      if (!this.used[slot]) {
+        this.used[slot] = true;
+        this.keys[slot] = key;
+        this.mins[slot] = Long.MAX_VALUE;
+        this.maxes[slot] = Long.MIN_VALUE;
+        this.size++;
+      }
+      this.counts[slot]++;
+      this.sums[slot] += value;
+      this.mins[slot] = Math.min(this.mins[slot], value);
+      this.maxes[slot] = Math.max(this.maxes[slot], value);
+      if (this.size * 2 > this.keys.length) {
+        this.grow();
+      }
+    }
+
+    private void grow() {
+      GroupTable bigger = new GroupTable();
+      int capacity = this.keys.length * 2;
+      bigger.keys = new long[capacity];
+      bigger.used = new boolean[capacity];
+      bigger.counts = new long[capacity];
+      bigger.sums = new long[capacity];
+      bigger.mins = new long[capacity];
+      bigger.maxes = new long[capacity];
+      for (int slot = 0; slot < this.keys.length; slot++) {
+        if (this.used[slot]) {
+          int mask = capacity - 1;
+          int to = slotOf(this.keys[slot], mask);
+          while (bigger.used[to]) {
+            to = (to + 1) & mask;
+          }
+          bigger.used[to] = true;
+          bigger.keys[to] = this.keys[slot];
+          bigger.counts[to] = this.counts[slot];
+          bigger.sums[to] = this.sums[slot];
+          bigger.mins[to] = this.mins[slot];
+          bigger.maxes[to] = this.maxes[slot];
+        }
+      }
+      this.keys = bigger.keys;
+      this.used = bigger.used;
+      this.counts = bigger.counts;
+      this.sums = bigger.sums;
+      this.mins = bigger.mins;
+      this.maxes = bigger.maxes;
+    }
+
+    private Map<List<Long>, Aggregate> toMap(int columns) {
+      long[] sorted = new long[this.size];
+      int n = 0;
+      for (int slot = 0; slot < this.keys.length; slot++) {
+        if (this.used[slot]) {
+          sorted[n++] = this.keys[slot];
+        }
+      }
+      Arrays.sort(sorted);
+      Map<List<Long>, Aggregate> map = new LinkedHashMap<List<Long>, Aggregate>();
+      for (long key : sorted) {
+        int mask = this.keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (this.keys[slot] != key || !this.used[slot]) {
+          slot = (slot + 1) & mask;
+        }
+        Long[] values = new Long[columns];
+        for (int c = columns - 1; c >= 0; c--) {
+          values[c] = (key >>> (GROUP_BITS * (columns - 1 - c))) & ((1L << GROUP_BITS) - 1);
+        }
+        map.put(Arrays.asList(values), new Aggregate(this.counts[slot], this.sums[slot],
+                this.mins[slot], this.maxes[slot]));
+      }
+      return map;
+    }
+  }
+
+  /**
+   * Represents the writer of a store, which buffers one block of games in columns and appends it
+   * to the file when it is full or the writer is closed
+   */
+  public static final class Writer implements Closeable {
+    private final FileChannel channel;
+    private final long[][] columns;
+    private long[] moves;
+    private int rows;
+    private int moveCount;
+    private long position;
+
+    /**
+     * Constructs a writer appending to a store, creating the file if it does not exist
+     *
+     * @param file the file holding the store
+     * @throws IOException if the file cannot be written
+     */
+    public Writer(Path file) throws IOException {
+      this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      // Find the end of the last complete block, dropping anything a crash left after it
+      for (long length = blockLength(this.channel, 0); length >= 0;
+           length = blockLength(this.channel, this.position)) {
+        this.position += length;
+      }
+      this.channel.truncate(this.position);
+      this.columns = new long[GameColumn.values().length][BLOCK_ROWS];
+      this.moves = new long[BLOCK_ROWS];
+    }
+
+    /**
+     * Append a game
+     *
+     * @param game the game
+     * @throws IOException              if a full block cannot be written
+     * @throws IllegalArgumentException if a move of the game is not a jump
+     */
+    public void add(GameRecord game) throws IOException {
+      int size = 3 * game.getArmThickness() - 2;
+      List<Move> gameMoves = game.getMoves();
+      while (this.moveCount + gameMoves.size() > this.moves.length) {
+        this.moves = Arrays.copyOf(this.moves, this.moves.length * 2);
+      }
+      int count = this.moveCount;
+      for (Move move : gameMoves) {
+        this.moves[count++] = encodeMove(move, size);
+      }
+      this.moveCount = count;
+      this.columns[GameColumn.Shape.ordinal()][this.rows] = game.getShape().ordinal();
+      this.columns[GameColumn.Arm.ordinal()][this.rows] = game.getArmThickness();
+      this.columns[GameColumn.StartRow.ordinal()][this.rows] = game.getStartRow();
+      this.columns[GameColumn.StartCol.ordinal()][this.rows] = game.getStartCol();
+      this.columns[GameColumn.Score.ordinal()][this.rows] = game.getScore();
+      this.columns[GameColumn.Length.ordinal()][this.rows] = gameMoves.size();
+      this.columns[GameColumn.Duration.ordinal()][this.rows] = game.getDurationMillis();
+      this.rows++;
+      if (this.rows == BLOCK_ROWS) {
+        this.flush();
+      }
+    }
+
+    /**
+     * Write the games added so far as a block, even if it is not full
+     *
+     * @throws IOException if the block cannot be written
+     */
+    public void flush() throws IOException {
+      if (this.rows == 0) {
+        return;
+      }
+      List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+      int length = BLOCK_HEADER;
+      for (int c = 0; c < COLUMNS; c++) {
+        ByteBuffer chunk = c == MOVES ? encode(this.moves, this.moveCount)
+                : encode(this.columns[c], this.rows);
+        chunks.add(chunk);
+        length += chunk.remaining();
+      }
+      ByteBuffer block = ByteBuffer.allocate(length);
+      block.putInt(MAGIC).putInt(this.rows).putInt(this.moveCount);
+      for (ByteBuffer chunk : chunks) {
+        block.put(chunk);
+      }
+      block.flip();
+      while (block.hasRemaining()) {
+        this.position += this.channel.write(block, this.position);
+      }
+      this.rows = 0;
+      this.moveCount = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        this.flush();
+      } finally {
+        this.channel.close();
+      }
+    }
+
+    // Compress a column chunk with whichever encoding is smaller
+    private static ByteBuffer encode(long[] values, int count) {
+      long min = Long.MAX_VALUE;
+      long max = Long.MIN_VALUE;
+      int runs = 0;
+      for (int i = 0; i < count; i++) {
+        min = Math.min(min, values[i]);
+        max = Math.max(max, values[i]);
+        runs += (i == 0 || values[i] != values[i - 1]) ? 1 : 0;
+      }
+      if (count == 0) {
+        min = 0;
+        max = 0;
+      }
+      int bits = 64 - Long.numberOfLeadingZeros(max - min);
+      long packedBytes = 1 + 8 * (((long) count * bits + 63) >>> 6);
+      long runBytes = 4 + 12L * runs;
+
+      ByteBuffer chunk;
+      if (runBytes < packedBytes) {
+        chunk = ByteBuffer.allocate((int) (CHUNK_HEADER + runBytes));
+        chunk.put(RUNS).putLong(min).putLong(max).putInt((int) runBytes).putInt(runs);
+        for (int i = 0; i < count; ) {
+          int j = i;
+          while (j < count && values[j] == values[i]) {
+            j++;
+          }
+          chunk.putInt(j - i).putLong(values[i]);
+          i = j;
+        }
+      } else {
+        chunk = ByteBuffer.allocate((int) (CHUNK_HEADER + packedBytes));
+        chunk.put(PACKED).putLong(min).putLong(max).putInt((int) packedBytes).put((byte) bits);
+        long[] words = new long[(int) ((packedBytes - 1) / 8)];
+        for (int i = 0; i < count && bits > 0; i++) {
+          long v = values[i] - min;
+          long bit = (long) i * bits;
+          int word = (int) (bit >>> 6);
+          int shift = (int) (bit & 63);
+          words[word] |= v << shift;
+          if (shift + bits > 64) {
+            words[word + 1] |= v >>> (64 - shift);
+          }
+        }
+        for (long word : words) {
+          chunk.putLong(word);
+        }
+      }
+      return chunk.flip();
+    }
+  }
+}
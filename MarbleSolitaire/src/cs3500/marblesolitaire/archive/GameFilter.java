@@ -0,0 +1,82 @@
+package cs3500.marblesolitaire.archive;
+
+import java.util.Arrays;
+
+/**
+ * Represents a conjunction of inclusive ranges on the columns of a GameColumnStore. Filters are
+ * immutable; each call to where makes a new filter with one more range.
+ */
+public final class GameFilter {
+  private static final GameFilter ALL = new GameFilter(new GameColumn[0], new long[0],
+          new long[0]);
+
+  private final GameColumn[] columns;
+  private final long[] mins;
+  private final long[] maxes;
+
+  private GameFilter(GameColumn[] columns, long[] mins, long[] maxes) {
+    this.columns = columns;
+    this.mins = mins;
+    this.maxes = maxes;
+  }
+
+  /**
+   * Get the filter that accepts every game
+   *
+   * @return the filter
+   */
+  public static GameFilter all() {
+    return ALL;
+  }
+
+  /**
+   * Make a filter that also requires a column to lie in a range
+   *
+   * @param column the column
+   * @param min    the smallest value accepted
+   * @param max    the largest value accepted
+   * @return the new filter
+   * @throws IllegalArgumentException if the column is null
+   */
+  public GameFilter where(GameColumn column, long min, long max) {
+    if (column == null) {
+      throw new IllegalArgumentException();
+    }
+    int n = this.columns.length;
+    GameColumn[] columns = Arrays.copyOf(this.columns, n + 1);
+    long[] mins = Arrays.copyOf(this.mins, n + 1);
+    long[] maxes = Arrays.copyOf(this.maxes, n + 1);
+    columns[n] = column;
+    mins[n] = min;
+    maxes[n] = max;
+    return new GameFilter(columns, mins, maxes);
+  }
+
+  /**
+   * Make a filter that also requires a column to equal a value
+   *
+   * @param column the column
+   * @param value  the value accepted
+   * @return the new filter
+   * @throws IllegalArgumentException if the column is null
+   */
+  public GameFilter where(GameColumn column, long value) {
+    return this.where(column, value, value);
+  }
+
+  int size() {
+    return this.columns.length;
+  }
+
+  GameColumn column(int i) {
+    return this.columns[i];
+  }
+
+  long min(int i) {
+    return this.mins[i];
+  }
+
+  long max(int i) {
+    return this.maxes[i];
+  }
+}
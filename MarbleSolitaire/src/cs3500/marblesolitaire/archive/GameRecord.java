@@ -0,0 +1,139 @@
+package cs3500.marblesolitaire.archive;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.solver.Move;
+
+/**
+ * Represents one finished game as it is archived: the board it was played on, the hole that
+ * started empty, the moves made in order, the number of marbles left at the end and how long the
+ * game took. A game is won if it ended with a single marble.
+ */
+public final class GameRecord {
+  private final BoardShape shape;
+  private final int armThickness;
+  private final int startRow;
+  private final int startCol;
+  private final List<Move> moves;
+  private final int score;
+  private final long durationMillis;
+
+  /**
+   * Constructs a record of a finished game
+   *
+   * @param shape        the shape of the board
+   * @param armThickness the arm thickness of the board
+   * @param startRow     the row of the hole that started empty
+   * @param startCol     the column of the hole that started empty
+   * @param moves        the moves made, in order
+   * @param score        the number of marbles left at the end
+   * @throws IllegalArgumentException if the shape or the moves are null or the score is not
+   *                                  positive
+   */
+  public GameRecord(BoardShape shape, int armThickness, int startRow, int startCol,
+                    List<Move> moves, int score) {
+    this(shape, armThickness, startRow, startCol, moves, score, 0);
+  }
+
+  /**
+   * Constructs a record of a finished game whose duration is known
+   *
+   * @param shape          the shape of the board
+   * @param armThickness   the arm thickness of the board
+   * @param startRow       the row of the hole that started empty
+   * @param startCol       the column of the hole that started empty
+   * @param moves          the moves made, in order
+   * @param score          the number of marbles left at the end
+   * @param durationMillis how long the game took in milliseconds
+   * @throws IllegalArgumentException if the shape or the moves are null, the score is not
+   *                                  positive or the duration is negative
+   */
+  public GameRecord(BoardShape shape, int armThickness, int startRow, int startCol,
+                    List<Move> moves, int score, long durationMillis) {
+    if (shape == null || moves == null || score <= 0 || durationMillis < 0) {
+      throw new IllegalArgumentException();
+    }
+    this.shape = shape;
+    this.armThickness = armThickness;
+    this.startRow = startRow;
+    this.startCol = startCol;
+    this.moves = Collections.unmodifiableList(new ArrayList<Move>(moves));
+    this.score = score;
+    this.durationMillis = durationMillis;
+  }
+
+  /**
+   * Get the shape of the board
+   *
+   * @return the shape
+   */
+  public BoardShape getShape() {
+    return this.shape;
+  }
+
+  /**
+   * Get the arm thickness of the board
+   *
+   * @return the arm thickness
+   */
+  public int getArmThickness() {
+    return this.armThickness;
+  }
+
+  /**
+   * Get the row of the hole that started empty
+   *
+   * @return the start row
+   */
+  public int getStartRow() {
+    return this.startRow;
+  }
+
+  /**
+   * Get the column of the hole that started empty
+   *
+   * @return the start column
+   */
+  public int getStartCol() {
+    return this.startCol;
+  }
+
+  /**
+   * Get the moves of the game
+   *
+   * @return the moves in the order they were made
+   */
+  public List<Move> getMoves() {
+    return this.moves;
+  }
+
+  /**
+   * Get the number of marbles left at the end of the game
+   *
+   * @return the final score
+   */
+  public int getScore() {
+    return this.score;
+  }
+
+  /**
+   * Get how long the game took
+   *
+   * @return the duration in milliseconds, 0 if it was not recorded
+   */
+  public long getDurationMillis() {
+    return this.durationMillis;
+  }
+
+  /**
+   * Checks if the game ended with a single marble
+   *
+   * @return true if the game was won
+   */
+  public boolean isWon() {
+    return this.score == 1;
+  }
+}
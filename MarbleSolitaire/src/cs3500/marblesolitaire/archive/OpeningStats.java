@@ -0,0 +1,61 @@
+package cs3500.marblesolitaire.archive;
+
+/**
+ * Represents how archived games that began with some opening turned out
+ */
+public final class OpeningStats {
+  private final long wins;
+  private final long losses;
+
+  /**
+   * Constructs the results of an opening
+   *
+   * @param wins   the number of games that began with the opening and were won
+   * @param losses the number of games that began with the opening and were lost
+   */
+  public OpeningStats(long wins, long losses) {
+    this.wins = wins;
+    this.losses = losses;
+  }
+
+  /**
+   * Get the number of games that began with the opening
+   *
+   * @return the number of games
+   */
+  public long getGames() {
+    return this.wins + this.losses;
+  }
+
+  /**
+   * Get the number of those games that ended with a single marble
+   *
+   * @return the number of wins
+   */
+  public long getWins() {
+    return this.wins;
+  }
+
+  /**
+   * Get the number of those games that ended with more than one marble
+   *
+   * @return the number of losses
+   */
+  public long getLosses() {
+    return this.losses;
+  }
+
+  /**
+   * Get the fraction of those games that were won
+   *
+   * @return the win rate, or 0 if no game began with the opening
+   */
+  public double getWinRate() {
+    return this.getGames() == 0 ? 0 : (double) this.wins / this.getGames();
+  }
+
+  @Override
+  public String toString() {
+    return this.wins + " wins, " + this.losses + " losses";
+  }
+}
@@ -0,0 +1,428 @@
+package cs3500.marblesolitaire.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.Move;
+
+/**
+ * Represents the archived games of one board and starting hole as a compressed prefix trie of
+ * their moves, memory-mapped from a file written by an OpeningTree.Builder. Every node counts the
+ * wins and losses of the games passing through it. A chain of moves that every game through it
+ * plays in full, with no game branching off or ending part way, is stored as a single node with a
+ * label of several moves, so long shared openings cost one node instead of one per move.
+ *
+ * <p>Nodes are written children first, and each holds</p>
+ * <pre>
+ *   wins:int losses:int labelLength:short label:short[] childCount:short
+ *   (firstMove:short child:int)[] sorted by first move
+ * </pre>
+ * <p>with moves given as jump numbers of the board's BoardGeometry. A lookup binary searches the
+ * children of at most one node per label, reading straight from the mapped file, so it only
+ * touches the few pages holding the nodes on its path. Files are limited to 2 GB.</p>
+ */
+public final class OpeningTree {
+  private static final int MAGIC = 0x4D534F54;
+  private static final int HEADER = 17;
+  private static final int DIRECTIONS = 4;
+
+  private final BoardShape shape;
+  private final int armThickness;
+  private final int startRow;
+  private final int startCol;
+  private final BoardGeometry geometry;
+  // The jump from each hole in each direction, or -1 if there is none
+  private final int[] jumpOf;
+  private final MappedByteBuffer buffer;
+  private final int root;
+
+  private OpeningTree(BoardShape shape, int armThickness, int startRow, int startCol,
+                      MappedByteBuffer buffer, int root) {
+    this.shape = shape;
+    this.armThickness = armThickness;
+    this.startRow = startRow;
+    this.startCol = startCol;
+    this.geometry = new BoardGeometry(shape.create(armThickness, startRow, startCol));
+    this.jumpOf = jumpTable(this.geometry);
+    this.buffer = buffer;
+    this.root = root;
+  }
+
+  /**
+   * Open a tree written by a builder
+   *
+   * @param file the file holding the tree
+   * @return the tree
+   * @throws IOException              if the file cannot be read
+   * @throws IllegalArgumentException if the file does not hold a complete tree
+   */
+  public static OpeningTree open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER + 4 || channel.size() > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Not an opening tree: " + file);
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != MAGIC) {
+        throw new IllegalArgumentException("Not an opening tree: " + file);
+      }
+      int shape = buffer.get();
+      int arm = buffer.getInt();
+      int row = buffer.getInt();
+      int col = buffer.getInt();
+      int root = buffer.getInt(buffer.limit() - 4);
+      if (shape < 0 || shape >= BoardShape.values().length || root < HEADER
+              || root >= buffer.limit() - 4) {
+        throw new IllegalArgumentException("Corrupt opening tree: " + file);
+      }
+      return new OpeningTree(BoardShape.values()[shape], arm, row, col, buffer, root);
+    }
+  }
+
+  /**
+   * Get the shape of the board of the games
+   *
+   * @return the shape
+   */
+  public BoardShape getShape() {
+    return this.shape;
+  }
+
+  /**
+   * Get the arm thickness of the board of the games
+   *
+   * @return the arm thickness
+   */
+  public int getArmThickness() {
+    return this.armThickness;
+  }
+
+  /**
+   * Get the row of the hole every game started with empty
+   *
+   * @return the start row
+   */
+  public int getStartRow() {
+    return this.startRow;
+  }
+
+  /**
+   * Get the column of the hole every game started with empty
+   *
+   * @return the start column
+   */
+  public int getStartCol() {
+    return this.startCol;
+  }
+
+  /**
+   * Get the geometry of the board, whose jump numbers the tree stores
+   *
+   * @return the geometry
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Get the results of the games that began with an opening
+   *
+   * @param opening the first moves of the games
+   * @return the wins and losses of those games, both 0 if no game began that way
+   */
+  public OpeningStats lookup(List<Move> opening) {
+    int[] jumps = new int[opening.size()];
+    for (int i = 0; i < jumps.length; i++) {
+      jumps[i] = jumpOf(this.geometry, this.jumpOf, opening.get(i));
+      if (jumps[i] < 0) {
+        return new OpeningStats(0, 0);
+      }
+    }
+    return this.lookup(jumps, jumps.length);
+  }
+
+  /**
+   * Get the results of the games that began with an opening given as jump numbers
+   *
+   * @param jumps  the first moves of the games
+   * @param length the number of moves of the opening
+   * @return the wins and losses of those games, both 0 if no game began that way
+   */
+  public OpeningStats lookup(int[] jumps, int length) {
+    MappedByteBuffer buffer = this.buffer;
+    int node = this.root;
+    int matched = 0;
+    while (matched < length) {
+      int children = node + 10 + 2 * (buffer.getShort(node + 8) & 0xFFFF);
+      int low = 0;
+      int high = (buffer.getShort(children) & 0xFFFF) - 1;
+      int child = -1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        int first = buffer.getShort(children + 2 + 6 * middle) & 0xFFFF;
+        if (first < jumps[matched]) {
+          low = middle + 1;
+        } else if (first > jumps[matched]) {
+          high = middle - 1;
+        } else {
+          child = buffer.getInt(children + 4 + 6 * middle);
+          break;
+        }
+      }
+      if (child < 0) {
+        return new OpeningStats(0, 0);
+      }
+      // The first move of the label was matched by the search; the opening may end inside it
+      int label = buffer.getShort(child + 8) & 0xFFFF;
+      for (int i = 1; i < label && matched + i < length; i++) {
+        if ((buffer.getShort(child + 10 + 2 * i) & 0xFFFF) != jumps[matched + i]) {
+          return new OpeningStats(0, 0);
+        }
+      }
+      matched += label;
+      node = child;
+    }
+    return new OpeningStats(buffer.getInt(node), buffer.getInt(node + 4));
+  }
+
+  // Index the jumps of a board by from hole and direction
+  private static int[] jumpTable(BoardGeometry geometry) {
+    int[] table = new int[geometry.getHoleCount() * DIRECTIONS];
+    Arrays.fill(table, -1);
+    for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+      int from = geometry.getJumpFrom(jump);
+      int to = geometry.getJumpTo(jump);
+      table[from * DIRECTIONS + direction(geometry.rowOf(from), geometry.colOf(from),
+              geometry.rowOf(to), geometry.colOf(to))] = jump;
+    }
+    return table;
+  }
+
+  private static int direction(int fromRow, int fromCol, int toRow, int toCol) {
+    if (toRow != fromRow) {
+      return toRow < fromRow ? 0 : 1;
+    }
+    return toCol < fromCol ? 2 : 3;
+  }
+
+  private static int jumpOf(BoardGeometry geometry, int[] table, Move move) {
+    if (!geometry.isValid(move.getFromRow(), move.getFromCol())
+            || !geometry.isValid(move.getToRow(), move.getToCol())) {
+      return -1;
+    }
+    int from = geometry.holeAt(move.getFromRow(), move.getFromCol());
+    int jump = table[from * DIRECTIONS + direction(move.getFromRow(), move.getFromCol(),
+            move.getToRow(), move.getToCol())];
+    if (jump < 0 || geometry.getJumpTo(jump)
+            != geometry.holeAt(move.getToRow(), move.getToCol())) {
+      return -1;
+    }
+    return jump;
+  }
+
+  /**
+   * Represents the builder of an opening tree, which collects games in an uncompressed trie in
+   * memory and compresses it as it writes the file
+   */
+  public static final class Builder {
+    private final BoardShape shape;
+    private final int armThickness;
+    private final int startRow;
+    private final int startCol;
+    private final BoardGeometry geometry;
+    private final int[] jumpOf;
+    private final long[] start;
+    private final Node root;
+    private long size;
+
+    /**
+     * Constructs a builder of the tree of games on one board started with one hole empty
+     *
+     * @param shape        the shape of the board
+     * @param armThickness the arm thickness of the board
+     * @param startRow     the row of the starting hole
+     * @param startCol     the column of the starting hole
+     * @throws IllegalArgumentException if the shape is null, the board or the starting hole is
+     *                                  invalid or the board has too many jumps to store
+     */
+    public Builder(BoardShape shape, int armThickness, int startRow, int startCol) {
+      if (shape == null) {
+        throw new IllegalArgumentException();
+      }
+      this.shape = shape;
+      this.armThickness = armThickness;
+      this.startRow = startRow;
+      this.startCol = startCol;
+      this.geometry = new BoardGeometry(shape.create(armThickness, startRow, startCol));
+      if (this.geometry.getJumpCount() > 0xFFFF) {
+        throw new IllegalArgumentException("Too many jumps to store");
+      }
+      this.jumpOf = jumpTable(this.geometry);
+      this.start = this.geometry.pegs(shape.create(armThickness, startRow, startCol));
+      this.root = new Node();
+    }
+
+    /**
+     * Add a game to the tree
+     *
+     * @param game the game
+     * @throws IllegalArgumentException if the game was played on another board or from another
+     *                                  starting hole, makes an illegal move or has a score that
+     *                                  does not match its moves
+     */
+    public void add(GameRecord game) {
+      if (game.getShape() != this.shape || game.getArmThickness() != this.armThickness
+              || game.getStartRow() != this.startRow || game.getStartCol() != this.startCol) {
+        throw new IllegalArgumentException("Game is from another board or start");
+      }
+      List<Move> moves = game.getMoves();
+      int[] jumps = new int[moves.size()];
+      long[] board = this.start.clone();
+      for (int i = 0; i < jumps.length; i++) {
+        jumps[i] = jumpOf(this.geometry, this.jumpOf, moves.get(i));
+        if (jumps[i] < 0 || !this.geometry.isLegal(board, 0, jumps[i])) {
+          throw new IllegalArgumentException("Illegal move " + moves.get(i));
+        }
+        this.geometry.apply(board, 0, jumps[i]);
+      }
+      if (BoardGeometry.pegCount(board) != game.getScore()) {
+        throw new IllegalArgumentException("Score does not match the moves");
+      }
+
+      Node node = this.root;
+      node.count(game.isWon());
+      for (int jump : jumps) {
+        node = node.child(jump);
+        node.count(game.isWon());
+      }
+      node.ends++;
+      this.size++;
+    }
+
+    /**
+     * Get the number of games added
+     *
+     * @return the number of games
+     */
+    public long size() {
+      return this.size;
+    }
+
+    /**
+     * Write the compressed tree to a file, replacing it if it exists
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+              Files.newOutputStream(file), 1 << 16))) {
+        out.writeInt(MAGIC);
+        out.writeByte(this.shape.ordinal());
+        out.writeInt(this.armThickness);
+        out.writeInt(this.startRow);
+        out.writeInt(this.startCol);
+        int root = write(out, this.root, new int[0], 0);
+        out.writeInt(root);
+      }
+    }
+
+    /**
+     * Write the subtree below a node, then the node itself with the label leading to it
+     *
+     * @return the offset of the node in the file
+     */
+    private static int write(DataOutputStream out, Node node, int[] label, int labelLength)
+            throws IOException {
+      int[] firsts = new int[node.count];
+      int[] offsets = new int[node.count];
+      Integer[] order = new Integer[node.count];
+      for (int i = 0; i < node.count; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> Integer.compare(node.keys[a], node.keys[b]));
+
+      for (int i = 0; i < node.count; i++) {
+        // Follow the chain of moves every game below this child plays in full
+        Node end = node.children[order[i]];
+        int[] chain = new int[4];
+        int length = 0;
+        chain[length++] = node.keys[order[i]];
+        while (end.count == 1 && end.ends == 0) {
+          if (length == chain.length) {
+            chain = Arrays.copyOf(chain, length * 2);
+          }
+          chain[length++] = end.keys[0];
+          end = end.children[0];
+        }
+        firsts[i] = chain[0];
+        offsets[i] = write(out, end, chain, length);
+      }
+
+      int offset = out.size();
+      out.writeInt((int) Math.min(node.wins, Integer.MAX_VALUE));
+      out.writeInt((int) Math.min(node.losses, Integer.MAX_VALUE));
+      out.writeShort(labelLength);
+      for (int i = 0; i < labelLength; i++) {
+        out.writeShort(label[i]);
+      }
+      out.writeShort(node.count);
+      for (int i = 0; i < node.count; i++) {
+        out.writeShort(firsts[i]);
+        out.writeInt(offsets[i]);
+      }
+      // The stream's count sticks at the largest int once it overflows
+      if (out.size() == Integer.MAX_VALUE) {
+        throw new IOException("Opening tree larger than 2 GB");
+      }
+      return offset;
+    }
+  }
+
+  /**
+   * Represents a node of the uncompressed trie: one position reached by some games
+   */
+  private static final class Node {
+    private static final int[] NO_KEYS = new int[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private long wins;
+    private long losses;
+    private int ends;
+    private int[] keys = NO_KEYS;
+    private Node[] children = NO_CHILDREN;
+    private int count;
+
+    private void count(boolean won) {
+      if (won) {
+        this.wins++;
+      } else {
+        this.losses++;
+      }
+    }
+
+    private Node child(int jump) {
+      for (int i = 0; i < this.count; i++) {
+        if (this.keys[i] == jump) {
+          return this.children[i];
+        }
+      }
+      if (this.count == this.keys.length) {
+        this.keys = Arrays.copyOf(this.keys, Math.max(2, this.count * 2));
+        this.children = Arrays.copyOf(this.children, Math.max(2, this.count * 2));
+      }
+      this.keys[this.count] = jump;
+      this.children[this.count] = new Node();
+      return this.children[this.count++];
+    }
+  }
+}
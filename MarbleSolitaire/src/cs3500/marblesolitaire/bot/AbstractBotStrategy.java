@@ -0,0 +1,67 @@
+package cs3500.marblesolitaire.bot;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState.SlotState;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.Move;
+import cs3500.marblesolitaire.solver.MoveGenerator;
+import cs3500.marblesolitaire.solver.MoveGenerators;
+
+/**
+ * Represents a bot strategy that chooses its moves on the bitboard of the position. The geometry
+ * and move generator of the board are built the first time the bot sees it and kept as long as
+ * it keeps playing on boards of the same shape, so a strategy should not be shared by bots
+ * playing at the same time.
+ */
+public abstract class AbstractBotStrategy implements BotStrategy {
+  private BoardGeometry geometry;
+  private MoveGenerator generator;
+  private int[] jumps;
+
+  @Override
+  public Move chooseMove(MarbleSolitaireModelState state) {
+    if (!this.fits(state)) {
+      this.geometry = new BoardGeometry(state);
+      this.generator = MoveGenerators.forGeometry(this.geometry);
+      this.jumps = new int[this.geometry.getJumpCount()];
+    }
+    long[] board = this.geometry.pegs(state);
+    int count = this.generator.generate(board, 0, this.jumps, 0);
+    if (count == 0) {
+      return null;
+    }
+    int jump = this.choose(this.geometry, this.generator, board, this.jumps, count);
+    return jump < 0 ? null : this.geometry.toMove(jump);
+  }
+
+  /**
+   * Choose one of the legal jumps of a position
+   *
+   * @param geometry  the geometry of the board
+   * @param generator the move generator of the geometry
+   * @param board     the bitboard of the position, which may be changed
+   * @param jumps     the legal jumps of the position in its first count entries
+   * @param count     the number of legal jumps, at least 1
+   * @return the jump to make, or a negative number to quit
+   */
+  protected abstract int choose(BoardGeometry geometry, MoveGenerator generator, long[] board,
+                                int[] jumps, int count);
+
+  /**
+   * Checks if the geometry kept is for the board of a state
+   */
+  private boolean fits(MarbleSolitaireModelState state) {
+    int size = state.getBoardSize();
+    if (this.geometry == null || this.geometry.getBoardSize() != size) {
+      return false;
+    }
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        if (this.geometry.isValid(row, col) != (state.getSlotAt(row, col) != SlotState.Invalid)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
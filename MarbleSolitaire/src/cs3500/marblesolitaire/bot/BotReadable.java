@@ -0,0 +1,80 @@
+package cs3500.marblesolitaire.bot;
+
+import java.nio.CharBuffer;
+
+import cs3500.marblesolitaire.metrics.LatencyHistogram;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.solver.Move;
+
+/**
+ * Represents the input of a bot playing through a controller. Whenever the controller needs more
+ * input, the bot chooses its next move on the model the controller is playing and types it as
+ * four numbers on a line; it types "q" to quit when its strategy has no move. Moves are chosen
+ * only when asked for, so every move sees the board after the previous one was made.
+ */
+public class BotReadable implements Readable {
+  private final MarbleSolitaireModelState state;
+  private final BotStrategy strategy;
+  private final LatencyHistogram turns;
+  private String pending;
+  private int next;
+  private boolean quit;
+  private long lastRead;
+
+  /**
+   * Constructs the input of a bot
+   *
+   * @param state    the model the controller plays, which the bot reads its board from
+   * @param strategy the way the bot chooses its moves
+   * @throws IllegalArgumentException if any parameter is null
+   */
+  public BotReadable(MarbleSolitaireModelState state, BotStrategy strategy) {
+    this(state, strategy, null);
+  }
+
+  /**
+   * Constructs the input of a bot that also measures how long the controller takes to act on
+   * every move it types, from the end of one read to the start of the next
+   *
+   * @param state    the model the controller plays, which the bot reads its board from
+   * @param strategy the way the bot chooses its moves
+   * @param turns    the histogram to record the controller's turns in, or null to not measure
+   * @throws IllegalArgumentException if the state or strategy is null
+   */
+  public BotReadable(MarbleSolitaireModelState state, BotStrategy strategy,
+                     LatencyHistogram turns) {
+    if (state == null || strategy == null) {
+      throw new IllegalArgumentException();
+    }
+    this.state = state;
+    this.strategy = strategy;
+    this.turns = turns;
+  }
+
+  @Override
+  public int read(CharBuffer cb) {
+    long start = System.nanoTime();
+    if (this.turns != null && this.lastRead != 0) {
+      this.turns.record(start - this.lastRead);
+    }
+    if (this.pending == null || this.next == this.pending.length()) {
+      if (this.quit) {
+        return -1;
+      }
+      Move move = this.strategy.chooseMove(this.state);
+      if (move == null) {
+        this.pending = "q\n";
+        this.quit = true;
+      } else {
+        this.pending = move.getFromRow() + " " + move.getFromCol() + " " + move.getToRow() + " "
+                + move.getToCol() + "\n";
+      }
+      this.next = 0;
+    }
+    int length = Math.min(cb.remaining(), this.pending.length() - this.next);
+    cb.put(this.pending, this.next, this.next + length);
+    this.next += length;
+    this.lastRead = System.nanoTime();
+    return length;
+  }
+}
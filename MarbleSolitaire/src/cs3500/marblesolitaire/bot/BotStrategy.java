@@ -0,0 +1,17 @@
+package cs3500.marblesolitaire.bot;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.solver.Move;
+
+/**
+ * This interface represents a way for a bot to choose its moves in a game of marble solitaire
+ */
+public interface BotStrategy {
+  /**
+   * Choose the next move to make on a board
+   *
+   * @param state the current state of the game
+   * @return a legal move, or null if the bot wants to quit or has no move left
+   */
+  Move chooseMove(MarbleSolitaireModelState state);
+}
@@ -0,0 +1,32 @@
+package cs3500.marblesolitaire.bot;
+
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.MoveGenerator;
+
+/**
+ * Represents a bot strategy that makes the move leaving it the most legal moves afterwards,
+ * looking one move ahead. Ties go to the first such move.
+ */
+public class GreedyStrategy extends AbstractBotStrategy {
+  private long[] scratch;
+
+  @Override
+  protected int choose(BoardGeometry geometry, MoveGenerator generator, long[] board,
+                       int[] jumps, int count) {
+    if (this.scratch == null || this.scratch.length != board.length) {
+      this.scratch = new long[board.length];
+    }
+    int best = jumps[0];
+    int bestMoves = -1;
+    for (int i = 0; i < count; i++) {
+      System.arraycopy(board, 0, this.scratch, 0, board.length);
+      geometry.apply(this.scratch, 0, jumps[i]);
+      int moves = generator.countMoves(this.scratch, 0);
+      if (moves > bestMoves) {
+        best = jumps[i];
+        bestMoves = moves;
+      }
+    }
+    return best;
+  }
+}
@@ -0,0 +1,177 @@
+package cs3500.marblesolitaire.bot;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import cs3500.marblesolitaire.controller.ControllerMetrics;
+import cs3500.marblesolitaire.controller.HintService;
+import cs3500.marblesolitaire.controller.MarbleSolitaireControllerImpl;
+import cs3500.marblesolitaire.metrics.LatencyHistogram;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.model.hw04.ModelPool;
+import cs3500.marblesolitaire.view.MarbleSolitaireTextView;
+
+/**
+ * Represents a generator of load on the whole controller path. A number of sessions play at once,
+ * each on its own thread, one game after another: every game takes a model from a pool and runs
+ * a real controller with a real text view writing to an output that discards everything, fed by
+ * a bot through its Readable. All controllers record into the same metrics, so contention and
+ * allocation on the shared path show up in the tail latencies of the report.
+ */
+public final class LoadGenerator {
+  private final BoardShape shape;
+  private final int armThickness;
+  private final int sessions;
+  private final Supplier<BotStrategy> strategies;
+  private HintService hints;
+
+  /**
+   * Constructs a load generator
+   *
+   * @param shape        the shape of the boards played
+   * @param armThickness the arm thickness of the boards played
+   * @param sessions     the number of sessions playing at once
+   * @param strategies   makes the strategy of each session's bot
+   * @throws IllegalArgumentException if the shape or strategies are null, the arm thickness is
+   *                                  invalid or the number of sessions is not positive
+   */
+  public LoadGenerator(BoardShape shape, int armThickness, int sessions,
+                       Supplier<BotStrategy> strategies) {
+    if (shape == null || strategies == null || sessions <= 0) {
+      throw new IllegalArgumentException();
+    }
+    shape.create(armThickness);
+    this.shape = shape;
+    this.armThickness = armThickness;
+    this.sessions = sessions;
+    this.strategies = strategies;
+  }
+
+  /**
+   * Set the hint service the controllers prefetch hints from. By default they use the shared
+   * one, as players' controllers do.
+   *
+   * @param hints the hint service, or null for the shared one
+   */
+  public void setHintService(HintService hints) {
+    this.hints = hints;
+  }
+
+  /**
+   * Play games in every session until the time is up. Games in progress when it is up are
+   * played to the end.
+   *
+   * @param durationMillis how long to start new games for, in milliseconds
+   * @return the report of the run
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public LoadReport run(long durationMillis) throws InterruptedException {
+    ControllerMetrics metrics = new ControllerMetrics();
+    LatencyHistogram turns = new LatencyHistogram();
+    LatencyHistogram gameLatency = new LatencyHistogram();
+    ModelPool pool = new ModelPool(this.sessions);
+    pool.prewarm(this.shape, this.armThickness, this.sessions);
+    AtomicLong games = new AtomicLong();
+    AtomicLong errors = new AtomicLong();
+
+    long start = System.nanoTime();
+    long deadline = start + durationMillis * 1_000_000;
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int s = 0; s < this.sessions; s++) {
+      BotStrategy strategy = this.strategies.get();
+      Thread thread = new Thread(() -> {
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+          long gameStart = System.nanoTime();
+          AbstractSolitaireModel model = pool.acquire(this.shape, this.armThickness);
+          try {
+            MarbleSolitaireControllerImpl controller = new MarbleSolitaireControllerImpl(model,
+                    new MarbleSolitaireTextView(model, Writer.nullWriter()),
+                    new BotReadable(model, strategy, turns));
+            controller.setMetrics(metrics);
+            if (this.hints != null) {
+              controller.setHintService(this.hints);
+            }
+            controller.playGame();
+            games.incrementAndGet();
+          } catch (RuntimeException e) {
+            errors.incrementAndGet();
+          } finally {
+            pool.release(model);
+          }
+          gameLatency.record(System.nanoTime() - gameStart);
+        }
+      }, "load-session-" + s);
+      threads.add(thread);
+      thread.start();
+    }
+    try {
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    } catch (InterruptedException e) {
+      for (Thread thread : threads) {
+        thread.interrupt();
+      }
+      throw e;
+    }
+    return new LoadReport(this.sessions, System.nanoTime() - start, games.get(), errors.get(),
+            metrics, turns.snapshot(), gameLatency.snapshot());
+  }
+
+  /**
+   * Make a supplier of strategies from a name
+   *
+   * @param name       "random", "greedy" or "solver"
+   * @param nodeBudget the node budget of solver strategies
+   * @return a supplier making a new strategy, with its own seed if random, on every call
+   * @throws IllegalArgumentException if no strategy has the name
+   */
+  public static Supplier<BotStrategy> strategies(String name, long nodeBudget) {
+    switch (name.toLowerCase()) {
+      case "random":
+        AtomicLong seeds = new AtomicLong();
+        return () -> new RandomStrategy(seeds.incrementAndGet());
+      case "greedy":
+        return GreedyStrategy::new;
+      case "solver":
+        return () -> new SolverStrategy(nodeBudget);
+      default:
+        throw new IllegalArgumentException("Unknown strategy " + name);
+    }
+  }
+
+  /**
+   * Runs a load test and prints its report. The arguments are the shape, the arm thickness, the
+   * number of sessions, the duration in seconds, the strategy and, optionally, the node budget
+   * of the hint service and of solver strategies; without one, controllers use the shared hint
+   * service.
+   *
+   * @param args the command line arguments
+   * @throws InterruptedException if interrupted while the sessions play
+   */
+  public static void main(String[] args) throws InterruptedException {
+    if (args.length < 5) {
+      System.out.println("Usage: LoadGenerator shape armThickness sessions seconds "
+              + "random|greedy|solver [nodeBudget]");
+      return;
+    }
+    long nodeBudget = args.length > 5 ? Long.parseLong(args[5]) : 100_000;
+    LoadGenerator generator = new LoadGenerator(BoardShape.forName(args[0]),
+            Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+            strategies(args[4], nodeBudget));
+    HintService hints = null;
+    if (args.length > 5) {
+      hints = new HintService(nodeBudget);
+      generator.setHintService(hints);
+    }
+    LoadReport report = generator.run(Long.parseLong(args[3]) * 1000);
+    if (hints != null) {
+      hints.shutdown();
+    }
+    System.out.print(report);
+  }
+}
@@ -0,0 +1,124 @@
+package cs3500.marblesolitaire.bot;
+
+import cs3500.marblesolitaire.controller.ControllerMetrics;
+import cs3500.marblesolitaire.metrics.HistogramSnapshot;
+
+/**
+ * Represents the outcome of a run of a LoadGenerator: how much was played, how fast, and the
+ * distribution of the latencies measured along the way
+ */
+public final class LoadReport {
+  private final int sessions;
+  private final long elapsedNanos;
+  private final long games;
+  private final long errors;
+  private final ControllerMetrics metrics;
+  private final HistogramSnapshot turns;
+  private final HistogramSnapshot gameLatency;
+
+  LoadReport(int sessions, long elapsedNanos, long games, long errors,
+             ControllerMetrics metrics, HistogramSnapshot turns, HistogramSnapshot gameLatency) {
+    this.sessions = sessions;
+    this.elapsedNanos = elapsedNanos;
+    this.games = games;
+    this.errors = errors;
+    this.metrics = metrics;
+    this.turns = turns;
+    this.gameLatency = gameLatency;
+  }
+
+  /**
+   * Get the number of sessions that played at once
+   *
+   * @return the number of sessions
+   */
+  public int getSessions() {
+    return this.sessions;
+  }
+
+  /**
+   * Get how long the run took
+   *
+   * @return the elapsed time in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return this.elapsedNanos;
+  }
+
+  /**
+   * Get the number of games played to the end
+   *
+   * @return the number of games
+   */
+  public long getGames() {
+    return this.games;
+  }
+
+  /**
+   * Get the number of games that failed with an exception
+   *
+   * @return the number of failed games
+   */
+  public long getErrors() {
+    return this.errors;
+  }
+
+  /**
+   * Get the number of moves the controllers made
+   *
+   * @return the number of moves
+   */
+  public long getMoves() {
+    return this.metrics.getMoves();
+  }
+
+  /**
+   * Get the number of moves made per second over the whole run
+   *
+   * @return the sustained move rate
+   */
+  public double getMovesPerSecond() {
+    return this.metrics.getMoves() * 1e9 / Math.max(1, this.elapsedNanos);
+  }
+
+  /**
+   * Get the counters and histograms every controller of the run recorded into
+   *
+   * @return the metrics of the controllers
+   */
+  public ControllerMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  /**
+   * Get the distribution of the time a controller took to act on one move, from reading it to
+   * asking for the next: parsing, moving, checking for the end and rendering
+   *
+   * @return the turn latencies
+   */
+  public HistogramSnapshot getTurnLatency() {
+    return this.turns;
+  }
+
+  /**
+   * Get the distribution of the time a whole game took, bot thinking included
+   *
+   * @return the game latencies
+   */
+  public HistogramSnapshot getGameLatency() {
+    return this.gameLatency;
+  }
+
+  @Override
+  public String toString() {
+    return this.sessions + " sessions, " + this.games + " games, " + this.getMoves()
+            + " moves, " + this.errors + " errors in " + this.elapsedNanos / 1_000_000 + " ms\n"
+            + String.format("%.0f moves/s%n", this.getMovesPerSecond())
+            + "turn:        " + this.turns + "\n"
+            + "parse:       " + this.metrics.getParseLatency().snapshot() + "\n"
+            + "move:        " + this.metrics.getMoveLatency().snapshot() + "\n"
+            + "isGameOver:  " + this.metrics.getGameOverLatency().snapshot() + "\n"
+            + "renderBoard: " + this.metrics.getRenderLatency().snapshot() + "\n"
+            + "game:        " + this.gameLatency + "\n";
+  }
+}
@@ -0,0 +1,28 @@
+package cs3500.marblesolitaire.bot;
+
+import java.util.Random;
+
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.MoveGenerator;
+
+/**
+ * Represents a bot strategy that makes a legal move chosen uniformly at random
+ */
+public class RandomStrategy extends AbstractBotStrategy {
+  private final Random random;
+
+  /**
+   * Constructs a random strategy
+   *
+   * @param seed the seed of the moves chosen, so that games can be replayed
+   */
+  public RandomStrategy(long seed) {
+    this.random = new Random(seed);
+  }
+
+  @Override
+  protected int choose(BoardGeometry geometry, MoveGenerator generator, long[] board,
+                       int[] jumps, int count) {
+    return jumps[this.random.nextInt(count)];
+  }
+}
@@ -0,0 +1,54 @@
+package cs3500.marblesolitaire.bot;
+
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.Move;
+import cs3500.marblesolitaire.solver.MoveGenerator;
+import cs3500.marblesolitaire.solver.PegSolver;
+
+/**
+ * Represents a bot strategy that makes the best move a PegSolver finds within its node budget
+ */
+public class SolverStrategy extends AbstractBotStrategy {
+  private final long nodeBudget;
+  private PegSolver solver;
+
+  /**
+   * Constructs a strategy whose searches use the default node budget
+   */
+  public SolverStrategy() {
+    this(PegSolver.DEFAULT_NODE_BUDGET);
+  }
+
+  /**
+   * Constructs a strategy
+   *
+   * @param nodeBudget the number of positions each search may visit
+   * @throws IllegalArgumentException if the budget is not positive
+   */
+  public SolverStrategy(long nodeBudget) {
+    if (nodeBudget <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.nodeBudget = nodeBudget;
+  }
+
+  @Override
+  protected int choose(BoardGeometry geometry, MoveGenerator generator, long[] board,
+                       int[] jumps, int count) {
+    if (this.solver == null || !this.solver.getGeometry().equals(geometry)) {
+      this.solver = new PegSolver(geometry, this.nodeBudget, generator);
+    }
+    Move move = this.solver.solve(board).getBestMove();
+    if (move == null) {
+      return jumps[0];
+    }
+    int from = geometry.holeAt(move.getFromRow(), move.getFromCol());
+    int to = geometry.holeAt(move.getToRow(), move.getToCol());
+    for (int i = 0; i < count; i++) {
+      if (geometry.getJumpFrom(jumps[i]) == from && geometry.getJumpTo(jumps[i]) == to) {
+        return jumps[i];
+      }
+    }
+    return jumps[0];
+  }
+}
@@ -0,0 +1,143 @@
+package cs3500.marblesolitaire.controller;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import cs3500.marblesolitaire.metrics.LatencyHistogram;
+import cs3500.marblesolitaire.metrics.MetricsSink;
+
+/**
+ * Represents the counters and latency histograms a controller records while games are played.
+ * Recording never blocks, so one instance may be shared by every controller of a process, and
+ * the current values can be published to a MetricsSink at any time.
+ */
+public final class ControllerMetrics {
+  private final LongAdder moves = new LongAdder();
+  private final LongAdder invalidMoves = new LongAdder();
+  private final LongAdder quits = new LongAdder();
+  private final LongAdder gamesFinished = new LongAdder();
+  private final LatencyHistogram parse = new LatencyHistogram();
+  private final LatencyHistogram move = new LatencyHistogram();
+  private final LatencyHistogram gameOver = new LatencyHistogram();
+  private final LatencyHistogram render = new LatencyHistogram();
+
+  /**
+   * Count a move the model accepted
+   */
+  public void countMove() {
+    this.moves.increment();
+  }
+
+  /**
+   * Count a move the model rejected or that could not be parsed
+   */
+  public void countInvalidMove() {
+    this.invalidMoves.increment();
+  }
+
+  /**
+   * Count a game the user quit
+   */
+  public void countQuit() {
+    this.quits.increment();
+  }
+
+  /**
+   * Count a game played until no moves were left
+   */
+  public void countGameFinished() {
+    this.gamesFinished.increment();
+  }
+
+  /**
+   * Get the number of moves the model accepted
+   *
+   * @return the count
+   */
+  public long getMoves() {
+    return this.moves.sum();
+  }
+
+  /**
+   * Get the number of moves that were rejected
+   *
+   * @return the count
+   */
+  public long getInvalidMoves() {
+    return this.invalidMoves.sum();
+  }
+
+  /**
+   * Get the number of games quit
+   *
+   * @return the count
+   */
+  public long getQuits() {
+    return this.quits.sum();
+  }
+
+  /**
+   * Get the number of games played until no moves were left
+   *
+   * @return the count
+   */
+  public long getGamesFinished() {
+    return this.gamesFinished.sum();
+  }
+
+  /**
+   * Get the histogram of the time taken to validate and convert the four values of a move once
+   * each was read, not counting waiting for the input, prompts, messages or hints
+   *
+   * @return the histogram
+   */
+  public LatencyHistogram getParseLatency() {
+    return this.parse;
+  }
+
+  /**
+   * Get the histogram of the time taken by the model to make a move
+   *
+   * @return the histogram
+   */
+  public LatencyHistogram getMoveLatency() {
+    return this.move;
+  }
+
+  /**
+   * Get the histogram of the time taken by the model to check if the game is over
+   *
+   * @return the histogram
+   */
+  public LatencyHistogram getGameOverLatency() {
+    return this.gameOver;
+  }
+
+  /**
+   * Get the histogram of the time taken by the view to render the board
+   *
+   * @return the histogram
+   */
+  public LatencyHistogram getRenderLatency() {
+    return this.render;
+  }
+
+  /**
+   * Publish the current value of every counter and histogram
+   *
+   * @param sink where to publish them
+   * @throws IllegalArgumentException if the sink is null
+   */
+  public void publish(MetricsSink sink) {
+    if (sink == null) {
+      throw new IllegalArgumentException();
+    }
+    sink.counter("moves", this.getMoves());
+    sink.counter("invalidMoves", this.getInvalidMoves());
+    sink.counter("quits", this.getQuits());
+    sink.counter("gamesFinished", this.getGamesFinished());
+    sink.histogram("parse", this.parse.snapshot());
+    sink.histogram("move", this.move.snapshot());
+    sink.histogram("isGameOver", this.gameOver.snapshot());
+    sink.histogram("renderBoard", this.render.snapshot());
+  }
+}
@@ -0,0 +1,223 @@
+package cs3500.marblesolitaire.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import cs3500.marblesolitaire.solver.PegSolver;
+import cs3500.marblesolitaire.solver.Position;
+import cs3500.marblesolitaire.solver.SolverCache;
+import cs3500.marblesolitaire.solver.SolverResult;
+
+/**
+ * Represents a service that analyses positions in the background so that hints are ready by the
+ * time a player asks for one. Callers register interest in a position with prefetch and drop it
+ * with release. Requests for a position that is already being analysed share the running
+ * analysis, and an analysis that nobody is interested in anymore is cancelled. Finished analyses
+ * are kept in an optional solver cache so positions reached again later are answered at once.
+ */
+public class HintService {
+  /**
+   * The most bytes the cache of the shared hint service may use
+   */
+  public static final long SHARED_CACHE_BYTES = 64L << 20;
+
+  private static HintService shared;
+
+  private final ExecutorService executor;
+  private final long nodeBudget;
+  private final SolverCache cache;
+  private final Map<Position, Analysis> analyses;
+
+  // Represents one running or finished analysis and the number of callers waiting on it
+  private static final class Analysis {
+    private final Future<SolverResult> result;
+    private int interest;
+
+    private Analysis(Future<SolverResult> result) {
+      this.result = result;
+    }
+  }
+
+  /**
+   * Constructs a hint service whose solvers use the default node budget
+   */
+  public HintService() {
+    this(PegSolver.DEFAULT_NODE_BUDGET);
+  }
+
+  /**
+   * Constructs a hint service without a cache
+   *
+   * @param nodeBudget the number of positions each analysis may visit
+   * @throws IllegalArgumentException if the budget is not positive
+   */
+  public HintService(long nodeBudget) {
+    this(nodeBudget, null);
+  }
+
+  /**
+   * Constructs a hint service
+   *
+   * @param nodeBudget the number of positions each analysis may visit
+   * @param cache      the cache to reuse finished analyses from, or null to not cache them
+   * @throws IllegalArgumentException if the budget is not positive
+   */
+  public HintService(long nodeBudget, SolverCache cache) {
+    if (nodeBudget <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.executor = newExecutor();
+    this.nodeBudget = nodeBudget;
+    this.cache = cache;
+    this.analyses = new HashMap<Position, Analysis>();
+  }
+
+  /**
+   * Get the hint service shared by every controller, so that identical positions reached in
+   * different games are analysed once
+   *
+   * @return the shared hint service
+   */
+  public static synchronized HintService getShared() {
+    if (shared == null) {
+      shared = new HintService(PegSolver.DEFAULT_NODE_BUDGET,
+              new SolverCache(SHARED_CACHE_BYTES));
+    }
+    return shared;
+  }
+
+  /**
+   * Get the cache this service reuses finished analyses from
+   *
+   * @return the cache, or null if this service does not cache
+   */
+  public SolverCache getCache() {
+    return this.cache;
+  }
+
+  /**
+   * Register interest in a position and start analysing it in the background if it is not
+   * already being analysed. Every call must be balanced by a call to release.
+   *
+   * @param position the position to analyse
+   * @throws IllegalArgumentException if the position is null
+   */
+  public synchronized void prefetch(Position position) {
+    if (position == null) {
+      throw new IllegalArgumentException();
+    }
+    Analysis analysis = this.analyses.get(position);
+    if (analysis == null) {
+      PegSolver solver = new PegSolver(position.getGeometry(), this.nodeBudget);
+      long[] board = position.getBoard();
+      analysis = new Analysis(this.executor.submit(() -> this.solve(position, solver, board)));
+      this.analyses.put(position, analysis);
+    }
+    analysis.interest++;
+  }
+
+  /**
+   * Drop interest in a position. Once nobody is interested in a position anymore its analysis is
+   * cancelled if it is still running, and its result is forgotten.
+   *
+   * @param position a position previously passed to prefetch
+   */
+  public synchronized void release(Position position) {
+    Analysis analysis = this.analyses.get(position);
+    if (analysis == null) {
+      return;
+    }
+    analysis.interest--;
+    if (analysis.interest <= 0) {
+      analysis.result.cancel(true);
+      this.analyses.remove(position);
+    }
+  }
+
+  /**
+   * Wait for the analysis of a position. The position must currently be prefetched.
+   *
+   * @param position the position to get the analysis of
+   * @return the result of the analysis
+   * @throws IllegalArgumentException if the position is not being analysed
+   * @throws IllegalStateException    if the analysis failed or the wait was interrupted
+   */
+  public SolverResult await(Position position) {
+    Future<SolverResult> result;
+    synchronized (this) {
+      Analysis analysis = this.analyses.get(position);
+      if (analysis == null) {
+        throw new IllegalArgumentException("Position is not being analysed");
+      }
+      result = analysis.result;
+    }
+    try {
+      return result.get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Analyse a position, sharing the work with any analysis of it that is already running
+   *
+   * @param position the position to analyse
+   * @return the result of the analysis
+   */
+  public SolverResult analyse(Position position) {
+    this.prefetch(position);
+    try {
+      return this.await(position);
+    } finally {
+      this.release(position);
+    }
+  }
+
+  /**
+   * Analyse a position on a background thread, consulting the cache first. Results of analyses
+   * that were cancelled part way are not cached.
+   */
+  private SolverResult solve(Position position, PegSolver solver, long[] board) {
+    SolverResult result = this.cache == null ? null : this.cache.get(position);
+    if (result == null) {
+      result = solver.solve(board);
+      if (this.cache != null && !Thread.currentThread().isInterrupted()) {
+        this.cache.put(position, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Stop every running analysis and the threads running them
+   */
+  public void shutdown() {
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * Create the executor running the analyses. Each analysis gets its own virtual thread when the
+   * runtime supports them, and a daemon thread otherwise.
+   *
+   * @return the executor
+   */
+  private static ExecutorService newExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+              .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "hint-analysis");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+}
@@ -5,7 +5,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Scanner;
 
+import cs3500.marblesolitaire.metrics.MetricsSink;
 import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModel;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.Move;
+import cs3500.marblesolitaire.solver.Position;
+import cs3500.marblesolitaire.solver.SolverResult;
 import cs3500.marblesolitaire.view.MarbleSolitaireTextView;
 import cs3500.marblesolitaire.view.MarbleSolitaireView;
 
@@ -13,11 +18,25 @@ import cs3500.marblesolitaire.view.MarbleSolitaireView;
  * Represents an implementation of a marble solitaire controller
  */
 public class MarbleSolitaireControllerImpl implements MarbleSolitaireController {
+  private static final String[] PROMPTS = {
+      "Enter the row number of the position from where a marble is to be moved, beginning at 1:\n",
+      "Enter the column number of the position from where a marble is to be moved, beginning at 1:\n",
+      "Enter the row number of the position to where a marble is to be moved, beginning at 1:\n",
+      "Enter the column number of the position to where a marble is to be moved, beginning at 1:\n"
+  };
+
   private MarbleSolitaireModel model;
   private MarbleSolitaireView view;
   private Readable rd;
   private Scanner scanner;
   private boolean quit;
+  private HintService hints;
+  private BoardGeometry geometry;
+  private Position hintPosition;
+  private ControllerMetrics metrics;
+  private MetricsSink sink;
+  // The time spent checking the values of the current move once they were read
+  private long parsing;
 
   /**
    * Constructs an implementation of a marble solitaire controller
@@ -36,20 +55,22 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
       this.rd = rd;
       this.scanner = new Scanner(rd);
       this.quit = false;
+      this.hints = HintService.getShared();
+      this.metrics = new ControllerMetrics();
     }
   }
 
   /**
-   * Plays a new game of Marble Solitaire
+   * Plays a new game of Marble Solitaire, returning once no moves are left or the user quits
    *
    * @throws IllegalStateException if the controller is unable to successfully read input or transmit output
    */
   @Override
   public void playGame() throws IllegalStateException {
-    while ((!this.model.isGameOver()) && (!this.quit)) {
+    while ((!this.gameOver()) && (!this.quit)) {
       try {
         // Render the current state of the board
-        this.view.renderBoard();
+        this.renderBoard();
         this.view.renderMessage("\n");
         // Render the user's current score
         this.view.renderMessage("Score: " + this.model.getScore() + "\n");
@@ -57,28 +78,40 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
         throw new IllegalStateException(e);
       }
 
+      // Start analysing the new position while the user types their move
+      this.prefetchHint();
+
       // Collect user input
       ArrayList<String> inputs = new ArrayList<String>();
+      this.parsing = 0;
       try {
-        this.view.renderMessage("Enter the row number of the position from where a marble is to be moved, beginning at 1:\n");
-        inputs.add(this.value());
-        this.view.renderMessage("Enter the column number of the position from where a marble is to be moved, beginning at 1:\n");
-        inputs.add(this.value());
-        this.view.renderMessage("Enter the row number of the position to where a marble is to be moved, beginning at 1:\n");
-        inputs.add(this.value());
-        this.view.renderMessage("Enter the column number of the position to where a marble is to be moved, beginning at 1:\n");
-        inputs.add(this.value());
+        for (String prompt : PROMPTS) {
+          this.view.renderMessage(prompt);
+          inputs.add(this.value());
+          if (this.quit) {
+            break;
+          }
+        }
       } catch (IOException e) {
         throw new IllegalStateException(e);
       }
+      if (this.quit) {
+        break;
+      }
+      this.metrics.getParseLatency().record(this.parsing);
 
       // Pass the information on to the model to make the move
       try {
-        this.model.move(Integer.parseInt(inputs.get(0)),
-                Integer.parseInt(inputs.get(1)),
-                Integer.parseInt(inputs.get(2)),
-                Integer.parseInt(inputs.get(3)));
+        int fromRow = Integer.parseInt(inputs.get(0));
+        int fromCol = Integer.parseInt(inputs.get(1));
+        int toRow = Integer.parseInt(inputs.get(2));
+        int toCol = Integer.parseInt(inputs.get(3));
+        long start = System.nanoTime();
+        this.model.move(fromRow, fromCol, toRow, toCol);
+        this.metrics.getMoveLatency().record(System.nanoTime() - start);
+        this.metrics.countMove();
       } catch (IllegalArgumentException e) {
+        this.metrics.countInvalidMove();
         try {
           this.view.renderMessage("Invalid move. Play again." + "\n");
         } catch (IOException ex) {
@@ -87,20 +120,19 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
       }
     }
 
+    this.releaseHint();
+
     // If the game is over, the controller will transmit a game over message,
     // the final state of the board, and the final score
-    if (this.quit) {
-
-    }
-
-    if (this.model.isGameOver()) {
+    if (this.gameOver()) {
       try {
         this.view.renderMessage("Game over!\n");
         this.view.renderMessage("Final state of game:\n");
-        this.view.renderBoard();
+        this.renderBoard();
         this.view.renderMessage("\n");
         this.view.renderMessage("Score: " + this.model.getScore() + "\n");
-        System.exit(0);
+        this.metrics.countGameFinished();
+        this.publishMetrics();
       } catch (IOException e) {
         throw new IllegalStateException(e);
       }
@@ -114,9 +146,12 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
    */
   public String value() {
     String input = scanner.next().toString();
+    // Only the checks below are timed, not the wait for the input or a hint
+    long start = System.nanoTime();
 
     if (Character.isDigit(input.charAt(0))) {
       int intInput = Integer.parseInt(input);
+      this.parsing += System.nanoTime() - start;
       if (intInput < 0) {
         try {
           this.view.renderMessage("Invalid input! Enter a positive integer or the letter \'q\' or \'Q\' to quit");
@@ -133,13 +168,22 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
           this.setQuit(true);
           this.view.renderMessage("Game quit!\n");
           this.view.renderMessage("State of game when quit:\n");
-          this.view.renderBoard();
-          this.view.renderMessage("Score: " + this.model.getScore() + "\n");
-          System.exit(0);
+          this.renderBoard();
+          this.view.renderMessage("Score: " + this.model.getScore());
+          this.metrics.countQuit();
+          this.publishMetrics();
         } catch (IOException e) {
           throw new IllegalStateException(e);
         }
+      } else if (input.toUpperCase().equals("H") || input.toUpperCase().equals("HINT")) {
+        try {
+          this.view.renderMessage(this.hint());
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+        return this.value();
       } else {
+        this.parsing += System.nanoTime() - start;
         try {
           this.view.renderMessage("Invalid input! Enter a positive integer or the letter \'q\' or \'Q\' to quit");
           this.value();
@@ -147,10 +191,88 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
           throw new IllegalStateException(e);
         }
       }
+    } else {
+      this.parsing += System.nanoTime() - start;
     }
     return input;
   }
 
+  /**
+   * Check if the game is over, recording how long the model took to decide
+   *
+   * @return true if the game is over
+   */
+  private boolean gameOver() {
+    long start = System.nanoTime();
+    boolean over = this.model.isGameOver();
+    this.metrics.getGameOverLatency().record(System.nanoTime() - start);
+    return over;
+  }
+
+  /**
+   * Render the board, recording how long the view took
+   *
+   * @throws IOException if the view is unable to transmit the board
+   */
+  private void renderBoard() throws IOException {
+    long start = System.nanoTime();
+    this.view.renderBoard();
+    this.metrics.getRenderLatency().record(System.nanoTime() - start);
+  }
+
+  /**
+   * Publish the metrics of this MarbleSolitaireControllerImpl to its sink, if it has one
+   */
+  public void publishMetrics() {
+    if (this.sink != null) {
+      this.metrics.publish(this.sink);
+    }
+  }
+
+  /**
+   * Suggest a strong next move for the current position. The analysis of the position has
+   * usually been running in the background since the board was rendered, so the hint is ready
+   * almost immediately.
+   *
+   * @return a message describing the suggested move
+   */
+  public String hint() {
+    this.prefetchHint();
+    SolverResult result = this.hints.await(this.hintPosition);
+    Move move = result.getBestMove();
+    if (move == null) {
+      return "No moves left to hint.\n";
+    }
+    return "Hint: move the marble at (" + move.getFromRow() + ", " + move.getFromCol()
+            + ") to (" + move.getToRow() + ", " + move.getToCol() + ")\n";
+  }
+
+  /**
+   * Start analysing the current position of the model if it is not being analysed already. The
+   * analysis of the previous position is released, which cancels it if it is now stale.
+   */
+  private void prefetchHint() {
+    if (this.geometry == null) {
+      this.geometry = new BoardGeometry(this.model);
+    }
+    Position position = new Position(this.geometry, this.model);
+    if (!position.equals(this.hintPosition)) {
+      this.hints.prefetch(position);
+      this.releaseHint();
+      this.hintPosition = position;
+    }
+  }
+
+  /**
+   * Release the analysis of the last prefetched position, if any
+   */
+  private void releaseHint() {
+    if (this.hintPosition != null) {
+      this.hints.release(this.hintPosition);
+      this.hintPosition = null;
+    }
+  }
+
   /**
    * Get this MarbleSolitaireControllerImpl's model
    *
@@ -166,7 +288,64 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
    * @param model the model to use
    */
   public void setModel(MarbleSolitaireModel model) {
+    this.releaseHint();
     this.model = model;
+    this.geometry = null;
+  }
+
+  /**
+   * Get the service this MarbleSolitaireControllerImpl uses to compute hints
+   *
+   * @return the hint service
+   */
+  public HintService getHintService() {
+    return this.hints;
+  }
+
+  /**
+   * Set the service this MarbleSolitaireControllerImpl uses to compute hints
+   *
+   * @param hints the hint service to use
+   * @throws IllegalArgumentException if the hint service is null
+   */
+  public void setHintService(HintService hints) {
+    if (hints == null) {
+      throw new IllegalArgumentException();
+    }
+    this.releaseHint();
+    this.hints = hints;
+  }
+
+  /**
+   * Get the metrics this MarbleSolitaireControllerImpl records
+   *
+   * @return the metrics
+   */
+  public ControllerMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  /**
+   * Set the metrics this MarbleSolitaireControllerImpl records, so that several controllers may
+   * share them
+   *
+   * @param metrics the metrics to record
+   * @throws IllegalArgumentException if the metrics are null
+   */
+  public void setMetrics(ControllerMetrics metrics) {
+    if (metrics == null) {
+      throw new IllegalArgumentException();
+    }
+    this.metrics = metrics;
+  }
+
+  /**
+   * Set where this MarbleSolitaireControllerImpl publishes its metrics when a game ends
+   *
+   * @param sink the sink to publish to, or null to publish nowhere
+   */
+  public void setMetricsSink(MetricsSink sink) {
+    this.sink = sink;
   }
 
   /**
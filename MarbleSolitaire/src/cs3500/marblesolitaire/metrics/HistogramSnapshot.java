@@ -0,0 +1,87 @@
+package cs3500.marblesolitaire.metrics;
+
+/**
+ * Represents the counts of a LatencyHistogram at one moment, with the summary statistics derived
+ * from them. Values are reported as the lowest value of their bucket.
+ */
+public final class HistogramSnapshot {
+  private final long[] counts;
+  private final long count;
+
+  HistogramSnapshot(long[] counts) {
+    this.counts = counts;
+    long total = 0;
+    for (long c : counts) {
+      total += c;
+    }
+    this.count = total;
+  }
+
+  /**
+   * Get the number of values recorded
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return this.count;
+  }
+
+  /**
+   * Get the value below which a given fraction of the recorded values lie
+   *
+   * @param fraction the fraction, between 0 and 1
+   * @return the value in nanoseconds, or 0 if nothing was recorded
+   * @throws IllegalArgumentException if the fraction is out of range
+   */
+  public long getPercentile(double fraction) {
+    if (fraction < 0 || fraction > 1) {
+      throw new IllegalArgumentException("Invalid fraction " + fraction);
+    }
+    long rank = Math.max(1, (long) Math.ceil(fraction * this.count));
+    long seen = 0;
+    for (int i = 0; i < this.counts.length; i++) {
+      seen += this.counts[i];
+      if (seen >= rank) {
+        return LatencyHistogram.lowestOf(i);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Get the largest value recorded
+   *
+   * @return the value in nanoseconds, or 0 if nothing was recorded
+   */
+  public long getMax() {
+    for (int i = this.counts.length - 1; i >= 0; i--) {
+      if (this.counts[i] > 0) {
+        return LatencyHistogram.lowestOf(i);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Get the mean of the values recorded
+   *
+   * @return the mean in nanoseconds, or 0 if nothing was recorded
+   */
+  public double getMean() {
+    if (this.count == 0) {
+      return 0;
+    }
+    double sum = 0;
+    for (int i = 0; i < this.counts.length; i++) {
+      sum += (double) this.counts[i] * LatencyHistogram.lowestOf(i);
+    }
+    return sum / this.count;
+  }
+
+  @Override
+  public String toString() {
+    return "count " + this.count + ", p50 " + this.getPercentile(0.5) + " ns, p99 "
+            + this.getPercentile(0.99) + " ns, p99.9 " + this.getPercentile(0.999) + " ns, max "
+            + this.getMax() + " ns";
+  }
+}
@@ -0,0 +1,75 @@
+package cs3500.marblesolitaire.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Represents a lock-free histogram of latencies in nanoseconds with log-linear buckets, in the
+ * style of an HDR histogram. Values below 64 each get a bucket; above that, every power of two is
+ * split into 32 buckets, so any recorded value is known to within about 3%. Recording is a single
+ * atomic increment of one bucket, and any number of threads may record at once.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BITS = 5;
+  private static final int SUB = 1 << SUB_BITS;
+  private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+  private final AtomicLongArray counts;
+
+  /**
+   * Constructs an empty histogram
+   */
+  public LatencyHistogram() {
+    this.counts = new AtomicLongArray(BUCKETS);
+  }
+
+  /**
+   * Record one latency
+   *
+   * @param nanos the latency in nanoseconds; negative values count as 0
+   */
+  public void record(long nanos) {
+    this.counts.getAndIncrement(bucketOf(Math.max(0, nanos)));
+  }
+
+  /**
+   * Get the bucket a value falls in
+   *
+   * @param value a value that is not negative
+   * @return the index of its bucket
+   */
+  static int bucketOf(long value) {
+    if (value < 2 * SUB) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    return shift * SUB + (int) (value >>> shift);
+  }
+
+  /**
+   * Get the smallest value that falls in a bucket
+   *
+   * @param bucket the index of the bucket
+   * @return the lowest value of the bucket
+   */
+  static long lowestOf(int bucket) {
+    if (bucket < 2 * SUB) {
+      return bucket;
+    }
+    int shift = bucket / SUB - 1;
+    return (long) (bucket % SUB + SUB) << shift;
+  }
+
+  /**
+   * Copy the counts recorded so far. Values recorded while the copy is taken may or may not be
+   * included.
+   *
+   * @return the snapshot
+   */
+  public HistogramSnapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = this.counts.get(i);
+    }
+    return new HistogramSnapshot(copy);
+  }
+}
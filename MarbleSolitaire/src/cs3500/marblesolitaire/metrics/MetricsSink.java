@@ -0,0 +1,24 @@
+package cs3500.marblesolitaire.metrics;
+
+/**
+ * This interface represents a destination for snapshots of metrics, such as a log, a monitoring
+ * agent or a test. Metrics are published by name, a counter as its current value and a latency
+ * histogram as a snapshot of its distribution.
+ */
+public interface MetricsSink {
+  /**
+   * Receive the value of a counter
+   *
+   * @param name  the name of the counter
+   * @param value the number of events counted so far
+   */
+  void counter(String name, long value);
+
+  /**
+   * Receive a snapshot of a latency histogram
+   *
+   * @param name      the name of the histogram
+   * @param histogram the distribution of latencies recorded so far
+   */
+  void histogram(String name, HistogramSnapshot histogram);
+}
@@ -3,14 +3,39 @@ package cs3500.marblesolitaire.model.hw04;
 import java.util.ArrayList;
 
 import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModel;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
 import cs3500.marblesolitaire.model.hw02.Slot;
+import jdk.jfr.FlightRecorder;
+
+public abstract class AbstractSolitaireModel implements MarbleSolitaireModel, Cloneable {
+  /**
+   * The board switches to a list of its marbles once at most one in this many valid slots holds a
+   * marble, and back to scanning every slot once more than twice that many do
+   */
+  public static final int SPARSE_RATIO = 8;
 
-public abstract class AbstractSolitaireModel implements MarbleSolitaireModel {
   protected int armThickness;
   protected int sRow;
   protected int sCol;
   protected ArrayList<ArrayList<Slot>> gameBoard;
 
+  // The number of valid slots and of marbles on the board, kept up to date by every move
+  private int validCount;
+  private int marbleCount;
+  // While the board is sparse, the cells row * size + col holding a marble in no particular order
+  // and, for every cell, its index in that list; both are null while the board is dense
+  private int[] marbleCells;
+  private int[] marbleIndex;
+  // The immutable version of the board at the current ply, updated by every change to a slot
+  private BoardSnapshot snapshot;
+  // The Zobrist hash of the marbles on the board, and the ring moves are published to, if any
+  private long hash;
+  private MoveEventRing events;
+  // The cell a marble last landed in, or left by a move taken back, or -1 if there is none
+  private int lastCell = -1;
+  // The board with a marble in every valid slot, built by the first reset and shared by copies
+  private Template template;
+
   public AbstractSolitaireModel(int armThickness, int sRow, int sCol) {
     this.armThickness = armThickness;
     this.sRow = sRow;
@@ -25,12 +50,33 @@ public abstract class AbstractSolitaireModel implements MarbleSolitaireModel {
       throw new IllegalArgumentException();
     }
 
+    this.start(sRow, sCol);
+  }
+
+  /**
+   * Constructs a model whose shape is not given by an arm thickness. The subclass sets up
+   * whatever inRange and getBoardSize need and then calls start, before the model is used.
+   */
+  protected AbstractSolitaireModel() {
+    this.gameBoard = new ArrayList<ArrayList<Slot>>();
+  }
+
+  /**
+   * Build the board with a marble in every valid slot except the given one
+   *
+   * @param sRow the row of the empty slot
+   * @param sCol the column of the empty slot
+   * @throws IllegalArgumentException if the empty slot is not valid
+   */
+  protected void start(int sRow, int sCol) {
     if (!this.inRange(sRow, sCol)) {
-      throw new IllegalArgumentException("Invalid empty cell position (" + this.sRow + ","
-              + this.sCol + ")");
+      throw new IllegalArgumentException("Invalid empty cell position (" + sRow + ","
+              + sCol + ")");
     }
-
+    this.sRow = sRow;
+    this.sCol = sCol;
     this.initBoard(sRow, sCol);
+    this.recount();
   }
 
   /**
@@ -67,21 +113,14 @@ public abstract class AbstractSolitaireModel implements MarbleSolitaireModel {
    */
   @Override
   public int getScore() {
-    int temp = 0;
-    for (int i = 0; i < this.getBoardSize(); i++) {
-      for (int j = 0; j < this.getBoardSize(); j++) {
-        if (gameBoard.get(i).get(j).getSlotStatus().equals(SlotState.Marble)) {
-          temp++;
-        }
-      }
-    }
-    return temp;
+    return this.marbleCount;
   }
 
   /**
    * Move a single marble from a given position to another given position.
    * A move is valid only if the from and to positions are valid. Specific
    * implementations may place additional constraints on the validity of a move.
+   * A ModelMoveEvent is committed for the move if a recording has enabled it.
    *
    * @param fromRow the row number of the position to be moved from
    *                (starts at 0)
@@ -95,11 +134,25 @@ public abstract class AbstractSolitaireModel implements MarbleSolitaireModel {
    */
   @Override
   public void move(int fromRow, int fromCol, int toRow, int toCol) {
-
+    // Loading an event class starts up the flight recorder, so none is touched until it runs
+    ModelMoveEvent event = null;
+    if (FlightRecorder.isInitialized()) {
+      event = new ModelMoveEvent();
+      event.begin();
+    }
     if (!this.validMove(fromRow, fromCol, toRow, toCol)) {
       throw new IllegalArgumentException("Invalid Move");
     }
     this.moveHelp(fromRow, fromCol, toRow, toCol);
+    if (event != null && event.shouldCommit()) {
+      event.boardSize = this.getBoardSize();
+      event.fromRow = fromRow;
+      event.fromCol = fromCol;
+      event.toRow = toRow;
+      event.toCol = toCol;
+      event.score = this.marbleCount;
+      event.commit();
+    }
   }
 
   /**
@@ -110,39 +163,64 @@ public abstract class AbstractSolitaireModel implements MarbleSolitaireModel {
    */
   @Override
   public boolean isGameOver() {
-    if (this.getScore() == 0) {
+    if (this.marbleCount == 0) {
+      return true;
+    }
+
+    if (this.marbleCells != null) {
+      for (int i = 0; i < this.marbleCount; i++) {
+        int cell = this.marbleCells[i];
+        if (this.canJump(cell / this.getBoardSize(), cell % this.getBoardSize())) {
+          return false;
+        }
+      }
       return true;
     }
 
     for (int i = 0; i < this.getBoardSize(); i++) {
       for (int j = 0; j < this.getBoardSize(); j++) {
-        if (this.inRange(i, j)) {
-          if (this.inRange(i - 2, j)) {
-            if (this.validMove(i, j, i - 2, j)) {
-              return false;
-            }
-          }
-          if (this.inRange(i + 2, j)) {
-            if (this.validMove(i, j, i + 2, j)) {
-              return false;
-            }
-          }
-          if (this.inRange(i, j - 2)) {
-            if (this.validMove(i, j, i, j - 2)) {
-              return false;
-            }
-          }
-          if (this.inRange(i, j + 2)) {
-            if (this.validMove(i, j, i, j + 2)) {
-              return false;
-            }
-          }
+        if (this.canJump(i, j)) {
+          return false;
         }
       }
     }
     return true;
   }
 
+  /**
+   * Checks if the marble at a cell can jump in any direction
+   *
+   * @param row the row of the cell
+   * @param col the column of the cell
+   * @return true if the cell holds a marble with a legal move, false otherwise
+   */
+  private boolean canJump(int row, int col) {
+    if (this.statusAt(row, col) != SlotState.Marble) {
+      return false;
+    }
+    return this.canJump(row, col, -1, 0) || this.canJump(row, col, 1, 0)
+            || this.canJump(row, col, 0, -1) || this.canJump(row, col, 0, 1);
+  }
+
+  private boolean canJump(int row, int col, int rowStep, int colStep) {
+    return this.statusAt(row + rowStep, col + colStep) == SlotState.Marble
+            && this.statusAt(row + 2 * rowStep, col + 2 * colStep) == SlotState.Empty;
+  }
+
+  /**
+   * Get the state of a cell, treating cells off the board as invalid
+   *
+   * @param row the row of the cell
+   * @param col the column of the cell
+   * @return the state of the cell
+   */
+  private SlotState statusAt(int row, int col) {
+    if (row < 0 || col < 0 || row >= this.getBoardSize() || col >= this.getBoardSize()) {
+      return SlotState.Invalid;
+    }
+    return this.gameBoard.get(row).get(col).getSlotStatus();
+  }
+
   /**
    * Checks if the given board position is out of invalid range
    *
@@ -270,9 +348,422 @@ public abstract class AbstractSolitaireModel implements MarbleSolitaireModel {
       }
     }
 
-    this.gameBoard.get(fromRow).get(fromCol).setSlotStatus(SlotState.Empty);
-    this.gameBoard.get(midRow).get(midCol).setSlotStatus(SlotState.Empty);
-    this.gameBoard.get(toRow).get(toCol).setSlotStatus(SlotState.Marble);
+    int size = this.getBoardSize();
+    int from = fromRow * size + fromCol;
+    int mid = midRow * size + midCol;
+    int to = toRow * size + toCol;
+    boolean fromChanged = this.updateSlot(fromRow, fromCol, SlotState.Empty);
+    boolean midChanged = this.updateSlot(midRow, midCol, SlotState.Empty);
+    boolean toChanged = this.updateSlot(toRow, toCol, SlotState.Marble);
+    if (fromChanged && midChanged && toChanged) {
+      this.snapshot = this.snapshot.jumped(from, mid, to);
+    } else {
+      // Not a legal jump, so the snapshot takes each cell as it now is
+      BoardSnapshot before = this.snapshot;
+      this.snapshot = before.with(from, false).with(mid, false).with(to, true).after(before);
+    }
+    this.lastCell = to;
+    this.adapt();
+    this.publish(fromRow, fromCol, midRow, midCol, toRow, toCol, false);
+  }
+
+  /**
+   * Takes back a move made by moveHelp, putting marbles back in the from and middle cells and
+   * emptying the to cell
+   *
+   * @param fromRow the row number of the from cell of the move
+   * @param fromCol the column number of the from cell of the move
+   * @param toRow   the row number of the to cell of the move
+   * @param toCol   the column number of the to cell of the move
+   */
+  public void undoMove(int fromRow, int fromCol, int toRow, int toCol) {
+    int midRow = 0;
+    int midCol = 0;
+
+    if (Math.abs(fromCol - toCol) == 2) {
+      midRow = fromRow;
+      if (fromCol > toCol) {
+        midCol = fromCol - 1;
+      } else {
+        midCol = fromCol + 1;
+      }
+    } else {
+      midCol = fromCol;
+      if (fromRow > toRow) {
+        midRow = fromRow - 1;
+      } else {
+        midRow = fromRow + 1;
+      }
+    }
+
+    int size = this.getBoardSize();
+    int from = fromRow * size + fromCol;
+    int mid = midRow * size + midCol;
+    int to = toRow * size + toCol;
+    boolean fromChanged = this.updateSlot(fromRow, fromCol, SlotState.Marble);
+    boolean midChanged = this.updateSlot(midRow, midCol, SlotState.Marble);
+    boolean toChanged = this.updateSlot(toRow, toCol, SlotState.Empty);
+    if (fromChanged && midChanged && toChanged) {
+      this.snapshot = this.snapshot.rewound(from, mid, to);
+    } else {
+      // Not a jump being taken back, so the snapshot takes each cell as it now is
+      this.snapshot = this.snapshot.with(from, true).with(mid, true).with(to, false).rewound();
+    }
+    this.lastCell = from;
+    this.adapt();
+    this.publish(fromRow, fromCol, midRow, midCol, toRow, toCol, true);
+  }
+
+  /**
+   * Put a marble in a valid slot or empty it, to set up a position such as a puzzle
+   *
+   * @param row    the row of the slot
+   * @param col    the column of the slot
+   * @param status the new state of the slot, either marble or empty
+   * @throws IllegalArgumentException if the slot is not valid or the state is invalid
+   */
+  public void setSlotAt(int row, int col, SlotState status) {
+    if (row < 0 || col < 0 || row >= this.getBoardSize() || col >= this.getBoardSize()
+            || status == null || status == SlotState.Invalid
+            || this.getSlotAt(row, col) == SlotState.Invalid) {
+      throw new IllegalArgumentException("Cannot set slot (" + row + "," + col + ")");
+    }
+    this.setStatus(row, col, status);
+    this.adapt();
+  }
+
+  /**
+   * Get an immutable snapshot of the board as it is now. Taking one costs constant time, since
+   * the model keeps its current version up to date as it moves; later moves never change it, it
+   * may be read from any thread, and it can go back to any earlier ply of the game.
+   *
+   * @return the snapshot of the current ply
+   */
+  public BoardSnapshot snapshot() {
+    return this.snapshot;
+  }
+
+  /**
+   * Get the cell where the board last changed: the slot a marble landed in by the last move, or
+   * the slot a marble went back to when a move was taken back
+   *
+   * @return the cell row * size + col, or -1 if no move was made since the game started
+   */
+  public int getLastCell() {
+    return this.lastCell;
+  }
+
+  /**
+   * Get the Zobrist hash of the board, the exclusive or of a fixed random key for every cell
+   * holding a marble. Equal boards of the same size always have equal hashes.
+   *
+   * @return the hash
+   */
+  public long getHash() {
+    return this.hash;
+  }
+
+  /**
+   * Publish every move made or taken back from now on to a ring, from the thread that moves this
+   * model, along with every position loaded. Setting up slots with setSlotAt is not published.
+   *
+   * @param events the ring to publish to, or null to stop publishing
+   * @throws IllegalArgumentException if the ring is for boards of another size
+   */
+  public void setEventRing(MoveEventRing events) {
+    if (events != null && events.getBoardSize() != this.getBoardSize()) {
+      throw new IllegalArgumentException("Ring is for boards of another size");
+    }
+    this.events = events;
+  }
+
+  private void publish(int fromRow, int fromCol, int midRow, int midCol, int toRow, int toCol,
+                       boolean undo) {
+    if (this.events != null) {
+      int size = this.getBoardSize();
+      this.events.publish(fromRow * size + fromCol, midRow * size + midCol, toRow * size + toCol,
+              this.snapshot.getPly(), this.hash, undo);
+    }
+  }
+
+  /**
+   * Get the Zobrist key of a cell, mixed from its index so that no table needs to be kept
+   *
+   * @param cell the cell row * size + col
+   * @return the key
+   */
+  public static long zobrist(int cell) {
+    long z = (cell + 1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Checks if this board currently keeps a list of its marbles instead of scanning every slot.
+   * The choice only affects how fast the board answers queries, never what it answers.
+   *
+   * @return true if the board is sparse, false if it is dense
+   */
+  public boolean isSparse() {
+    return this.marbleCells != null;
+  }
+
+  /**
+   * Change the state of a slot, keeping the marble count, the marble list and the snapshot up to
+   * date
+   *
+   * @param row    the row of the slot
+   * @param col    the column of the slot
+   * @param status the new state of the slot
+   */
+  private void setStatus(int row, int col, SlotState status) {
+    if (this.updateSlot(row, col, status)) {
+      this.snapshot = this.snapshot.with(row * this.getBoardSize() + col,
+              status == SlotState.Marble);
+    }
+  }
+
+  /**
+   * Change the state of a slot, keeping the marble count and the marble list up to date but
+   * leaving the snapshot to the caller
+   *
+   * @param row    the row of the slot
+   * @param col    the column of the slot
+   * @param status the new state of the slot
+   * @return true if a marble was put in or taken out of the slot
+   */
+  private boolean updateSlot(int row, int col, SlotState status) {
+    Slot slot = this.gameBoard.get(row).get(col);
+    boolean had = slot.getSlotStatus() == SlotState.Marble;
+    boolean has = status == SlotState.Marble;
+    slot.setSlotStatus(status);
+    if (had == has) {
+      return false;
+    }
+    int cell = row * this.getBoardSize() + col;
+    this.hash ^= zobrist(cell);
+    if (has) {
+      if (this.marbleCells != null) {
+        this.marbleIndex[cell] = this.marbleCount;
+        this.marbleCells[this.marbleCount] = cell;
+      }
+      this.marbleCount++;
+    } else {
+      this.marbleCount--;
+      if (this.marbleCells != null) {
+        int last = this.marbleCells[this.marbleCount];
+        this.marbleCells[this.marbleIndex[cell]] = last;
+        this.marbleIndex[last] = this.marbleIndex[cell];
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Switch between the sparse and the dense representation if the number of marbles crossed a
+   * threshold. The thresholds are apart so that moving back and forth across one does not keep
+   * rebuilding the list.
+   */
+  private void adapt() {
+    if (this.marbleCells == null && this.marbleCount * SPARSE_RATIO <= this.validCount) {
+      int size = this.getBoardSize();
+      this.marbleCells = new int[this.validCount];
+      this.marbleIndex = new int[size * size];
+      int found = 0;
+      for (int i = 0; i < size; i++) {
+        for (int j = 0; j < size; j++) {
+          if (this.gameBoard.get(i).get(j).getSlotStatus() == SlotState.Marble) {
+            this.marbleIndex[i * size + j] = found;
+            this.marbleCells[found++] = i * size + j;
+          }
+        }
+      }
+    } else if (this.marbleCells != null
+            && this.marbleCount * SPARSE_RATIO > 2 * this.validCount) {
+      this.marbleCells = null;
+      this.marbleIndex = null;
+    }
+  }
+
+  /**
+   * Count the valid slots and the marbles of the board from scratch, pick its representation and
+   * start a new history of snapshots at ply 0
+   */
+  protected void recount() {
+    this.validCount = 0;
+    this.marbleCount = 0;
+    this.marbleCells = null;
+    this.marbleIndex = null;
+    this.hash = 0;
+    int size = this.getBoardSize();
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        SlotState status = this.gameBoard.get(i).get(j).getSlotStatus();
+        if (status != SlotState.Invalid) {
+          this.validCount++;
+        }
+        if (status == SlotState.Marble) {
+          this.marbleCount++;
+          this.hash ^= zobrist(i * size + j);
+        }
+      }
+    }
+    this.snapshot = BoardSnapshot.of(this);
+    this.lastCell = -1;
+    this.adapt();
+  }
+
+  /**
+   * Set up this board to hold the marbles of a position of the same shape, such as one read by
+   * BoardParser. Every slot is set in one pass and the counts, hash and representation are
+   * rebuilt once, and the history of snapshots starts over at ply 0 from the position, which is
+   * published whole to the model's ring, if any.
+   *
+   * @param position the position to set up
+   * @throws IllegalArgumentException if the position is null or its valid slots differ from
+   *                                  this board's
+   */
+  public void load(MarbleSolitaireModelState position) {
+    int size = this.getBoardSize();
+    if (position == null || position.getBoardSize() != size) {
+      throw new IllegalArgumentException("Position is for another board");
+    }
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        if ((position.getSlotAt(i, j) == SlotState.Invalid)
+                != (this.gameBoard.get(i).get(j).getSlotStatus() == SlotState.Invalid)) {
+          throw new IllegalArgumentException("Position is for another board");
+        }
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      ArrayList<Slot> row = this.gameBoard.get(i);
+      for (int j = 0; j < size; j++) {
+        row.get(j).setSlotStatus(position.getSlotAt(i, j));
+      }
+    }
+    this.recount();
+    if (this.events != null) {
+      this.events.publishPosition(this.snapshot, this.hash);
+    }
+  }
+
+  /**
+   * Start a new game on this board in place, with every valid slot holding a marble except the
+   * given one. The slots are overwritten from a template of the full board that is built once
+   * and shared with copies of this model, so no slot is allocated. The history of snapshots
+   * starts over at ply 0, and the new board is published whole to the model's ring, if any, so
+   * its consumers follow the new game.
+   *
+   * @param sRow the row of the empty slot
+   * @param sCol the column of the empty slot
+   * @throws IllegalArgumentException if the empty slot is not valid
+   */
+  public void reset(int sRow, int sCol) {
+    if (!this.inRange(sRow, sCol)) {
+      throw new IllegalArgumentException("Invalid empty cell position (" + sRow + ","
+              + sCol + ")");
+    }
+    if (this.template == null) {
+      this.template = new Template(this);
+    }
+    int size = this.getBoardSize();
+    SlotState[] states = this.template.states;
+    for (int i = 0; i < size; i++) {
+      ArrayList<Slot> row = this.gameBoard.get(i);
+      for (int j = 0; j < size; j++) {
+        row.get(j).setSlotStatus(states[i * size + j]);
+      }
+    }
+    int start = sRow * size + sCol;
+    this.gameBoard.get(sRow).get(sCol).setSlotStatus(SlotState.Empty);
+    this.sRow = sRow;
+    this.sCol = sCol;
+    this.validCount = this.template.validCount;
+    this.marbleCount = this.template.validCount - 1;
+    this.marbleCells = null;
+    this.marbleIndex = null;
+    this.hash = this.template.hash ^ zobrist(start);
+    this.snapshot = this.template.full.with(start, false);
+    this.lastCell = -1;
+    this.adapt();
+    if (this.events != null) {
+      this.events.publishPosition(this.snapshot, this.hash);
+    }
+  }
+
+  /**
+   * Makes an independent copy of this model with the same shape and marbles
+   *
+   * @return the copy
+   */
+  public AbstractSolitaireModel copy() {
+    try {
+      AbstractSolitaireModel copy = (AbstractSolitaireModel) super.clone();
+      copy.gameBoard = new ArrayList<ArrayList<Slot>>();
+      for (ArrayList<Slot> row : this.gameBoard) {
+        ArrayList<Slot> copyRow = new ArrayList<Slot>(row.size());
+        for (Slot slot : row) {
+          copyRow.add(new Slot(slot.getSlotStatus()));
+        }
+        copy.gameBoard.add(copyRow);
+      }
+      if (this.marbleCells != null) {
+        copy.marbleCells = this.marbleCells.clone();
+        copy.marbleIndex = this.marbleIndex.clone();
+      }
+      // Snapshots are immutable, so the copy simply shares the history up to now; a ring has
+      // only one producer, so the copy does not publish to this model's ring
+      copy.events = null;
+      return copy;
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // Represents the full board of a model: the state of every cell, the number of valid cells and
+  // the hash and snapshot of a marble in every one of them
+  private static final class Template implements MarbleSolitaireModelState {
+    private final int size;
+    private final SlotState[] states;
+    private final int validCount;
+    private final long hash;
+    private final BoardSnapshot full;
+
+    private Template(AbstractSolitaireModel model) {
+      this.size = model.getBoardSize();
+      this.states = new SlotState[this.size * this.size];
+      int valid = 0;
+      long full = 0;
+      for (int cell = 0; cell < this.states.length; cell++) {
+        if (model.inRange(cell / this.size, cell % this.size)) {
+          this.states[cell] = SlotState.Marble;
+          valid++;
+          full ^= zobrist(cell);
+        } else {
+          this.states[cell] = SlotState.Invalid;
+        }
+      }
+      this.validCount = valid;
+      this.hash = full;
+      this.full = BoardSnapshot.of(this);
+    }
+
+    @Override
+    public int getBoardSize() {
+      return this.size;
+    }
+
+    @Override
+    public SlotState getSlotAt(int row, int col) {
+      return this.states[row * this.size + col];
+    }
+
+    @Override
+    public int getScore() {
+      return this.validCount;
+    }
   }
 
   /**
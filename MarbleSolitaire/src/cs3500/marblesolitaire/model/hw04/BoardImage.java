@@ -0,0 +1,99 @@
+package cs3500.marblesolitaire.model.hw04;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+
+/**
+ * Represents a position read from outside the game: which slots of a square board are valid and
+ * which of them hold a marble, packed one bit per cell row * size + col. The valid slots may
+ * take any shape, so an image can describe boards no model constructor makes.
+ */
+public final class BoardImage implements MarbleSolitaireModelState {
+  private final int size;
+  private final long[] valid;
+  private final long[] marbles;
+  private final int validCount;
+  private final int score;
+
+  /**
+   * Constructs an image from its bits
+   *
+   * @param size    the size of the board
+   * @param valid   the bits of the valid cells
+   * @param marbles the bits of the cells holding a marble
+   * @throws IllegalArgumentException if the bits do not fit the size or a marble is on an
+   *                                  invalid cell
+   */
+  BoardImage(int size, long[] valid, long[] marbles) {
+    long cells = (long) size * size;
+    if (size <= 0 || valid.length != (cells + 63) >>> 6 || marbles.length != valid.length) {
+      throw new IllegalArgumentException();
+    }
+    int validCount = 0;
+    int score = 0;
+    for (int w = 0; w < valid.length; w++) {
+      if ((marbles[w] & ~valid[w]) != 0) {
+        throw new IllegalArgumentException("Marble on an invalid slot");
+      }
+      validCount += Long.bitCount(valid[w]);
+      score += Long.bitCount(marbles[w]);
+    }
+    this.size = size;
+    this.valid = valid;
+    this.marbles = marbles;
+    this.validCount = validCount;
+    this.score = score;
+  }
+
+  @Override
+  public int getBoardSize() {
+    return this.size;
+  }
+
+  @Override
+  public SlotState getSlotAt(int row, int col) {
+    if (row < 0 || col < 0 || row >= this.size || col >= this.size) {
+      throw new IllegalArgumentException("Beyond the dimensions of the board");
+    }
+    int cell = row * this.size + col;
+    if ((this.marbles[cell >>> 6] & (1L << cell)) != 0) {
+      return SlotState.Marble;
+    }
+    return (this.valid[cell >>> 6] & (1L << cell)) != 0 ? SlotState.Empty : SlotState.Invalid;
+  }
+
+  @Override
+  public int getScore() {
+    return this.score;
+  }
+
+  /**
+   * Get the number of valid slots of the board
+   *
+   * @return the number of slots that are empty or hold a marble
+   */
+  public int getValidCount() {
+    return this.validCount;
+  }
+
+  /**
+   * Checks if every slot of the board is valid in this image exactly when it is valid in a state
+   *
+   * @param state the state to compare with
+   * @return true if the state has the same size and the same valid slots
+   */
+  public boolean hasShapeOf(MarbleSolitaireModelState state) {
+    if (state.getBoardSize() != this.size) {
+      return false;
+    }
+    for (int row = 0; row < this.size; row++) {
+      for (int col = 0; col < this.size; col++) {
+        int cell = row * this.size + col;
+        boolean valid = (this.valid[cell >>> 6] & (1L << cell)) != 0;
+        if (valid != (state.getSlotAt(row, col) != SlotState.Invalid)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
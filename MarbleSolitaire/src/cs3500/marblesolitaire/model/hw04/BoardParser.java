@@ -0,0 +1,393 @@
+package cs3500.marblesolitaire.model.hw04;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState.SlotState;
+
+/**
+ * Reads positions of any shape in two formats, in one pass over the input through a reused buffer
+ * and without allocating per character.
+ *
+ * <p>The text format is the one MarbleSolitaireTextView prints: one line per row, with the slot
+ * of column c at character 2c as 'O' for a marble, '_' for an empty slot or a space for an
+ * invalid one, and a space between slots. Slots past the end of a line are invalid, and the board
+ * has as many columns as it has lines.
+ *
+ * <p>The run-length format starts with a header line "size = n", which may be preceded by
+ * comment lines starting with '#'. Then come the rows: 'O' for a marble, '_' for an empty slot
+ * and '.' for an invalid one, each optionally preceded by a repeat count, '$' to end a row (also
+ * with an optional count), and '!' to end the board. Slots after the last one given in a row are
+ * invalid, and whitespace between items is ignored. For example, the English board is
+ * "size = 7" followed by "2.3O$2.3O$7O$3O_3O$7O$2.3O$2.3O!".
+ */
+public final class BoardParser {
+  /**
+   * The largest board size that can be read, so that every cell has an int index
+   */
+  public static final int MAX_SIZE = 46340;
+
+  private static final int BUFFER_CHARS = 1 << 13;
+
+  private BoardParser() {
+  }
+
+  /**
+   * Read a position in whichever format the input is in, telling them apart by its first
+   * character
+   *
+   * @param in the input
+   * @return the position read
+   * @throws IOException              if the input cannot be read
+   * @throws IllegalArgumentException if the input is not a position in either format
+   */
+  public static BoardImage read(Readable in) throws IOException {
+    return parse(in, null);
+  }
+
+  /**
+   * Read a position in the text format
+   *
+   * @param in the input
+   * @return the position read
+   * @throws IOException              if the input cannot be read
+   * @throws IllegalArgumentException if the input is not a position in the text format
+   */
+  public static BoardImage readText(Readable in) throws IOException {
+    return parse(in, new TextFormat());
+  }
+
+  /**
+   * Read a position in the run-length format
+   *
+   * @param in the input
+   * @return the position read
+   * @throws IOException              if the input cannot be read
+   * @throws IllegalArgumentException if the input is not a position in the run-length format
+   */
+  public static BoardImage readRunLength(Readable in) throws IOException {
+    return parse(in, new RunLengthFormat());
+  }
+
+  /**
+   * Write a position in the run-length format, one row per line
+   *
+   * @param state the position to write
+   * @param out   the output
+   * @throws IOException if the output cannot be written
+   */
+  public static void writeRunLength(MarbleSolitaireModelState state, Appendable out)
+          throws IOException {
+    int size = state.getBoardSize();
+    out.append("size = ").append(Integer.toString(size)).append('\n');
+    for (int row = 0; row < size; row++) {
+      int col = 0;
+      // Trailing invalid slots are left out
+      int end = size;
+      while (end > 0 && state.getSlotAt(row, end - 1) == SlotState.Invalid) {
+        end--;
+      }
+      while (col < end) {
+        SlotState slot = state.getSlotAt(row, col);
+        int run = 1;
+        while (col + run < end && state.getSlotAt(row, col + run) == slot) {
+          run++;
+        }
+        if (run > 1) {
+          out.append(Integer.toString(run));
+        }
+        out.append(slot == SlotState.Marble ? 'O' : slot == SlotState.Empty ? '_' : '.');
+        col += run;
+      }
+      out.append(row == size - 1 ? "!\n" : "$\n");
+    }
+  }
+
+  private static BoardImage parse(Readable in, Format format) throws IOException {
+    CharBuffer buffer = CharBuffer.allocate(BUFFER_CHARS);
+    char[] chars = buffer.array();
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      if (read == 0 && buffer.hasRemaining()) {
+        continue;
+      }
+      if (format == null && buffer.position() > 0) {
+        char first = chars[0];
+        format = first == '#' || first == 's' ? new RunLengthFormat() : new TextFormat();
+      }
+      if (format != null) {
+        format.feed(chars, buffer.position());
+      }
+      buffer.clear();
+    }
+    if (format == null) {
+      throw new IllegalArgumentException("No board in the input");
+    }
+    return format.finish();
+  }
+
+  // Represents a format being read, fed the input one buffer at a time
+  private interface Format {
+    void feed(char[] chars, int length);
+
+    BoardImage finish();
+  }
+
+  /**
+   * Reads the text format. The size is only known at the end, so slots are first packed one
+   * after another, with the index of the first slot of every row, and moved to their cells once
+   * the number of rows is known.
+   */
+  private static final class TextFormat implements Format {
+    private long[] valid = new long[64];
+    private long[] marbles = new long[64];
+    private int[] rowStarts = new int[64];
+    private int slots;
+    private int rows;
+    // The position of the next character in its line; -1 between lines
+    private int column = -1;
+    private int longest;
+
+    @Override
+    public void feed(char[] chars, int length) {
+      for (int i = 0; i < length; i++) {
+        char c = chars[i];
+        if (c == '\r') {
+          continue;
+        }
+        if (this.column < 0) {
+          this.startRow();
+        }
+        if (c == '\n') {
+          this.column = -1;
+          continue;
+        }
+        if ((this.column & 1) == 0) {
+          // Invalid slots are packed too, so every slot needs room, not only the valid ones
+          this.ensure(this.slots);
+          if (c == 'O' || c == '_') {
+            this.valid[this.slots >>> 6] |= 1L << this.slots;
+            if (c == 'O') {
+              this.marbles[this.slots >>> 6] |= 1L << this.slots;
+            }
+          } else if (c != ' ') {
+            throw new IllegalArgumentException("Unexpected '" + c + "' in row " + this.rows);
+          }
+          this.slots++;
+          this.longest = Math.max(this.longest, (this.column >>> 1) + 1);
+        } else if (c != ' ') {
+          throw new IllegalArgumentException("Slots must be separated by spaces in row "
+                  + this.rows);
+        }
+        this.column++;
+      }
+    }
+
+    private void startRow() {
+      if (this.rows + 1 >= this.rowStarts.length) {
+        this.rowStarts = Arrays.copyOf(this.rowStarts, this.rowStarts.length * 2);
+      }
+      this.rowStarts[this.rows++] = this.slots;
+      this.rowStarts[this.rows] = this.slots;
+      if (this.rows > MAX_SIZE) {
+        throw new IllegalArgumentException("Board is too large");
+      }
+      this.column = 0;
+    }
+
+    private void ensure(int slot) {
+      int needed = (slot >>> 6) + 1;
+      if (needed > this.valid.length) {
+        int length = Math.max(2 * this.valid.length, needed);
+        this.valid = Arrays.copyOf(this.valid, length);
+        this.marbles = Arrays.copyOf(this.marbles, length);
+      }
+    }
+
+    @Override
+    public BoardImage finish() {
+      int size = this.rows;
+      if (size == 0) {
+        throw new IllegalArgumentException("No board in the input");
+      }
+      if (this.longest > size) {
+        throw new IllegalArgumentException("Row longer than the " + size + " rows of the board");
+      }
+      this.rowStarts[size] = this.slots;
+      int words = (int) (((long) size * size + 63) >>> 6);
+      long[] valid = new long[words];
+      long[] marbles = new long[words];
+      for (int row = 0; row < size; row++) {
+        int start = this.rowStarts[row];
+        int shift = row * size - start;
+        moveBits(this.valid, start, this.rowStarts[row + 1], shift, valid);
+        moveBits(this.marbles, start, this.rowStarts[row + 1], shift, marbles);
+      }
+      return new BoardImage(size, valid, marbles);
+    }
+
+    /**
+     * Copy the set bits from..to - 1 of a packed array to the same bits moved by a shift
+     */
+    private static void moveBits(long[] from, int start, int end, int shift, long[] to) {
+      for (int w = start >>> 6; w <= (end - 1) >>> 6 && start < end; w++) {
+        long bits = from[w];
+        if (w == start >>> 6) {
+          bits &= -1L << start;
+        }
+        if (w == (end - 1) >>> 6 && (end & 63) != 0) {
+          bits &= (1L << end) - 1;
+        }
+        while (bits != 0) {
+          int bit = (w << 6) + Long.numberOfTrailingZeros(bits) + shift;
+          to[bit >>> 6] |= 1L << bit;
+          bits &= bits - 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the run-length format, writing slots straight to their cells once the header gave the
+   * size
+   */
+  private static final class RunLengthFormat implements Format {
+    private static final int LINE_START = 0;
+    private static final int COMMENT = 1;
+    private static final int HEADER = 2;
+    private static final int BODY = 3;
+    private static final int DONE = 4;
+
+    private int state = LINE_START;
+    // The characters of "size" and '=' matched so far in the header
+    private int matched;
+    // The digits of the size read so far; the first character after them ends the header
+    private int digits;
+    private int size;
+    private long[] valid;
+    private long[] marbles;
+    private int row;
+    private int col;
+    private int count;
+
+    @Override
+    public void feed(char[] chars, int length) {
+      for (int i = 0; i < length && this.state != DONE; i++) {
+        char c = chars[i];
+        switch (this.state) {
+          case LINE_START:
+            if (c == '#') {
+              this.state = COMMENT;
+            } else if (!Character.isWhitespace(c)) {
+              this.state = HEADER;
+              this.header(c);
+            }
+            break;
+          case COMMENT:
+            if (c == '\n') {
+              this.state = LINE_START;
+            }
+            break;
+          case HEADER:
+            this.header(c);
+            break;
+          default:
+            this.body(c);
+        }
+      }
+    }
+
+    private void header(char c) {
+      if (Character.isWhitespace(c)) {
+        if (c == '\n' || this.digits > 0) {
+          this.startBody();
+        }
+        return;
+      }
+      if (this.matched < 5) {
+        if (c != "size=".charAt(this.matched)) {
+          throw new IllegalArgumentException("Expected a header \"size = n\"");
+        }
+        this.matched++;
+      } else if (c >= '0' && c <= '9') {
+        this.digits++;
+        this.size = this.size * 10 + (c - '0');
+        if (this.size > MAX_SIZE) {
+          throw new IllegalArgumentException("Board is too large");
+        }
+      } else {
+        // The header may end on the same line as the first row
+        this.startBody();
+        this.body(c);
+      }
+    }
+
+    private void startBody() {
+      if (this.matched < 5 || this.size == 0) {
+        throw new IllegalArgumentException("Expected a header \"size = n\"");
+      }
+      int words = (int) (((long) this.size * this.size + 63) >>> 6);
+      this.valid = new long[words];
+      this.marbles = new long[words];
+      this.state = BODY;
+    }
+
+    private void body(char c) {
+      if (c >= '0' && c <= '9') {
+        this.count = this.count * 10 + (c - '0');
+        if (this.count > MAX_SIZE) {
+          throw new IllegalArgumentException("Run longer than the board");
+        }
+        return;
+      }
+      if (Character.isWhitespace(c)) {
+        return;
+      }
+      int run = this.count == 0 ? 1 : this.count;
+      this.count = 0;
+      if (c == '$') {
+        this.row += run;
+        this.col = 0;
+        return;
+      }
+      if (c == '!') {
+        this.state = DONE;
+        return;
+      }
+      if (c != 'O' && c != '_' && c != '.') {
+        throw new IllegalArgumentException("Unexpected '" + c + "' in row " + this.row);
+      }
+      if (this.row >= this.size || this.col + run > this.size) {
+        throw new IllegalArgumentException("Slots beyond the edge of the board in row "
+                + this.row);
+      }
+      if (c != '.') {
+        int first = this.row * this.size + this.col;
+        setBits(this.valid, first, first + run);
+        if (c == 'O') {
+          setBits(this.marbles, first, first + run);
+        }
+      }
+      this.col += run;
+    }
+
+    private static void setBits(long[] bits, int from, int to) {
+      while (from < to) {
+        int end = Math.min(to, (from | 63) + 1);
+        long mask = (end & 63) == 0 ? -1L << from : ((1L << end) - 1) & (-1L << from);
+        bits[from >>> 6] |= mask;
+        from = end;
+      }
+    }
+
+    @Override
+    public BoardImage finish() {
+      if (this.state != DONE) {
+        throw new IllegalArgumentException("Board does not end with '!'");
+      }
+      return new BoardImage(this.size, this.valid, this.marbles);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package cs3500.marblesolitaire.model.hw04;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+
+/**
+ * This enum represents the built-in shapes of marble solitaire boards, so that tools can create
+ * a model of a shape chosen at runtime
+ */
+public enum BoardShape {
+  English, European;
+
+  /**
+   * Creates a new model of this shape with the empty slot in the center of the board
+   *
+   * @param armThickness the arm thickness (or side length) of the board
+   * @return the new model
+   * @throws IllegalArgumentException if the arm thickness is invalid
+   */
+  public AbstractSolitaireModel create(int armThickness) {
+    int center = (armThickness - 1) + (armThickness / 2);
+    return this.create(armThickness, center, center);
+  }
+
+  /**
+   * Creates a new model of this shape
+   *
+   * @param armThickness the arm thickness (or side length) of the board
+   * @param sRow         the row of the empty slot
+   * @param sCol         the column of the empty slot
+   * @return the new model
+   * @throws IllegalArgumentException if the arm thickness or the empty slot is invalid
+   */
+  public AbstractSolitaireModel create(int armThickness, int sRow, int sCol) {
+    if (this == English) {
+      return new EnglishSolitaireModel(armThickness, sRow, sCol);
+    }
+    return new EuropeanSolitaireModel(armThickness, sRow, sCol);
+  }
+
+  /**
+   * Finds the shape a model was created with
+   *
+   * @param model the model
+   * @return the shape whose create makes models of the same class
+   * @throws IllegalArgumentException if the model is not of a built-in shape
+   */
+  public static BoardShape of(AbstractSolitaireModel model) {
+    if (model != null && model.getClass() == EnglishSolitaireModel.class) {
+      return English;
+    }
+    if (model != null && model.getClass() == EuropeanSolitaireModel.class) {
+      return European;
+    }
+    throw new IllegalArgumentException("Not a model of a built-in shape");
+  }
+
+  /**
+   * Finds the shape with the given name, ignoring case
+   *
+   * @param name the name of the shape, such as "english"
+   * @return the shape
+   * @throws IllegalArgumentException if no shape has the name
+   */
+  public static BoardShape forName(String name) {
+    for (BoardShape shape : values()) {
+      if (shape.name().equalsIgnoreCase(name)) {
+        return shape;
+      }
+    }
+    throw new IllegalArgumentException("Unknown board shape " + name);
+  }
+}
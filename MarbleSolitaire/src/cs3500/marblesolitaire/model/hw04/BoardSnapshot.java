@@ -0,0 +1,279 @@
+package cs3500.marblesolitaire.model.hw04;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+
+/**
+ * Represents an immutable state of a board at one ply of a game. The marbles are held in a
+ * persistent trie: leaves hold the marble bits of 64 cells and branches hold up to 32 children.
+ * Changing a cell copies only the leaf holding it and the branches above it, so every version of a
+ * board shares all of its other nodes with the version before, and a model can hand out its
+ * current version in constant time. Each version also links to the version one ply earlier, so
+ * any earlier ply of the game can be read back from a snapshot.
+ *
+ * <p>Nothing reachable from a snapshot is ever changed after it is built, so snapshots may be read
+ * from any thread without locking while the game they came from keeps moving.</p>
+ */
+public final class BoardSnapshot implements MarbleSolitaireModelState {
+  private static final int LEAF_BITS = 6;
+  private static final int BRANCH_BITS = 5;
+  private static final int BRANCH = 1 << BRANCH_BITS;
+  private static final Node EMPTY = new Node(null, 0L);
+
+  private final int size;
+  private final int levels;
+  // Bit cell of valid[cell / 64] is set when the cell is on the board; shared by every version
+  private final long[] valid;
+  private final Node root;
+  private final int score;
+  private final int ply;
+  private final BoardSnapshot previous;
+  // The from and to cells of the jump that made this version from the previous one, or -1 if the
+  // board has been changed in any other way since
+  private final int jumpFrom;
+  private final int jumpTo;
+
+  private BoardSnapshot(int size, int levels, long[] valid, Node root, int score, int ply,
+                        BoardSnapshot previous, int jumpFrom, int jumpTo) {
+    this.size = size;
+    this.levels = levels;
+    this.valid = valid;
+    this.root = root;
+    this.score = score;
+    this.ply = ply;
+    this.previous = previous;
+    this.jumpFrom = jumpFrom;
+    this.jumpTo = jumpTo;
+  }
+
+  /**
+   * Build the first version of a board from the current state of a model
+   *
+   * @param state the state to read
+   * @return a snapshot at ply 0 with no earlier versions
+   */
+  static BoardSnapshot of(MarbleSolitaireModelState state) {
+    int size = state.getBoardSize();
+    int cells = size * size;
+    long[] valid = new long[(cells + 63) >>> LEAF_BITS];
+    long[] marbles = new long[valid.length];
+    int score = 0;
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        int cell = row * size + col;
+        SlotState status = state.getSlotAt(row, col);
+        if (status != SlotState.Invalid) {
+          valid[cell >>> LEAF_BITS] |= 1L << cell;
+        }
+        if (status == SlotState.Marble) {
+          marbles[cell >>> LEAF_BITS] |= 1L << cell;
+          score++;
+        }
+      }
+    }
+    int levels = 0;
+    while (1L << (BRANCH_BITS * levels) < marbles.length) {
+      levels++;
+    }
+    return new BoardSnapshot(size, levels, valid, build(marbles, levels, 0), score, 0, null, -1,
+            -1);
+  }
+
+  private static Node build(long[] leaves, int levels, int first) {
+    if (first >= leaves.length) {
+      // Never read, since no cell lies beyond the last leaf
+      return EMPTY;
+    }
+    if (levels == 0) {
+      return new Node(null, leaves[first]);
+    }
+    Node[] children = new Node[BRANCH];
+    int span = 1 << (BRANCH_BITS * (levels - 1));
+    for (int i = 0; i < BRANCH; i++) {
+      children[i] = build(leaves, levels - 1, first + i * span);
+    }
+    return new Node(children, 0L);
+  }
+
+  /**
+   * Make the version of this board with one cell changed, at the same ply
+   *
+   * @param cell   the cell row * size + col to change
+   * @param marble true to put a marble in the cell, false to empty it
+   * @return the changed version, sharing every untouched node with this one
+   */
+  BoardSnapshot with(int cell, boolean marble) {
+    if (this.has(cell) == marble) {
+      return this;
+    }
+    return new BoardSnapshot(this.size, this.levels, this.valid,
+            set(this.root, this.levels, cell, marble), this.score + (marble ? 1 : -1), this.ply,
+            this.previous, -1, -1);
+  }
+
+  private static Node set(Node node, int level, int cell, boolean marble) {
+    if (level == 0) {
+      long bit = 1L << cell;
+      return new Node(null, marble ? node.bits | bit : node.bits & ~bit);
+    }
+    int index = ((cell >>> LEAF_BITS) >>> (BRANCH_BITS * (level - 1))) & (BRANCH - 1);
+    Node[] children = node.children.clone();
+    children[index] = set(children[index], level - 1, cell, marble);
+    return new Node(children, 0L);
+  }
+
+  /**
+   * Make the version of this board one ply later, after a jump. The three cells are changed in one
+   * copy of the path to their leaves, which is a single leaf on boards of up to 64 cells.
+   *
+   * @param from the cell the marble jumps from, which holds a marble
+   * @param over the cell jumped over, which holds a marble
+   * @param to   the cell the marble lands in, which is empty
+   * @return a snapshot with the jump played, one ply later than this one and linked to it
+   */
+  BoardSnapshot jumped(int from, int over, int to) {
+    return new BoardSnapshot(this.size, this.levels, this.valid,
+            flip(this.root, this.levels, 0, from, over, to), this.score - 1, this.ply + 1, this,
+            from, to);
+  }
+
+  private static Node flip(Node node, int level, int firstLeaf, int from, int over, int to) {
+    if (level == 0) {
+      long bits = node.bits;
+      bits ^= from >>> LEAF_BITS == firstLeaf ? 1L << from : 0L;
+      bits ^= over >>> LEAF_BITS == firstLeaf ? 1L << over : 0L;
+      bits ^= to >>> LEAF_BITS == firstLeaf ? 1L << to : 0L;
+      return new Node(null, bits);
+    }
+    int shift = BRANCH_BITS * (level - 1);
+    int a = (from >>> LEAF_BITS) >>> shift & (BRANCH - 1);
+    int b = (over >>> LEAF_BITS) >>> shift & (BRANCH - 1);
+    int c = (to >>> LEAF_BITS) >>> shift & (BRANCH - 1);
+    Node[] children = node.children.clone();
+    children[a] = flip(node.children[a], level - 1, firstLeaf + (a << shift), from, over, to);
+    if (b != a) {
+      children[b] = flip(node.children[b], level - 1, firstLeaf + (b << shift), from, over, to);
+    }
+    if (c != a && c != b) {
+      children[c] = flip(node.children[c], level - 1, firstLeaf + (c << shift), from, over, to);
+    }
+    return new Node(children, 0L);
+  }
+
+  /**
+   * Make the version of this board after a jump is taken back. If this version is the one the jump
+   * made, with nothing changed since, it is simply the version the jump was played from.
+   *
+   * @param from the cell the marble jumped from, which is empty
+   * @param over the cell jumped over, which is empty
+   * @param to   the cell the marble landed in, which holds a marble
+   * @return a snapshot with the jump taken back, one ply earlier than this one, or at ply 0 if
+   *         this one is the first
+   */
+  BoardSnapshot rewound(int from, int over, int to) {
+    if (this.jumpFrom == from && this.jumpTo == to) {
+      return this.previous;
+    }
+    return new BoardSnapshot(this.size, this.levels, this.valid,
+            flip(this.root, this.levels, 0, from, over, to), this.score + 1, this.ply,
+            this.previous, -1, -1).rewound();
+  }
+
+  /**
+   * Make the version of this board one ply after another version, for changes that were not a
+   * jump
+   *
+   * @param before the version the ply was played from
+   * @return a snapshot with this board, one ply later than before and linked to it
+   */
+  BoardSnapshot after(BoardSnapshot before) {
+    return new BoardSnapshot(this.size, this.levels, this.valid, this.root, this.score,
+            before.ply + 1, before, -1, -1);
+  }
+
+  /**
+   * Make the version of this board one ply earlier, for changes that were not a jump taken back
+   *
+   * @return a snapshot with this board, one ply earlier than this one and linked to the version
+   *         that ply was played from, or at ply 0 if this one is the first
+   */
+  BoardSnapshot rewound() {
+    if (this.previous == null) {
+      return new BoardSnapshot(this.size, this.levels, this.valid, this.root, this.score, 0, null,
+              -1, -1);
+    }
+    return new BoardSnapshot(this.size, this.levels, this.valid, this.root, this.score,
+            this.previous.ply, this.previous.previous, -1, -1);
+  }
+
+
+  private boolean has(int cell) {
+    Node node = this.root;
+    for (int level = this.levels; level > 0; level--) {
+      node = node.children[((cell >>> LEAF_BITS) >>> (BRANCH_BITS * (level - 1)))
+              & (BRANCH - 1)];
+    }
+    return (node.bits & (1L << cell)) != 0;
+  }
+
+  @Override
+  public int getBoardSize() {
+    return this.size;
+  }
+
+  @Override
+  public SlotState getSlotAt(int row, int col) {
+    if (row < 0 || col < 0 || row >= this.size || col >= this.size) {
+      throw new IllegalArgumentException("Beyond the dimensions of the board");
+    }
+    int cell = row * this.size + col;
+    if ((this.valid[cell >>> LEAF_BITS] & (1L << cell)) == 0) {
+      return SlotState.Invalid;
+    }
+    return this.has(cell) ? SlotState.Marble : SlotState.Empty;
+  }
+
+  @Override
+  public int getScore() {
+    return this.score;
+  }
+
+  /**
+   * Get the number of moves played to reach this version, less any taken back
+   *
+   * @return the ply of this snapshot
+   */
+  public int getPly() {
+    return this.ply;
+  }
+
+  /**
+   * Get the version of this board at an earlier ply of the same game
+   *
+   * @param ply the ply to go back to, from 0 up to this snapshot's ply
+   * @return the snapshot of that ply
+   * @throws IllegalArgumentException if the ply is negative or later than this snapshot
+   */
+  public BoardSnapshot atPly(int ply) {
+    if (ply < 0 || ply > this.ply) {
+      throw new IllegalArgumentException("No ply " + ply + " before ply " + this.ply);
+    }
+    BoardSnapshot snapshot = this;
+    while (snapshot.ply > ply) {
+      snapshot = snapshot.previous;
+    }
+    return snapshot;
+  }
+
+  /**
+   * Represents a node of the trie, either a branch with children or a leaf with marble bits
+   */
+  private static final class Node {
+    private final Node[] children;
+    private final long bits;
+
+    private Node(Node[] children, long bits) {
+      this.children = children;
+      this.bits = bits;
+    }
+  }
+}
@@ -0,0 +1,297 @@
+package cs3500.marblesolitaire.model.hw04;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModel;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+
+/**
+ * Represents a single board that many players move on at once. The marbles are packed 63 to a
+ * word, and a move checks and flips its three slots together with compare and set on the words
+ * that hold them, so no move ever sees or leaves half of another. There is no lock on the whole
+ * board: a move whose slots share a word is a single compare and set, and a move across words
+ * claims the top bit of each of its words in increasing order, so moves in different parts of
+ * the board never wait for each other. Each word sits on a cache line of its own, so players
+ * working near each other do not slow each other down unless they touch the same word.
+ *
+ * <p>Every query may be made from any thread. getSlotAt and getScore see every move that
+ * finished before they were called; isGameOver is exact once no move is in progress.
+ */
+public class ConcurrentSolitaireModel implements MarbleSolitaireModel {
+  // Slots per word, leaving the top bit as the claim on the word
+  private static final int BITS = 63;
+
+  private static final long CLAIMED = 1L << BITS;
+
+  // Longs between the words of the board, so that no two words share a 64 byte cache line
+  private static final int STRIDE = 8;
+
+  private final int size;
+  private final long[] valid;
+  private final AtomicLongArray words;
+  private final AtomicInteger marbles;
+  private final int[] jumps;
+
+  /**
+   * Constructs a shared board with the shape and marbles of a position, such as a new game of
+   * any other model or a board read by BoardParser
+   *
+   * @param position the position to start from
+   * @throws IllegalArgumentException if the position is null
+   */
+  public ConcurrentSolitaireModel(MarbleSolitaireModelState position) {
+    if (position == null) {
+      throw new IllegalArgumentException("Position cannot be null");
+    }
+    this.size = position.getBoardSize();
+    int count = (this.size * this.size + BITS - 1) / BITS;
+    this.valid = new long[count];
+    this.words = new AtomicLongArray(count * STRIDE);
+    int found = 0;
+    for (int i = 0; i < this.size; i++) {
+      for (int j = 0; j < this.size; j++) {
+        int cell = i * this.size + j;
+        SlotState state = position.getSlotAt(i, j);
+        if (state != SlotState.Invalid) {
+          this.valid[cell / BITS] |= 1L << (cell % BITS);
+        }
+        if (state == SlotState.Marble) {
+          int index = (cell / BITS) * STRIDE;
+          this.words.set(index, this.words.get(index) | (1L << (cell % BITS)));
+          found++;
+        }
+      }
+    }
+    this.marbles = new AtomicInteger(found);
+    this.jumps = this.cellsOf(new BoardGeometry(position));
+  }
+
+  /**
+   * List the jumps of the board's geometry as triples of the cells they start from, pass over
+   * and land in, so that checking a jump needs no lookup of its holes
+   *
+   * @param geometry the geometry of the board
+   * @return the jumps, three cells each
+   */
+  private int[] cellsOf(BoardGeometry geometry) {
+    int[] cells = new int[3 * geometry.getJumpCount()];
+    for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+      cells[3 * jump] = this.cellOf(geometry, geometry.getJumpFrom(jump));
+      cells[3 * jump + 1] = this.cellOf(geometry, geometry.getJumpOver(jump));
+      cells[3 * jump + 2] = this.cellOf(geometry, geometry.getJumpTo(jump));
+    }
+    return cells;
+  }
+
+  private int cellOf(BoardGeometry geometry, int hole) {
+    return geometry.rowOf(hole) * this.size + geometry.colOf(hole);
+  }
+
+  private boolean isValid(int row, int col) {
+    if (row < 0 || col < 0 || row >= this.size || col >= this.size) {
+      return false;
+    }
+    int cell = row * this.size + col;
+    return (this.valid[cell / BITS] & (1L << (cell % BITS))) != 0;
+  }
+
+  /**
+   * Move a single marble from a given position to another given position, as one atomic step
+   * with respect to every other move on the board
+   *
+   * @param fromRow the row number of the position to be moved from (starts at 0)
+   * @param fromCol the column number of the position to be moved from (starts at 0)
+   * @param toRow   the row number of the position to be moved to (starts at 0)
+   * @param toCol   the column number of the position to be moved to (starts at 0)
+   * @throws IllegalArgumentException if the move is not possible at the moment it is made
+   */
+  @Override
+  public void move(int fromRow, int fromCol, int toRow, int toCol) {
+    if (!this.tryMove(fromRow, fromCol, toRow, toCol)) {
+      throw new IllegalArgumentException("Invalid Move");
+    }
+  }
+
+  /**
+   * Make a move if it is legal, as one atomic step with respect to every other move on the
+   * board. Players racing for the same marbles should use this rather than move, since losing
+   * the race is normal for them and needs no exception.
+   *
+   * @param fromRow the row number of the position to be moved from (starts at 0)
+   * @param fromCol the column number of the position to be moved from (starts at 0)
+   * @param toRow   the row number of the position to be moved to (starts at 0)
+   * @param toCol   the column number of the position to be moved to (starts at 0)
+   * @return true if the move was made, false if it was not legal when it was tried
+   */
+  public boolean tryMove(int fromRow, int fromCol, int toRow, int toCol) {
+    int rowStep = Integer.signum(toRow - fromRow);
+    int colStep = Integer.signum(toCol - fromCol);
+    if (Math.abs(toRow - fromRow) + Math.abs(toCol - fromCol) != 2
+            || (rowStep != 0 && colStep != 0)
+            || !this.isValid(fromRow, fromCol) || !this.isValid(toRow, toCol)) {
+      return false;
+    }
+    int from = fromRow * this.size + fromCol;
+    int over = (fromRow + rowStep) * this.size + fromCol + colStep;
+    int to = toRow * this.size + toCol;
+    boolean made;
+    if (from / BITS == over / BITS && over / BITS == to / BITS) {
+      made = this.flipWord(from / BITS, bit(from) | bit(over), bit(to));
+    } else {
+      made = this.flipWords(from, over, to);
+    }
+    if (made) {
+      this.marbles.decrementAndGet();
+    }
+    return made;
+  }
+
+  private static long bit(int cell) {
+    return 1L << (cell % BITS);
+  }
+
+  /**
+   * Flip the slots of a move that all lie in one word with a single compare and set
+   *
+   * @param word  the word holding the slots
+   * @param full  the bits that must hold marbles, and are emptied
+   * @param empty the bits that must be empty, and are filled
+   * @return true if the slots held the marbles of the move and were flipped, false otherwise
+   */
+  private boolean flipWord(int word, long full, long empty) {
+    int index = word * STRIDE;
+    while (true) {
+      long old = this.words.get(index);
+      if ((old & CLAIMED) != 0) {
+        Thread.onSpinWait();
+        continue;
+      }
+      if ((old & full) != full || (old & empty) != 0) {
+        return false;
+      }
+      if (this.words.compareAndSet(index, old, old ^ (full | empty))) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Flip the slots of a move that lie in two or three words. Each word is claimed by setting its
+   * top bit, in increasing order so that two moves never wait for each other in a cycle; the
+   * slots are checked once every word is held, and each word is written back with its new
+   * marbles and its claim cleared in one store.
+   *
+   * @param from the cell the marble jumps from
+   * @param over the cell the marble jumps over
+   * @param to   the cell the marble lands in
+   * @return true if the slots held the marbles of the move and were flipped, false otherwise
+   */
+  private boolean flipWords(int from, int over, int to) {
+    int[] cells = {from, over, to};
+    int[] held = new int[3];
+    long[] old = new long[3];
+    int count = 0;
+    for (int cell : new int[]{Math.min(from, to), over, Math.max(from, to)}) {
+      int word = cell / BITS;
+      if (count > 0 && held[count - 1] == word) {
+        continue;
+      }
+      held[count] = word;
+      old[count] = this.claim(word);
+      count++;
+    }
+    long[] flips = new long[count];
+    boolean legal = true;
+    for (int k = 0; k < 3; k++) {
+      int at = Arrays.binarySearch(held, 0, count, cells[k] / BITS);
+      boolean marble = (old[at] & bit(cells[k])) != 0;
+      legal &= marble == (k < 2);
+      flips[at] |= bit(cells[k]);
+    }
+    for (int k = 0; k < count; k++) {
+      this.words.set(held[k] * STRIDE, legal ? old[k] ^ flips[k] : old[k]);
+    }
+    return legal;
+  }
+
+  /**
+   * Wait until a word is not claimed by another move and claim it
+   *
+   * @param word the word to claim
+   * @return the marbles of the word when it was claimed
+   */
+  private long claim(int word) {
+    int index = word * STRIDE;
+    while (true) {
+      long old = this.words.get(index);
+      if ((old & CLAIMED) == 0 && this.words.compareAndSet(index, old, old | CLAIMED)) {
+        return old;
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  /**
+   * Determine if any move can still be made. While other players are moving the answer may be
+   * out of date as soon as it is returned.
+   *
+   * @return true if no move can be made, false otherwise
+   */
+  @Override
+  public boolean isGameOver() {
+    for (int i = 0; i < this.jumps.length; i += 3) {
+      if (this.hasMarble(this.jumps[i]) && this.hasMarble(this.jumps[i + 1])
+              && !this.hasMarble(this.jumps[i + 2])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean hasMarble(int cell) {
+    return (this.words.get((cell / BITS) * STRIDE) & bit(cell)) != 0;
+  }
+
+  /**
+   * Return the size of this board. The size is roughly the longest dimension of a board
+   *
+   * @return the size as an integer
+   */
+  @Override
+  public int getBoardSize() {
+    return this.size;
+  }
+
+  /**
+   * Get the state of the slot at a given position on the board.
+   *
+   * @param row the row of the position sought, starting at 0
+   * @param col the column of the position sought, starting at 0
+   * @return the state of the slot at the given row and column
+   * @throws IllegalArgumentException if the row or the column are beyond
+   *                                  the dimensions of the board
+   */
+  @Override
+  public SlotState getSlotAt(int row, int col) {
+    if (row < 0 || col < 0 || row >= this.size || col >= this.size) {
+      throw new IllegalArgumentException("Beyond the dimensions of the board");
+    }
+    if (!this.isValid(row, col)) {
+      return SlotState.Invalid;
+    }
+    return this.hasMarble(row * this.size + col) ? SlotState.Marble : SlotState.Empty;
+  }
+
+  /**
+   * Return the number of marbles currently on the board.
+   *
+   * @return the number of marbles currently on the board
+   */
+  @Override
+  public int getScore() {
+    return this.marbles.get();
+  }
+}
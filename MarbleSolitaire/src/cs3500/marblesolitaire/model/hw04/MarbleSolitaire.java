@@ -1,14 +1,33 @@
 package cs3500.marblesolitaire.model.hw04;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 import cs3500.marblesolitaire.controller.MarbleSolitaireControllerImpl;
 import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.solver.StartHoleTable;
 import cs3500.marblesolitaire.view.MarbleSolitaireTextView;
 
 public final class MarbleSolitaire {
+  /**
+   * Runs the game. The optional first argument is a start hole table written by
+   * StartHoleSurvey, used to tell players whether their starting position can be solved.
+   *
+   * @param args the command line arguments
+   */
   public static void main(String[] args) {
+    StartHoleTable starts = null;
+    if (args.length > 0) {
+      try {
+        starts = StartHoleTable.load(Paths.get(args[0]));
+      } catch (IOException | IllegalArgumentException e) {
+        System.out.println("Could not load start hole table " + args[0]);
+      }
+    }
+
     System.out.println("Enter \"english\", \"european\", or \"triangular\" to play a game!");
     Scanner s = new Scanner(System.in);
 
@@ -18,6 +37,7 @@ public final class MarbleSolitaire {
         switch (in) {
           case "english":
             EnglishSolitaireModel englishSolitaireModel = new EnglishSolitaireModel();
+            describeStart(starts, BoardShape.English, englishSolitaireModel);
             Appendable ap1 = System.out;
             MarbleSolitaireTextView marbleSolitaireTextView1 = new MarbleSolitaireTextView(englishSolitaireModel, ap1);
             Readable rd1 = new InputStreamReader(System.in);
@@ -28,8 +48,10 @@ public final class MarbleSolitaire {
                     rd1);
 
             marbleSolitaireController1.playGame();
+            System.exit(0);
           case "european":
             EuropeanSolitaireModel europeanSolitaireModel = new EuropeanSolitaireModel();
+            describeStart(starts, BoardShape.European, europeanSolitaireModel);
             Appendable ap2 = System.out;
             MarbleSolitaireTextView marbleSolitaireTextView2 = new MarbleSolitaireTextView(europeanSolitaireModel, ap2);
             Readable rd2 = new InputStreamReader(System.in);
@@ -40,6 +62,7 @@ public final class MarbleSolitaire {
                     rd2);
 
             marbleSolitaireController2.playGame();
+            System.exit(0);
           case "triangular":
             TriangleSolitaireModel triangleSolitaireModel = new TriangleSolitaireModel();
             Appendable ap3 = System.out;
@@ -57,4 +80,29 @@ public final class MarbleSolitaire {
       }
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Print what the start hole table knows about the empty slot of a new game, if the table is
+   * for the same board
+   *
+   * @param starts the start hole table, or null if none was loaded
+   * @param shape  the shape of the new game's board
+   * @param model  the new game
+   */
+  private static void describeStart(StartHoleTable starts, BoardShape shape,
+                                    MarbleSolitaireModelState model) {
+    if (starts == null || starts.getShape() != shape
+            || starts.getGeometry().getBoardSize() != model.getBoardSize()) {
+      return;
+    }
+    for (int row = 0; row < model.getBoardSize(); row++) {
+      for (int col = 0; col < model.getBoardSize(); col++) {
+        if (model.getSlotAt(row, col) == MarbleSolitaireModelState.SlotState.Empty) {
+          System.out.println("Starting hole (" + row + ", " + col + "): "
+                  + starts.getVerdict(row, col) + ", best finish "
+                  + starts.getBestFinish(row, col));
+        }
+      }
+    }
+  }
+}
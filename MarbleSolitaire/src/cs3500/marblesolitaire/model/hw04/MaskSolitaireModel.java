@@ -0,0 +1,243 @@
+package cs3500.marblesolitaire.model.hw04;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+
+/**
+ * Represents a solitaire model on a board of any shape, given by a mask of its valid slots, such
+ * as Wiegleb's board, a diamond or a board with no symmetry at all. Everything that depends only
+ * on the shape is worked out once when the model is constructed, in a BoardGeometry: the valid
+ * slots, every jump that can ever be made and the rotations and reflections that map the board
+ * onto itself. Copies share the geometry, so a custom board is as cheap to play, copy and reset
+ * as the built in ones.
+ */
+public class MaskSolitaireModel extends AbstractSolitaireModel {
+  private final int size;
+  private final BoardGeometry geometry;
+  // The pagoda function last asked for, kept for the next question about the same target
+  private int pagodaTarget = -1;
+  private int[] pagoda;
+
+  /**
+   * Constructs a game on the board given by a mask, with every valid slot holding a marble
+   * except the given one. The mask is indexed by row and then by column; rows may have different
+   * lengths, and the board is the smallest square that holds every row, with the slots outside
+   * the mask invalid.
+   *
+   * @param mask which slots of the board are valid
+   * @param sRow the row of the empty slot
+   * @param sCol the column of the empty slot
+   * @throws IllegalArgumentException if the mask is null or has a null row, or the empty slot is
+   *                                  not valid
+   */
+  public MaskSolitaireModel(boolean[][] mask, int sRow, int sCol) {
+    this(square(mask), sRow, sCol);
+  }
+
+  /**
+   * Constructs a game on a board with the same valid slots as the given state, such as a board
+   * read by BoardParser, with every valid slot holding a marble except the given one
+   *
+   * @param shape the state whose valid slots make up the board
+   * @param sRow  the row of the empty slot
+   * @param sCol  the column of the empty slot
+   * @throws IllegalArgumentException if the shape is null or the empty slot is not valid
+   */
+  public MaskSolitaireModel(MarbleSolitaireModelState shape, int sRow, int sCol) {
+    this(maskOf(shape), sRow, sCol);
+  }
+
+  private MaskSolitaireModel(boolean[] valid, int sRow, int sCol) {
+    super();
+    this.size = (int) Math.round(Math.sqrt(valid.length));
+    this.geometry = BoardGeometry.fromMask(this.size, valid);
+    this.start(sRow, sCol);
+  }
+
+  /**
+   * Lay a mask out on the smallest square that holds it
+   *
+   * @param mask which slots of the board are valid, by row and then by column
+   * @return the valid slots of the square board, by cell
+   * @throws IllegalArgumentException if the mask is null or has a null row
+   */
+  private static boolean[] square(boolean[][] mask) {
+    if (mask == null) {
+      throw new IllegalArgumentException("Mask cannot be null");
+    }
+    int size = mask.length;
+    for (boolean[] row : mask) {
+      if (row == null) {
+        throw new IllegalArgumentException("Mask cannot have a null row");
+      }
+      size = Math.max(size, row.length);
+    }
+    boolean[] valid = new boolean[size * size];
+    for (int i = 0; i < mask.length; i++) {
+      for (int j = 0; j < mask[i].length; j++) {
+        valid[i * size + j] = mask[i][j];
+      }
+    }
+    return valid;
+  }
+
+  /**
+   * Read which slots of a state are valid
+   *
+   * @param shape the state to read
+   * @return the valid slots of the state, by cell
+   * @throws IllegalArgumentException if the state is null
+   */
+  private static boolean[] maskOf(MarbleSolitaireModelState shape) {
+    if (shape == null) {
+      throw new IllegalArgumentException("Shape cannot be null");
+    }
+    int size = shape.getBoardSize();
+    boolean[] valid = new boolean[size * size];
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        valid[i * size + j] = shape.getSlotAt(i, j) != SlotState.Invalid;
+      }
+    }
+    return valid;
+  }
+
+  @Override
+  public int getBoardSize() {
+    return this.size;
+  }
+
+  /**
+   * Checks if the given board position is a valid slot of the mask
+   *
+   * @param sRow the row of the posn
+   * @param sCol the column of the posn
+   * @return true if the position is on the board and in the mask, false otherwise
+   */
+  @Override
+  public boolean inRange(int sRow, int sCol) {
+    return this.geometry.isValid(sRow, sCol);
+  }
+
+  /**
+   * Determine and return if the game is over or not. A crowded board checks the compiled jumps
+   * instead of looking around every slot.
+   *
+   * @return true if the game is over, false otherwise
+   */
+  @Override
+  public boolean isGameOver() {
+    if (this.isSparse() || this.getScore() == 0) {
+      return super.isGameOver();
+    }
+    for (int jump = 0; jump < this.geometry.getJumpCount(); jump++) {
+      if (this.stateOf(this.geometry.getJumpFrom(jump)) == SlotState.Marble
+              && this.stateOf(this.geometry.getJumpOver(jump)) == SlotState.Marble
+              && this.stateOf(this.geometry.getJumpTo(jump)) == SlotState.Empty) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private SlotState stateOf(int hole) {
+    return this.gameBoard.get(this.geometry.rowOf(hole)).get(this.geometry.colOf(hole))
+            .getSlotStatus();
+  }
+
+  /**
+   * Return the number of jumps that can ever be made on this board, in any position
+   *
+   * @return the number of jumps
+   */
+  public int getJumpCount() {
+    return this.geometry.getJumpCount();
+  }
+
+  /**
+   * Return the number of rotations and reflections that map this board onto itself, including
+   * the identity, which is symmetry 0
+   *
+   * @return the size of the symmetry group of the board
+   */
+  public int getSymmetryCount() {
+    return this.geometry.getSymmetryCount();
+  }
+
+  /**
+   * Get the cell a symmetry maps a valid slot to, where the cell of a slot is its row times the
+   * board size plus its column
+   *
+   * @param symmetry the index of the symmetry
+   * @param row      the row of the slot
+   * @param col      the column of the slot
+   * @return the cell of the image of the slot
+   * @throws IllegalArgumentException if the symmetry does not exist or the slot is not valid
+   */
+  public int transform(int symmetry, int row, int col) {
+    if (symmetry < 0 || symmetry >= this.geometry.getSymmetryCount() || !this.inRange(row, col)) {
+      throw new IllegalArgumentException("No such symmetry or slot");
+    }
+    int image = this.geometry.transform(symmetry, this.geometry.holeAt(row, col));
+    return this.geometry.rowOf(image) * this.size + this.geometry.colOf(image);
+  }
+
+  /**
+   * Get the weight of a slot in the pagoda function aimed at a target slot, the one
+   * BoardGeometry.pagoda gives, scaled so that the target weighs 1. Weights fall off like the
+   * inverse powers of the golden ratio with the distance between the slots, counted in steps along
+   * rows and columns. For any jump the weights of the two slots it empties add up to at least the
+   * weight of the slot it fills, on every board, so the total weight of the marbles never grows.
+   *
+   * @param row       the row of the slot
+   * @param col       the column of the slot
+   * @param targetRow the row of the target slot
+   * @param targetCol the column of the target slot
+   * @return the weight of the slot, 1 at the target
+   * @throws IllegalArgumentException if either slot is not valid
+   */
+  public double getPagodaWeight(int row, int col, int targetRow, int targetCol) {
+    if (!this.inRange(row, col) || !this.inRange(targetRow, targetCol)) {
+      throw new IllegalArgumentException("Not a valid slot");
+    }
+    int target = this.geometry.holeAt(targetRow, targetCol);
+    int[] weights = this.pagodaOf(target);
+    return (double) weights[this.geometry.holeAt(row, col)] / weights[target];
+  }
+
+  /**
+   * Checks if the pagoda function aimed at a slot still allows the game to end with a single
+   * marble in that slot. A false answer proves the finish impossible, so a search can drop the
+   * position; a true answer proves nothing.
+   *
+   * @param targetRow the row of the slot the last marble should end in
+   * @param targetCol the column of the slot the last marble should end in
+   * @return false if the marbles weigh less than the target slot, true otherwise
+   * @throws IllegalArgumentException if the slot is not valid
+   */
+  public boolean canFinishAt(int targetRow, int targetCol) {
+    if (!this.inRange(targetRow, targetCol)) {
+      throw new IllegalArgumentException("Not a valid slot");
+    }
+    int target = this.geometry.holeAt(targetRow, targetCol);
+    int[] weights = this.pagodaOf(target);
+    long total = 0;
+    for (int hole = 0; hole < weights.length; hole++) {
+      if (this.stateOf(hole) == SlotState.Marble) {
+        total += weights[hole];
+        if (total >= weights[target]) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private int[] pagodaOf(int target) {
+    if (target != this.pagodaTarget) {
+      this.pagoda = this.geometry.pagoda(target);
+      this.pagodaTarget = target;
+    }
+    return this.pagoda;
+  }
+}
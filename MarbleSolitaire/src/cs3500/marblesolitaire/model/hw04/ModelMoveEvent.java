@@ -0,0 +1,39 @@
+package cs3500.marblesolitaire.model.hw04;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event committed for every move made through AbstractSolitaireModel.move.
+ * Moves are frequent, so the event is disabled unless a recording turns it on.
+ */
+@Name("cs3500.marblesolitaire.Move")
+@Label("Move")
+@Category({"Marble Solitaire", "Model"})
+@Description("A marble was moved")
+@Enabled(false)
+@StackTrace(false)
+final class ModelMoveEvent extends jdk.jfr.Event {
+  @Label("Board Size")
+  int boardSize;
+
+  @Label("From Row")
+  int fromRow;
+
+  @Label("From Column")
+  int fromCol;
+
+  @Label("To Row")
+  int toRow;
+
+  @Label("To Column")
+  int toCol;
+
+  @Label("Score")
+  @Description("The number of marbles left after the move")
+  int score;
+}
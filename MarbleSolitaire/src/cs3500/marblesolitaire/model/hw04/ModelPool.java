@@ -0,0 +1,184 @@
+package cs3500.marblesolitaire.model.hw04;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents a thread-safe pool of models kept by board shape and arm thickness, so that servers
+ * and bots starting many games reuse boards instead of building new ones. A model handed out is
+ * reset in place to the starting position; when there is none to reuse, a copy of a model kept
+ * for its board is made, which shares the template its resets copy from.
+ */
+public final class ModelPool {
+  /**
+   * The number of idle models kept per board unless told otherwise
+   */
+  public static final int DEFAULT_MAX_IDLE = 64;
+
+  private final int maxIdle;
+  private final ConcurrentHashMap<Key, Bin> bins;
+
+  /**
+   * Constructs an empty pool keeping the default number of idle models per board
+   */
+  public ModelPool() {
+    this(DEFAULT_MAX_IDLE);
+  }
+
+  /**
+   * Constructs an empty pool
+   *
+   * @param maxIdle the most idle models to keep per board; more are left to be collected
+   * @throws IllegalArgumentException if the number is negative
+   */
+  public ModelPool(int maxIdle) {
+    if (maxIdle < 0) {
+      throw new IllegalArgumentException();
+    }
+    this.maxIdle = maxIdle;
+    this.bins = new ConcurrentHashMap<Key, Bin>();
+  }
+
+  /**
+   * Get a model of a board with the empty slot in the center
+   *
+   * @param shape        the shape of the board
+   * @param armThickness the arm thickness of the board
+   * @return a model at the starting position that no one else holds
+   * @throws IllegalArgumentException if the shape is null or the arm thickness is invalid
+   */
+  public AbstractSolitaireModel acquire(BoardShape shape, int armThickness) {
+    int center = (armThickness - 1) + (armThickness / 2);
+    return this.acquire(shape, armThickness, center, center);
+  }
+
+  /**
+   * Get a model of a board
+   *
+   * @param shape        the shape of the board
+   * @param armThickness the arm thickness of the board
+   * @param sRow         the row of the empty slot
+   * @param sCol         the column of the empty slot
+   * @return a model at the starting position that no one else holds
+   * @throws IllegalArgumentException if the shape is null or the arm thickness or the empty slot
+   *                                  is invalid
+   */
+  public AbstractSolitaireModel acquire(BoardShape shape, int armThickness, int sRow, int sCol) {
+    Bin bin = this.binFor(shape, armThickness);
+    AbstractSolitaireModel model = bin.idle.poll();
+    if (model != null) {
+      bin.size.decrementAndGet();
+    } else {
+      model = bin.prototype.copy();
+    }
+    try {
+      model.reset(sRow, sCol);
+    } catch (IllegalArgumentException e) {
+      this.release(model);
+      throw e;
+    }
+    return model;
+  }
+
+  /**
+   * Give a model back to the pool. It must not be used by the caller afterwards.
+   *
+   * @param model the model to give back
+   * @throws IllegalArgumentException if the model is not of a built-in shape
+   */
+  public void release(AbstractSolitaireModel model) {
+    Bin bin = this.binFor(BoardShape.of(model), model.armThickness);
+    model.setEventRing(null);
+    if (bin.size.incrementAndGet() <= this.maxIdle) {
+      bin.idle.offer(model);
+    } else {
+      bin.size.decrementAndGet();
+    }
+  }
+
+  /**
+   * Fill the pool with idle models of a board so that the next games start without copying
+   *
+   * @param shape        the shape of the board
+   * @param armThickness the arm thickness of the board
+   * @param count        the number of idle models wanted, at most the pool's limit
+   * @throws IllegalArgumentException if the shape is null or the arm thickness is invalid
+   */
+  public void prewarm(BoardShape shape, int armThickness, int count) {
+    Bin bin = this.binFor(shape, armThickness);
+    while (bin.size.get() < Math.min(count, this.maxIdle)) {
+      this.release(bin.prototype.copy());
+    }
+  }
+
+  /**
+   * Get the number of idle models kept for a board
+   *
+   * @param shape        the shape of the board
+   * @param armThickness the arm thickness of the board
+   * @return the number of models ready to be handed out
+   */
+  public int getIdleCount(BoardShape shape, int armThickness) {
+    Bin bin = this.bins.get(new Key(shape, armThickness));
+    return bin == null ? 0 : bin.size.get();
+  }
+
+  private Bin binFor(BoardShape shape, int armThickness) {
+    if (shape == null) {
+      throw new IllegalArgumentException();
+    }
+    Key key = new Key(shape, armThickness);
+    Bin bin = this.bins.get(key);
+    if (bin == null) {
+      // Building the prototype validates the arm thickness before anything is cached
+      AbstractSolitaireModel prototype = shape.create(armThickness);
+      prototype.reset(prototype.sRow, prototype.sCol);
+      Bin created = new Bin(prototype);
+      bin = this.bins.putIfAbsent(key, created);
+      if (bin == null) {
+        bin = created;
+      }
+    }
+    return bin;
+  }
+
+  // Represents a board a pool keeps models for
+  private static final class Key {
+    private final BoardShape shape;
+    private final int armThickness;
+
+    private Key(BoardShape shape, int armThickness) {
+      this.shape = shape;
+      this.armThickness = armThickness;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return this.shape == that.shape && this.armThickness == that.armThickness;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.shape, this.armThickness);
+    }
+  }
+
+  // Represents the idle models of one board and the model its new ones are copied from
+  private static final class Bin {
+    private final AbstractSolitaireModel prototype;
+    private final ConcurrentLinkedQueue<AbstractSolitaireModel> idle;
+    private final AtomicInteger size;
+
+    private Bin(AbstractSolitaireModel prototype) {
+      this.prototype = prototype;
+      this.idle = new ConcurrentLinkedQueue<AbstractSolitaireModel>();
+      this.size = new AtomicInteger();
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package cs3500.marblesolitaire.model.hw04;
+
+/**
+ * Represents one record read from a MoveEventRing: a move, a move taken back, or a whole position
+ * the board was set to. A consumer keeps a single event and has the ring fill it in again for
+ * every record, so reading the stream never allocates. Cells are numbered row * size + col on a
+ * board of the given size.
+ */
+public final class MoveEvent {
+  /**
+   * The kinds of records a ring carries
+   */
+  public enum Kind {
+    /**
+     * A move made
+     */
+    Move,
+    /**
+     * A move taken back
+     */
+    Undo,
+    /**
+     * The board set to a position that does not follow from the records before it
+     */
+    Position
+  }
+
+  private long sequence;
+  private int size;
+  private Kind kind;
+  private int from;
+  private int over;
+  private int to;
+  private int ply;
+  private long hash;
+  private BoardSnapshot position;
+
+  void set(long sequence, int size, Kind kind, int from, int over, int to, int ply, long hash,
+           BoardSnapshot position) {
+    this.sequence = sequence;
+    this.size = size;
+    this.kind = kind;
+    this.from = from;
+    this.over = over;
+    this.to = to;
+    this.ply = ply;
+    this.hash = hash;
+    this.position = position;
+  }
+
+  /**
+   * Get the position of this event in the stream, counting from 0
+   *
+   * @return the sequence number
+   */
+  public long getSequence() {
+    return this.sequence;
+  }
+
+  /**
+   * Get the kind of this event. The cells of the move are only meaningful for moves and moves
+   * taken back.
+   *
+   * @return the kind
+   */
+  public Kind getKind() {
+    return this.kind;
+  }
+
+  /**
+   * Get the position the board was set to
+   *
+   * @return the snapshot of the position, or null if this event is a move or a move taken back
+   */
+  public BoardSnapshot getPosition() {
+    return this.position;
+  }
+
+  /**
+   * Get the row of the slot the marble jumped from
+   *
+   * @return the row, starting at 0
+   */
+  public int getFromRow() {
+    return this.from / this.size;
+  }
+
+  /**
+   * Get the column of the slot the marble jumped from
+   *
+   * @return the column, starting at 0
+   */
+  public int getFromCol() {
+    return this.from % this.size;
+  }
+
+  /**
+   * Get the row of the slot the marble jumped over
+   *
+   * @return the row, starting at 0
+   */
+  public int getOverRow() {
+    return this.over / this.size;
+  }
+
+  /**
+   * Get the column of the slot the marble jumped over
+   *
+   * @return the column, starting at 0
+   */
+  public int getOverCol() {
+    return this.over % this.size;
+  }
+
+  /**
+   * Get the row of the slot the marble landed in
+   *
+   * @return the row, starting at 0
+   */
+  public int getToRow() {
+    return this.to / this.size;
+  }
+
+  /**
+   * Get the column of the slot the marble landed in
+   *
+   * @return the column, starting at 0
+   */
+  public int getToCol() {
+    return this.to % this.size;
+  }
+
+  /**
+   * Get the ply of the game after the move. A move that was taken back carries the ply it
+   * returned to, and a position carries the ply the game starts over from.
+   *
+   * @return the ply
+   */
+  public int getPly() {
+    return this.ply;
+  }
+
+  /**
+   * Get the Zobrist hash of the board after the move
+   *
+   * @return the hash
+   */
+  public long getHash() {
+    return this.hash;
+  }
+
+  @Override
+  public String toString() {
+    if (this.kind == Kind.Position) {
+      return "#" + this.sequence + " position ply " + this.ply;
+    }
+    return "#" + this.sequence + " " + this.kind + " (" + this.getFromRow() + ","
+            + this.getFromCol() + ") -> (" + this.getToRow() + "," + this.getToCol() + ") ply "
+            + this.ply;
+  }
+}
@@ -0,0 +1,218 @@
+package cs3500.marblesolitaire.model.hw04;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Represents a bounded stream of moves written by one model and read by any number of consumers,
+ * in the style of a Disruptor ring buffer. Every record lives in preallocated arrays, so
+ * publishing never allocates, and the producer never waits for consumers: it overwrites the
+ * oldest record when the ring is full. Each slot carries a stamp holding the sequence number of
+ * the record in it, or -1 while the record is being written, which consumers check before and
+ * after reading the record. A consumer that finds its next record overwritten has been lapped and
+ * skips ahead to the oldest record still in the ring, counting the records it missed.
+ */
+public final class MoveEventRing {
+  private final int size;
+  private final int mask;
+  private final MoveEvent.Kind[] kinds;
+  private final int[] from;
+  private final int[] over;
+  private final int[] to;
+  private final int[] ply;
+  private final long[] hash;
+  private final BoardSnapshot[] positions;
+  private final AtomicLongArray stamps;
+  // The sequence number of the last record published, or -1 before the first
+  private final AtomicLong cursor;
+
+  /**
+   * Constructs an empty ring for moves on boards of the given size
+   *
+   * @param boardSize the size of the boards whose moves are published
+   * @param capacity  the number of records kept, a power of two
+   * @throws IllegalArgumentException if the size is not positive or the capacity is not a
+   *                                  positive power of two
+   */
+  public MoveEventRing(int boardSize, int capacity) {
+    if (boardSize <= 0 || capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException();
+    }
+    this.size = boardSize;
+    this.mask = capacity - 1;
+    this.kinds = new MoveEvent.Kind[capacity];
+    this.from = new int[capacity];
+    this.over = new int[capacity];
+    this.to = new int[capacity];
+    this.ply = new int[capacity];
+    this.hash = new long[capacity];
+    this.positions = new BoardSnapshot[capacity];
+    this.stamps = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      this.stamps.set(i, -1L);
+    }
+    this.cursor = new AtomicLong(-1L);
+  }
+
+  /**
+   * Get the size of the boards whose moves are published
+   *
+   * @return the board size
+   */
+  public int getBoardSize() {
+    return this.size;
+  }
+
+  /**
+   * Get the number of records the ring keeps
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return this.mask + 1;
+  }
+
+  /**
+   * Get the sequence number of the last record published
+   *
+   * @return the sequence number, or -1 if nothing has been published
+   */
+  public long getCursor() {
+    return this.cursor.get();
+  }
+
+  /**
+   * Publish a move or a move taken back. Only one thread, the one moving the model, may publish
+   * to a ring.
+   *
+   * @param from the cell the marble jumped from
+   * @param over the cell the marble jumped over
+   * @param to   the cell the marble landed in
+   * @param ply  the ply of the game after the move
+   * @param hash the Zobrist hash of the board after the move
+   * @param undo true if the move was taken back, false if it was made
+   */
+  public void publish(int from, int over, int to, int ply, long hash, boolean undo) {
+    this.write(undo ? MoveEvent.Kind.Undo : MoveEvent.Kind.Move, from, over, to, ply, hash, null);
+  }
+
+  /**
+   * Publish a position the board was set to, which consumers must take in whole since it does
+   * not follow from the moves before it. Only the thread moving the model may publish to a ring.
+   *
+   * @param position the snapshot of the board
+   * @param hash     the Zobrist hash of the board
+   * @throws IllegalArgumentException if the position is null or of another size
+   */
+  public void publishPosition(BoardSnapshot position, long hash) {
+    if (position == null || position.getBoardSize() != this.size) {
+      throw new IllegalArgumentException();
+    }
+    this.write(MoveEvent.Kind.Position, -1, -1, -1, position.getPly(), hash, position);
+  }
+
+  private void write(MoveEvent.Kind kind, int from, int over, int to, int ply, long hash,
+                     BoardSnapshot position) {
+    long sequence = this.cursor.get() + 1;
+    int slot = (int) sequence & this.mask;
+    this.stamps.lazySet(slot, -1L);
+    // Keep the record from being written before the slot is marked as changing
+    VarHandle.storeStoreFence();
+    this.kinds[slot] = kind;
+    this.from[slot] = from;
+    this.over[slot] = over;
+    this.to[slot] = to;
+    this.ply[slot] = ply;
+    this.hash[slot] = hash;
+    this.positions[slot] = position;
+    this.stamps.lazySet(slot, sequence);
+    this.cursor.lazySet(sequence);
+  }
+
+  /**
+   * Make a consumer that reads every move published from now on
+   *
+   * @return the consumer
+   */
+  public Consumer newConsumer() {
+    return new Consumer(this.cursor.get() + 1);
+  }
+
+  /**
+   * Represents one reader of a ring. Each consumer is used by a single thread, and consumers never
+   * affect the producer or each other.
+   */
+  public final class Consumer {
+    private long next;
+    private long missed;
+
+    private Consumer(long next) {
+      this.next = next;
+    }
+
+    /**
+     * Read the next move if one has been published, skipping ahead first if the producer has
+     * overwritten it
+     *
+     * @param event the event to fill in
+     * @return true if the event was filled in, false if there is nothing new yet
+     */
+    public boolean poll(MoveEvent event) {
+      MoveEventRing ring = MoveEventRing.this;
+      while (true) {
+        long published = ring.cursor.get();
+        if (this.next > published) {
+          return false;
+        }
+        if (published - this.next > ring.mask) {
+          this.skipTo(published - ring.mask);
+        }
+        long sequence = this.next;
+        int slot = (int) sequence & ring.mask;
+        if (ring.stamps.get(slot) == sequence) {
+          MoveEvent.Kind kind = ring.kinds[slot];
+          int from = ring.from[slot];
+          int over = ring.over[slot];
+          int to = ring.to[slot];
+          int ply = ring.ply[slot];
+          long hash = ring.hash[slot];
+          BoardSnapshot position = ring.positions[slot];
+          // Finish reading the record before checking that it was not overwritten meanwhile
+          VarHandle.loadLoadFence();
+          if (ring.stamps.get(slot) == sequence) {
+            event.set(sequence, ring.size, kind, from, over, to, ply, hash, position);
+            this.next = sequence + 1;
+            return true;
+          }
+        }
+        // The producer lapped this consumer while it was reading
+        this.skipTo(Math.max(sequence + 1, ring.cursor.get() - ring.mask));
+      }
+    }
+
+    private void skipTo(long sequence) {
+      this.missed += sequence - this.next;
+      this.next = sequence;
+    }
+
+    /**
+     * Get the number of records this consumer could not read because the producer overwrote
+     * them first
+     *
+     * @return the number of records missed
+     */
+    public long getMissed() {
+      return this.missed;
+    }
+
+    /**
+     * Get the number of records published that this consumer has not read or skipped yet
+     *
+     * @return the backlog, which may exceed the capacity before the next poll
+     */
+    public long getBacklog() {
+      return MoveEventRing.this.cursor.get() + 1 - this.next;
+    }
+  }
+}
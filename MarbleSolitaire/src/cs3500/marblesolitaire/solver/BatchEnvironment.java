@@ -0,0 +1,295 @@
+package cs3500.marblesolitaire.solver;
+
+import java.util.Arrays;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+
+/**
+ * Represents a batch of marble solitaire games played in lock step, for bots that learn by playing
+ * many games at once. The boards are stored as a structure of arrays: word w of board b is at
+ * index w * batchSize + b, so that every pass over the batch reads consecutive longs in loops the
+ * JIT can vectorize. Each game is identified by its index in the batch and is played by choosing
+ * one of the jumps of the shared board geometry.
+ */
+public final class BatchEnvironment {
+  /**
+   * The reward for a legal move, which always removes exactly one marble
+   */
+  public static final float MOVE_REWARD = 1f;
+
+  /**
+   * The reward for an illegal move, which leaves the board as it was
+   */
+  public static final float ILLEGAL_REWARD = -1f;
+
+  /**
+   * The extra reward for a move that leaves a single marble on the board
+   */
+  public static final float SOLVED_REWARD = 10f;
+
+  private final BoardGeometry geometry;
+  private final int batchSize;
+  private final int words;
+  private final int jumps;
+  private final long[] start;
+  private final long[] boards;
+  private final int[] fromWord;
+  private final int[] fromBit;
+  private final int[] overWord;
+  private final int[] overBit;
+  private final int[] toWord;
+  private final int[] toBit;
+  private final long[] movable;
+
+  /**
+   * Constructs a batch of games that all begin from the current position of the given state, on
+   * the same board shape
+   *
+   * @param start     the state every game begins from, such as a new EnglishSolitaireModel
+   * @param batchSize the number of games in the batch
+   * @throws IllegalArgumentException if the state is null or the batch size is not positive
+   */
+  public BatchEnvironment(MarbleSolitaireModelState start, int batchSize) {
+    if (start == null || batchSize <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.geometry = new BoardGeometry(start);
+    this.batchSize = batchSize;
+    this.words = this.geometry.getWords();
+    this.jumps = this.geometry.getJumpCount();
+    this.start = this.geometry.pegs(start);
+    this.boards = new long[this.words * batchSize];
+    this.movable = new long[batchSize];
+
+    this.fromWord = new int[this.jumps];
+    this.fromBit = new int[this.jumps];
+    this.overWord = new int[this.jumps];
+    this.overBit = new int[this.jumps];
+    this.toWord = new int[this.jumps];
+    this.toBit = new int[this.jumps];
+    for (int jump = 0; jump < this.jumps; jump++) {
+      this.fromWord[jump] = this.geometry.getJumpFrom(jump) >>> 6;
+      this.fromBit[jump] = this.geometry.getJumpFrom(jump) & 63;
+      this.overWord[jump] = this.geometry.getJumpOver(jump) >>> 6;
+      this.overBit[jump] = this.geometry.getJumpOver(jump) & 63;
+      this.toWord[jump] = this.geometry.getJumpTo(jump) >>> 6;
+      this.toBit[jump] = this.geometry.getJumpTo(jump) & 63;
+    }
+    this.reset();
+  }
+
+  /**
+   * Get the board shape of the games, whose jump indices are the actions of step
+   *
+   * @return the geometry
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Get the number of games in the batch
+   *
+   * @return the batch size
+   */
+  public int getBatchSize() {
+    return this.batchSize;
+  }
+
+  /**
+   * Get the number of longs each game's legal move mask takes, one bit per jump
+   *
+   * @return the number of mask words per game
+   */
+  public int getMaskWords() {
+    return (this.jumps + 63) >>> 6;
+  }
+
+  /**
+   * Get the boards of every game in place, with word w of game b at index w * batchSize + b.
+   * The array is live: it changes as the games are played and must not be modified.
+   *
+   * @return the boards of the batch
+   */
+  public long[] getBoards() {
+    return this.boards;
+  }
+
+  /**
+   * Copy the board of one game out of the batch
+   *
+   * @param game the index of the game
+   * @return the bitboard of the game
+   * @throws IllegalArgumentException if there is no such game
+   */
+  public long[] getBoard(int game) {
+    this.checkGame(game);
+    long[] board = new long[this.words];
+    for (int w = 0; w < this.words; w++) {
+      board[w] = this.boards[w * this.batchSize + game];
+    }
+    return board;
+  }
+
+  /**
+   * Put every game back at its starting position
+   */
+  public void reset() {
+    for (int w = 0; w < this.words; w++) {
+      Arrays.fill(this.boards, w * this.batchSize, (w + 1) * this.batchSize, this.start[w]);
+    }
+  }
+
+  /**
+   * Put one game back at its starting position
+   *
+   * @param game the index of the game
+   * @throws IllegalArgumentException if there is no such game
+   */
+  public void reset(int game) {
+    this.checkGame(game);
+    for (int w = 0; w < this.words; w++) {
+      this.boards[w * this.batchSize + game] = this.start[w];
+    }
+  }
+
+  /**
+   * Put every finished game back at its starting position
+   *
+   * @param done whether each game is finished, as filled in by step
+   * @throws IllegalArgumentException if the array is not as long as the batch
+   */
+  public void reset(boolean[] done) {
+    if (done == null || done.length != this.batchSize) {
+      throw new IllegalArgumentException();
+    }
+    for (int w = 0; w < this.words; w++) {
+      int base = w * this.batchSize;
+      for (int b = 0; b < this.batchSize; b++) {
+        if (done[b]) {
+          this.boards[base + b] = this.start[w];
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute which jumps are legal in every game. Bit j % 64 of masks[(j / 64) * batchSize + b]
+   * is set when jump j is legal in game b.
+   *
+   * @param masks the array to write the masks to, of at least getMaskWords() * batchSize longs
+   * @throws IllegalArgumentException if the array is too short
+   */
+  public void legalMoves(long[] masks) {
+    if (masks == null || masks.length < this.getMaskWords() * this.batchSize) {
+      throw new IllegalArgumentException();
+    }
+    Arrays.fill(masks, 0, this.getMaskWords() * this.batchSize, 0L);
+    for (int jump = 0; jump < this.jumps; jump++) {
+      int mask = (jump >>> 6) * this.batchSize;
+      int bit = jump & 63;
+      int from = this.fromWord[jump] * this.batchSize;
+      int over = this.overWord[jump] * this.batchSize;
+      int to = this.toWord[jump] * this.batchSize;
+      int fb = this.fromBit[jump];
+      int ob = this.overBit[jump];
+      int tb = this.toBit[jump];
+      for (int b = 0; b < this.batchSize; b++) {
+        long legal = (this.boards[from + b] >>> fb) & (this.boards[over + b] >>> ob)
+                & ~(this.boards[to + b] >>> tb) & 1L;
+        masks[mask + b] |= legal << bit;
+      }
+    }
+  }
+
+  /**
+   * Count the marbles left in every game
+   *
+   * @param counts the array to write the counts to, as long as the batch
+   * @throws IllegalArgumentException if the array is not as long as the batch
+   */
+  public void pegCounts(int[] counts) {
+    if (counts == null || counts.length != this.batchSize) {
+      throw new IllegalArgumentException();
+    }
+    Arrays.fill(counts, 0);
+    for (int w = 0; w < this.words; w++) {
+      int base = w * this.batchSize;
+      for (int b = 0; b < this.batchSize; b++) {
+        counts[b] += Long.bitCount(this.boards[base + b]);
+      }
+    }
+  }
+
+  /**
+   * Play one move in every game. An illegal action, including any that is not a jump index,
+   * leaves its game unchanged. A game is done once no legal move is left in it, and it stays
+   * done until it is reset.
+   *
+   * @param actions the jump to play in each game
+   * @param rewards the array to write the reward of each game's move to
+   * @param done    the array to write whether each game is finished to
+   * @throws IllegalArgumentException if any array is not as long as the batch
+   */
+  public void step(int[] actions, float[] rewards, boolean[] done) {
+    if (actions == null || rewards == null || done == null || actions.length != this.batchSize
+            || rewards.length != this.batchSize || done.length != this.batchSize) {
+      throw new IllegalArgumentException();
+    }
+    int n = this.batchSize;
+    for (int b = 0; b < n; b++) {
+      int jump = actions[b];
+      if (jump < 0 || jump >= this.jumps) {
+        rewards[b] = ILLEGAL_REWARD;
+        continue;
+      }
+      int from = this.fromWord[jump] * n + b;
+      int over = this.overWord[jump] * n + b;
+      int to = this.toWord[jump] * n + b;
+      long legal = (this.boards[from] >>> this.fromBit[jump])
+              & (this.boards[over] >>> this.overBit[jump])
+              & ~(this.boards[to] >>> this.toBit[jump]) & 1L;
+      this.boards[from] ^= legal << this.fromBit[jump];
+      this.boards[over] ^= legal << this.overBit[jump];
+      this.boards[to] ^= legal << this.toBit[jump];
+      rewards[b] = legal != 0 ? MOVE_REWARD : ILLEGAL_REWARD;
+    }
+
+    // Any legal jump left in a game keeps it going
+    Arrays.fill(this.movable, 0L);
+    for (int jump = 0; jump < this.jumps; jump++) {
+      int from = this.fromWord[jump] * n;
+      int over = this.overWord[jump] * n;
+      int to = this.toWord[jump] * n;
+      int fb = this.fromBit[jump];
+      int ob = this.overBit[jump];
+      int tb = this.toBit[jump];
+      for (int b = 0; b < n; b++) {
+        this.movable[b] |= (this.boards[from + b] >>> fb) & (this.boards[over + b] >>> ob)
+                & ~(this.boards[to + b] >>> tb);
+      }
+    }
+    for (int b = 0; b < n; b++) {
+      done[b] = (this.movable[b] & 1L) == 0;
+    }
+
+    // A move leaving a single marble earns the bonus on top of the move itself
+    for (int b = 0; b < n; b++) {
+      if (rewards[b] == MOVE_REWARD && done[b]) {
+        int marbles = 0;
+        for (int w = 0; w < this.words; w++) {
+          marbles += Long.bitCount(this.boards[w * n + b]);
+        }
+        if (marbles == 1) {
+          rewards[b] += SOLVED_REWARD;
+        }
+      }
+    }
+  }
+
+  private void checkGame(int game) {
+    if (game < 0 || game >= this.batchSize) {
+      throw new IllegalArgumentException("No such game: " + game);
+    }
+  }
+}
@@ -0,0 +1,253 @@
+package cs3500.marblesolitaire.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+
+/**
+ * Represents a meet-in-the-middle solver that searches for a sequence of moves from a start
+ * position to an exact target pattern of marbles. Every move removes one marble, so the number of
+ * moves d is fixed by the two marble counts. The solver builds layers of distinct positions
+ * forward from the start with jumps and backward from the target with jumps taken back, always
+ * growing the smaller side, until the two sides are d moves apart. Any position in both final
+ * layers joins a line from the start to the target, so each side only searches about d / 2
+ * moves deep. Positions are stored in a canonical form under the symmetries of the board that
+ * leave both the start and the target unchanged, which shrinks the layers of symmetric puzzles
+ * without changing which lines exist.
+ */
+public class BidirectionalSolver {
+  private static final int CHECK_INTERVAL = 4096;
+
+  private final BoardGeometry geometry;
+  private final long nodeBudget;
+  private final MoveGenerator generator;
+
+  /**
+   * Constructs a solver for the given board shape with the default node budget
+   *
+   * @param geometry the shape of the boards to solve
+   */
+  public BidirectionalSolver(BoardGeometry geometry) {
+    this(geometry, PegSolver.DEFAULT_NODE_BUDGET);
+  }
+
+  /**
+   * Constructs a solver for the given board shape
+   *
+   * @param geometry   the shape of the boards to solve
+   * @param nodeBudget the number of positions to generate before giving up
+   * @throws IllegalArgumentException if the geometry is null or the budget is not positive
+   */
+  public BidirectionalSolver(BoardGeometry geometry, long nodeBudget) {
+    if (geometry == null || nodeBudget <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.geometry = geometry;
+    this.nodeBudget = nodeBudget;
+    this.generator = MoveGenerators.forGeometry(geometry);
+  }
+
+  /**
+   * Search for moves turning the current position of one state into that of another
+   *
+   * @param start  the state to start from
+   * @param target the state whose marbles form the pattern to reach
+   * @return the result of the search
+   */
+  public PatternResult solve(MarbleSolitaireModelState start, MarbleSolitaireModelState target) {
+    return this.solve(this.geometry.pegs(start), this.geometry.pegs(target));
+  }
+
+  /**
+   * Search for moves turning one bitboard into another
+   *
+   * @param start  the bitboard to start from
+   * @param target the bitboard to reach
+   * @return the result of the search
+   */
+  public PatternResult solve(long[] start, long[] target) {
+    int depth = BoardGeometry.pegCount(start) - BoardGeometry.pegCount(target);
+    if (depth < 0) {
+      return new PatternResult(SolverResult.Verdict.Unsolvable, Collections.<Move>emptyList(), 0);
+    }
+
+    int[] symmetries = this.sharedSymmetries(start, target);
+
+    // forward.get(i) holds every position i moves after the start, and backward.get(i) every
+    // position i moves before the target
+    List<TranspositionTable> forward = new ArrayList<TranspositionTable>();
+    List<TranspositionTable> backward = new ArrayList<TranspositionTable>();
+    forward.add(this.layerOf(start));
+    backward.add(this.layerOf(target));
+    long nodes = 0;
+
+    while (forward.size() + backward.size() - 2 < depth) {
+      boolean forwards = last(forward).size() <= last(backward).size();
+      TranspositionTable next = this.expand(last(forwards ? forward : backward), forwards,
+              symmetries, this.nodeBudget - nodes);
+      if (next == null) {
+        return new PatternResult(SolverResult.Verdict.Unknown, Collections.<Move>emptyList(),
+                this.nodeBudget);
+      }
+      nodes += next.size();
+      if (next.size() == 0) {
+        return new PatternResult(SolverResult.Verdict.Unsolvable,
+                Collections.<Move>emptyList(), nodes);
+      }
+      (forwards ? forward : backward).add(next);
+    }
+
+    // Look up the members of the smaller final layer in the larger one
+    int words = this.geometry.getWords();
+    boolean smallForward = last(forward).size() <= last(backward).size();
+    long[] candidates = last(smallForward ? forward : backward).toArray();
+    TranspositionTable other = last(smallForward ? backward : forward);
+    for (int offset = 0; offset < candidates.length; offset += words) {
+      if (other.contains(candidates, offset)) {
+        long[] meeting = new long[words];
+        System.arraycopy(candidates, offset, meeting, 0, words);
+        return new PatternResult(SolverResult.Verdict.Solved,
+                this.line(forward, backward, symmetries, meeting), nodes);
+      }
+    }
+    return new PatternResult(SolverResult.Verdict.Unsolvable, Collections.<Move>emptyList(),
+            nodes);
+  }
+
+  /**
+   * Generate every position one move further from a layer
+   *
+   * @param layer      the layer to grow
+   * @param forwards   true to play jumps, false to take them back
+   * @param symmetries the symmetries to store positions in canonical form under
+   * @param budget     the number of positions that may still be generated
+   * @return the next layer, or null if the budget ran out or the thread was interrupted
+   */
+  private TranspositionTable expand(TranspositionTable layer, boolean forwards, int[] symmetries,
+                                    long budget) {
+    int words = this.geometry.getWords();
+    int jumps = this.geometry.getJumpCount();
+    long[] boards = layer.toArray();
+    long[] child = new long[words];
+    long[] canonical = new long[words];
+    long[] image = new long[words];
+    int[] moves = new int[jumps];
+    TranspositionTable next = new TranspositionTable(words);
+    long generated = 0;
+
+    for (int offset = 0; offset < boards.length; offset += words) {
+      int count = 0;
+      if (forwards) {
+        count = this.generator.generate(boards, offset, moves, 0);
+      } else {
+        for (int jump = 0; jump < jumps; jump++) {
+          if (this.geometry.isReverseLegal(boards, offset, jump)) {
+            moves[count++] = jump;
+          }
+        }
+      }
+      for (int i = 0; i < count; i++) {
+        System.arraycopy(boards, offset, child, 0, words);
+        this.geometry.apply(child, 0, moves[i]);
+        this.canonicalize(symmetries, child, canonical, image);
+        next.add(canonical, 0);
+        generated++;
+        if (generated % CHECK_INTERVAL == 0
+                && (next.size() >= budget || Thread.currentThread().isInterrupted())) {
+          return null;
+        }
+      }
+    }
+    return next.size() > budget ? null : next;
+  }
+
+  /**
+   * Rebuild the moves of a line through a position both sides reached, walking back to the start
+   * through the forward layers and on to the target through the backward layers
+   */
+  private List<Move> line(List<TranspositionTable> forward, List<TranspositionTable> backward,
+                          int[] symmetries, long[] meeting) {
+    List<Move> moves = new ArrayList<Move>();
+    long[] board = meeting.clone();
+    for (int layer = forward.size() - 2; layer >= 0; layer--) {
+      int jump = this.step(board, forward.get(layer), symmetries, false);
+      moves.add(this.geometry.toMove(jump));
+    }
+    Collections.reverse(moves);
+
+    board = meeting.clone();
+    for (int layer = backward.size() - 2; layer >= 0; layer--) {
+      int jump = this.step(board, backward.get(layer), symmetries, true);
+      moves.add(this.geometry.toMove(jump));
+    }
+    return moves;
+  }
+
+  /**
+   * Find a jump, played or taken back, that turns a board into a member of a layer, and make it
+   *
+   * @return the jump that was made
+   */
+  private int step(long[] board, TranspositionTable layer, int[] symmetries, boolean forwards) {
+    long[] canonical = new long[board.length];
+    long[] image = new long[board.length];
+    for (int jump = 0; jump < this.geometry.getJumpCount(); jump++) {
+      boolean legal = forwards ? this.geometry.isLegal(board, 0, jump)
+              : this.geometry.isReverseLegal(board, 0, jump);
+      if (legal) {
+        this.geometry.apply(board, 0, jump);
+        this.canonicalize(symmetries, board, canonical, image);
+        if (layer.contains(canonical, 0)) {
+          return jump;
+        }
+        this.geometry.apply(board, 0, jump);
+      }
+    }
+    throw new IllegalStateException("Layers do not connect");
+  }
+
+  /**
+   * Find the symmetries of the board, other than the identity, that map both the start and the
+   * target onto themselves
+   */
+  private int[] sharedSymmetries(long[] start, long[] target) {
+    int words = this.geometry.getWords();
+    long[] image = new long[words];
+    int[] shared = new int[this.geometry.getSymmetryCount()];
+    int count = 0;
+    for (int symmetry = 1; symmetry < this.geometry.getSymmetryCount(); symmetry++) {
+      this.geometry.transform(symmetry, start, image);
+      boolean fixed = BoardGeometry.compare(image, start, words) == 0;
+      this.geometry.transform(symmetry, target, image);
+      if (fixed && BoardGeometry.compare(image, target, words) == 0) {
+        shared[count++] = symmetry;
+      }
+    }
+    return Arrays.copyOf(shared, count);
+  }
+
+  // Write the smallest image of a board under the shared symmetries to out
+  private void canonicalize(int[] symmetries, long[] board, long[] out, long[] image) {
+    int words = this.geometry.getWords();
+    System.arraycopy(board, 0, out, 0, words);
+    for (int symmetry : symmetries) {
+      this.geometry.transform(symmetry, board, image);
+      if (BoardGeometry.compare(image, out, words) < 0) {
+        System.arraycopy(image, 0, out, 0, words);
+      }
+    }
+  }
+
+  private TranspositionTable layerOf(long[] board) {
+    TranspositionTable layer = new TranspositionTable(this.geometry.getWords());
+    layer.add(board, 0);
+    return layer;
+  }
+
+  private static TranspositionTable last(List<TranspositionTable> layers) {
+    return layers.get(layers.size() - 1);
+  }
+}
@@ -0,0 +1,538 @@
+package cs3500.marblesolitaire.solver;
+
+import java.util.Arrays;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState.SlotState;
+
+/**
+ * Represents the fixed shape of a marble solitaire board as seen by the solvers. Every valid slot
+ * is numbered as a hole in row-major order, and a position is stored as a bitboard of long words
+ * where bit h is set when hole h holds a marble. Every possible jump is precomputed as a
+ * (from, over, to) triplet of holes.
+ */
+public final class BoardGeometry {
+  private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
+
+  /**
+   * The greatest Fibonacci number a pagoda weight is taken from, which keeps the total of a
+   * board of up to 2580 holes within an int
+   */
+  private static final int MAX_WEIGHT_INDEX = 30;
+
+  private final int boardSize;
+  private final int holeCount;
+  private final int words;
+  private final int[] holeIndex;
+  private final int[] rowOf;
+  private final int[] colOf;
+  private final int[] jumpFrom;
+  private final int[] jumpOver;
+  private final int[] jumpTo;
+  private final int[][] symmetries;
+  private final int[] inverse;
+  private final int hash;
+
+  /**
+   * Constructs the geometry of the board underlying the given state. Only the shape of the board
+   * is read, so the current marbles of the state do not matter.
+   *
+   * @param state the state whose board shape to use
+   * @throws IllegalArgumentException if the state is null
+   */
+  public BoardGeometry(MarbleSolitaireModelState state) {
+    this(validSlots(state), state.getBoardSize());
+  }
+
+  /**
+   * Constructs the geometry of a square board from a mask of its valid slots
+   *
+   * @param valid     the validity of every slot in row-major order
+   * @param boardSize the number of rows and columns of the board
+   */
+  private BoardGeometry(boolean[] valid, int boardSize) {
+    this.boardSize = boardSize;
+    this.holeIndex = new int[boardSize * boardSize];
+
+    int holes = 0;
+    for (int cell = 0; cell < this.holeIndex.length; cell++) {
+      this.holeIndex[cell] = valid[cell] ? holes++ : -1;
+    }
+    this.holeCount = holes;
+    this.words = Math.max(1, (holes + 63) >>> 6);
+    this.rowOf = new int[holes];
+    this.colOf = new int[holes];
+
+    int jumps = 0;
+    int[] from = new int[holes * DIRECTIONS.length];
+    int[] over = new int[holes * DIRECTIONS.length];
+    int[] to = new int[holes * DIRECTIONS.length];
+    for (int row = 0; row < this.boardSize; row++) {
+      for (int col = 0; col < this.boardSize; col++) {
+        int hole = this.holeAt(row, col);
+        if (hole < 0) {
+          continue;
+        }
+        this.rowOf[hole] = row;
+        this.colOf[hole] = col;
+        for (int[] d : DIRECTIONS) {
+          int midHole = this.holeAt(row + d[0], col + d[1]);
+          int toHole = this.holeAt(row + 2 * d[0], col + 2 * d[1]);
+          if (midHole >= 0 && toHole >= 0) {
+            from[jumps] = hole;
+            over[jumps] = midHole;
+            to[jumps] = toHole;
+            jumps++;
+          }
+        }
+      }
+    }
+    this.jumpFrom = Arrays.copyOf(from, jumps);
+    this.jumpOver = Arrays.copyOf(over, jumps);
+    this.jumpTo = Arrays.copyOf(to, jumps);
+    this.symmetries = this.findSymmetries();
+    this.inverse = this.findInverses();
+    this.hash = 31 * this.boardSize + Arrays.hashCode(this.holeIndex);
+  }
+
+  /**
+   * Constructs the geometry of a square board from a mask of its valid slots
+   *
+   * @param boardSize the number of rows and columns of the board
+   * @param valid     the validity of every slot in row-major order
+   * @return the geometry of the board
+   * @throws IllegalArgumentException if the mask does not cover the board exactly
+   */
+  public static BoardGeometry fromMask(int boardSize, boolean[] valid) {
+    if (boardSize < 0 || valid == null || valid.length != boardSize * boardSize) {
+      throw new IllegalArgumentException();
+    }
+    return new BoardGeometry(valid.clone(), boardSize);
+  }
+
+  private static boolean[] validSlots(MarbleSolitaireModelState state) {
+    if (state == null) {
+      throw new IllegalArgumentException();
+    }
+    int size = state.getBoardSize();
+    boolean[] valid = new boolean[size * size];
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        valid[row * size + col] = state.getSlotAt(row, col) != SlotState.Invalid;
+      }
+    }
+    return valid;
+  }
+
+  /**
+   * Find the rotations and reflections of the square that map the valid slots onto themselves.
+   * The identity always comes first.
+   *
+   * @return for every symmetry, the hole each hole is mapped to
+   */
+  private int[][] findSymmetries() {
+    int n = this.boardSize - 1;
+    int[][] found = new int[8][];
+    int count = 0;
+    for (int s = 0; s < 8; s++) {
+      int[] perm = new int[this.holeCount];
+      boolean maps = true;
+      for (int hole = 0; hole < this.holeCount && maps; hole++) {
+        int r = this.rowOf[hole];
+        int c = this.colOf[hole];
+        int tr = (s & 4) != 0 ? c : r;
+        int tc = (s & 4) != 0 ? r : c;
+        if ((s & 1) != 0) {
+          tr = n - tr;
+        }
+        if ((s & 2) != 0) {
+          tc = n - tc;
+        }
+        perm[hole] = this.holeAt(tr, tc);
+        maps = perm[hole] >= 0;
+      }
+      if (maps) {
+        found[count++] = perm;
+      }
+    }
+    return Arrays.copyOf(found, count);
+  }
+
+  private int[] findInverses() {
+    int[] inverses = new int[this.symmetries.length];
+    for (int s = 0; s < this.symmetries.length; s++) {
+      for (int t = 0; t < this.symmetries.length; t++) {
+        boolean undoes = true;
+        for (int hole = 0; hole < this.holeCount && undoes; hole++) {
+          undoes = this.symmetries[t][this.symmetries[s][hole]] == hole;
+        }
+        if (undoes) {
+          inverses[s] = t;
+          break;
+        }
+      }
+    }
+    return inverses;
+  }
+
+  /**
+   * Return the size of the board this geometry was built from
+   *
+   * @return the board size
+   */
+  public int getBoardSize() {
+    return this.boardSize;
+  }
+
+  /**
+   * Return the number of valid slots on the board
+   *
+   * @return the number of holes
+   */
+  public int getHoleCount() {
+    return this.holeCount;
+  }
+
+  /**
+   * Return the number of long words in a bitboard of this geometry
+   *
+   * @return the number of words
+   */
+  public int getWords() {
+    return this.words;
+  }
+
+  /**
+   * Return the number of possible jumps on the board
+   *
+   * @return the number of jump triplets
+   */
+  public int getJumpCount() {
+    return this.jumpFrom.length;
+  }
+
+  /**
+   * Get the hole a jump starts from
+   *
+   * @param jump the index of the jump
+   * @return the hole of the jumping marble
+   */
+  public int getJumpFrom(int jump) {
+    return this.jumpFrom[jump];
+  }
+
+  /**
+   * Get the hole a jump passes over
+   *
+   * @param jump the index of the jump
+   * @return the hole of the captured marble
+   */
+  public int getJumpOver(int jump) {
+    return this.jumpOver[jump];
+  }
+
+  /**
+   * Get the hole a jump lands in
+   *
+   * @param jump the index of the jump
+   * @return the hole the marble is moved to
+   */
+  public int getJumpTo(int jump) {
+    return this.jumpTo[jump];
+  }
+
+  /**
+   * Get the hole at a given position on the board
+   *
+   * @param row the row of the position
+   * @param col the column of the position
+   * @return the hole number, or -1 if the position is off the board or invalid
+   */
+  public int holeAt(int row, int col) {
+    if (row < 0 || col < 0 || row >= this.boardSize || col >= this.boardSize) {
+      return -1;
+    }
+    return this.holeIndex[row * this.boardSize + col];
+  }
+
+  /**
+   * Get the row of a hole
+   *
+   * @param hole the hole number
+   * @return the row of the hole on the board
+   */
+  public int rowOf(int hole) {
+    return this.rowOf[hole];
+  }
+
+  /**
+   * Get the column of a hole
+   *
+   * @param hole the hole number
+   * @return the column of the hole on the board
+   */
+  public int colOf(int hole) {
+    return this.colOf[hole];
+  }
+
+  /**
+   * Read the marbles of a state into a new bitboard
+   *
+   * @param state a state with the same shape as this geometry
+   * @return the bitboard of the marbles of the state
+   */
+  public long[] pegs(MarbleSolitaireModelState state) {
+    long[] board = new long[this.words];
+    for (int hole = 0; hole < this.holeCount; hole++) {
+      if (state.getSlotAt(this.rowOf[hole], this.colOf[hole]) == SlotState.Marble) {
+        board[hole >>> 6] |= 1L << hole;
+      }
+    }
+    return board;
+  }
+
+  /**
+   * Determine if a jump can be made on a bitboard
+   *
+   * @param board  the words of the bitboard
+   * @param offset the index of the first word of the bitboard
+   * @param jump   the index of the jump
+   * @return true if the from and over holes hold marbles and the to hole is empty
+   */
+  public boolean isLegal(long[] board, int offset, int jump) {
+    return isSet(board, offset, this.jumpFrom[jump])
+            && isSet(board, offset, this.jumpOver[jump])
+            && !isSet(board, offset, this.jumpTo[jump]);
+  }
+
+  /**
+   * Determine if a jump can be taken back on a bitboard, which is the same as playing it in
+   * reverse: the to hole must hold a marble and the from and over holes must be empty. Taking a
+   * jump back is done with apply, since both directions flip the same three holes.
+   *
+   * @param board  the words of the bitboard
+   * @param offset the index of the first word of the bitboard
+   * @param jump   the index of the jump
+   * @return true if the jump could have been the last move made
+   */
+  public boolean isReverseLegal(long[] board, int offset, int jump) {
+    return !isSet(board, offset, this.jumpFrom[jump])
+            && !isSet(board, offset, this.jumpOver[jump])
+            && isSet(board, offset, this.jumpTo[jump]);
+  }
+
+  /**
+   * Make a jump on a bitboard in place. The jump is assumed to be legal.
+   *
+   * @param board  the words of the bitboard
+   * @param offset the index of the first word of the bitboard
+   * @param jump   the index of the jump
+   */
+  public void apply(long[] board, int offset, int jump) {
+    flip(board, offset, this.jumpFrom[jump]);
+    flip(board, offset, this.jumpOver[jump]);
+    flip(board, offset, this.jumpTo[jump]);
+  }
+
+  /**
+   * Convert a jump into the move that makes it on a model
+   *
+   * @param jump the index of the jump
+   * @return the move from the from hole to the to hole
+   */
+  public Move toMove(int jump) {
+    int from = this.jumpFrom[jump];
+    int to = this.jumpTo[jump];
+    return new Move(this.rowOf[from], this.colOf[from], this.rowOf[to], this.colOf[to]);
+  }
+
+  /**
+   * Return the number of rotations and reflections that map this board onto itself, including
+   * the identity, which is symmetry 0
+   *
+   * @return the size of the symmetry group of the board
+   */
+  public int getSymmetryCount() {
+    return this.symmetries.length;
+  }
+
+  /**
+   * Get the hole a symmetry maps a hole to
+   *
+   * @param symmetry the index of the symmetry
+   * @param hole     the hole to map
+   * @return the image of the hole
+   */
+  public int transform(int symmetry, int hole) {
+    return this.symmetries[symmetry][hole];
+  }
+
+  /**
+   * Get the symmetry that undoes a symmetry
+   *
+   * @param symmetry the index of the symmetry
+   * @return the index of its inverse
+   */
+  public int inverseOf(int symmetry) {
+    return this.inverse[symmetry];
+  }
+
+  /**
+   * Map a bitboard through a symmetry
+   *
+   * @param symmetry the index of the symmetry
+   * @param board    the bitboard to map
+   * @param out      the bitboard to write the image to, which must not be the same array
+   */
+  public void transform(int symmetry, long[] board, long[] out) {
+    int[] perm = this.symmetries[symmetry];
+    Arrays.fill(out, 0, this.words, 0L);
+    for (int w = 0; w < this.words; w++) {
+      long bits = board[w];
+      while (bits != 0) {
+        int hole = (w << 6) + Long.numberOfTrailingZeros(bits);
+        int image = perm[hole];
+        out[image >>> 6] |= 1L << image;
+        bits &= bits - 1;
+      }
+    }
+  }
+
+  /**
+   * Find the canonical form of a bitboard, which is the smallest of its images under every
+   * symmetry of the board. Positions that are rotations or reflections of each other share the
+   * same canonical form.
+   *
+   * @param board the bitboard to canonicalize
+   * @param out   the bitboard to write the canonical form to, which must not be the same array
+   * @return the symmetry that maps the board to its canonical form
+   */
+  public int canonicalize(long[] board, long[] out) {
+    System.arraycopy(board, 0, out, 0, this.words);
+    int best = 0;
+    long[] image = new long[this.words];
+    for (int s = 1; s < this.symmetries.length; s++) {
+      this.transform(s, board, image);
+      if (compare(image, out, this.words) < 0) {
+        System.arraycopy(image, 0, out, 0, this.words);
+        best = s;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Map a move through a symmetry
+   *
+   * @param symmetry the index of the symmetry
+   * @param move     the move to map
+   * @return the image of the move
+   */
+  public Move transform(int symmetry, Move move) {
+    int from = this.transform(symmetry, this.holeAt(move.getFromRow(), move.getFromCol()));
+    int to = this.transform(symmetry, this.holeAt(move.getToRow(), move.getToCol()));
+    return new Move(this.rowOf[from], this.colOf[from], this.rowOf[to], this.colOf[to]);
+  }
+
+  /**
+   * Compute the pagoda function of a finishing hole: a weight for every hole that no jump can
+   * increase the total of. A hole at distance d from the finishing hole, counted in steps along
+   * rows and columns, weighs F(k - d), where F are the Fibonacci numbers and k is two more than
+   * the greatest distance on the board, capped at MAX_WEIGHT_INDEX, and no hole weighs less than
+   * F(1). Since F(n) = F(n - 1) + F(n - 2), a jump toward the finishing hole adds exactly the
+   * weight it removes, and every other jump removes at least as much as it adds, so a game can
+   * only end with a single marble in the finishing hole if the marbles weigh at least F(k).
+   *
+   * @param finish the finishing hole
+   * @return the weight of every hole
+   */
+  public int[] pagoda(int finish) {
+    int[] distances = new int[this.holeCount];
+    int farthest = 0;
+    for (int hole = 0; hole < distances.length; hole++) {
+      distances[hole] = Math.abs(this.rowOf[hole] - this.rowOf[finish])
+              + Math.abs(this.colOf[hole] - this.colOf[finish]);
+      farthest = Math.max(farthest, distances[hole]);
+    }
+    int top = Math.min(farthest + 2, MAX_WEIGHT_INDEX);
+    int[] fibonacci = new int[top + 1];
+    fibonacci[1] = 1;
+    for (int n = 2; n <= top; n++) {
+      fibonacci[n] = fibonacci[n - 1] + fibonacci[n - 2];
+    }
+    int[] weights = new int[distances.length];
+    for (int hole = 0; hole < weights.length; hole++) {
+      weights[hole] = fibonacci[Math.max(1, top - distances[hole])];
+    }
+    return weights;
+  }
+
+  /**
+   * Determine if a slot is part of the board
+   *
+   * @param row the row of the slot
+   * @param col the column of the slot
+   * @return true if the slot is on the board and valid
+   */
+  public boolean isValid(int row, int col) {
+    return this.holeAt(row, col) >= 0;
+  }
+
+  static int compare(long[] a, long[] b, int words) {
+    for (int w = words - 1; w >= 0; w--) {
+      if (a[w] != b[w]) {
+        return Long.compareUnsigned(a[w], b[w]);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Count the marbles on a bitboard
+   *
+   * @param board the words of the bitboard
+   * @return the number of set bits
+   */
+  public static int pegCount(long[] board) {
+    int count = 0;
+    for (long word : board) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  private static boolean isSet(long[] board, int offset, int hole) {
+    return (board[offset + (hole >>> 6)] & (1L << hole)) != 0;
+  }
+
+  private static void flip(long[] board, int offset, int hole) {
+    board[offset + (hole >>> 6)] ^= 1L << hole;
+  }
+
+  /**
+   * Determine if two geometries describe the same board shape
+   *
+   * @param o the given object
+   * @return a boolean of true if the boards have the same size and valid slots
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    if (!(o instanceof BoardGeometry)) {
+      return false;
+    }
+
+    BoardGeometry that = (BoardGeometry) o;
+
+    return this.hash == that.hash && this.boardSize == that.boardSize
+            && Arrays.equals(this.holeIndex, that.holeIndex);
+  }
+
+  @Override
+  public int hashCode() {
+    return this.hash;
+  }
+}
@@ -0,0 +1,93 @@
+package cs3500.marblesolitaire.solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes the checkpoints of one search on a background thread, so the search only pays for
+ * copying its state. At most one write is in progress; a checkpoint that falls due while the last
+ * one is still being written is skipped. A failed periodic write is not fatal, since the next one
+ * may succeed, but a failed final write is reported.
+ */
+final class CheckpointWriter {
+  private final Path file;
+  private final ExecutorService executor;
+  private Future<?> pending;
+
+  /**
+   * Constructs a writer of checkpoints to a file
+   *
+   * @param file the file to write
+   */
+  CheckpointWriter(Path file) {
+    this.file = file;
+    this.executor = Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "solver-checkpoint");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Checks if no write is in progress, so a new checkpoint would be written rather than skipped
+   *
+   * @return true if the writer is idle
+   */
+  boolean isIdle() {
+    return this.pending == null || this.pending.isDone();
+  }
+
+  /**
+   * Start writing a checkpoint in the background
+   *
+   * @param checkpoint the checkpoint to write
+   */
+  void write(SolverCheckpoint checkpoint) {
+    this.pending = this.executor.submit(() -> {
+      checkpoint.write(this.file);
+      return null;
+    });
+  }
+
+  /**
+   * Wait for the write in progress and stop the background thread, writing one last checkpoint
+   * first if one is given. The last checkpoint is written even if the calling thread has been
+   * interrupted, which is how a search is usually stopped, and the interrupt is kept.
+   *
+   * @param last the checkpoint to write, or null to write none
+   * @throws UncheckedIOException if the last checkpoint cannot be written
+   */
+  void close(SolverCheckpoint last) {
+    boolean interrupted = Thread.interrupted();
+    try {
+      if (this.pending != null) {
+        while (true) {
+          try {
+            this.pending.get();
+            break;
+          } catch (InterruptedException e) {
+            interrupted = true;
+          } catch (ExecutionException e) {
+            // The last checkpoint replaces the one that failed
+            break;
+          }
+        }
+      }
+      if (last != null) {
+        last.write(this.file);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      this.executor.shutdown();
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package cs3500.marblesolitaire.solver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Represents a concurrent map from positions on a board of at most 64 holes, each a single
+ * bitboard word, to 128 bit counts. The table is split into segments by hash. Lookups take no
+ * lock: a count is written before the key that publishes it, so a lookup that finds the key sees
+ * the count. Stores lock only their segment, which grows on its own when it gets full; a lookup
+ * racing with the growth may miss an entry, which only costs the caller the work of counting it
+ * again. The empty board is never stored, so 0 marks a free slot.
+ */
+final class CountTable {
+  private static final int SEGMENT_BITS = 6;
+
+  private static final int INITIAL_CAPACITY = 1 << 10;
+
+  private final Segment[] segments;
+
+  /**
+   * Constructs an empty table
+   */
+  CountTable() {
+    this.segments = new Segment[1 << SEGMENT_BITS];
+    for (int s = 0; s < this.segments.length; s++) {
+      this.segments[s] = new Segment();
+    }
+  }
+
+  /**
+   * Look up the count of a position
+   *
+   * @param key  the position, which must not be empty
+   * @param low  where to put the low word of the count if it is found
+   * @param high where to put the high word of the count if it is found
+   * @return true if the position was found, false otherwise
+   */
+  boolean get(long key, long[] low, long[] high) {
+    long hash = mix(key);
+    Slots slots = this.segments[(int) (hash >>> (64 - SEGMENT_BITS))].slots;
+    int mask = slots.values.length / 2 - 1;
+    for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+      long found = slots.keys.get(slot);
+      if (found == key) {
+        low[0] = slots.values[2 * slot];
+        high[0] = slots.values[2 * slot + 1];
+        return true;
+      }
+      if (found == 0) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Store the count of a position, unless it is stored already
+   *
+   * @param key  the position, which must not be empty
+   * @param low  the low word of the count
+   * @param high the high word of the count
+   */
+  void put(long key, long low, long high) {
+    long hash = mix(key);
+    Segment segment = this.segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+    synchronized (segment) {
+      Slots slots = segment.slots;
+      if (4 * (segment.size + 1) > 3 * (slots.values.length / 2)) {
+        slots = segment.grow();
+      }
+      if (slots.insert(hash, key, low, high)) {
+        segment.size++;
+      }
+    }
+  }
+
+  /**
+   * Return the number of positions stored
+   *
+   * @return the number of positions
+   */
+  long size() {
+    long size = 0;
+    for (Segment segment : this.segments) {
+      synchronized (segment) {
+        size += segment.size;
+      }
+    }
+    return size;
+  }
+
+  private static long mix(long key) {
+    long z = key * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    return z ^ (z >>> 27);
+  }
+
+  // A segment of the table. Its slots are replaced as a whole when it grows, so a lookup always
+  // probes one consistent set of slots.
+  private static final class Segment {
+    private volatile Slots slots = new Slots(INITIAL_CAPACITY);
+    private int size;
+
+    private Slots grow() {
+      Slots old = this.slots;
+      Slots bigger = new Slots(2 * (old.values.length / 2));
+      for (int slot = 0; slot < old.values.length / 2; slot++) {
+        long key = old.keys.get(slot);
+        if (key != 0) {
+          bigger.insert(mix(key), key, old.values[2 * slot], old.values[2 * slot + 1]);
+        }
+      }
+      this.slots = bigger;
+      return bigger;
+    }
+  }
+
+  // The keys of a segment and, two words to a slot, their counts
+  private static final class Slots {
+    private final AtomicLongArray keys;
+    private final long[] values;
+
+    private Slots(int capacity) {
+      this.keys = new AtomicLongArray(capacity);
+      this.values = new long[2 * capacity];
+    }
+
+    private boolean insert(long hash, long key, long low, long high) {
+      int mask = this.values.length / 2 - 1;
+      for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+        long found = this.keys.get(slot);
+        if (found == key) {
+          return false;
+        }
+        if (found == 0) {
+          this.values[2 * slot] = low;
+          this.values[2 * slot + 1] = high;
+          this.keys.set(slot, key);
+          return true;
+        }
+      }
+    }
+  }
+}
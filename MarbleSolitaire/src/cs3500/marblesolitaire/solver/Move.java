@@ -0,0 +1,95 @@
+package cs3500.marblesolitaire.solver;
+
+/**
+ * Represents a single jump of a marble from one position to another, in the same coordinates
+ * accepted by MarbleSolitaireModel.move
+ */
+public final class Move {
+  private final int fromRow;
+  private final int fromCol;
+  private final int toRow;
+  private final int toCol;
+
+  /**
+   * Constructs a move from (fromRow, fromCol) to (toRow, toCol)
+   *
+   * @param fromRow the row number of the position to be moved from
+   * @param fromCol the column number of the position to be moved from
+   * @param toRow   the row number of the position to be moved to
+   * @param toCol   the column number of the position to be moved to
+   */
+  public Move(int fromRow, int fromCol, int toRow, int toCol) {
+    this.fromRow = fromRow;
+    this.fromCol = fromCol;
+    this.toRow = toRow;
+    this.toCol = toCol;
+  }
+
+  /**
+   * Get the row number of the position to be moved from
+   *
+   * @return the from row
+   */
+  public int getFromRow() {
+    return this.fromRow;
+  }
+
+  /**
+   * Get the column number of the position to be moved from
+   *
+   * @return the from column
+   */
+  public int getFromCol() {
+    return this.fromCol;
+  }
+
+  /**
+   * Get the row number of the position to be moved to
+   *
+   * @return the to row
+   */
+  public int getToRow() {
+    return this.toRow;
+  }
+
+  /**
+   * Get the column number of the position to be moved to
+   *
+   * @return the to column
+   */
+  public int getToCol() {
+    return this.toCol;
+  }
+
+  /**
+   * Determine if two moves are equal
+   *
+   * @param o the given object
+   * @return a boolean of true if the moves jump between the same positions and false if not
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    if (!(o instanceof Move)) {
+      return false;
+    }
+
+    Move that = (Move) o;
+
+    return this.fromRow == that.fromRow && this.fromCol == that.fromCol
+            && this.toRow == that.toRow && this.toCol == that.toCol;
+  }
+
+  @Override
+  public int hashCode() {
+    return ((this.fromRow * 31 + this.fromCol) * 31 + this.toRow) * 31 + this.toCol;
+  }
+
+  @Override
+  public String toString() {
+    return "(" + this.fromRow + ", " + this.fromCol + ") -> (" + this.toRow + ", " + this.toCol + ")";
+  }
+}
@@ -0,0 +1,38 @@
+package cs3500.marblesolitaire.solver;
+
+/**
+ * This interface represents a generator of the legal jumps on bitboards of one board geometry.
+ * Jumps are identified by their index in the geometry.
+ */
+public interface MoveGenerator {
+  /**
+   * Count the legal jumps on a bitboard
+   *
+   * @param board  the array holding the bitboard
+   * @param offset the index of the first word of the bitboard
+   * @return the number of legal jumps
+   */
+  int countMoves(long[] board, int offset);
+
+  /**
+   * Determine if any jump is legal on a bitboard
+   *
+   * @param board  the array holding the bitboard
+   * @param offset the index of the first word of the bitboard
+   * @return true if at least one jump can be made
+   */
+  boolean hasMove(long[] board, int offset);
+
+  /**
+   * Write the indices of the legal jumps on a bitboard, in increasing order. The output must have
+   * room for every jump of the geometry after outOffset, even though only the first few entries
+   * are meaningful.
+   *
+   * @param board     the array holding the bitboard
+   * @param offset    the index of the first word of the bitboard
+   * @param out       the array to write the jump indices to
+   * @param outOffset the index of out to write the first jump to
+   * @return the number of legal jumps written
+   */
+  int generate(long[] board, int offset, int[] out, int outOffset);
+}
@@ -0,0 +1,429 @@
+package cs3500.marblesolitaire.solver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates move generators for board geometries. A compiled generator is a hidden class generated
+ * at runtime for one geometry, in which every jump triplet is unrolled into straight-line,
+ * branch-free code with the word indices and bit shifts as constants. The JIT can then schedule
+ * the whole move generation as one block instead of looping over triplet tables.
+ */
+public final class MoveGenerators {
+  /**
+   * The most jumps a geometry may have to be compiled. On larger boards the unrolled code no
+   * longer fits in the instruction cache and is no faster than the table, so they get a
+   * table-driven generator instead.
+   */
+  public static final int MAX_COMPILED_JUMPS = 1024;
+
+  private static final Map<BoardGeometry, MoveGenerator> COMPILED =
+          new ConcurrentHashMap<BoardGeometry, MoveGenerator>();
+
+  private MoveGenerators() {
+  }
+
+  /**
+   * Get the fastest generator for a geometry: a compiled generator when the board is small enough,
+   * and a table-driven generator otherwise. Compiled generators are cached per geometry.
+   *
+   * @param geometry the shape of the board
+   * @return a move generator for the geometry
+   */
+  public static MoveGenerator forGeometry(BoardGeometry geometry) {
+    if (geometry.getJumpCount() > MAX_COMPILED_JUMPS) {
+      return table(geometry);
+    }
+    return COMPILED.computeIfAbsent(geometry, MoveGenerators::compile);
+  }
+
+  /**
+   * Create a generator that loops over the jump triplets of a geometry
+   *
+   * @param geometry the shape of the board
+   * @return a table-driven move generator
+   */
+  public static MoveGenerator table(BoardGeometry geometry) {
+    return new TableMoveGenerator(geometry);
+  }
+
+  /**
+   * Generate and load a hidden class specialized for a geometry
+   *
+   * @param geometry the shape of the board
+   * @return a compiled move generator
+   * @throws IllegalArgumentException if the geometry has more than MAX_COMPILED_JUMPS jumps
+   * @throws IllegalStateException    if the class cannot be defined
+   */
+  public static MoveGenerator compile(BoardGeometry geometry) {
+    if (geometry.getJumpCount() > MAX_COMPILED_JUMPS) {
+      throw new IllegalArgumentException("Too many jumps to compile: " + geometry.getJumpCount());
+    }
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup()
+              .defineHiddenClass(new ClassWriter(geometry).toBytes(), true);
+      return (MoveGenerator) lookup.findConstructor(lookup.lookupClass(),
+              MethodType.methodType(void.class)).invoke();
+    } catch (Throwable e) {
+      throw new IllegalStateException("Could not compile a move generator", e);
+    }
+  }
+
+  // Represents a generator that checks every jump triplet of a geometry in a loop
+  private static final class TableMoveGenerator implements MoveGenerator {
+    private final BoardGeometry geometry;
+
+    private TableMoveGenerator(BoardGeometry geometry) {
+      this.geometry = geometry;
+    }
+
+    @Override
+    public int countMoves(long[] board, int offset) {
+      int count = 0;
+      for (int jump = 0; jump < this.geometry.getJumpCount(); jump++) {
+        if (this.geometry.isLegal(board, offset, jump)) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    @Override
+    public boolean hasMove(long[] board, int offset) {
+      for (int jump = 0; jump < this.geometry.getJumpCount(); jump++) {
+        if (this.geometry.isLegal(board, offset, jump)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public int generate(long[] board, int offset, int[] out, int outOffset) {
+      int count = 0;
+      for (int jump = 0; jump < this.geometry.getJumpCount(); jump++) {
+        if (this.geometry.isLegal(board, offset, jump)) {
+          out[outOffset + count++] = jump;
+        }
+      }
+      return count;
+    }
+  }
+
+  /**
+   * Represents the writer of the class file of a compiled generator. The class implements
+   * MoveGenerator with one unrolled block per jump, computing the legality of a jump as
+   * ((from &amp; over &amp; ~to) &amp; 1) on the shifted board words. The blocks are split into
+   * static methods of JUMPS_PER_METHOD jumps each, because HotSpot does not JIT-compile methods
+   * longer than 8000 bytes of bytecode.
+   */
+  private static final class ClassWriter {
+    private static final String NAME = "cs3500/marblesolitaire/solver/CompiledMoveGenerator";
+    private static final int JUMPS_PER_METHOD = 96;
+
+    // Opcodes
+    private static final int ICONST_0 = 0x03;
+    private static final int LCONST_1 = 0x0a;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int ILOAD = 0x15;
+    private static final int ALOAD = 0x19;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int LALOAD = 0x2f;
+    private static final int ISTORE = 0x36;
+    private static final int IASTORE = 0x4f;
+    private static final int IADD = 0x60;
+    private static final int ISUB = 0x64;
+    private static final int LUSHR = 0x7d;
+    private static final int LAND = 0x7f;
+    private static final int IOR = 0x80;
+    private static final int LXOR = 0x83;
+    private static final int L2I = 0x88;
+    private static final int IRETURN = 0xac;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+
+    private final BoardGeometry geometry;
+    private final ByteArrayOutputStream pool;
+    private final Map<String, Integer> constants;
+    private int poolCount;
+
+    private ClassWriter(BoardGeometry geometry) {
+      this.geometry = geometry;
+      this.pool = new ByteArrayOutputStream();
+      this.constants = new HashMap<String, Integer>();
+      this.poolCount = 1;
+    }
+
+    private byte[] toBytes() throws IOException {
+      int chunks = (this.geometry.getJumpCount() + JUMPS_PER_METHOD - 1) / JUMPS_PER_METHOD;
+      int thisClass = this.classConstant(NAME);
+      int objectClass = this.classConstant("java/lang/Object");
+      int interfaceClass = this.classConstant("cs3500/marblesolitaire/solver/MoveGenerator");
+      int code = this.utf8("Code");
+
+      ByteArrayOutputStream methods = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(methods);
+      this.writeMethod(out, 0x0001, "<init>", "()V", 1, code,
+              this.constructor(this.methodConstant(objectClass, "<init>", "()V")));
+      this.writeMethod(out, 0x0001, "countMoves", "([JI)I", 3, code,
+              this.combine(chunks, "c", IADD));
+      this.writeMethod(out, 0x0001, "hasMove", "([JI)Z", 3, code,
+              this.combine(chunks, "h", IOR));
+      this.writeMethod(out, 0x0001, "generate", "([JI[II)I", 6, code, this.generate(chunks));
+      for (int chunk = 0; chunk < chunks; chunk++) {
+        this.writeMethod(out, 0x000A, "c" + chunk, "([JI)I", 3, code,
+                this.accumulate(chunk, IADD));
+        this.writeMethod(out, 0x000A, "h" + chunk, "([JI)I", 3, code,
+                this.accumulate(chunk, IOR));
+        this.writeMethod(out, 0x000A, "g" + chunk, "([JI[II)I", 5, code, this.store(chunk));
+      }
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream file = new DataOutputStream(bytes);
+      file.writeInt(0xCAFEBABE);
+      file.writeShort(0);
+      file.writeShort(52);
+      file.writeShort(this.poolCount);
+      this.pool.writeTo(file);
+      file.writeShort(0x0031);
+      file.writeShort(thisClass);
+      file.writeShort(objectClass);
+      file.writeShort(1);
+      file.writeShort(interfaceClass);
+      file.writeShort(0);
+      file.writeShort(4 + 3 * chunks);
+      methods.writeTo(file);
+      file.writeShort(0);
+      return bytes.toByteArray();
+    }
+
+    private byte[] constructor(int objectInit) {
+      ByteArrayOutputStream code = new ByteArrayOutputStream();
+      code.write(ALOAD_0);
+      code.write(INVOKESPECIAL);
+      writeShort(code, objectInit);
+      code.write(RETURN);
+      return code.toByteArray();
+    }
+
+    /**
+     * Emit (board, offset) -> acc combining the results of the chunk methods with prefix with
+     * the given int operation, IADD to count and IOR to test for any legal jump
+     */
+    private byte[] combine(int chunks, String prefix, int operation) throws IOException {
+      ByteArrayOutputStream code = new ByteArrayOutputStream();
+      code.write(ICONST_0);
+      for (int chunk = 0; chunk < chunks; chunk++) {
+        code.write(ALOAD);
+        code.write(1);
+        code.write(ILOAD);
+        code.write(2);
+        code.write(INVOKESTATIC);
+        writeShort(code, this.methodConstant(this.classConstant(NAME), prefix + chunk, "([JI)I"));
+        code.write(operation);
+      }
+      code.write(IRETURN);
+      return code.toByteArray();
+    }
+
+    /**
+     * Emit (board, offset, out, outOffset) -> count threading the output index through the
+     * chunk methods
+     */
+    private byte[] generate(int chunks) throws IOException {
+      ByteArrayOutputStream code = new ByteArrayOutputStream();
+      code.write(ILOAD);
+      code.write(4);
+      code.write(ISTORE);
+      code.write(5);
+      for (int chunk = 0; chunk < chunks; chunk++) {
+        code.write(ALOAD);
+        code.write(1);
+        code.write(ILOAD);
+        code.write(2);
+        code.write(ALOAD);
+        code.write(3);
+        code.write(ILOAD);
+        code.write(5);
+        code.write(INVOKESTATIC);
+        writeShort(code, this.methodConstant(this.classConstant(NAME), "g" + chunk,
+                "([JI[II)I"));
+        code.write(ISTORE);
+        code.write(5);
+      }
+      code.write(ILOAD);
+      code.write(5);
+      code.write(ILOAD);
+      code.write(4);
+      code.write(ISUB);
+      code.write(IRETURN);
+      return code.toByteArray();
+    }
+
+    /**
+     * Emit static (board, offset) -> acc combining the legality bits of the jumps of a chunk
+     */
+    private byte[] accumulate(int chunk, int operation) {
+      ByteArrayOutputStream code = new ByteArrayOutputStream();
+      code.write(ICONST_0);
+      int end = Math.min(this.geometry.getJumpCount(), (chunk + 1) * JUMPS_PER_METHOD);
+      for (int jump = chunk * JUMPS_PER_METHOD; jump < end; jump++) {
+        this.legalBit(code, jump);
+        code.write(operation);
+      }
+      code.write(IRETURN);
+      return code.toByteArray();
+    }
+
+    /**
+     * Emit static (board, offset, out, n) -> n storing every jump index of a chunk at out[n]
+     * and advancing n by its legality bit, so that illegal jumps are overwritten by the next one
+     */
+    private byte[] store(int chunk) {
+      ByteArrayOutputStream code = new ByteArrayOutputStream();
+      int end = Math.min(this.geometry.getJumpCount(), (chunk + 1) * JUMPS_PER_METHOD);
+      for (int jump = chunk * JUMPS_PER_METHOD; jump < end; jump++) {
+        this.legalBit(code, jump);
+        code.write(ISTORE);
+        code.write(4);
+        code.write(ALOAD);
+        code.write(2);
+        code.write(ILOAD);
+        code.write(3);
+        pushInt(code, jump);
+        code.write(IASTORE);
+        code.write(ILOAD);
+        code.write(3);
+        code.write(ILOAD);
+        code.write(4);
+        code.write(IADD);
+        code.write(ISTORE);
+        code.write(3);
+      }
+      code.write(ILOAD);
+      code.write(3);
+      code.write(IRETURN);
+      return code.toByteArray();
+    }
+
+    /**
+     * Emit code leaving 1 on the stack if a jump is legal and 0 otherwise, reading the board
+     * from local 0 and the offset from local 1
+     */
+    private void legalBit(ByteArrayOutputStream code, int jump) {
+      this.loadHole(code, this.geometry.getJumpFrom(jump));
+      this.loadHole(code, this.geometry.getJumpOver(jump));
+      code.write(LAND);
+      this.loadHole(code, this.geometry.getJumpTo(jump));
+      code.write(LCONST_1);
+      code.write(LXOR);
+      code.write(LAND);
+      code.write(LCONST_1);
+      code.write(LAND);
+      code.write(L2I);
+    }
+
+    /**
+     * Emit code leaving the word holding a hole on the stack, shifted so the hole is bit 0
+     */
+    private void loadHole(ByteArrayOutputStream code, int hole) {
+      code.write(ALOAD);
+      code.write(0);
+      code.write(ILOAD);
+      code.write(1);
+      if ((hole >>> 6) != 0) {
+        pushInt(code, hole >>> 6);
+        code.write(IADD);
+      }
+      code.write(LALOAD);
+      if ((hole & 63) != 0) {
+        pushInt(code, hole & 63);
+        code.write(LUSHR);
+      }
+    }
+
+    private int utf8(String value) throws IOException {
+      Integer index = this.constants.get("U" + value);
+      if (index == null) {
+        DataOutputStream out = new DataOutputStream(this.pool);
+        out.writeByte(1);
+        out.writeUTF(value);
+        index = this.poolCount++;
+        this.constants.put("U" + value, index);
+      }
+      return index;
+    }
+
+    private int classConstant(String name) throws IOException {
+      Integer index = this.constants.get("C" + name);
+      if (index == null) {
+        int utf8 = this.utf8(name);
+        this.pool.write(7);
+        writeShort(this.pool, utf8);
+        index = this.poolCount++;
+        this.constants.put("C" + name, index);
+      }
+      return index;
+    }
+
+    private int methodConstant(int owner, String name, String descriptor) throws IOException {
+      String key = "M" + owner + "." + name + descriptor;
+      Integer index = this.constants.get(key);
+      if (index == null) {
+        int nameIndex = this.utf8(name);
+        int descriptorIndex = this.utf8(descriptor);
+        this.pool.write(12);
+        writeShort(this.pool, nameIndex);
+        writeShort(this.pool, descriptorIndex);
+        int nameAndType = this.poolCount++;
+        this.pool.write(10);
+        writeShort(this.pool, owner);
+        writeShort(this.pool, nameAndType);
+        index = this.poolCount++;
+        this.constants.put(key, index);
+      }
+      return index;
+    }
+
+    private void writeMethod(DataOutputStream out, int access, String name, String descriptor,
+                             int maxLocals, int codeAttribute, byte[] code) throws IOException {
+      out.writeShort(access);
+      out.writeShort(this.utf8(name));
+      out.writeShort(this.utf8(descriptor));
+      out.writeShort(1);
+      out.writeShort(codeAttribute);
+      out.writeInt(12 + code.length);
+      out.writeShort(8);
+      out.writeShort(maxLocals);
+      out.writeInt(code.length);
+      out.write(code);
+      out.writeShort(0);
+      out.writeShort(0);
+    }
+
+    private static void pushInt(ByteArrayOutputStream code, int value) {
+      if (value >= -1 && value <= 5) {
+        code.write(ICONST_0 + value);
+      } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+        code.write(BIPUSH);
+        code.write(value);
+      } else {
+        code.write(SIPUSH);
+        writeShort(code, value);
+      }
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value) {
+      out.write(value >>> 8);
+      out.write(value);
+    }
+  }
+}
@@ -0,0 +1,398 @@
+package cs3500.marblesolitaire.solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+
+/**
+ * Represents a set of pattern databases giving a lower bound on the number of marbles a game can
+ * end with. Two facts about jumps are combined.
+ *
+ * <p>First, every jump changes the marbles of three holes in a line by one each, so it flips the
+ * parity of the marbles in each class of holes with the same (row + column) mod 3, and likewise
+ * for (row - column) mod 3. The parities of classes 0 and 1 together and of classes 1 and 2
+ * together are therefore fixed for a whole game. This position class decides which holes a last
+ * marble can be left in; positions of a class no single marble has cannot end with fewer than
+ * two.</p>
+ *
+ * <p>Second, for every hole there is a pagoda function: a weight for every hole that no jump can
+ * increase the total of. Weights fall off like the Fibonacci numbers with the distance from the
+ * finishing hole, as in Conway's proof that soldiers cannot advance five rows. A game can only be
+ * left with a single marble in a hole if the total weight of the position for that hole is at
+ * least the weight of the hole itself.</p>
+ *
+ * <p>The board is cut along its arms into a three by three grid of blocks, which are cut further
+ * in row-major order into regions of at most MAX_REGION_HOLES holes. For every finishing hole and
+ * region, a table holds the total weight of every pattern of marbles in the region, so the weight
+ * of a position is a sum of one lookup per region.</p>
+ */
+public final class PatternDatabase {
+  /**
+   * The most holes in a region, which keeps every table at most 2^12 weights
+   */
+  public static final int MAX_REGION_HOLES = 12;
+
+  private static final int MAGIC = 0x4D535047;
+
+  private final BoardShape shape;
+  private final int armThickness;
+  private final BoardGeometry geometry;
+  private final int[][] regions;
+  private final ByteBuffer tables;
+  private final int[][] tableOffsets;
+  private final long[][] classMasks;
+  private final int[][] finishesOf;
+  private final int[] targets;
+
+  private PatternDatabase(BoardShape shape, int armThickness, BoardGeometry geometry,
+                          int[][] regions, ByteBuffer tables, int tableStart) {
+    this.shape = shape;
+    this.armThickness = armThickness;
+    this.geometry = geometry;
+    this.regions = regions;
+    this.tables = tables;
+    int holes = geometry.getHoleCount();
+    this.tableOffsets = new int[holes][regions.length];
+    int offset = tableStart;
+    for (int finish = 0; finish < holes; finish++) {
+      for (int r = 0; r < regions.length; r++) {
+        this.tableOffsets[finish][r] = offset;
+        offset += 4 << regions[r].length;
+      }
+    }
+    this.classMasks = classMasksOf(geometry);
+
+    // The classes a lone marble can be in, and the weight of each finishing hole for itself
+    int[] classOf = new int[holes];
+    int[] sizes = new int[16];
+    long[] lone = new long[geometry.getWords()];
+    for (int hole = 0; hole < holes; hole++) {
+      lone[hole >>> 6] = 1L << hole;
+      classOf[hole] = this.classOf(lone, 0);
+      lone[hole >>> 6] = 0L;
+      sizes[classOf[hole]]++;
+    }
+    this.finishesOf = new int[16][];
+    for (int c = 0; c < 16; c++) {
+      this.finishesOf[c] = new int[sizes[c]];
+      sizes[c] = 0;
+    }
+    this.targets = new int[holes];
+    for (int r = 0; r < regions.length; r++) {
+      for (int i = 0; i < regions[r].length; i++) {
+        int hole = regions[r][i];
+        this.finishesOf[classOf[hole]][sizes[classOf[hole]]++] = hole;
+        this.targets[hole] = this.getWeight(hole, r, 1 << i);
+      }
+    }
+  }
+
+  /**
+   * Build the databases of a board
+   *
+   * @param shape        the shape of the board
+   * @param armThickness the arm thickness of the board
+   * @return the databases
+   * @throws IllegalArgumentException if the shape is null, the arm thickness is invalid or the
+   *                                  tables of the board would not fit in one buffer
+   */
+  public static PatternDatabase build(BoardShape shape, int armThickness) {
+    if (shape == null) {
+      throw new IllegalArgumentException();
+    }
+    BoardGeometry geometry = new BoardGeometry(shape.create(armThickness));
+    int[][] regions = regionsOf(geometry, armThickness);
+    long patterns = 0;
+    for (int[] region : regions) {
+      patterns += 1 << region.length;
+    }
+    long bytes = 4 * patterns * geometry.getHoleCount();
+    if (bytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Board is too large for pattern databases");
+    }
+    ByteBuffer tables = ByteBuffer.allocate((int) bytes);
+    for (int finish = 0; finish < geometry.getHoleCount(); finish++) {
+      int[] weights = geometry.pagoda(finish);
+      for (int[] region : regions) {
+        for (int weight : buildTable(weights, region)) {
+          tables.putInt(weight);
+        }
+      }
+    }
+    tables.clear();
+    return new PatternDatabase(shape, armThickness, geometry, regions, tables, 0);
+  }
+
+  /**
+   * Get the geometry of the board the databases are for
+   *
+   * @return the geometry
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Get the number of regions the board is cut into
+   *
+   * @return the number of regions
+   */
+  public int getRegionCount() {
+    return this.regions.length;
+  }
+
+  /**
+   * Get the holes of a region, in the order of the bits of its patterns
+   *
+   * @param region the index of the region
+   * @return the holes of the region
+   */
+  public int[] getRegion(int region) {
+    return this.regions[region].clone();
+  }
+
+  /**
+   * Get the weight of a pattern of marbles in a region for the pagoda function of a finishing hole
+   *
+   * @param finish  the hole a last marble would be left in
+   * @param region  the index of the region
+   * @param pattern the marbles in the region, bit i set when its hole i holds one
+   * @return the total weight of the marbles
+   */
+  public int getWeight(int finish, int region, int pattern) {
+    return this.tables.getInt(this.tableOffsets[finish][region] + 4 * pattern);
+  }
+
+  /**
+   * Compute a lower bound on the number of marbles any game from a position can end with
+   *
+   * @param board  the array holding the bitboard of the position
+   * @param offset the index of the first word of the bitboard
+   * @return 0 for an empty board, 2 if neither the position class nor the pagoda function of any
+   *         hole allows a single marble to be left, and 1 otherwise
+   */
+  public int bound(long[] board, int offset) {
+    boolean empty = true;
+    for (int w = 0; w < this.geometry.getWords() && empty; w++) {
+      empty = board[offset + w] == 0L;
+    }
+    if (empty) {
+      return 0;
+    }
+    int[] finishes = this.finishesOf[this.classOf(board, offset)];
+    if (finishes.length == 0) {
+      return 2;
+    }
+    int[] patterns = new int[this.regions.length];
+    for (int r = 0; r < this.regions.length; r++) {
+      int[] holes = this.regions[r];
+      for (int i = 0; i < holes.length; i++) {
+        int hole = holes[i];
+        patterns[r] |= (int) ((board[offset + (hole >>> 6)] >>> hole) & 1L) << i;
+      }
+    }
+    for (int finish : finishes) {
+      int weight = 0;
+      for (int r = 0; r < patterns.length; r++) {
+        weight += this.tables.getInt(this.tableOffsets[finish][r] + 4 * patterns[r]);
+      }
+      if (weight >= this.targets[finish]) {
+        return 1;
+      }
+    }
+    return 2;
+  }
+
+  /**
+   * Compute the position class of a bitboard, one bit for the parity of each class mask
+   */
+  private int classOf(long[] board, int offset) {
+    int positionClass = 0;
+    for (int k = 0; k < this.classMasks.length; k++) {
+      int marbles = 0;
+      for (int w = 0; w < this.classMasks[k].length; w++) {
+        marbles += Long.bitCount(board[offset + w] & this.classMasks[k][w]);
+      }
+      positionClass |= (marbles & 1) << k;
+    }
+    return positionClass;
+  }
+
+  /**
+   * Write the databases to a file, replacing it if it exists
+   *
+   * @param file the file to write
+   * @throws IOException if the file cannot be written
+   */
+  public void save(Path file) throws IOException {
+    long bytes = 16L + this.tables.capacity();
+    for (int[] region : this.regions) {
+      bytes += 4 + 4L * region.length;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+      buffer.putInt(MAGIC).putInt(this.shape.ordinal()).putInt(this.armThickness)
+              .putInt(this.regions.length);
+      for (int[] region : this.regions) {
+        buffer.putInt(region.length);
+        for (int hole : region) {
+          buffer.putInt(hole);
+        }
+      }
+      ByteBuffer tables = this.tables.duplicate();
+      tables.clear();
+      buffer.put(tables);
+      buffer.force();
+    }
+  }
+
+  /**
+   * Map databases written by save into memory. Only the pages of the tables that are looked up
+   * are ever read from disk.
+   *
+   * @param file the file to read
+   * @return the databases
+   * @throws IOException              if the file cannot be read
+   * @throws IllegalArgumentException if the file does not hold pattern databases
+   */
+  public static PatternDatabase load(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < 16 || buffer.getInt() != MAGIC) {
+        throw new IllegalArgumentException("Not a pattern database: " + file);
+      }
+      int shape = buffer.getInt();
+      int arm = buffer.getInt();
+      int count = buffer.getInt();
+      if (shape < 0 || shape >= BoardShape.values().length) {
+        throw new IllegalArgumentException("Unknown board shape in " + file);
+      }
+      BoardGeometry geometry = new BoardGeometry(BoardShape.values()[shape].create(arm));
+      int[][] regions = new int[count][];
+      long patterns = 0;
+      for (int r = 0; r < count; r++) {
+        int holes = buffer.getInt();
+        if (holes < 0 || holes > MAX_REGION_HOLES) {
+          throw new IllegalArgumentException("Corrupt pattern database: " + file);
+        }
+        regions[r] = new int[holes];
+        for (int i = 0; i < holes; i++) {
+          regions[r][i] = buffer.getInt();
+          if (regions[r][i] < 0 || regions[r][i] >= geometry.getHoleCount()) {
+            throw new IllegalArgumentException("Corrupt pattern database: " + file);
+          }
+        }
+        patterns += 1 << holes;
+      }
+      if (buffer.remaining() != 4 * patterns * geometry.getHoleCount()) {
+        throw new IllegalArgumentException("Truncated pattern database: " + file);
+      }
+      return new PatternDatabase(BoardShape.values()[shape], arm, geometry, regions, buffer,
+              buffer.position());
+    }
+  }
+
+  /**
+   * Cut the holes of a board into regions along its arms
+   */
+  private static int[][] regionsOf(BoardGeometry geometry, int arm) {
+    int[] cuts = {0, arm - 1, 2 * arm - 1, geometry.getBoardSize()};
+    List<int[]> regions = new ArrayList<int[]>();
+    for (int blockRow = 0; blockRow < 3; blockRow++) {
+      for (int blockCol = 0; blockCol < 3; blockCol++) {
+        List<Integer> band = new ArrayList<Integer>();
+        for (int row = cuts[blockRow]; row < cuts[blockRow + 1]; row++) {
+          for (int col = cuts[blockCol]; col < cuts[blockCol + 1]; col++) {
+            if (geometry.holeAt(row, col) < 0) {
+              continue;
+            }
+            if (band.size() == MAX_REGION_HOLES) {
+              regions.add(toArray(band));
+              band.clear();
+            }
+            band.add(geometry.holeAt(row, col));
+          }
+        }
+        if (!band.isEmpty()) {
+          regions.add(toArray(band));
+        }
+      }
+    }
+    return regions.toArray(new int[0][]);
+  }
+
+  private static int[] toArray(List<Integer> holes) {
+    int[] array = new int[holes.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = holes.get(i);
+    }
+    return array;
+  }
+
+  /**
+   * Compute the masks of the holes whose marbles decide the position class: for (row + column)
+   * mod 3 and for (row - column) mod 3, the holes in classes 0 and 1 and those in classes 1 and 2
+   */
+  private static long[][] classMasksOf(BoardGeometry geometry) {
+    long[][] masks = new long[4][geometry.getWords()];
+    for (int hole = 0; hole < geometry.getHoleCount(); hole++) {
+      int row = geometry.rowOf(hole);
+      int col = geometry.colOf(hole);
+      int[] lines = {(row + col) % 3, ((row - col) % 3 + 3) % 3};
+      for (int l = 0; l < lines.length; l++) {
+        if (lines[l] != 2) {
+          masks[2 * l][hole >>> 6] |= 1L << hole;
+        }
+        if (lines[l] != 0) {
+          masks[2 * l + 1][hole >>> 6] |= 1L << hole;
+        }
+      }
+    }
+    return masks;
+  }
+
+  /**
+   * Compute the table of a region, the total weight of the marbles of every pattern
+   */
+  private static int[] buildTable(int[] weights, int[] region) {
+    int[] table = new int[1 << region.length];
+    for (int pattern = 1; pattern < table.length; pattern++) {
+      int lowest = Integer.numberOfTrailingZeros(pattern);
+      table[pattern] = table[pattern & (pattern - 1)] + weights[region[lowest]];
+    }
+    return table;
+  }
+
+  /**
+   * Builds the databases of a board offline and writes them to a file. Usage:
+   * <pre>
+   *   PatternDatabase shape armThickness file
+   * </pre>
+   * where shape is english or european.
+   *
+   * @param args the command line arguments
+   * @throws IOException if the file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3) {
+      System.out.println("Usage: PatternDatabase shape armThickness file");
+      return;
+    }
+    long start = System.nanoTime();
+    PatternDatabase database = build(BoardShape.forName(args[0]), Integer.parseInt(args[1]));
+    database.save(Paths.get(args[2]));
+    System.out.println("Regions: " + database.getRegionCount());
+    System.out.println("Finishing holes: " + database.getGeometry().getHoleCount());
+    System.out.println("Time: " + (System.nanoTime() - start) / 1_000_000 + " ms");
+  }
+}
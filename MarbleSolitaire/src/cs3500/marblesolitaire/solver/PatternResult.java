@@ -0,0 +1,65 @@
+package cs3500.marblesolitaire.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the outcome of searching for a sequence of moves from a start position to a target
+ * pattern of marbles
+ */
+public final class PatternResult {
+  private final SolverResult.Verdict verdict;
+  private final List<Move> moves;
+  private final long nodes;
+
+  /**
+   * Constructs a pattern result
+   *
+   * @param verdict whether the target can be reached: solved if it can, unsolvable if the search
+   *                proved it cannot and unknown if the search stopped before it could decide
+   * @param moves   the moves reaching the target in order, empty unless the verdict is solved
+   * @param nodes   the number of positions generated by the search
+   * @throws IllegalArgumentException if the verdict or the moves are null
+   */
+  public PatternResult(SolverResult.Verdict verdict, List<Move> moves, long nodes) {
+    if (verdict == null || moves == null) {
+      throw new IllegalArgumentException();
+    }
+    this.verdict = verdict;
+    this.moves = Collections.unmodifiableList(new ArrayList<Move>(moves));
+    this.nodes = nodes;
+  }
+
+  /**
+   * Get whether the target can be reached
+   *
+   * @return the verdict
+   */
+  public SolverResult.Verdict getVerdict() {
+    return this.verdict;
+  }
+
+  /**
+   * Get the moves that reach the target
+   *
+   * @return the moves in the order they are played, empty unless the target was reached
+   */
+  public List<Move> getMoves() {
+    return this.moves;
+  }
+
+  /**
+   * Get the number of positions generated by the search
+   *
+   * @return the number of nodes
+   */
+  public long getNodes() {
+    return this.nodes;
+  }
+
+  @Override
+  public String toString() {
+    return this.verdict + " (" + this.moves.size() + " moves, " + this.nodes + " nodes)";
+  }
+}
@@ -0,0 +1,373 @@
+package cs3500.marblesolitaire.solver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Represents a depth-first solver that searches for a sequence of moves leaving a single marble.
+ * Positions proven to be dead ends are remembered in a transposition table so they are never
+ * searched twice. The search runs on an explicit stack, so its depth is not limited by the size of
+ * the thread stack, and it stops early when its node budget runs out or its thread is interrupted.
+ * Legal moves come from a move generator, by default one compiled for the board. Given pattern
+ * databases, positions whose bound shows they cannot end with a single marble are pruned.
+ * Searches are visible to the flight recorder through SolveStartEvent, SolveEndEvent and the
+ * periodic SolveSampleEvent. A solver made by withCheckpoints saves its search to a file as it
+ * goes and when it stops early, and resume carries a saved search on to the same result.
+ */
+public class PegSolver {
+  /**
+   * The number of positions a solver visits before giving up, unless told otherwise
+   */
+  public static final long DEFAULT_NODE_BUDGET = 5_000_000L;
+
+  private static final int CHECK_INTERVAL = 4096;
+
+  // The most entries of per-depth move lists to allocate before scanning jumps in place instead
+  private static final long MAX_MOVE_LISTS = 1 << 24;
+
+  private final BoardGeometry geometry;
+  private final long nodeBudget;
+  private final MoveGenerator generator;
+  private final PatternDatabase patterns;
+  private final Path checkpointFile;
+  private final long checkpointInterval;
+  private final boolean checkpointTable;
+
+  /**
+   * Constructs a solver for the given board shape with the default node budget
+   *
+   * @param geometry the shape of the boards to solve
+   */
+  public PegSolver(BoardGeometry geometry) {
+    this(geometry, DEFAULT_NODE_BUDGET);
+  }
+
+  /**
+   * Constructs a solver for the given board shape
+   *
+   * @param geometry   the shape of the boards to solve
+   * @param nodeBudget the number of positions to visit before giving up
+   * @throws IllegalArgumentException if the geometry is null or the budget is not positive
+   */
+  public PegSolver(BoardGeometry geometry, long nodeBudget) {
+    this(geometry, nodeBudget, geometry == null ? null : MoveGenerators.forGeometry(geometry));
+  }
+
+  /**
+   * Constructs a solver for the given board shape using the given move generator
+   *
+   * @param geometry   the shape of the boards to solve
+   * @param nodeBudget the number of positions to visit before giving up
+   * @param generator  the generator of legal moves for the geometry
+   * @throws IllegalArgumentException if any parameter is null or the budget is not positive
+   */
+  public PegSolver(BoardGeometry geometry, long nodeBudget, MoveGenerator generator) {
+    this(geometry, nodeBudget, generator, null);
+  }
+
+  /**
+   * Constructs a solver for the given board shape that prunes with pattern databases
+   *
+   * @param geometry   the shape of the boards to solve
+   * @param nodeBudget the number of positions to visit before giving up
+   * @param generator  the generator of legal moves for the geometry
+   * @param patterns   the pattern databases of the geometry, or null to not prune
+   * @throws IllegalArgumentException if the geometry or generator is null, the budget is not
+   *                                  positive or the databases are for a different board
+   */
+  public PegSolver(BoardGeometry geometry, long nodeBudget, MoveGenerator generator,
+                   PatternDatabase patterns) {
+    if (geometry == null || nodeBudget <= 0 || generator == null
+            || (patterns != null && !patterns.getGeometry().equals(geometry))) {
+      throw new IllegalArgumentException();
+    }
+    this.geometry = geometry;
+    this.nodeBudget = nodeBudget;
+    this.generator = generator;
+    this.patterns = patterns;
+    this.checkpointFile = null;
+    this.checkpointInterval = 0;
+    this.checkpointTable = false;
+  }
+
+  private PegSolver(PegSolver solver, Path file, long interval, boolean table) {
+    this.geometry = solver.geometry;
+    this.nodeBudget = solver.nodeBudget;
+    this.generator = solver.generator;
+    this.patterns = solver.patterns;
+    this.checkpointFile = file;
+    this.checkpointInterval = interval;
+    this.checkpointTable = table;
+  }
+
+  /**
+   * Make a solver like this one that saves its search to a file every so many positions, and
+   * once more if it stops before finishing. Checkpoints are written on a background thread and
+   * each replaces the last only once it is whole. Without the table of dead ends a checkpoint is
+   * small, but a resumed search then visits again positions it had already ruled out; with it
+   * the resumed search takes exactly the path the first one would have.
+   *
+   * @param file      the file to save the search to
+   * @param interval  the number of positions to visit between checkpoints
+   * @param saveTable whether to save the table of dead ends too
+   * @return the solver that saves checkpoints
+   * @throws IllegalArgumentException if the file is null or the interval is not positive
+   */
+  public PegSolver withCheckpoints(Path file, long interval, boolean saveTable) {
+    if (file == null || interval <= 0) {
+      throw new IllegalArgumentException();
+    }
+    return new PegSolver(this, file, interval, saveTable);
+  }
+
+  /**
+   * Get the shape of the boards this solver searches
+   *
+   * @return the geometry
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Analyse the current position of a state
+   *
+   * @param state a state with the same shape as this solver's geometry
+   * @return the result of the search
+   */
+  public SolverResult solve(MarbleSolitaireModelState state) {
+    return this.solve(this.geometry.pegs(state));
+  }
+
+  /**
+   * Analyse a position given as a bitboard
+   *
+   * @param board the bitboard of the position
+   * @return the result of the search
+   */
+  public SolverResult solve(long[] board) {
+    int pegs = BoardGeometry.pegCount(board);
+    if (pegs <= 1) {
+      return new SolverResult(pegs == 1 ? SolverResult.Verdict.Solved
+              : SolverResult.Verdict.Unsolvable, null, pegs, 0);
+    }
+    return this.search(pegs, board, null);
+  }
+
+  /**
+   * Carry on a search saved by a solver made with withCheckpoints. The solver should be built
+   * the same way as the one that saved the search, and given the same position it reaches the
+   * same result as a search that never stopped. The node budget counts the positions visited
+   * before the checkpoint too.
+   *
+   * @param checkpoint the file the search was saved to
+   * @return the result of the search
+   * @throws IOException              if the file cannot be read or is not a checkpoint
+   * @throws IllegalArgumentException if the search was on another board
+   */
+  public SolverResult resume(Path checkpoint) throws IOException {
+    SolverCheckpoint from = SolverCheckpoint.read(checkpoint);
+    if (!from.isFor(this.geometry)) {
+      throw new IllegalArgumentException("Checkpoint is for another board");
+    }
+    return this.search(from.pegs, from.stack, from);
+  }
+
+  /**
+   * Search a position from its root or from a checkpoint
+   *
+   * @param pegs  the number of marbles at the root
+   * @param board the bitboard of the root
+   * @param from  the checkpoint to carry on from, or null to start at the root
+   * @return the result of the search
+   */
+  private SolverResult search(int pegs, long[] board, SolverCheckpoint from) {
+    int words = this.geometry.getWords();
+    int jumps = this.geometry.getJumpCount();
+
+    // stack[depth * words] holds the board after depth moves, next[depth] the next jump to try
+    // there and played[depth] the jump that was made to reach depth + 1. When the move lists fit
+    // in memory, moves[depth * jumps] holds the count[depth] legal jumps at depth and next[depth]
+    // indexes into them; otherwise next[depth] is the next jump index to scan from.
+    int maxDepth = pegs - 1;
+    long[] stack = new long[(maxDepth + 1) * words];
+    int[] next = new int[maxDepth + 1];
+    int[] played = new int[maxDepth + 1];
+    boolean listed = (long) (maxDepth + 1) * jumps <= MAX_MOVE_LISTS;
+    int[] moves = listed ? new int[(maxDepth + 1) * jumps] : null;
+    int[] count = listed ? new int[maxDepth + 1] : null;
+    System.arraycopy(board, 0, stack, 0, words);
+    if (listed) {
+      count[0] = this.generator.generate(stack, 0, moves, 0);
+    }
+    TranspositionTable dead = new TranspositionTable(words);
+    long lookups = 0;
+    long hits = 0;
+
+    int bestFinish = pegs;
+    int bestFirst = -1;
+    long nodes = 0;
+    boolean solved = false;
+    boolean stopped = false;
+    int depth = 0;
+
+    if (from != null) {
+      if (from.listed != listed) {
+        throw new IllegalArgumentException("Checkpoint is for another board");
+      }
+      depth = from.depth;
+      System.arraycopy(from.stack, 0, stack, 0, from.stack.length);
+      System.arraycopy(from.next, 0, next, 0, depth + 1);
+      System.arraycopy(from.played, 0, played, 0, depth + 1);
+      // The move lists are not saved, since the generator makes them again in the same order
+      for (int d = 1; listed && d <= depth; d++) {
+        count[d] = this.generator.generate(stack, d * words, moves, d * jumps);
+      }
+      if (from.table != null) {
+        for (int i = 0; i < from.table.length; i += words) {
+          dead.add(from.table, i);
+        }
+      }
+      nodes = from.nodes;
+      lookups = from.lookups;
+      hits = from.hits;
+      bestFinish = from.bestFinish;
+      bestFirst = from.bestFirst;
+    }
+    CheckpointWriter checkpoints = this.checkpointFile == null ? null
+            : new CheckpointWriter(this.checkpointFile);
+    long nextCheckpoint = nodes + this.checkpointInterval;
+
+    // Loading an event class starts up the flight recorder, so none is touched until it runs
+    int boardSize = this.geometry.getBoardSize();
+    SolveEndEvent end = null;
+    SolveProgress progress = null;
+    if (FlightRecorder.isInitialized()) {
+      SolveStartEvent start = new SolveStartEvent();
+      if (start.shouldCommit()) {
+        start.boardSize = boardSize;
+        start.pegs = pegs;
+        start.nodeBudget = this.nodeBudget;
+        start.commit();
+      }
+      end = new SolveEndEvent();
+      end.begin();
+      progress = SolveProgress.begin();
+    }
+
+    while (depth >= 0) {
+      int base = depth * words;
+      int jump;
+      if (listed) {
+        jump = next[depth] < count[depth] ? moves[depth * jumps + next[depth]] : -1;
+        next[depth]++;
+      } else {
+        jump = next[depth];
+        while (jump < jumps && !this.geometry.isLegal(stack, base, jump)) {
+          jump++;
+        }
+        next[depth] = jump + 1;
+      }
+      if (jump < 0 || jump == jumps) {
+        dead.add(stack, base);
+        depth--;
+        continue;
+      }
+      played[depth] = jump;
+
+      int child = base + words;
+      System.arraycopy(stack, base, stack, child, words);
+      this.geometry.apply(stack, child, jump);
+      nodes++;
+
+      int remaining = pegs - depth - 1;
+      if (remaining < bestFinish) {
+        bestFinish = remaining;
+        bestFirst = played[0];
+      }
+      if (remaining == 1) {
+        solved = true;
+        break;
+      }
+      if (nodes % CHECK_INTERVAL == 0) {
+        if (progress != null) {
+          progress.update(nodes, lookups, hits, depth);
+        }
+        if (nodes >= this.nodeBudget || Thread.currentThread().isInterrupted()) {
+          stopped = true;
+          break;
+        }
+        if (checkpoints != null && nodes >= nextCheckpoint && checkpoints.isIdle()) {
+          checkpoints.write(this.capture(pegs, depth, listed, stack, next, played, nodes,
+                  lookups, hits, bestFinish, bestFirst, dead));
+          nextCheckpoint = nodes + this.checkpointInterval;
+        }
+      }
+      if (dead.contains(stack, child)) {
+        lookups++;
+        hits++;
+      } else if (this.patterns != null && this.patterns.bound(stack, child) > 1) {
+        // Remembered as dead so the bound is only ever computed once per position
+        lookups++;
+        dead.add(stack, child);
+      } else {
+        lookups++;
+        depth++;
+        next[depth] = 0;
+        if (listed) {
+          count[depth] = this.generator.generate(stack, child, moves, depth * jumps);
+        }
+      }
+    }
+
+    SolverResult.Verdict verdict;
+    if (solved) {
+      verdict = SolverResult.Verdict.Solved;
+    } else if (stopped) {
+      verdict = SolverResult.Verdict.Unknown;
+    } else {
+      verdict = SolverResult.Verdict.Unsolvable;
+    }
+    try {
+      if (checkpoints != null) {
+        checkpoints.close(stopped ? this.capture(pegs, depth, listed, stack, next, played, nodes,
+                lookups, hits, bestFinish, bestFirst, dead) : null);
+      }
+    } finally {
+      // The recording sees the search end even if its last checkpoint could not be written
+      if (progress != null) {
+        progress.end();
+      }
+      if (end != null && end.shouldCommit()) {
+        end.boardSize = boardSize;
+        end.pegs = pegs;
+        end.verdict = verdict.name();
+        end.nodes = nodes;
+        end.bestFinish = bestFinish;
+        end.tableSize = dead.size();
+        end.commit();
+      }
+    }
+    Move bestMove = bestFirst < 0 ? null : this.geometry.toMove(bestFirst);
+    return new SolverResult(verdict, bestMove, bestFinish, nodes);
+  }
+
+  /**
+   * Capture the search where it checks its budget. At that point the jump just tried at the
+   * current depth has been counted but its position not yet searched, so the checkpoint steps
+   * back to just before that jump and the resumed search makes it again.
+   */
+  private SolverCheckpoint capture(int pegs, int depth, boolean listed, long[] stack, int[] next,
+                                   int[] played, long nodes, long lookups, long hits,
+                                   int bestFinish, int bestFirst, TranspositionTable dead) {
+    next[depth]--;
+    SolverCheckpoint checkpoint = new SolverCheckpoint(this.geometry, pegs, depth, listed, stack,
+            next, played, nodes - 1, lookups, hits, bestFinish, bestFirst,
+            this.checkpointTable ? dead.toArray() : null);
+    next[depth]++;
+    return checkpoint;
+  }
+}
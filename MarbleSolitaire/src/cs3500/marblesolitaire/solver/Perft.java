@@ -0,0 +1,247 @@
+package cs3500.marblesolitaire.solver;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+
+/**
+ * Represents a perft counter for marble solitaire, in the style of chess engines: it counts the
+ * move sequences of an exact length that can be played from a position. Moves are generated and
+ * made through the model's own validMove, moveHelp and undoMove, so the counts validate those
+ * methods and the time taken measures their throughput.
+ */
+public final class Perft {
+  private final AbstractSolitaireModel model;
+  private final BoardGeometry geometry;
+
+  /**
+   * Constructs a perft counter that plays on the given model. The model is changed while
+   * counting but is always restored afterwards.
+   *
+   * @param model the model to count from
+   * @throws IllegalArgumentException if the model is null
+   */
+  public Perft(AbstractSolitaireModel model) {
+    this(model, new BoardGeometry(model));
+  }
+
+  private Perft(AbstractSolitaireModel model, BoardGeometry geometry) {
+    if (model == null) {
+      throw new IllegalArgumentException();
+    }
+    this.model = model;
+    this.geometry = geometry;
+  }
+
+  /**
+   * Count the move sequences of exactly the given length from the current position of the model
+   *
+   * @param depth the number of moves in each sequence
+   * @return the number of leaf positions at that depth, counted once per sequence reaching them
+   * @throws IllegalArgumentException if the depth is negative
+   */
+  public long count(int depth) {
+    if (depth < 0) {
+      throw new IllegalArgumentException();
+    }
+    return this.countFrom(depth);
+  }
+
+  /**
+   * Count the move sequences of exactly the given length on a bitboard copy of the position,
+   * using the fastest move generator for the board instead of the model. The counts must match
+   * those of count.
+   *
+   * @param depth the number of moves in each sequence
+   * @return the number of leaf positions at that depth, counted once per sequence reaching them
+   * @throws IllegalArgumentException if the depth is negative
+   */
+  public long countCompiled(int depth) {
+    if (depth < 0) {
+      throw new IllegalArgumentException();
+    }
+    int words = this.geometry.getWords();
+    int jumps = this.geometry.getJumpCount();
+    long[] stack = new long[(depth + 1) * words];
+    int[] moves = new int[(depth + 1) * jumps];
+    System.arraycopy(this.geometry.pegs(this.model), 0, stack, 0, words);
+    return countBoard(this.geometry, MoveGenerators.forGeometry(this.geometry), stack, moves, 0,
+            depth);
+  }
+
+  private static long countBoard(BoardGeometry geometry, MoveGenerator generator, long[] stack,
+                                 int[] moves, int ply, int depth) {
+    int words = geometry.getWords();
+    int jumps = geometry.getJumpCount();
+    if (depth == 0) {
+      return 1;
+    }
+    if (depth == 1) {
+      return generator.countMoves(stack, ply * words);
+    }
+    int count = generator.generate(stack, ply * words, moves, ply * jumps);
+    long nodes = 0;
+    for (int i = 0; i < count; i++) {
+      System.arraycopy(stack, ply * words, stack, (ply + 1) * words, words);
+      geometry.apply(stack, (ply + 1) * words, moves[ply * jumps + i]);
+      nodes += countBoard(geometry, generator, stack, moves, ply + 1, depth - 1);
+    }
+    return nodes;
+  }
+
+  /**
+   * Count the move sequences of exactly the given length, split by their first move
+   *
+   * @param depth the number of moves in each sequence, at least 1
+   * @return the count for each legal first move, in the order the moves are generated
+   * @throws IllegalArgumentException if the depth is less than 1
+   */
+  public Map<Move, Long> divide(int depth) {
+    if (depth < 1) {
+      throw new IllegalArgumentException();
+    }
+    Map<Move, Long> counts = new LinkedHashMap<Move, Long>();
+    for (Move move : this.legalMoves()) {
+      this.make(move);
+      counts.put(move, this.countFrom(depth - 1));
+      this.unmake(move);
+    }
+    return counts;
+  }
+
+  /**
+   * Count the move sequences of exactly the given length, split by their first move, counting
+   * each first move on its own copy of the model in parallel
+   *
+   * @param depth the number of moves in each sequence, at least 1
+   * @return the count for each legal first move, in the order the moves are generated
+   * @throws IllegalArgumentException if the depth is less than 1
+   */
+  public Map<Move, Long> divideParallel(int depth) {
+    if (depth < 1) {
+      throw new IllegalArgumentException();
+    }
+    List<Move> roots = this.legalMoves();
+    Map<Move, Long> found = new ConcurrentHashMap<Move, Long>();
+    roots.parallelStream().forEach(move -> {
+      Perft branch = new Perft(this.model.copy(), this.geometry);
+      branch.make(move);
+      found.put(move, branch.countFrom(depth - 1));
+    });
+
+    Map<Move, Long> counts = new LinkedHashMap<Move, Long>();
+    for (Move move : roots) {
+      counts.put(move, found.get(move));
+    }
+    return counts;
+  }
+
+  /**
+   * Find every legal move from the current position of the model
+   *
+   * @return the legal moves in jump order
+   */
+  public List<Move> legalMoves() {
+    List<Move> moves = new ArrayList<Move>();
+    for (int jump = 0; jump < this.geometry.getJumpCount(); jump++) {
+      Move move = this.geometry.toMove(jump);
+      if (this.model.validMove(move.getFromRow(), move.getFromCol(),
+              move.getToRow(), move.getToCol())) {
+        moves.add(move);
+      }
+    }
+    return moves;
+  }
+
+  private long countFrom(int depth) {
+    if (depth == 0) {
+      return 1;
+    }
+    long nodes = 0;
+    for (int jump = 0; jump < this.geometry.getJumpCount(); jump++) {
+      int from = this.geometry.getJumpFrom(jump);
+      int to = this.geometry.getJumpTo(jump);
+      int fromRow = this.geometry.rowOf(from);
+      int fromCol = this.geometry.colOf(from);
+      int toRow = this.geometry.rowOf(to);
+      int toCol = this.geometry.colOf(to);
+      if (this.model.validMove(fromRow, fromCol, toRow, toCol)) {
+        if (depth == 1) {
+          nodes++;
+        } else {
+          this.model.moveHelp(fromRow, fromCol, toRow, toCol);
+          nodes += this.countFrom(depth - 1);
+          this.model.undoMove(fromRow, fromCol, toRow, toCol);
+        }
+      }
+    }
+    return nodes;
+  }
+
+  private void make(Move move) {
+    this.model.moveHelp(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+  }
+
+  private void unmake(Move move) {
+    this.model.undoMove(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+  }
+
+  /**
+   * Runs perft from the command line and prints the node count, the time taken and the nodes
+   * per second. Usage:
+   * <pre>
+   *   Perft shape armThickness row col depth [divide] [parallel] [compiled]
+   * </pre>
+   * where shape is english or european. With divide the count of every first move is printed,
+   * and with parallel the first moves are counted in parallel. With compiled the moves are
+   * generated on a bitboard by the compiled move generator instead of by the model.
+   *
+   * @param args the command line arguments
+   */
+  public static void main(String[] args) {
+    if (args.length < 5) {
+      System.out.println("Usage: Perft shape armThickness row col depth [divide] [parallel] "
+              + "[compiled]");
+      return;
+    }
+    AbstractSolitaireModel model = BoardShape.forName(args[0]).create(Integer.parseInt(args[1]),
+            Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+    int depth = Integer.parseInt(args[4]);
+    boolean divide = false;
+    boolean parallel = false;
+    boolean compiled = false;
+    for (int i = 5; i < args.length; i++) {
+      divide |= args[i].equals("divide");
+      parallel |= args[i].equals("parallel");
+      compiled |= args[i].equals("compiled");
+    }
+
+    Perft perft = new Perft(model);
+    long start = System.nanoTime();
+    long nodes;
+    if (compiled) {
+      nodes = perft.countCompiled(depth);
+    } else if (depth > 0 && (divide || parallel)) {
+      Map<Move, Long> counts = parallel ? perft.divideParallel(depth) : perft.divide(depth);
+      nodes = 0;
+      for (Map.Entry<Move, Long> entry : counts.entrySet()) {
+        if (divide) {
+          System.out.println(entry.getKey() + ": " + entry.getValue());
+        }
+        nodes += entry.getValue();
+      }
+    } else {
+      nodes = perft.count(depth);
+    }
+    long nanos = Math.max(1, System.nanoTime() - start);
+
+    System.out.println("Nodes: " + nodes);
+    System.out.println("Time: " + (nanos / 1_000_000) + " ms");
+    System.out.println("Nodes/second: " + (long) (nodes * 1e9 / nanos));
+  }
+}
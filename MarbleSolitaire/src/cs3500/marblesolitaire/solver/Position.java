@@ -0,0 +1,95 @@
+package cs3500.marblesolitaire.solver;
+
+import java.util.Arrays;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+
+/**
+ * Represents an immutable snapshot of the marbles on a board, usable as a key in hash tables.
+ * Two positions are equal when they have the same board shape and the same marbles.
+ */
+public final class Position {
+  private final BoardGeometry geometry;
+  private final long[] board;
+  private final int hash;
+
+  /**
+   * Constructs a position from a bitboard. The words are copied.
+   *
+   * @param geometry the shape of the board
+   * @param board    the bitboard of the marbles
+   * @throws IllegalArgumentException if either parameter is null or the board has the wrong size
+   */
+  public Position(BoardGeometry geometry, long[] board) {
+    if (geometry == null || board == null || board.length != geometry.getWords()) {
+      throw new IllegalArgumentException();
+    }
+    this.geometry = geometry;
+    this.board = board.clone();
+    this.hash = 31 * geometry.hashCode() + Arrays.hashCode(board);
+  }
+
+  /**
+   * Constructs a position holding the current marbles of a state
+   *
+   * @param geometry the shape of the board
+   * @param state    a state with the same shape as the geometry
+   */
+  public Position(BoardGeometry geometry, MarbleSolitaireModelState state) {
+    this(geometry, geometry.pegs(state));
+  }
+
+  /**
+   * Get the shape of the board of this position
+   *
+   * @return the geometry
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Get a copy of the bitboard of this position
+   *
+   * @return the words of the bitboard
+   */
+  public long[] getBoard() {
+    return this.board.clone();
+  }
+
+  /**
+   * Return the number of marbles in this position
+   *
+   * @return the number of marbles
+   */
+  public int getPegCount() {
+    return BoardGeometry.pegCount(this.board);
+  }
+
+  /**
+   * Determine if two positions are equal
+   *
+   * @param o the given object
+   * @return a boolean of true if the positions have the same shape and marbles
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    if (!(o instanceof Position)) {
+      return false;
+    }
+
+    Position that = (Position) o;
+
+    return this.hash == that.hash && Arrays.equals(this.board, that.board)
+            && this.geometry.equals(that.geometry);
+  }
+
+  @Override
+  public int hashCode() {
+    return this.hash;
+  }
+}
@@ -0,0 +1,219 @@
+package cs3500.marblesolitaire.solver;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+
+/**
+ * Represents a generator of puzzles that are solvable by construction. Each puzzle starts as a
+ * single marble in a random hole and is grown by taking back random jumps; playing those jumps
+ * forward again solves it. The number of jumps taken back, and so the number of moves in the
+ * solution, is the difficulty. Puzzles are stored in canonical form under the symmetries of the
+ * board and only distinct ones are kept.
+ *
+ * <p>Generation runs in rounds. In each round a fixed number of random streams, derived from the
+ * seed, the round and the stream, each grow a batch of puzzles in parallel, and the batches are
+ * then merged in stream order. Batches are sized by the number of puzzles still needed. The same
+ * seed and count therefore always produce the same pack, however many cores there are and
+ * however they are scheduled.</p>
+ */
+public final class PuzzleGenerator {
+  /**
+   * The number of random streams grown in parallel per round
+   */
+  public static final int STREAMS = 64;
+
+  /**
+   * The most puzzles each stream grows per round
+   */
+  public static final int BATCH = 1024;
+
+  /**
+   * The number of random walks tried for one puzzle before giving up on its difficulty
+   */
+  public static final int ATTEMPTS = 10_000;
+
+  private final BoardGeometry geometry;
+  private final MoveGenerator generator;
+  private final int minMoves;
+  private final int maxMoves;
+
+  /**
+   * Constructs a generator of puzzles whose solutions take between minMoves and maxMoves moves
+   *
+   * @param shape        the shape of the boards
+   * @param armThickness the arm thickness of the boards
+   * @param minMoves     the fewest moves of a solution, at least 1
+   * @param maxMoves     the most moves of a solution, at most two less than the number of holes
+   * @throws IllegalArgumentException if the shape is null, the arm thickness is invalid or the
+   *                                  move range is empty or deeper than the board allows
+   */
+  public PuzzleGenerator(BoardShape shape, int armThickness, int minMoves, int maxMoves) {
+    if (shape == null) {
+      throw new IllegalArgumentException();
+    }
+    this.geometry = new BoardGeometry(shape.create(armThickness));
+    // Every jump taken back leaves a hole empty, so at most holes - 1 marbles can be grown
+    if (minMoves < 1 || maxMoves < minMoves || maxMoves > this.geometry.getHoleCount() - 2) {
+      throw new IllegalArgumentException("Invalid move range " + minMoves + " to " + maxMoves);
+    }
+    this.generator = MoveGenerators.forGeometry(this.geometry);
+    this.minMoves = minMoves;
+    this.maxMoves = maxMoves;
+  }
+
+  /**
+   * Get the geometry of the boards of the puzzles
+   *
+   * @return the geometry
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Grow one puzzle in canonical form, trying up to {@link #ATTEMPTS} random walks
+   *
+   * @param random the source of randomness
+   * @param out    the array to write the bitboard of the puzzle to
+   * @param offset the index of out to write the first word to
+   * @return true if a puzzle was written, false if every walk got stuck short of its difficulty
+   */
+  public boolean generate(SplittableRandom random, long[] out, int offset) {
+    int words = this.geometry.getWords();
+    int holes = this.geometry.getHoleCount();
+    long[] board = new long[words];
+    long[] complement = new long[words];
+    long[] canonical = new long[words];
+    int[] moves = new int[this.geometry.getJumpCount()];
+    int target = this.minMoves + random.nextInt(this.maxMoves - this.minMoves + 1);
+
+    for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+      Arrays.fill(board, 0L);
+      int start = random.nextInt(holes);
+      board[start >>> 6] |= 1L << start;
+      int made = 0;
+      while (made < target) {
+        // A jump can be taken back exactly when it could be played on the complement
+        for (int w = 0; w < words; w++) {
+          complement[w] = ~board[w];
+        }
+        int count = this.generator.generate(complement, 0, moves, 0);
+        if (count == 0) {
+          break;
+        }
+        this.geometry.apply(board, 0, moves[random.nextInt(count)]);
+        made++;
+      }
+      if (made == target) {
+        this.geometry.canonicalize(board, canonical);
+        System.arraycopy(canonical, 0, out, offset, words);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Generate distinct puzzles in parallel and stream them to a pack
+   *
+   * @param seed  the seed fixing which puzzles are generated
+   * @param count the number of distinct puzzles to write
+   * @param out   the pack to write to, of this generator's shape and size
+   * @return the number of puzzles written, less than count only if the board has run out of
+   *         distinct puzzles of the chosen difficulty
+   * @throws IOException           if the pack cannot be written
+   * @throws IllegalStateException if a puzzle of the chosen difficulty could not be grown in
+   *                               {@link #ATTEMPTS} random walks
+   */
+  public long generate(long seed, long count, PuzzlePack.Writer out) throws IOException {
+    int words = this.geometry.getWords();
+    long[][] batches = new long[STREAMS][];
+    int[] grown = new int[STREAMS];
+    TranspositionTable seen = new TranspositionTable(words);
+    long written = 0;
+    boolean stale = false;
+
+    for (long round = 0; written < count; round++) {
+      long base = round;
+      // A round that found nothing new is retried at full size before the board counts as spent
+      int batch = stale ? BATCH : (int) Math.min(BATCH, (count - written + STREAMS - 1) / STREAMS);
+      IntStream.range(0, STREAMS).parallel().forEach(stream -> {
+        SplittableRandom random = new SplittableRandom(mix(seed, base * STREAMS + stream));
+        if (batches[stream] == null || batches[stream].length < batch * words) {
+          batches[stream] = new long[batch * words];
+        }
+        int i = 0;
+        while (i < batch && this.generate(random, batches[stream], i * words)) {
+          i++;
+        }
+        grown[stream] = i;
+      });
+      for (int stream = 0; stream < STREAMS; stream++) {
+        if (grown[stream] < batch) {
+          throw new IllegalStateException("Could not grow a puzzle of " + this.minMoves + " to "
+                  + this.maxMoves + " moves in " + ATTEMPTS + " attempts");
+        }
+      }
+
+      long before = written;
+      for (int stream = 0; stream < STREAMS && written < count; stream++) {
+        for (int i = 0; i < batch && written < count; i++) {
+          if (seen.add(batches[stream], i * words)) {
+            out.write(batches[stream], i * words);
+            written++;
+          }
+        }
+      }
+      if (written == before) {
+        if (batch == BATCH) {
+          break;
+        }
+        stale = true;
+      }
+    }
+    return written;
+  }
+
+  private static long mix(long seed, long stream) {
+    long h = seed ^ (stream * 0x9E3779B97F4A7C15L);
+    h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+    h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+    return h ^ (h >>> 31);
+  }
+
+  /**
+   * Generates a puzzle pack from the command line. Usage:
+   * <pre>
+   *   PuzzleGenerator shape armThickness minMoves maxMoves count seed file
+   * </pre>
+   * where shape is english or european.
+   *
+   * @param args the command line arguments
+   * @throws IOException if the pack cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 7) {
+      System.out.println("Usage: PuzzleGenerator shape armThickness minMoves maxMoves count seed "
+              + "file");
+      return;
+    }
+    BoardShape shape = BoardShape.forName(args[0]);
+    int arm = Integer.parseInt(args[1]);
+    PuzzleGenerator generator = new PuzzleGenerator(shape, arm, Integer.parseInt(args[2]),
+            Integer.parseInt(args[3]));
+    long start = System.nanoTime();
+    long written;
+    try (PuzzlePack.Writer out = new PuzzlePack.Writer(Paths.get(args[6]), shape, arm)) {
+      written = generator.generate(Long.parseLong(args[5]), Long.parseLong(args[4]), out);
+    }
+    long nanos = Math.max(1, System.nanoTime() - start);
+    System.out.println("Puzzles: " + written);
+    System.out.println("Time: " + (nanos / 1_000_000) + " ms");
+    System.out.println("Puzzles/minute: " + (long) (written * 60e9 / nanos));
+  }
+}
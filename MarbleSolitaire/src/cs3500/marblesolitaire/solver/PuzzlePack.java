@@ -0,0 +1,218 @@
+package cs3500.marblesolitaire.solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState.SlotState;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+
+/**
+ * Represents a read-only pack of puzzles for one board shape and size, memory-mapped from a file
+ * written by a PuzzlePack.Writer. Every puzzle is stored as the words of its bitboard, so the file
+ * is a short header followed by fixed-size entries, and any puzzle can be loaded into a model
+ * without reading the others.
+ */
+public final class PuzzlePack {
+  private static final int MAGIC = 0x4D535050;
+  private static final int HEADER = 21;
+
+  private final BoardShape shape;
+  private final int armThickness;
+  private final BoardGeometry geometry;
+  private final MappedByteBuffer buffer;
+  private final int size;
+
+  private PuzzlePack(BoardShape shape, int armThickness, MappedByteBuffer buffer, int size) {
+    this.shape = shape;
+    this.armThickness = armThickness;
+    this.geometry = new BoardGeometry(shape.create(armThickness));
+    this.buffer = buffer;
+    this.size = size;
+  }
+
+  /**
+   * Open a puzzle pack
+   *
+   * @param file the file holding the pack
+   * @return the pack
+   * @throws IOException              if the file cannot be read
+   * @throws IllegalArgumentException if the file does not hold a complete pack
+   */
+  public static PuzzlePack open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC) {
+        throw new IllegalArgumentException("Not a puzzle pack: " + file);
+      }
+      int shape = buffer.get();
+      int arm = buffer.getInt();
+      int words = buffer.getInt();
+      long size = buffer.getLong();
+      if (shape < 0 || shape >= BoardShape.values().length) {
+        throw new IllegalArgumentException("Unknown board shape in " + file);
+      }
+      PuzzlePack pack = new PuzzlePack(BoardShape.values()[shape], arm, buffer, (int) size);
+      if (words != pack.geometry.getWords()
+              || channel.size() != HEADER + size * 8 * words) {
+        throw new IllegalArgumentException("Truncated puzzle pack: " + file);
+      }
+      return pack;
+    }
+  }
+
+  /**
+   * Get the shape of the boards of the puzzles
+   *
+   * @return the shape
+   */
+  public BoardShape getShape() {
+    return this.shape;
+  }
+
+  /**
+   * Get the arm thickness of the boards of the puzzles
+   *
+   * @return the arm thickness
+   */
+  public int getArmThickness() {
+    return this.armThickness;
+  }
+
+  /**
+   * Get the geometry of the boards of the puzzles
+   *
+   * @return the geometry
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Get the number of puzzles in the pack
+   *
+   * @return the size of the pack
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Get the bitboard of a puzzle
+   *
+   * @param index the index of the puzzle
+   * @return the bitboard
+   * @throws IllegalArgumentException if there is no such puzzle
+   */
+  public long[] getBoard(int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IllegalArgumentException("No such puzzle: " + index);
+    }
+    int words = this.geometry.getWords();
+    long[] board = new long[words];
+    long position = HEADER + (long) index * 8 * words;
+    for (int w = 0; w < words; w++) {
+      board[w] = this.buffer.getLong(Math.toIntExact(position + 8 * w));
+    }
+    return board;
+  }
+
+  /**
+   * Set up a new model at a puzzle
+   *
+   * @param index the index of the puzzle
+   * @return a model of the pack's shape holding the puzzle's marbles
+   * @throws IllegalArgumentException if there is no such puzzle
+   */
+  public AbstractSolitaireModel load(int index) {
+    long[] board = this.getBoard(index);
+    AbstractSolitaireModel model = this.shape.create(this.armThickness);
+    for (int hole = 0; hole < this.geometry.getHoleCount(); hole++) {
+      boolean marble = (board[hole >>> 6] & (1L << hole)) != 0;
+      model.setSlotAt(this.geometry.rowOf(hole), this.geometry.colOf(hole),
+              marble ? SlotState.Marble : SlotState.Empty);
+    }
+    return model;
+  }
+
+  /**
+   * Represents the writer of a puzzle pack, which streams puzzles to the file through a small
+   * buffer. The number of puzzles is filled in when the writer is closed.
+   */
+  public static final class Writer implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int words;
+    private long size;
+
+    /**
+     * Constructs a writer of a new pack, replacing the file if it exists
+     *
+     * @param file         the file to write
+     * @param shape        the shape of the boards of the puzzles
+     * @param armThickness the arm thickness of the boards of the puzzles
+     * @throws IOException if the file cannot be written
+     */
+    public Writer(Path file, BoardShape shape, int armThickness) throws IOException {
+      if (shape == null) {
+        throw new IllegalArgumentException();
+      }
+      this.words = new BoardGeometry(shape.create(armThickness)).getWords();
+      this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING);
+      this.buffer = ByteBuffer.allocateDirect(1 << 16);
+      this.buffer.putInt(MAGIC).put((byte) shape.ordinal()).putInt(armThickness)
+              .putInt(this.words).putLong(0L);
+    }
+
+    /**
+     * Append a puzzle to the pack
+     *
+     * @param board  the array holding the bitboard of the puzzle
+     * @param offset the index of the first word of the bitboard
+     * @throws IOException if the file cannot be written
+     */
+    public void write(long[] board, int offset) throws IOException {
+      if (this.buffer.remaining() < 8 * this.words) {
+        this.flush();
+      }
+      for (int w = 0; w < this.words; w++) {
+        this.buffer.putLong(board[offset + w]);
+      }
+      this.size++;
+    }
+
+    /**
+     * Get the number of puzzles written so far
+     *
+     * @return the number of puzzles
+     */
+    public long size() {
+      return this.size;
+    }
+
+    private void flush() throws IOException {
+      this.buffer.flip();
+      while (this.buffer.hasRemaining()) {
+        this.channel.write(this.buffer);
+      }
+      this.buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        this.flush();
+        ByteBuffer count = ByteBuffer.allocate(8).putLong(0, this.size);
+        this.channel.write(count, HEADER - 8);
+      } finally {
+        this.channel.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,284 @@
+package cs3500.marblesolitaire.solver;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+
+/**
+ * Represents an engine that counts the solutions of a position: the distinct sequences of moves
+ * that leave a single marble, either anywhere or in a chosen hole. Counting never lists the
+ * solutions. The number of solutions of a position is the sum over its legal moves of the
+ * numbers of the positions they lead to, and each position is counted once and remembered, so
+ * the work grows with the number of distinct positions rather than the number of solutions.
+ * Positions that are rotations or reflections of each other have the same count, as long as the
+ * symmetry keeps the target hole in place, and are remembered as one.
+ *
+ * <p>The first few moves are searched in parallel on the common fork/join pool, with every
+ * thread sharing one concurrent table of counts, and the table is kept between calls so that
+ * counting from many starting holes shares the positions they have in common. Counts are exact
+ * up to 2^128. Boards of at most 64 holes are supported.
+ */
+public final class SolutionCounter {
+  // The number of moves from the root whose positions are counted as parallel tasks
+  private static final int PARALLEL_PLIES = 4;
+
+  private final BoardGeometry geometry;
+  private final int target;
+  private final long[] jumpFull;
+  private final long[] jumpFlip;
+  // images[s][b * 256 + v] is the image under symmetry s of byte b of a board having value v
+  private final long[][] images;
+  private final CountTable table;
+
+  /**
+   * Constructs a counter of the solutions that leave the last marble anywhere
+   *
+   * @param geometry the shape of the board
+   * @throws IllegalArgumentException if the geometry is null or has more than 64 holes
+   */
+  public SolutionCounter(BoardGeometry geometry) {
+    this(geometry, -1);
+  }
+
+  /**
+   * Constructs a counter of the solutions that leave the last marble in a given hole
+   *
+   * @param geometry  the shape of the board
+   * @param targetRow the row of the hole the last marble must end in
+   * @param targetCol the column of the hole the last marble must end in
+   * @throws IllegalArgumentException if the geometry is null or has more than 64 holes, or the
+   *                                  target is not a hole of the board
+   */
+  public SolutionCounter(BoardGeometry geometry, int targetRow, int targetCol) {
+    this(geometry, holeOf(geometry, targetRow, targetCol));
+  }
+
+  private SolutionCounter(BoardGeometry geometry, int target) {
+    if (geometry == null || geometry.getWords() != 1) {
+      throw new IllegalArgumentException("Only boards of at most 64 holes can be counted");
+    }
+    this.geometry = geometry;
+    this.target = target;
+    int jumps = geometry.getJumpCount();
+    this.jumpFull = new long[jumps];
+    this.jumpFlip = new long[jumps];
+    for (int j = 0; j < jumps; j++) {
+      this.jumpFull[j] = (1L << geometry.getJumpFrom(j)) | (1L << geometry.getJumpOver(j));
+      this.jumpFlip[j] = this.jumpFull[j] | (1L << geometry.getJumpTo(j));
+    }
+
+    List<long[]> images = new ArrayList<long[]>();
+    for (int s = 1; s < geometry.getSymmetryCount(); s++) {
+      if (target >= 0 && geometry.transform(s, target) != target) {
+        continue;
+      }
+      long[] image = new long[8 * 256];
+      for (int b = 0; b < 8; b++) {
+        for (int v = 0; v < 256; v++) {
+          for (int bit = 0; bit < 8; bit++) {
+            int hole = 8 * b + bit;
+            if ((v & (1 << bit)) != 0 && hole < geometry.getHoleCount()) {
+              image[b * 256 + v] |= 1L << geometry.transform(s, hole);
+            }
+          }
+        }
+      }
+      images.add(image);
+    }
+    this.images = images.toArray(new long[0][]);
+    this.table = new CountTable();
+  }
+
+  private static int holeOf(BoardGeometry geometry, int row, int col) {
+    if (geometry == null) {
+      throw new IllegalArgumentException("Only boards of at most 64 holes can be counted");
+    }
+    int hole = geometry.holeAt(row, col);
+    if (hole < 0) {
+      throw new IllegalArgumentException("Target is not a hole of the board");
+    }
+    return hole;
+  }
+
+  /**
+   * Get the shape of the boards this counter counts on
+   *
+   * @return the geometry
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Count the solutions of the current position of a state
+   *
+   * @param state a state with the same shape as this counter's geometry
+   * @return the number of sequences of moves that leave a single marble in the target
+   * @throws ArithmeticException if there are 2^128 solutions or more
+   */
+  public BigInteger count(MarbleSolitaireModelState state) {
+    return this.count(this.geometry.pegs(state)[0]);
+  }
+
+  /**
+   * Count the solutions of a position given as a bitboard
+   *
+   * @param board the bitboard of the position
+   * @return the number of sequences of moves that leave a single marble in the target
+   * @throws ArithmeticException if there are 2^128 solutions or more
+   */
+  public BigInteger count(long board) {
+    return ForkJoinPool.commonPool().invoke(new CountTask(board, PARALLEL_PLIES));
+  }
+
+  /**
+   * Count the solutions from every starting hole, the game in which every hole but one starts
+   * with a marble. Starting holes that are images of each other share their positions in the
+   * table, so each class of them is in effect counted once.
+   *
+   * @return the number of solutions for each hole, indexed as in the geometry
+   * @throws ArithmeticException if some hole has 2^128 solutions or more
+   */
+  public BigInteger[] countEveryStart() {
+    int holes = this.geometry.getHoleCount();
+    long full = holes == 64 ? -1L : (1L << holes) - 1;
+    BigInteger[] counts = new BigInteger[holes];
+    for (int hole = 0; hole < holes; hole++) {
+      counts[hole] = this.count(full & ~(1L << hole));
+    }
+    return counts;
+  }
+
+  /**
+   * Return the number of positions whose counts are remembered
+   *
+   * @return the size of the table of counts
+   */
+  public long getTableSize() {
+    return this.table.size();
+  }
+
+  /**
+   * Find the smallest image of a board under the symmetries that keep the target in place
+   *
+   * @param board the bitboard
+   * @return the canonical form of the board
+   */
+  private long canonical(long board) {
+    long best = board;
+    for (long[] image : this.images) {
+      long mapped = 0;
+      for (int b = 0; b < 8; b++) {
+        mapped |= image[(b << 8) | (int) ((board >>> (8 * b)) & 0xFF)];
+      }
+      if (Long.compareUnsigned(mapped, best) < 0) {
+        best = mapped;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Count the solutions of a position on the calling thread
+   *
+   * @param board the bitboard of the position
+   * @param high  where to put the high word of the count
+   * @return the low word of the count
+   */
+  private long count(long board, long[] high) {
+    if (Long.bitCount(board) <= 1) {
+      high[0] = 0;
+      return board != 0 && (this.target < 0 || board == 1L << this.target) ? 1 : 0;
+    }
+    long key = this.canonical(board);
+    long[] low = new long[1];
+    if (this.table.get(key, low, high)) {
+      return low[0];
+    }
+    long countLow = 0;
+    long countHigh = 0;
+    for (int j = 0; j < this.jumpFull.length; j++) {
+      if ((board & this.jumpFlip[j]) == this.jumpFull[j]) {
+        long childLow = this.count(board ^ this.jumpFlip[j], high);
+        long sum = countLow + childLow;
+        countHigh = addHigh(countHigh, high[0], Long.compareUnsigned(sum, countLow) < 0);
+        countLow = sum;
+      }
+    }
+    this.table.put(key, countLow, countHigh);
+    high[0] = countHigh;
+    return countLow;
+  }
+
+  /**
+   * Add the high words of two counts and the carry out of their low words
+   *
+   * @throws ArithmeticException if the sum does not fit in 128 bits
+   */
+  private static long addHigh(long a, long b, boolean carry) {
+    long sum = a + b;
+    boolean overflow = Long.compareUnsigned(sum, a) < 0;
+    if (carry) {
+      sum++;
+      overflow |= sum == 0;
+    }
+    if (overflow) {
+      throw new ArithmeticException("2^128 solutions or more");
+    }
+    return sum;
+  }
+
+  private static BigInteger toBigInteger(long low, long high) {
+    return new BigInteger(Long.toUnsignedString(high)).shiftLeft(64)
+            .add(new BigInteger(Long.toUnsignedString(low)));
+  }
+
+  // Counts a position near the root by forking a task for each of its moves, and positions
+  // deeper down on the thread that reaches them
+  private final class CountTask extends RecursiveTask<BigInteger> {
+    private static final long serialVersionUID = 1L;
+
+    private final long board;
+    private final int plies;
+
+    private CountTask(long board, int plies) {
+      this.board = board;
+      this.plies = plies;
+    }
+
+    @Override
+    protected BigInteger compute() {
+      SolutionCounter counter = SolutionCounter.this;
+      if (this.plies == 0 || Long.bitCount(this.board) <= 2) {
+        long[] high = new long[1];
+        long low = counter.count(this.board, high);
+        return toBigInteger(low, high[0]);
+      }
+      long[] low = new long[1];
+      long[] high = new long[1];
+      long key = counter.canonical(this.board);
+      if (counter.table.get(key, low, high)) {
+        return toBigInteger(low[0], high[0]);
+      }
+      List<CountTask> children = new ArrayList<CountTask>();
+      for (int j = 0; j < counter.jumpFull.length; j++) {
+        if ((this.board & counter.jumpFlip[j]) == counter.jumpFull[j]) {
+          children.add(new CountTask(this.board ^ counter.jumpFlip[j], this.plies - 1));
+        }
+      }
+      BigInteger total = BigInteger.ZERO;
+      for (CountTask child : invokeAll(children)) {
+        total = total.add(child.join());
+      }
+      if (total.bitLength() > 128) {
+        throw new ArithmeticException("2^128 solutions or more");
+      }
+      counter.table.put(key, total.longValue(), total.shiftRight(64).longValue());
+      return total;
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package cs3500.marblesolitaire.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event committed when a PegSolver finishes searching a position. Its duration
+ * is the time the whole search took.
+ */
+@Name("cs3500.marblesolitaire.SolveEnd")
+@Label("Solve End")
+@Category({"Marble Solitaire", "Solver"})
+@Description("A solver finished searching a position")
+@StackTrace(false)
+final class SolveEndEvent extends jdk.jfr.Event {
+  @Label("Board Size")
+  int boardSize;
+
+  @Label("Pegs")
+  int pegs;
+
+  @Label("Verdict")
+  String verdict;
+
+  @Label("Nodes")
+  @Description("The number of positions visited")
+  long nodes;
+
+  @Label("Best Finish")
+  @Description("The fewest marbles left by any line searched")
+  int bestFinish;
+
+  @Label("Dead Positions")
+  @Description("The number of positions in the transposition table at the end")
+  int tableSize;
+}
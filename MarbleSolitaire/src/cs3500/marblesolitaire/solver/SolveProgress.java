@@ -0,0 +1,90 @@
+package cs3500.marblesolitaire.solver;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Represents the progress of one search as seen by the periodic SolveSampleEvent. A search only
+ * tracks its progress while that event is enabled, and then publishes its counters once every
+ * few thousand nodes, so the search loop pays nothing when nothing is recording.
+ */
+final class SolveProgress {
+  private static final Set<SolveProgress> ACTIVE = ConcurrentHashMap.newKeySet();
+
+  static {
+    FlightRecorder.addPeriodicEvent(SolveSampleEvent.class, SolveProgress::sample);
+  }
+
+  private final Thread thread;
+  private volatile long nodes;
+  private volatile long lookups;
+  private volatile long hits;
+  private volatile int depth;
+  // Only touched by the recorder's periodic thread
+  private long sampledNodes;
+  private long sampledAt;
+
+  private SolveProgress() {
+    this.thread = Thread.currentThread();
+    this.sampledAt = System.nanoTime();
+  }
+
+  /**
+   * Start tracking the progress of a search on the current thread
+   *
+   * @return the progress to update, or null if no recording samples searches
+   */
+  static SolveProgress begin() {
+    if (!new SolveSampleEvent().isEnabled()) {
+      return null;
+    }
+    SolveProgress progress = new SolveProgress();
+    ACTIVE.add(progress);
+    return progress;
+  }
+
+  /**
+   * Publish the counters of the search
+   *
+   * @param nodes   the positions visited so far
+   * @param lookups the lookups made in the transposition table
+   * @param hits    the lookups that found a dead end
+   * @param depth   the current depth of the search
+   */
+  void update(long nodes, long lookups, long hits, int depth) {
+    this.lookups = lookups;
+    this.hits = hits;
+    this.depth = depth;
+    this.nodes = nodes;
+  }
+
+  /**
+   * Stop tracking the search
+   */
+  void end() {
+    ACTIVE.remove(this);
+  }
+
+  /**
+   * Commit a sample event for every search in progress
+   */
+  private static void sample() {
+    long now = System.nanoTime();
+    for (SolveProgress progress : ACTIVE) {
+      long nodes = progress.nodes;
+      long lookups = progress.lookups;
+      SolveSampleEvent event = new SolveSampleEvent();
+      event.solverThread = progress.thread;
+      event.nodes = nodes;
+      event.nodesPerSecond = (nodes - progress.sampledNodes) * 1e9
+              / Math.max(1, now - progress.sampledAt);
+      event.hitRate = lookups == 0 ? 0 : (double) progress.hits / lookups;
+      event.depth = progress.depth;
+      event.commit();
+      progress.sampledNodes = nodes;
+      progress.sampledAt = now;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package cs3500.marblesolitaire.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event sampled periodically for every search in progress, showing how fast it
+ * is running and how deep it is
+ */
+@Name("cs3500.marblesolitaire.SolveSample")
+@Label("Solve Sample")
+@Category({"Marble Solitaire", "Solver"})
+@Description("The progress of a search that is running")
+@Period("1 s")
+@StackTrace(false)
+final class SolveSampleEvent extends jdk.jfr.Event {
+  @Label("Solver Thread")
+  Thread solverThread;
+
+  @Label("Nodes")
+  long nodes;
+
+  @Label("Nodes Per Second")
+  double nodesPerSecond;
+
+  @Label("Hit Rate")
+  @Description("The fraction of lookups in the transposition table that found a dead end")
+  double hitRate;
+
+  @Label("Depth")
+  @Description("The number of moves from the position searched to the one being expanded")
+  int depth;
+}
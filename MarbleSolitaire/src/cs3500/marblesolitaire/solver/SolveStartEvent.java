@@ -0,0 +1,27 @@
+package cs3500.marblesolitaire.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event committed when a PegSolver starts searching a position
+ */
+@Name("cs3500.marblesolitaire.SolveStart")
+@Label("Solve Start")
+@Category({"Marble Solitaire", "Solver"})
+@Description("A solver started searching a position")
+@StackTrace(false)
+final class SolveStartEvent extends jdk.jfr.Event {
+  @Label("Board Size")
+  int boardSize;
+
+  @Label("Pegs")
+  @Description("The number of marbles on the board searched")
+  int pegs;
+
+  @Label("Node Budget")
+  long nodeBudget;
+}
@@ -0,0 +1,566 @@
+package cs3500.marblesolitaire.solver;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents a bounded, thread-safe cache of solver results keyed by the canonical form of a
+ * position, so that rotations and reflections of a position share one entry.
+ *
+ * <p>The cache is split into stripes that are locked independently. Each stripe follows the
+ * W-TinyLFU policy: new entries enter a small LRU window, and an entry leaving the window is only
+ * admitted into the main segmented LRU if a frequency sketch says it is used more often than the
+ * entry it would evict. The total size is bounded by an estimate of the bytes every entry uses.
+ */
+public final class SolverCache {
+  /**
+   * The number of stripes a cache uses unless told otherwise
+   */
+  public static final int DEFAULT_STRIPES = 16;
+
+  // An estimate of the bytes used by an entry besides the words of its key
+  private static final int ENTRY_OVERHEAD = 208;
+  private static final int MAGIC = 0x4D534331;
+
+  private final Stripe[] stripes;
+  private final long maxBytes;
+  private final LongAdder hits;
+  private final LongAdder misses;
+  private final LongAdder evictions;
+  private final LongAdder rejections;
+
+  /**
+   * Constructs an empty cache with the default number of stripes
+   *
+   * @param maxBytes the most bytes the entries of the cache may use
+   */
+  public SolverCache(long maxBytes) {
+    this(maxBytes, DEFAULT_STRIPES);
+  }
+
+  /**
+   * Constructs an empty cache
+   *
+   * @param maxBytes the most bytes the entries of the cache may use
+   * @param stripes  the number of independently locked stripes, a power of two
+   * @throws IllegalArgumentException if the size is not positive or the stripes are not a power
+   *                                  of two
+   */
+  public SolverCache(long maxBytes, int stripes) {
+    if (maxBytes <= 0 || stripes <= 0 || Integer.bitCount(stripes) != 1) {
+      throw new IllegalArgumentException();
+    }
+    this.maxBytes = maxBytes;
+    this.stripes = new Stripe[stripes];
+    for (int i = 0; i < stripes; i++) {
+      this.stripes[i] = new Stripe(Math.max(1, maxBytes / stripes));
+    }
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+    this.evictions = new LongAdder();
+    this.rejections = new LongAdder();
+  }
+
+  /**
+   * Look up the result for a position or any of its rotations and reflections
+   *
+   * @param position the position to look up
+   * @return the cached result with its move mapped onto the given position, or null if the
+   * position is not cached
+   */
+  public SolverResult get(Position position) {
+    BoardGeometry geometry = position.getGeometry();
+    long[] canonical = new long[geometry.getWords()];
+    int symmetry = geometry.canonicalize(position.getBoard(), canonical);
+    Position key = new Position(geometry, canonical);
+
+    SolverResult result = this.stripeFor(key).get(key);
+    if (result == null) {
+      this.misses.increment();
+      return null;
+    }
+    this.hits.increment();
+    return mapMove(geometry, geometry.inverseOf(symmetry), result);
+  }
+
+  /**
+   * Store the result for a position, replacing any result cached for it before. The entry may
+   * be rejected right away if the cache is full of entries that are used more often.
+   *
+   * @param position the position that was analysed
+   * @param result   the result of the analysis
+   * @throws IllegalArgumentException if the result is null
+   */
+  public void put(Position position, SolverResult result) {
+    if (result == null) {
+      throw new IllegalArgumentException();
+    }
+    BoardGeometry geometry = position.getGeometry();
+    long[] canonical = new long[geometry.getWords()];
+    int symmetry = geometry.canonicalize(position.getBoard(), canonical);
+    Position key = new Position(geometry, canonical);
+    this.stripeFor(key).put(key, mapMove(geometry, symmetry, result),
+            ENTRY_OVERHEAD + 8L * geometry.getWords());
+  }
+
+  /**
+   * Return the number of lookups that found a result
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return this.hits.sum();
+  }
+
+  /**
+   * Return the number of lookups that did not find a result
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return this.misses.sum();
+  }
+
+  /**
+   * Return the fraction of lookups that found a result
+   *
+   * @return the hit rate between 0 and 1, or 0 if nothing was looked up
+   */
+  public double getHitRate() {
+    long hit = this.hits.sum();
+    long total = hit + this.misses.sum();
+    return total == 0 ? 0 : (double) hit / total;
+  }
+
+  /**
+   * Return the number of entries that were admitted and later evicted to make room
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    return this.evictions.sum();
+  }
+
+  /**
+   * Return the number of new entries that were turned away by the admission policy
+   *
+   * @return the rejection count
+   */
+  public long getRejectionCount() {
+    return this.rejections.sum();
+  }
+
+  /**
+   * Return the number of entries in the cache
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe stripe : this.stripes) {
+      synchronized (stripe) {
+        size += stripe.map.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Return the estimated number of bytes used by the entries of the cache
+   *
+   * @return the weighted size
+   */
+  public long getWeightedSize() {
+    long bytes = 0;
+    for (Stripe stripe : this.stripes) {
+      synchronized (stripe) {
+        bytes += stripe.windowBytes + stripe.probationBytes + stripe.protectedBytes;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Return the most bytes the entries of the cache may use
+   *
+   * @return the maximum weighted size
+   */
+  public long getMaxBytes() {
+    return this.maxBytes;
+  }
+
+  /**
+   * Write every entry to a snapshot file through a memory-mapped buffer, replacing the file if
+   * it exists
+   *
+   * @param file the file to write
+   * @throws IOException if the file cannot be written
+   */
+  public void save(Path file) throws IOException {
+    List<Position> keys = new ArrayList<Position>();
+    List<SolverResult> values = new ArrayList<SolverResult>();
+    for (Stripe stripe : this.stripes) {
+      synchronized (stripe) {
+        for (Node node : stripe.map.values()) {
+          keys.add(node.key);
+          values.add(node.value);
+        }
+      }
+    }
+
+    Map<BoardGeometry, Integer> ids = new HashMap<BoardGeometry, Integer>();
+    List<BoardGeometry> geometries = new ArrayList<BoardGeometry>();
+    long bytes = 12;
+    for (Position key : keys) {
+      BoardGeometry geometry = key.getGeometry();
+      if (!ids.containsKey(geometry)) {
+        ids.put(geometry, geometries.size());
+        geometries.add(geometry);
+        int cells = geometry.getBoardSize() * geometry.getBoardSize();
+        bytes += 4 + (cells + 7) / 8;
+      }
+      bytes += 25 + 8L * geometry.getWords();
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+      buffer.putInt(MAGIC).putInt(geometries.size()).putInt(keys.size());
+      for (BoardGeometry geometry : geometries) {
+        int size = geometry.getBoardSize();
+        buffer.putInt(size);
+        byte packed = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+          if (geometry.isValid(cell / size, cell % size)) {
+            packed |= 1 << (cell & 7);
+          }
+          if ((cell & 7) == 7 || cell == size * size - 1) {
+            buffer.put(packed);
+            packed = 0;
+          }
+        }
+      }
+      for (int i = 0; i < keys.size(); i++) {
+        BoardGeometry geometry = keys.get(i).getGeometry();
+        SolverResult value = values.get(i);
+        Move move = value.getBestMove();
+        buffer.putInt(ids.get(geometry));
+        for (long word : keys.get(i).getBoard()) {
+          buffer.putLong(word);
+        }
+        buffer.put((byte) value.getVerdict().ordinal());
+        buffer.putInt(move == null ? -1 : geometry.holeAt(move.getFromRow(), move.getFromCol()));
+        buffer.putInt(move == null ? -1 : geometry.holeAt(move.getToRow(), move.getToCol()));
+        buffer.putInt(value.getBestFinish());
+        buffer.putLong(value.getNodes());
+      }
+      buffer.force();
+    }
+  }
+
+  /**
+   * Read a snapshot file written by save into a new cache
+   *
+   * @param file     the file to read
+   * @param maxBytes the most bytes the entries of the new cache may use
+   * @return a cache holding the entries of the snapshot that fit
+   * @throws IOException if the file cannot be read or is not a snapshot
+   */
+  public static SolverCache load(Path file, long maxBytes) throws IOException {
+    SolverCache cache = new SolverCache(maxBytes);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+        throw new IOException("Not a solver cache snapshot: " + file);
+      }
+      BoardGeometry[] geometries = new BoardGeometry[buffer.getInt()];
+      int entries = buffer.getInt();
+      for (int g = 0; g < geometries.length; g++) {
+        int size = buffer.getInt();
+        boolean[] valid = new boolean[size * size];
+        byte packed = 0;
+        for (int cell = 0; cell < valid.length; cell++) {
+          if ((cell & 7) == 0) {
+            packed = buffer.get();
+          }
+          valid[cell] = (packed & (1 << (cell & 7))) != 0;
+        }
+        geometries[g] = BoardGeometry.fromMask(size, valid);
+      }
+      SolverResult.Verdict[] verdicts = SolverResult.Verdict.values();
+      for (int i = 0; i < entries; i++) {
+        BoardGeometry geometry = geometries[buffer.getInt()];
+        long[] board = new long[geometry.getWords()];
+        for (int w = 0; w < board.length; w++) {
+          board[w] = buffer.getLong();
+        }
+        SolverResult.Verdict verdict = verdicts[buffer.get()];
+        int from = buffer.getInt();
+        int to = buffer.getInt();
+        int finish = buffer.getInt();
+        long nodes = buffer.getLong();
+        Move move = from < 0 ? null : new Move(geometry.rowOf(from), geometry.colOf(from),
+                geometry.rowOf(to), geometry.colOf(to));
+        cache.put(new Position(geometry, board), new SolverResult(verdict, move, finish, nodes));
+      }
+    } catch (RuntimeException e) {
+      throw new IOException("Corrupt solver cache snapshot: " + file, e);
+    }
+    return cache;
+  }
+
+  /**
+   * Save this cache to a snapshot file when the virtual machine shuts down, so the next run can
+   * start warm by loading it
+   *
+   * @param file the file to write
+   */
+  public void saveOnShutdown(Path file) {
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        this.save(file);
+      } catch (IOException e) {
+        // nothing can be reported while shutting down
+      }
+    }, "solver-cache-snapshot"));
+  }
+
+  private Stripe stripeFor(Position key) {
+    int h = key.hashCode();
+    return this.stripes[(h ^ (h >>> 16)) & (this.stripes.length - 1)];
+  }
+
+  private static SolverResult mapMove(BoardGeometry geometry, int symmetry, SolverResult result) {
+    if (symmetry == 0 || result.getBestMove() == null) {
+      return result;
+    }
+    return new SolverResult(result.getVerdict(), geometry.transform(symmetry,
+            result.getBestMove()), result.getBestFinish(), result.getNodes());
+  }
+
+  // Represents an entry of a stripe, linked into the queue it currently belongs to
+  private static final class Node {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final Position key;
+    private SolverResult value;
+    private long weight;
+    private int queue;
+    private Node prev;
+    private Node next;
+
+    private Node(Position key, SolverResult value, long weight) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  // Represents one independently locked part of the cache with its own W-TinyLFU policy
+  private final class Stripe {
+    private final Map<Position, Node> map;
+    private final FrequencySketch sketch;
+    private final Node window;
+    private final Node probation;
+    private final Node protect;
+    private final long maxWindow;
+    private final long maxMain;
+    private final long maxProtected;
+    private long windowBytes;
+    private long probationBytes;
+    private long protectedBytes;
+
+    private Stripe(long maxBytes) {
+      this.map = new HashMap<Position, Node>();
+      this.sketch = new FrequencySketch((int) Math.min(1 << 24, maxBytes / ENTRY_OVERHEAD + 1));
+      this.window = sentinel();
+      this.probation = sentinel();
+      this.protect = sentinel();
+      this.maxWindow = Math.max(1, maxBytes / 100);
+      this.maxMain = maxBytes - this.maxWindow;
+      this.maxProtected = this.maxMain * 4 / 5;
+    }
+
+    private synchronized SolverResult get(Position key) {
+      this.sketch.increment(key.hashCode());
+      Node node = this.map.get(key);
+      if (node == null) {
+        return null;
+      }
+      this.onHit(node);
+      return node.value;
+    }
+
+    private synchronized void put(Position key, SolverResult value, long weight) {
+      this.sketch.increment(key.hashCode());
+      Node node = this.map.get(key);
+      if (node != null) {
+        node.value = value;
+        this.onHit(node);
+        return;
+      }
+      if (weight > this.maxMain) {
+        SolverCache.this.rejections.increment();
+        return;
+      }
+      node = new Node(key, value, weight);
+      this.map.put(key, node);
+      node.queue = Node.WINDOW;
+      linkLast(this.window, node);
+      this.windowBytes += weight;
+      this.evict();
+    }
+
+    /**
+     * Move an entry that was used towards the protected end of the policy
+     */
+    private void onHit(Node node) {
+      unlink(node);
+      if (node.queue == Node.PROBATION) {
+        this.probationBytes -= node.weight;
+        node.queue = Node.PROTECTED;
+        this.protectedBytes += node.weight;
+        linkLast(this.protect, node);
+        while (this.protectedBytes > this.maxProtected) {
+          Node demoted = this.protect.next;
+          unlink(demoted);
+          this.protectedBytes -= demoted.weight;
+          demoted.queue = Node.PROBATION;
+          this.probationBytes += demoted.weight;
+          linkLast(this.probation, demoted);
+        }
+      } else if (node.queue == Node.PROTECTED) {
+        linkLast(this.protect, node);
+      } else {
+        linkLast(this.window, node);
+      }
+    }
+
+    /**
+     * Move entries out of the window until it fits, letting each one into the main segment only
+     * if it is used more often than the entries it pushes out
+     */
+    private void evict() {
+      while (this.windowBytes > this.maxWindow) {
+        Node candidate = this.window.next;
+        unlink(candidate);
+        this.windowBytes -= candidate.weight;
+        candidate.queue = Node.PROBATION;
+        this.probationBytes += candidate.weight;
+        linkLast(this.probation, candidate);
+
+        while (this.probationBytes + this.protectedBytes > this.maxMain) {
+          Node victim = this.probation.next;
+          if (victim == candidate) {
+            victim = this.protect.next != this.protect ? this.protect.next : candidate;
+          }
+          if (victim != candidate && this.sketch.frequency(candidate.key.hashCode())
+                  > this.sketch.frequency(victim.key.hashCode())) {
+            this.remove(victim);
+            SolverCache.this.evictions.increment();
+          } else {
+            this.remove(candidate);
+            SolverCache.this.rejections.increment();
+            break;
+          }
+        }
+      }
+    }
+
+    private void remove(Node node) {
+      unlink(node);
+      this.map.remove(node.key);
+      if (node.queue == Node.PROBATION) {
+        this.probationBytes -= node.weight;
+      } else if (node.queue == Node.PROTECTED) {
+        this.protectedBytes -= node.weight;
+      } else {
+        this.windowBytes -= node.weight;
+      }
+    }
+  }
+
+  private static Node sentinel() {
+    Node head = new Node(null, null, 0);
+    head.prev = head;
+    head.next = head;
+    return head;
+  }
+
+  private static void linkLast(Node head, Node node) {
+    node.prev = head.prev;
+    node.next = head;
+    head.prev.next = node;
+    head.prev = node;
+  }
+
+  private static void unlink(Node node) {
+    node.prev.next = node.next;
+    node.next.prev = node.prev;
+    node.prev = null;
+    node.next = null;
+  }
+
+  /**
+   * Represents a count-min sketch of 4-bit counters estimating how often keys were used. All
+   * counters are halved periodically so that the estimates favour recent use.
+   */
+  private static final class FrequencySketch {
+    private static final long[] SEEDS = {0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L,
+      0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+
+    private final long[] table;
+    private final int counterMask;
+    private final int sampleSize;
+    private int additions;
+
+    private FrequencySketch(int expectedEntries) {
+      int words = Integer.highestOneBit(Math.max(4, expectedEntries / 4) - 1) << 1;
+      this.table = new long[words];
+      this.counterMask = words * 16 - 1;
+      this.sampleSize = 10 * Math.max(16, expectedEntries);
+    }
+
+    private int frequency(int hash) {
+      int min = 15;
+      for (int i = 0; i < SEEDS.length; i++) {
+        int index = this.indexOf(hash, i);
+        min = Math.min(min, (int) ((this.table[index >>> 4] >>> ((index & 15) << 2)) & 15));
+      }
+      return min;
+    }
+
+    private void increment(int hash) {
+      for (int i = 0; i < SEEDS.length; i++) {
+        int index = this.indexOf(hash, i);
+        int shift = (index & 15) << 2;
+        if (((this.table[index >>> 4] >>> shift) & 15) != 15) {
+          this.table[index >>> 4] += 1L << shift;
+        }
+      }
+      if (++this.additions >= this.sampleSize) {
+        for (int w = 0; w < this.table.length; w++) {
+          this.table[w] = (this.table[w] >>> 1) & 0x7777777777777777L;
+        }
+        this.additions /= 2;
+      }
+    }
+
+    private int indexOf(int hash, int row) {
+      long h = (hash + SEEDS[row]) * SEEDS[row];
+      h += h >>> 32;
+      return (int) h & this.counterMask;
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package cs3500.marblesolitaire.solver;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Represents the state of a depth-first search at one moment, enough for PegSolver to carry on
+ * from there: the boards and next moves on its stack, its counters, its best finish so far and,
+ * if it was saved, its table of dead ends. A checkpoint is written in one bulk write to a
+ * temporary file that then replaces the old one, so a crash while writing leaves the previous
+ * checkpoint whole.
+ */
+final class SolverCheckpoint {
+  private static final int MAGIC = 0x50534350;
+
+  private static final int VERSION = 1;
+
+  // The bytes before the stack: magic, version, board size, holes, words, pegs, depth, listed,
+  // nodes, lookups, hits, best finish, best first move and table entries
+  private static final int HEADER = 4 * 8 + 8 * 3 + 4 * 3;
+
+  final int boardSize;
+  final int holeCount;
+  final int words;
+  final int pegs;
+  final int depth;
+  final boolean listed;
+  final long nodes;
+  final long lookups;
+  final long hits;
+  final int bestFinish;
+  final int bestFirst;
+  final long[] stack;
+  final int[] next;
+  final int[] played;
+  final long[] table;
+
+  /**
+   * Captures the state of a search. The arrays are copied up to the given depth, so the search
+   * may go on changing its own.
+   *
+   * @param geometry   the shape of the board searched
+   * @param pegs       the number of marbles at the root of the search
+   * @param depth      the depth of the search
+   * @param listed     whether the next moves index move lists rather than jumps
+   * @param stack      the boards at every depth
+   * @param next       the next move to try at every depth
+   * @param played     the jump made at every depth
+   * @param nodes      the positions visited
+   * @param lookups    the lookups in the table of dead ends
+   * @param hits       the lookups that found a dead end
+   * @param bestFinish the fewest marbles left so far
+   * @param bestFirst  the first jump of the line that left them, or -1
+   * @param table      the dead ends, words longs each, or null if they are not kept
+   */
+  SolverCheckpoint(BoardGeometry geometry, int pegs, int depth, boolean listed, long[] stack,
+                   int[] next, int[] played, long nodes, long lookups, long hits,
+                   int bestFinish, int bestFirst, long[] table) {
+    this.boardSize = geometry.getBoardSize();
+    this.holeCount = geometry.getHoleCount();
+    this.words = geometry.getWords();
+    this.pegs = pegs;
+    this.depth = depth;
+    this.listed = listed;
+    this.nodes = nodes;
+    this.lookups = lookups;
+    this.hits = hits;
+    this.bestFinish = bestFinish;
+    this.bestFirst = bestFirst;
+    this.stack = Arrays.copyOf(stack, (depth + 1) * this.words);
+    this.next = Arrays.copyOf(next, depth + 1);
+    this.played = Arrays.copyOf(played, depth + 1);
+    this.table = table;
+  }
+
+  private SolverCheckpoint(ByteBuffer in) {
+    this.boardSize = in.getInt();
+    this.holeCount = in.getInt();
+    this.words = in.getInt();
+    this.pegs = in.getInt();
+    this.depth = in.getInt();
+    this.listed = in.getInt() != 0;
+    this.nodes = in.getLong();
+    this.lookups = in.getLong();
+    this.hits = in.getLong();
+    this.bestFinish = in.getInt();
+    this.bestFirst = in.getInt();
+    int entries = in.getInt();
+    if (this.words <= 0 || this.depth < 0 || this.depth >= this.pegs) {
+      throw new BufferUnderflowException();
+    }
+    this.stack = new long[(this.depth + 1) * this.words];
+    this.next = new int[this.depth + 1];
+    this.played = new int[this.depth + 1];
+    in.asLongBuffer().get(this.stack);
+    in.position(in.position() + 8 * this.stack.length);
+    in.asIntBuffer().get(this.next).get(this.played);
+    in.position(in.position() + 4 * (this.next.length + this.played.length));
+    if (entries < 0) {
+      this.table = null;
+    } else {
+      this.table = new long[Math.multiplyExact(entries, this.words)];
+      in.asLongBuffer().get(this.table);
+    }
+  }
+
+  /**
+   * Checks if this checkpoint was taken on a board of the given shape
+   *
+   * @param geometry the shape of the board
+   * @return true if the board size, holes and bitboard words all match
+   */
+  boolean isFor(BoardGeometry geometry) {
+    return this.boardSize == geometry.getBoardSize() && this.holeCount == geometry.getHoleCount()
+            && this.words == geometry.getWords();
+  }
+
+  /**
+   * Write this checkpoint to a file, replacing it only once the whole checkpoint is on disk
+   *
+   * @param file the file to write
+   * @throws IOException if the file cannot be written
+   */
+  void write(Path file) throws IOException {
+    long length = HEADER + 8L * this.stack.length + 4L * (this.next.length + this.played.length)
+            + (this.table == null ? 0 : 8L * this.table.length);
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("Checkpoint larger than 2 GB");
+    }
+    ByteBuffer out = ByteBuffer.allocate((int) length);
+    out.putInt(MAGIC).putInt(VERSION).putInt(this.boardSize).putInt(this.holeCount)
+            .putInt(this.words).putInt(this.pegs).putInt(this.depth).putInt(this.listed ? 1 : 0)
+            .putLong(this.nodes).putLong(this.lookups).putLong(this.hits)
+            .putInt(this.bestFinish).putInt(this.bestFirst)
+            .putInt(this.table == null ? -1 : this.table.length / this.words);
+    out.asLongBuffer().put(this.stack);
+    out.position(out.position() + 8 * this.stack.length);
+    out.asIntBuffer().put(this.next).put(this.played);
+    out.position(out.position() + 4 * (this.next.length + this.played.length));
+    if (this.table != null) {
+      out.asLongBuffer().put(this.table);
+    }
+    out.position(0);
+
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      while (out.hasRemaining()) {
+        channel.write(out);
+      }
+      channel.force(false);
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Read a checkpoint written by write
+   *
+   * @param file the file to read
+   * @return the checkpoint
+   * @throws IOException if the file cannot be read or is not a whole solver checkpoint
+   */
+  static SolverCheckpoint read(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER || channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Not a solver checkpoint");
+      }
+      ByteBuffer in = ByteBuffer.allocate((int) channel.size());
+      while (in.hasRemaining()) {
+        if (channel.read(in) < 0) {
+          throw new IOException("Not a solver checkpoint");
+        }
+      }
+      in.flip();
+      if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+        throw new IOException("Not a solver checkpoint");
+      }
+      try {
+        return new SolverCheckpoint(in);
+      } catch (BufferUnderflowException | ArithmeticException | NegativeArraySizeException e) {
+        throw new IOException("Truncated solver checkpoint", e);
+      }
+    }
+  }
+}
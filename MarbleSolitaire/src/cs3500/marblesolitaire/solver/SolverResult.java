@@ -0,0 +1,78 @@
+package cs3500.marblesolitaire.solver;
+
+/**
+ * Represents the outcome of analysing a position with a solver
+ */
+public final class SolverResult {
+  /**
+   * This enum represents what the solver learned about a position. A position is solved if a
+   * sequence of moves leaves a single marble, unsolvable if the search proved no such sequence
+   * exists, and unknown if the search stopped before it could decide.
+   */
+  public enum Verdict {Solved, Unsolvable, Unknown}
+
+  private final Verdict verdict;
+  private final Move bestMove;
+  private final int bestFinish;
+  private final long nodes;
+
+  /**
+   * Constructs a solver result
+   *
+   * @param verdict    what the solver learned about the position
+   * @param bestMove   the first move of the best line found, or null if no move can be made
+   * @param bestFinish the fewest marbles left at the end of any line found
+   * @param nodes      the number of positions visited by the search
+   */
+  public SolverResult(Verdict verdict, Move bestMove, int bestFinish, long nodes) {
+    if (verdict == null) {
+      throw new IllegalArgumentException();
+    }
+    this.verdict = verdict;
+    this.bestMove = bestMove;
+    this.bestFinish = bestFinish;
+    this.nodes = nodes;
+  }
+
+  /**
+   * Get what the solver learned about the position
+   *
+   * @return the verdict
+   */
+  public Verdict getVerdict() {
+    return this.verdict;
+  }
+
+  /**
+   * Get the first move of the best line found
+   *
+   * @return the best move, or null if no move can be made
+   */
+  public Move getBestMove() {
+    return this.bestMove;
+  }
+
+  /**
+   * Get the fewest marbles left at the end of any line found
+   *
+   * @return the best finish
+   */
+  public int getBestFinish() {
+    return this.bestFinish;
+  }
+
+  /**
+   * Get the number of positions visited by the search
+   *
+   * @return the number of nodes
+   */
+  public long getNodes() {
+    return this.nodes;
+  }
+
+  @Override
+  public String toString() {
+    return this.verdict + " (best move " + this.bestMove + ", best finish " + this.bestFinish
+            + ", " + this.nodes + " nodes)";
+  }
+}
@@ -0,0 +1,213 @@
+package cs3500.marblesolitaire.solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+
+/**
+ * Represents a batch job that solves a board from every possible starting hole. Starting holes
+ * that are images of each other under a symmetry of the board have the same result, so only one
+ * hole of each such class is solved. The holes are solved in parallel, and each finished hole is
+ * appended to an optional checkpoint file so that an interrupted job picks up where it stopped.
+ */
+public final class StartHoleSurvey {
+  private static final int MAGIC = 0x4D534350;
+  private static final int HEADER = 13;
+  private static final int RECORD = 9;
+
+  private final BoardShape shape;
+  private final int armThickness;
+  private final PegSolver solver;
+  private final BoardGeometry geometry;
+
+  /**
+   * Constructs a survey of a board
+   *
+   * @param shape        the shape of the board
+   * @param armThickness the arm thickness of the board
+   * @param nodeBudget   the number of positions to search from each starting hole
+   * @throws IllegalArgumentException if the shape is null, the arm thickness is invalid or the
+   *                                  budget is not positive
+   */
+  public StartHoleSurvey(BoardShape shape, int armThickness, long nodeBudget) {
+    if (shape == null) {
+      throw new IllegalArgumentException();
+    }
+    this.shape = shape;
+    this.armThickness = armThickness;
+    this.geometry = new BoardGeometry(shape.create(armThickness));
+    this.solver = new PegSolver(this.geometry, nodeBudget);
+  }
+
+  /**
+   * Get the starting holes that are actually solved, one of each class of symmetric holes
+   *
+   * @return the holes with the smallest number in their class, in increasing order
+   */
+  public List<Integer> getRepresentatives() {
+    List<Integer> holes = new ArrayList<Integer>();
+    for (int hole = 0; hole < this.geometry.getHoleCount(); hole++) {
+      if (this.representativeOf(hole) == hole) {
+        holes.add(hole);
+      }
+    }
+    return holes;
+  }
+
+  /**
+   * Solve the board from every starting hole
+   *
+   * @param checkpoint the file to record progress in and resume from, or null to not record it
+   * @return the table of results for every hole
+   * @throws IOException              if the checkpoint cannot be read or written
+   * @throws IllegalArgumentException if the checkpoint belongs to a different board
+   */
+  public StartHoleTable run(Path checkpoint) throws IOException {
+    StartHoleTable table = new StartHoleTable(this.shape, this.armThickness);
+    boolean[] done = new boolean[this.geometry.getHoleCount()];
+    FileChannel channel = checkpoint == null ? null : this.resume(checkpoint, table, done);
+    try {
+      List<Integer> pending = new ArrayList<Integer>();
+      for (int hole : this.getRepresentatives()) {
+        if (!done[hole]) {
+          pending.add(hole);
+        }
+      }
+      pending.parallelStream().forEach(hole -> {
+        SolverResult result = this.solver.solve(this.startBoard(hole));
+        synchronized (table) {
+          this.record(table, hole, result);
+          if (channel != null) {
+            ByteBuffer record = ByteBuffer.allocate(RECORD);
+            record.putInt(hole).put((byte) result.getVerdict().ordinal())
+                    .putInt(result.getBestFinish()).flip();
+            try {
+              while (record.hasRemaining()) {
+                channel.write(record);
+              }
+              channel.force(false);
+            } catch (IOException e) {
+              throw new IllegalStateException(e);
+            }
+          }
+        }
+      });
+    } finally {
+      if (channel != null) {
+        channel.close();
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Open a checkpoint, loading the holes it already holds into the table. A record cut short by
+   * a crash is dropped, and a new checkpoint is started if the file does not exist.
+   */
+  private FileChannel resume(Path checkpoint, StartHoleTable table, boolean[] done)
+          throws IOException {
+    FileChannel channel = FileChannel.open(checkpoint, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(HEADER);
+      header.putInt(MAGIC).put((byte) this.shape.ordinal()).putInt(this.armThickness)
+              .putInt(this.geometry.getHoleCount()).flip();
+      if (channel.size() < HEADER) {
+        channel.truncate(0);
+        channel.write(header, 0);
+        channel.position(HEADER);
+        return channel;
+      }
+
+      ByteBuffer existing = ByteBuffer.allocate(HEADER);
+      channel.read(existing, 0);
+      if (!existing.flip().equals(header)) {
+        throw new IllegalArgumentException("Checkpoint is for a different board: " + checkpoint);
+      }
+      long records = (channel.size() - HEADER) / RECORD;
+      ByteBuffer body = ByteBuffer.allocate((int) (records * RECORD));
+      while (body.hasRemaining()) {
+        if (channel.read(body, HEADER + body.position()) < 0) {
+          break;
+        }
+      }
+      body.flip();
+      for (long i = 0; i < records; i++) {
+        int hole = body.getInt();
+        SolverResult.Verdict verdict = SolverResult.Verdict.values()[body.get()];
+        int finish = body.getInt();
+        this.record(table, hole, new SolverResult(verdict, null, finish, 0));
+        done[hole] = true;
+      }
+      channel.truncate(HEADER + records * RECORD);
+      channel.position(HEADER + records * RECORD);
+      return channel;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  // Store a result for a hole and every hole symmetric to it
+  private void record(StartHoleTable table, int hole, SolverResult result) {
+    for (int symmetry = 0; symmetry < this.geometry.getSymmetryCount(); symmetry++) {
+      table.set(this.geometry.transform(symmetry, hole), result);
+    }
+  }
+
+  private int representativeOf(int hole) {
+    int best = hole;
+    for (int symmetry = 0; symmetry < this.geometry.getSymmetryCount(); symmetry++) {
+      best = Math.min(best, this.geometry.transform(symmetry, hole));
+    }
+    return best;
+  }
+
+  // The board with a marble in every hole but the starting one
+  private long[] startBoard(int hole) {
+    long[] board = new long[this.geometry.getWords()];
+    for (int h = 0; h < this.geometry.getHoleCount(); h++) {
+      if (h != hole) {
+        board[h >>> 6] |= 1L << h;
+      }
+    }
+    return board;
+  }
+
+  /**
+   * Runs a survey from the command line and writes its table. Usage:
+   * <pre>
+   *   StartHoleSurvey shape armThickness nodeBudget table [checkpoint]
+   * </pre>
+   * where shape is english or european.
+   *
+   * @param args the command line arguments
+   * @throws IOException if a file cannot be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 4) {
+      System.out.println("Usage: StartHoleSurvey shape armThickness nodeBudget table "
+              + "[checkpoint]");
+      return;
+    }
+    StartHoleSurvey survey = new StartHoleSurvey(BoardShape.forName(args[0]),
+            Integer.parseInt(args[1]), Long.parseLong(args[2]));
+    long start = System.nanoTime();
+    StartHoleTable table = survey.run(args.length > 4 ? Paths.get(args[4]) : null);
+    table.save(Paths.get(args[3]));
+
+    BoardGeometry geometry = table.getGeometry();
+    for (int hole = 0; hole < geometry.getHoleCount(); hole++) {
+      System.out.println("(" + geometry.rowOf(hole) + ", " + geometry.colOf(hole) + "): "
+              + table.getVerdict(hole) + ", best finish " + table.getBestFinish(hole));
+    }
+    System.out.println("Time: " + (System.nanoTime() - start) / 1_000_000 + " ms");
+  }
+}
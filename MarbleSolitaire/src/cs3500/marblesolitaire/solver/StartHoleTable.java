@@ -0,0 +1,188 @@
+package cs3500.marblesolitaire.solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+
+/**
+ * Represents the published results for every starting hole of one board shape and size: whether
+ * a game started with that hole empty can be solved, and the fewest marbles it can end with. The
+ * table is stored as a small binary file of one verdict byte and one finish short per hole, so it
+ * loads in well under a millisecond.
+ */
+public final class StartHoleTable {
+  private static final int MAGIC = 0x4D535354;
+  private static final int HEADER = 13;
+
+  private final BoardShape shape;
+  private final int armThickness;
+  private final BoardGeometry geometry;
+  private final byte[] verdicts;
+  private final short[] finishes;
+
+  /**
+   * Constructs a table of results for the given board, with every hole still unknown
+   *
+   * @param shape        the shape of the board
+   * @param armThickness the arm thickness of the board
+   * @throws IllegalArgumentException if the shape is null or the arm thickness is invalid
+   */
+  public StartHoleTable(BoardShape shape, int armThickness) {
+    if (shape == null) {
+      throw new IllegalArgumentException();
+    }
+    this.shape = shape;
+    this.armThickness = armThickness;
+    this.geometry = new BoardGeometry(shape.create(armThickness));
+    this.verdicts = new byte[this.geometry.getHoleCount()];
+    this.finishes = new short[this.geometry.getHoleCount()];
+    for (int hole = 0; hole < this.verdicts.length; hole++) {
+      this.verdicts[hole] = (byte) SolverResult.Verdict.Unknown.ordinal();
+      this.finishes[hole] = (short) (this.verdicts.length - 1);
+    }
+  }
+
+  /**
+   * Get the shape of the board
+   *
+   * @return the shape
+   */
+  public BoardShape getShape() {
+    return this.shape;
+  }
+
+  /**
+   * Get the arm thickness of the board
+   *
+   * @return the arm thickness
+   */
+  public int getArmThickness() {
+    return this.armThickness;
+  }
+
+  /**
+   * Get the geometry of the board, whose hole numbers index this table
+   *
+   * @return the geometry
+   */
+  public BoardGeometry getGeometry() {
+    return this.geometry;
+  }
+
+  /**
+   * Get what is known about games started with the given slot empty
+   *
+   * @param row the row of the starting hole
+   * @param col the column of the starting hole
+   * @return the verdict
+   * @throws IllegalArgumentException if the slot is not on the board
+   */
+  public SolverResult.Verdict getVerdict(int row, int col) {
+    return this.getVerdict(this.holeOf(row, col));
+  }
+
+  /**
+   * Get the fewest marbles known to be reachable from a game started with the given slot empty
+   *
+   * @param row the row of the starting hole
+   * @param col the column of the starting hole
+   * @return the best finish
+   * @throws IllegalArgumentException if the slot is not on the board
+   */
+  public int getBestFinish(int row, int col) {
+    return this.getBestFinish(this.holeOf(row, col));
+  }
+
+  /**
+   * Get what is known about games started with the given hole empty
+   *
+   * @param hole the starting hole
+   * @return the verdict
+   */
+  public SolverResult.Verdict getVerdict(int hole) {
+    return SolverResult.Verdict.values()[this.verdicts[hole]];
+  }
+
+  /**
+   * Get the fewest marbles known to be reachable from a game started with the given hole empty
+   *
+   * @param hole the starting hole
+   * @return the best finish
+   */
+  public int getBestFinish(int hole) {
+    return this.finishes[hole] & 0xFFFF;
+  }
+
+  /**
+   * Record the result for a starting hole
+   *
+   * @param hole   the starting hole
+   * @param result the result of solving the start position
+   */
+  public void set(int hole, SolverResult result) {
+    this.verdicts[hole] = (byte) result.getVerdict().ordinal();
+    this.finishes[hole] = (short) result.getBestFinish();
+  }
+
+  /**
+   * Write this table to a file, replacing it if it exists
+   *
+   * @param file the file to write
+   * @throws IOException if the file cannot be written
+   */
+  public void save(Path file) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER + 3 * this.verdicts.length);
+    buffer.putInt(MAGIC).put((byte) this.shape.ordinal()).putInt(this.armThickness)
+            .putInt(this.verdicts.length);
+    buffer.put(this.verdicts);
+    for (short finish : this.finishes) {
+      buffer.putShort(finish);
+    }
+    Files.write(file, buffer.array());
+  }
+
+  /**
+   * Read a table written by save
+   *
+   * @param file the file to read
+   * @return the table
+   * @throws IOException              if the file cannot be read
+   * @throws IllegalArgumentException if the file does not hold a table
+   */
+  public static StartHoleTable load(Path file) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+    if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC) {
+      throw new IllegalArgumentException("Not a start hole table: " + file);
+    }
+    int shape = buffer.get();
+    int arm = buffer.getInt();
+    int holes = buffer.getInt();
+    if (shape < 0 || shape >= BoardShape.values().length) {
+      throw new IllegalArgumentException("Unknown board shape in " + file);
+    }
+    StartHoleTable table = new StartHoleTable(BoardShape.values()[shape], arm);
+    if (holes != table.verdicts.length || buffer.remaining() != 3 * holes) {
+      throw new IllegalArgumentException("Truncated start hole table: " + file);
+    }
+    buffer.get(table.verdicts);
+    for (int hole = 0; hole < holes; hole++) {
+      if (table.verdicts[hole] < 0
+              || table.verdicts[hole] >= SolverResult.Verdict.values().length) {
+        throw new IllegalArgumentException("Corrupt start hole table: " + file);
+      }
+      table.finishes[hole] = buffer.getShort();
+    }
+    return table;
+  }
+
+  private int holeOf(int row, int col) {
+    int hole = this.geometry.holeAt(row, col);
+    if (hole < 0) {
+      throw new IllegalArgumentException("Invalid slot (" + row + "," + col + ")");
+    }
+    return hole;
+  }
+}
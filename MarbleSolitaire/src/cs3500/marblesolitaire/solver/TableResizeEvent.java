@@ -0,0 +1,30 @@
+package cs3500.marblesolitaire.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event committed when a TranspositionTable doubles its capacity. Its duration
+ * is the time taken to rehash the table.
+ */
+@Name("cs3500.marblesolitaire.TableResize")
+@Label("Transposition Table Resize")
+@Category({"Marble Solitaire", "Solver"})
+@StackTrace(false)
+final class TableResizeEvent extends jdk.jfr.Event {
+  @Label("Entries")
+  int size;
+
+  @Label("Old Capacity")
+  int oldCapacity;
+
+  @Label("New Capacity")
+  int newCapacity;
+
+  @Label("Words")
+  @Description("The number of words in every bitboard")
+  int words;
+}
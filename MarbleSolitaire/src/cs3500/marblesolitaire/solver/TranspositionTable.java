@@ -0,0 +1,177 @@
+package cs3500.marblesolitaire.solver;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Represents a growable hash set of bitboards used by the solvers to remember positions that
+ * have already been searched. Boards are stored inline in one long array using open addressing,
+ * so adding a position does not allocate until the table has to grow.
+ */
+public final class TranspositionTable {
+  private static final int INITIAL_CAPACITY = 1 << 12;
+
+  private final int words;
+  private long[] keys;
+  private long[] used;
+  private int mask;
+  private int size;
+
+  /**
+   * Constructs an empty table for bitboards of the given number of words
+   *
+   * @param words the number of words in every bitboard
+   * @throws IllegalArgumentException if the number of words is not positive
+   */
+  public TranspositionTable(int words) {
+    if (words <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.words = words;
+    this.allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Return the number of bitboards in this table
+   *
+   * @return the size of the table
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Return the number of slots currently allocated by this table
+   *
+   * @return the capacity of the table
+   */
+  public int capacity() {
+    return this.mask + 1;
+  }
+
+  /**
+   * Determine if a bitboard is in this table
+   *
+   * @param board  the array holding the bitboard
+   * @param offset the index of the first word of the bitboard
+   * @return true if the bitboard has been added before
+   */
+  public boolean contains(long[] board, int offset) {
+    return this.find(board, offset) >= 0;
+  }
+
+  /**
+   * Add a bitboard to this table
+   *
+   * @param board  the array holding the bitboard
+   * @param offset the index of the first word of the bitboard
+   * @return true if the bitboard was not in the table before
+   */
+  public boolean add(long[] board, int offset) {
+    int slot = this.find(board, offset);
+    if (slot >= 0) {
+      return false;
+    }
+    if ((this.size + 1) * 2 > this.capacity()) {
+      this.resize();
+      slot = this.find(board, offset);
+    }
+    this.store(~slot, board, offset);
+    this.size++;
+    return true;
+  }
+
+  /**
+   * Copy every bitboard in this table into one array, one after another in no particular order
+   *
+   * @return the bitboards, size() * words longs
+   */
+  public long[] toArray() {
+    long[] boards = new long[this.size * this.words];
+    int next = 0;
+    for (int slot = 0; slot <= this.mask; slot++) {
+      if ((this.used[slot >>> 6] & (1L << slot)) != 0) {
+        System.arraycopy(this.keys, slot * this.words, boards, next, this.words);
+        next += this.words;
+      }
+    }
+    return boards;
+  }
+
+  /**
+   * Find the slot of a bitboard
+   *
+   * @return the slot holding the bitboard, or the complement of the free slot where it belongs
+   */
+  private int find(long[] board, int offset) {
+    int slot = hash(board, offset, this.words) & this.mask;
+    while ((this.used[slot >>> 6] & (1L << slot)) != 0) {
+      if (this.matches(slot, board, offset)) {
+        return slot;
+      }
+      slot = (slot + 1) & this.mask;
+    }
+    return ~slot;
+  }
+
+  private boolean matches(int slot, long[] board, int offset) {
+    int base = slot * this.words;
+    for (int w = 0; w < this.words; w++) {
+      if (this.keys[base + w] != board[offset + w]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void store(int slot, long[] board, int offset) {
+    System.arraycopy(board, offset, this.keys, slot * this.words, this.words);
+    this.used[slot >>> 6] |= 1L << slot;
+  }
+
+  private void allocate(int capacity) {
+    this.keys = new long[capacity * this.words];
+    this.used = new long[Math.max(1, capacity >>> 6)];
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Double the capacity of this table and rehash every bitboard, committing a TableResizeEvent
+   * if the flight recorder is listening
+   */
+  private void resize() {
+    TableResizeEvent event = null;
+    if (FlightRecorder.isInitialized()) {
+      event = new TableResizeEvent();
+      event.begin();
+    }
+    long[] oldKeys = this.keys;
+    long[] oldUsed = this.used;
+    int oldCapacity = this.capacity();
+    this.allocate(oldCapacity * 2);
+    for (int slot = 0; slot < oldCapacity; slot++) {
+      if ((oldUsed[slot >>> 6] & (1L << slot)) != 0) {
+        this.store(~this.find(oldKeys, slot * this.words), oldKeys, slot * this.words);
+      }
+    }
+    if (event != null && event.shouldCommit()) {
+      event.size = this.size;
+      event.oldCapacity = oldCapacity;
+      event.newCapacity = this.capacity();
+      event.words = this.words;
+      event.commit();
+    }
+  }
+
+  /**
+   * Hash a bitboard with a 64-bit finalizer so that boards differing in a few bits spread well
+   */
+  static int hash(long[] board, int offset, int words) {
+    long h = 0x9E3779B97F4A7C15L;
+    for (int w = 0; w < words; w++) {
+      h = (h ^ board[offset + w]) * 0xBF58476D1CE4E5B9L;
+      h ^= h >>> 31;
+    }
+    h *= 0x94D049BB133111EBL;
+    return (int) (h ^ (h >>> 32));
+  }
+}
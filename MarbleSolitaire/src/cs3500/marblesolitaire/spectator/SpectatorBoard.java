@@ -0,0 +1,138 @@
+package cs3500.marblesolitaire.spectator;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+
+/**
+ * Represents a spectator's copy of a live game, rebuilt from the frames sent by a
+ * SpectatorServer. It can be rendered by any view of a model state.
+ */
+public final class SpectatorBoard implements MarbleSolitaireModelState {
+  private int size;
+  private boolean[] valid;
+  private boolean[] marbles;
+  private int score;
+  private int ply;
+  private boolean ended;
+
+  /**
+   * Constructs a board that is empty until the first keyframe is read
+   */
+  public SpectatorBoard() {
+    this.valid = new boolean[0];
+    this.marbles = new boolean[0];
+  }
+
+  /**
+   * Read one frame from a stream and apply it
+   *
+   * @param in the stream from the server
+   * @return false if the frame ended the game, true otherwise
+   * @throws IOException              if the stream cannot be read or ends early
+   * @throws IllegalStateException    if a move arrives before the first keyframe
+   * @throws IllegalArgumentException if the frame is not one the server sends
+   */
+  public boolean readFrame(DataInputStream in) throws IOException {
+    int type = in.read();
+    if (type < 0) {
+      throw new EOFException();
+    }
+    switch (type) {
+      case SpectatorServer.KEYFRAME:
+        this.readKeyframe(in);
+        return true;
+      case SpectatorServer.MOVE:
+      case SpectatorServer.UNDO:
+        if (this.size == 0) {
+          throw new IllegalStateException("Move before the first keyframe");
+        }
+        int from = in.readUnsignedShort();
+        int to = in.readUnsignedShort();
+        boolean undo = type == SpectatorServer.UNDO;
+        this.set(from, undo);
+        this.set((from + to) / 2, undo);
+        this.set(to, !undo);
+        // Like the model, a move taken back at the start of a game stays at ply 0
+        this.ply = undo ? Math.max(0, this.ply - 1) : this.ply + 1;
+        return true;
+      case SpectatorServer.END:
+        this.ended = true;
+        return false;
+      default:
+        throw new IllegalArgumentException("Unknown frame " + type);
+    }
+  }
+
+  private void readKeyframe(DataInputStream in) throws IOException {
+    this.size = in.readUnsignedShort();
+    this.ply = in.readInt();
+    int cells = this.size * this.size;
+    byte[] bits = new byte[(cells + 7) >>> 3];
+    in.readFully(bits);
+    this.valid = unpack(bits, cells);
+    in.readFully(bits);
+    this.marbles = unpack(bits, cells);
+    this.score = 0;
+    for (boolean marble : this.marbles) {
+      this.score += marble ? 1 : 0;
+    }
+  }
+
+  private static boolean[] unpack(byte[] bits, int cells) {
+    boolean[] cellsSet = new boolean[cells];
+    for (int cell = 0; cell < cells; cell++) {
+      cellsSet[cell] = (bits[cell >>> 3] & (1 << (cell & 7))) != 0;
+    }
+    return cellsSet;
+  }
+
+  private void set(int cell, boolean marble) {
+    if (this.marbles[cell] != marble) {
+      this.score += marble ? 1 : -1;
+    }
+    this.marbles[cell] = marble;
+  }
+
+  /**
+   * Get the ply of the game as of the last frame read
+   *
+   * @return the ply
+   */
+  public int getPly() {
+    return this.ply;
+  }
+
+  /**
+   * Checks if the server has ended the game
+   *
+   * @return true if the end of the stream was read
+   */
+  public boolean isEnded() {
+    return this.ended;
+  }
+
+  @Override
+  public int getBoardSize() {
+    return this.size;
+  }
+
+  @Override
+  public SlotState getSlotAt(int row, int col) {
+    if (row < 0 || col < 0 || row >= this.size || col >= this.size) {
+      throw new IllegalArgumentException("Beyond the dimensions of the board");
+    }
+    int cell = row * this.size + col;
+    if (!this.valid[cell]) {
+      return SlotState.Invalid;
+    }
+    return this.marbles[cell] ? SlotState.Marble : SlotState.Empty;
+  }
+
+  @Override
+  public int getScore() {
+    return this.score;
+  }
+}
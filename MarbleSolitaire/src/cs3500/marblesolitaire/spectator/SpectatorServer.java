@@ -0,0 +1,492 @@
+package cs3500.marblesolitaire.spectator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState.SlotState;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardSnapshot;
+import cs3500.marblesolitaire.model.hw04.MoveEvent;
+import cs3500.marblesolitaire.model.hw04.MoveEventRing;
+
+/**
+ * Represents a server that streams live games to spectators over local TCP connections. A game
+ * is hosted by attaching a ring of move events to its model; the server reads every ring from a
+ * single selector thread, so any number of spectators are served without a thread each.
+ *
+ * <p>A spectator connects and sends the 4-byte id of a session. It then receives a keyframe
+ * holding the whole board, followed by a small delta frame for every move made or taken back,
+ * and a new keyframe whenever a position is loaded into the model. The server keeps its own copy
+ * of every hosted board, updated from the ring, so keyframes always match the deltas that follow
+ * them. Each move is encoded once per session and the same bytes are queued for every spectator,
+ * whose queue is sent with one gathering write. A spectator that falls more than MAX_PENDING
+ * batches behind has its queue replaced by a fresh keyframe. Frames are:</p>
+ * <pre>
+ *   KEYFRAME size:short ply:int valid-bits marble-bits   (one bit per cell, row-major)
+ *   MOVE from:short to:short                             (cells row * size + col)
+ *   UNDO from:short to:short
+ *   END
+ * </pre>
+ */
+public final class SpectatorServer implements Closeable {
+  /**
+   * The first byte of a frame holding a whole board
+   */
+  public static final byte KEYFRAME = 'K';
+
+  /**
+   * The first byte of a frame holding a move
+   */
+  public static final byte MOVE = 'M';
+
+  /**
+   * The first byte of a frame holding a move taken back
+   */
+  public static final byte UNDO = 'U';
+
+  /**
+   * The byte ending a session
+   */
+  public static final byte END = 'E';
+
+  /**
+   * The number of moves each hosted game may get ahead of the server before its stream ends
+   */
+  public static final int RING_CAPACITY = 1 << 14;
+
+  /**
+   * The number of unsent batches a spectator may have before being sent a keyframe instead
+   */
+  public static final int MAX_PENDING = 64;
+
+  private static final int POLL_MILLIS = 2;
+  private static final int DELTA_BYTES = 5;
+
+  private final Selector selector;
+  private final ServerSocketChannel server;
+  private final Thread thread;
+  private final Queue<Session> hosted;
+  private final Queue<Integer> ended;
+  private final Map<Integer, Session> sessions;
+  private final AtomicInteger nextId;
+  private final AtomicInteger spectators;
+  private final ByteBuffer[] gather;
+  private final ByteBuffer discard;
+  private volatile boolean open;
+
+  /**
+   * Constructs a server listening on the loopback address and starts its selector thread
+   *
+   * @param port the port to listen on, or 0 for any free port
+   * @throws IOException if the port cannot be opened
+   */
+  public SpectatorServer(int port) throws IOException {
+    this.selector = Selector.open();
+    this.server = ServerSocketChannel.open();
+    this.server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    this.server.configureBlocking(false);
+    this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+    this.hosted = new ConcurrentLinkedQueue<Session>();
+    this.ended = new ConcurrentLinkedQueue<Integer>();
+    this.sessions = new HashMap<Integer, Session>();
+    this.nextId = new AtomicInteger();
+    this.spectators = new AtomicInteger();
+    this.gather = new ByteBuffer[MAX_PENDING + 2];
+    this.discard = ByteBuffer.allocate(64);
+    this.open = true;
+    this.thread = new Thread(this::run, "spectator-server");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Get the port the server listens on
+   *
+   * @return the port
+   */
+  public int getPort() {
+    return this.server.socket().getLocalPort();
+  }
+
+  /**
+   * Get the number of spectators currently watching any session
+   *
+   * @return the number of spectators
+   */
+  public int getSpectatorCount() {
+    return this.spectators.get();
+  }
+
+  /**
+   * Start streaming a game. This must be called from the thread that moves the model, which
+   * publishes every later move to the server through a new event ring.
+   *
+   * @param model the model of the game
+   * @return the id spectators send to watch the game
+   * @throws IllegalArgumentException if the model is null
+   */
+  public int host(AbstractSolitaireModel model) {
+    if (model == null) {
+      throw new IllegalArgumentException();
+    }
+    MoveEventRing ring = new MoveEventRing(model.getBoardSize(), RING_CAPACITY);
+    // Take the snapshot and attach the ring together so no move falls between them
+    Session session = new Session(this.nextId.getAndIncrement(), model.snapshot(),
+            ring.newConsumer());
+    model.setEventRing(ring);
+    this.hosted.add(session);
+    this.selector.wakeup();
+    return session.id;
+  }
+
+  /**
+   * Stop streaming a game, sending its spectators the end of the stream
+   *
+   * @param id the id of the session
+   */
+  public void end(int id) {
+    this.ended.add(id);
+    this.selector.wakeup();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.open = false;
+    this.selector.wakeup();
+    try {
+      this.thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run() {
+    try {
+      while (this.open) {
+        this.selector.select(POLL_MILLIS);
+        for (Session session = this.hosted.poll(); session != null; session = this.hosted.poll()) {
+          this.sessions.put(session.id, session);
+        }
+        for (Integer id = this.ended.poll(); id != null; id = this.ended.poll()) {
+          Session session = this.sessions.remove(id);
+          if (session != null) {
+            // Send the moves made before the game ended first
+            this.broadcast(session);
+            this.finish(session);
+          }
+        }
+
+        Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            this.accept();
+          } else {
+            Spectator spectator = (Spectator) key.attachment();
+            if (key.isReadable()) {
+              this.read(spectator);
+            }
+            if (key.isValid() && key.isWritable()) {
+              this.flush(spectator);
+            }
+          }
+        }
+
+        Iterator<Session> live = this.sessions.values().iterator();
+        while (live.hasNext()) {
+          Session session = live.next();
+          if (!this.broadcast(session)) {
+            live.remove();
+            this.finish(session);
+          }
+        }
+      }
+    } catch (IOException | ClosedSelectorException e) {
+      // The server is unusable; fall through and release everything
+    } finally {
+      for (SelectionKey key : this.selector.keys()) {
+        closeQuietly(key.channel());
+      }
+      closeQuietly(this.selector);
+      this.open = false;
+    }
+  }
+
+  private void accept() throws IOException {
+    SocketChannel channel = this.server.accept();
+    if (channel == null) {
+      return;
+    }
+    channel.configureBlocking(false);
+    channel.socket().setTcpNoDelay(true);
+    Spectator spectator = new Spectator(channel);
+    spectator.key = channel.register(this.selector, SelectionKey.OP_READ, spectator);
+  }
+
+  private void read(Spectator spectator) {
+    try {
+      ByteBuffer scratch = spectator.handshake;
+      if (scratch == null) {
+        // Spectators have nothing to say after the handshake, so anything more is thrown away
+        scratch = this.discard;
+        scratch.clear();
+      }
+      if (spectator.channel.read(scratch) < 0) {
+        this.drop(spectator);
+        return;
+      }
+      if (spectator.handshake == null || spectator.handshake.hasRemaining()) {
+        return;
+      }
+      Session session = this.sessions.get(spectator.handshake.getInt(0));
+      spectator.handshake = null;
+      if (session == null) {
+        this.drop(spectator);
+        return;
+      }
+      spectator.session = session;
+      session.spectators.add(spectator);
+      this.spectators.incrementAndGet();
+      spectator.pending.add(session.keyframe());
+      this.flush(spectator);
+    } catch (IOException e) {
+      this.drop(spectator);
+    }
+  }
+
+  /**
+   * Encode every move published since the last call once, queue the bytes for every spectator
+   * and send them
+   *
+   * @return false if the game got so far ahead that its moves were lost
+   */
+  private boolean broadcast(Session session) {
+    int count = 0;
+    ByteBuffer batch = session.batch;
+    batch.clear();
+    while (session.consumer.poll(session.event)) {
+      if (session.consumer.getMissed() > 0) {
+        return false;
+      }
+      if (!batch.hasRemaining()) {
+        session.batch = ByteBuffer.allocate(batch.capacity() * 2).put(batch.flip());
+        batch = session.batch;
+      }
+      MoveEvent event = session.event;
+      if (event.getKind() == MoveEvent.Kind.Position) {
+        // The moves before a new position no longer matter: every spectator starts over from it
+        session.load(event.getPosition());
+        batch.clear();
+        count = 0;
+        for (Spectator spectator : new ArrayList<Spectator>(session.spectators)) {
+          this.resync(spectator);
+          this.flush(spectator);
+        }
+        continue;
+      }
+      int size = session.size;
+      int from = event.getFromRow() * size + event.getFromCol();
+      int over = event.getOverRow() * size + event.getOverCol();
+      int to = event.getToRow() * size + event.getToCol();
+      boolean undo = event.getKind() == MoveEvent.Kind.Undo;
+      session.set(from, undo);
+      session.set(over, undo);
+      session.set(to, !undo);
+      session.ply = event.getPly();
+      batch.put(undo ? UNDO : MOVE).putShort((short) from).putShort((short) to);
+      count++;
+    }
+    if (count == 0) {
+      return true;
+    }
+    batch.flip();
+    ByteBuffer frames = ByteBuffer.allocate(batch.remaining()).put(batch).flip()
+            .asReadOnlyBuffer();
+    for (Spectator spectator : new ArrayList<Spectator>(session.spectators)) {
+      if (spectator.pending.size() >= MAX_PENDING) {
+        this.resync(spectator);
+      } else {
+        spectator.pending.add(frames.duplicate());
+      }
+      this.flush(spectator);
+    }
+    return true;
+  }
+
+  // Replace the backlog of a slow spectator with a keyframe, finishing a batch it is part way
+  // through so that it never sees half a frame
+  private void resync(Spectator spectator) {
+    ByteBuffer head = spectator.pending.peek();
+    spectator.pending.clear();
+    if (head != null && head.position() > 0) {
+      spectator.pending.add(head);
+    }
+    spectator.pending.add(spectator.session.keyframe());
+  }
+
+  private void flush(Spectator spectator) {
+    if (!spectator.key.isValid()) {
+      return;
+    }
+    try {
+      int count = 0;
+      for (ByteBuffer buffer : spectator.pending) {
+        if (count == this.gather.length) {
+          break;
+        }
+        this.gather[count++] = buffer;
+      }
+      if (count > 0) {
+        spectator.channel.write(this.gather, 0, count);
+      }
+      while (!spectator.pending.isEmpty() && !spectator.pending.peek().hasRemaining()) {
+        spectator.pending.poll();
+      }
+      for (int i = 0; i < count; i++) {
+        this.gather[i] = null;
+      }
+      if (spectator.pending.isEmpty()) {
+        if (spectator.closing) {
+          this.drop(spectator);
+          return;
+        }
+        spectator.key.interestOps(SelectionKey.OP_READ);
+      } else {
+        spectator.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+      }
+    } catch (IOException e) {
+      this.drop(spectator);
+    }
+  }
+
+  private void finish(Session session) {
+    ByteBuffer end = ByteBuffer.wrap(new byte[] {END}).asReadOnlyBuffer();
+    for (Spectator spectator : new ArrayList<Spectator>(session.spectators)) {
+      spectator.pending.add(end.duplicate());
+      spectator.closing = true;
+      this.flush(spectator);
+    }
+  }
+
+  private void drop(Spectator spectator) {
+    spectator.key.cancel();
+    closeQuietly(spectator.channel);
+    if (spectator.session != null && spectator.session.spectators.remove(spectator)) {
+      this.spectators.decrementAndGet();
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // Nothing more can be done with it
+    }
+  }
+
+  /**
+   * Represents a hosted game as the server sees it: its ring and its board as of the last move
+   * read from the ring
+   */
+  private static final class Session {
+    private final int id;
+    private final int size;
+    private final long[] valid;
+    private final long[] marbles;
+    private final MoveEventRing.Consumer consumer;
+    private final MoveEvent event;
+    private final List<Spectator> spectators;
+    private int ply;
+    private ByteBuffer batch;
+
+    private Session(int id, BoardSnapshot start, MoveEventRing.Consumer consumer) {
+      this.id = id;
+      this.size = start.getBoardSize();
+      int cells = this.size * this.size;
+      this.valid = new long[(cells + 63) >>> 6];
+      this.marbles = new long[this.valid.length];
+      this.load(start);
+      this.consumer = consumer;
+      this.event = new MoveEvent();
+      this.spectators = new ArrayList<Spectator>();
+      this.batch = ByteBuffer.allocate(DELTA_BYTES * 64);
+    }
+
+    // Set the board to a whole position of the same size
+    private void load(BoardSnapshot position) {
+      Arrays.fill(this.valid, 0L);
+      Arrays.fill(this.marbles, 0L);
+      for (int cell = 0; cell < this.size * this.size; cell++) {
+        SlotState status = position.getSlotAt(cell / this.size, cell % this.size);
+        if (status != SlotState.Invalid) {
+          this.valid[cell >>> 6] |= 1L << cell;
+        }
+        if (status == SlotState.Marble) {
+          this.marbles[cell >>> 6] |= 1L << cell;
+        }
+      }
+      this.ply = position.getPly();
+    }
+
+    private void set(int cell, boolean marble) {
+      if (marble) {
+        this.marbles[cell >>> 6] |= 1L << cell;
+      } else {
+        this.marbles[cell >>> 6] &= ~(1L << cell);
+      }
+    }
+
+    private ByteBuffer keyframe() {
+      int cells = this.size * this.size;
+      int bytes = (cells + 7) >>> 3;
+      ByteBuffer frame = ByteBuffer.allocate(7 + 2 * bytes);
+      frame.put(KEYFRAME).putShort((short) this.size).putInt(this.ply);
+      for (long[] bits : new long[][] {this.valid, this.marbles}) {
+        for (int i = 0; i < bytes; i++) {
+          frame.put((byte) (bits[i >>> 3] >>> (8 * (i & 7))));
+        }
+      }
+      return frame.flip();
+    }
+  }
+
+  /**
+   * Represents one connection: the session id it is still sending, then the frames queued for it
+   */
+  private static final class Spectator {
+    private final SocketChannel channel;
+    private final ArrayDeque<ByteBuffer> pending;
+    private SelectionKey key;
+    private ByteBuffer handshake;
+    private Session session;
+    private boolean closing;
+
+    private Spectator(SocketChannel channel) {
+      this.channel = channel;
+      this.pending = new ArrayDeque<ByteBuffer>();
+      this.handshake = ByteBuffer.allocate(4);
+    }
+  }
+}
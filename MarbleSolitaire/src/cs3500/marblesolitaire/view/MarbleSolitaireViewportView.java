@@ -0,0 +1,186 @@
+package cs3500.marblesolitaire.view;
+
+import java.io.IOException;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState.SlotState;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+
+/**
+ * Represents a text view of a window onto a board too large to print whole. The window either
+ * follows the last move, stays on a region chosen by the user, or zooms out to a density summary
+ * where each character stands for a square block of slots. Only the slots inside the window are
+ * read, so rendering costs the same however large the board is.
+ *
+ * <p>Every rendering starts with a line saying which rows and columns it shows, followed by the
+ * slots in the format described by MarbleSolitaireView. In a summary, a block with no valid slot
+ * is a space, a block whose slots are all empty is '_', and otherwise the character grows darker
+ * from '.' to '@' as the fraction of its valid slots holding a marble grows.
+ */
+public class MarbleSolitaireViewportView extends MarbleSolitaireTextView {
+  private static final String DENSITY = ".:-=+*#%@";
+
+  private final MarbleSolitaireModelState model;
+  private final int height;
+  private final int width;
+  private boolean follow;
+  private int top;
+  private int left;
+  private int block;
+
+  /**
+   * Constructs a viewport view that follows the last move
+   *
+   * @param model  the model to show
+   * @param ap     the destination of the renderings
+   * @param height the number of rows of slots (or of blocks, in a summary) to show
+   * @param width  the number of columns of slots (or of blocks, in a summary) to show
+   * @throws IllegalArgumentException if the model or destination are null or the window is
+   *                                  empty
+   */
+  public MarbleSolitaireViewportView(MarbleSolitaireModelState model, Appendable ap, int height,
+                                     int width) {
+    super(model, ap);
+    if (height <= 0 || width <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.model = model;
+    this.height = height;
+    this.width = width;
+    this.followLastMove();
+  }
+
+  /**
+   * Show the slots around the cell where the board last changed, or the middle of the board
+   * before any move. Only models extending AbstractSolitaireModel know their last move.
+   */
+  public void followLastMove() {
+    this.follow = true;
+    this.block = 1;
+  }
+
+  /**
+   * Show the slots of a fixed region of the board, moved inside the board if it sticks out
+   *
+   * @param top  the first row to show
+   * @param left the first column to show
+   */
+  public void showRegion(int top, int left) {
+    this.follow = false;
+    this.block = 1;
+    this.top = top;
+    this.left = left;
+  }
+
+  /**
+   * Show a density summary of the board, starting from its top left corner
+   *
+   * @param block the number of rows and of columns of slots each character stands for
+   * @throws IllegalArgumentException if the block size is not positive
+   */
+  public void showSummary(int block) {
+    this.showSummary(block, 0, 0);
+  }
+
+  /**
+   * Show a density summary of a region of the board
+   *
+   * @param block the number of rows and of columns of slots each character stands for
+   * @param top   the first row of slots to summarize
+   * @param left  the first column of slots to summarize
+   * @throws IllegalArgumentException if the block size is not positive
+   */
+  public void showSummary(int block, int top, int left) {
+    if (block <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.follow = false;
+    this.block = block;
+    this.top = top;
+    this.left = left;
+  }
+
+  /**
+   * Return the rows and columns of slots in the window, as described by the class
+   *
+   * @return the window as a string
+   */
+  @Override
+  public String toString() {
+    int size = this.model.getBoardSize();
+    int rows = Math.min(size, this.height * this.block);
+    int cols = Math.min(size, this.width * this.block);
+    int firstRow = this.top;
+    int firstCol = this.left;
+    if (this.follow) {
+      int cell = this.model instanceof AbstractSolitaireModel
+              ? ((AbstractSolitaireModel) this.model).getLastCell() : -1;
+      int row = cell < 0 ? size / 2 : cell / size;
+      int col = cell < 0 ? size / 2 : cell % size;
+      firstRow = row - rows / 2;
+      firstCol = col - cols / 2;
+    }
+    firstRow = Math.max(0, Math.min(firstRow, size - rows));
+    firstCol = Math.max(0, Math.min(firstCol, size - cols));
+
+    StringBuilder out = new StringBuilder((rows / this.block + 1) * (2 * cols / this.block + 1)
+            + 64);
+    out.append("Rows ").append(firstRow).append('-').append(firstRow + rows - 1)
+            .append(", columns ").append(firstCol).append('-').append(firstCol + cols - 1)
+            .append(" of ").append(size);
+    if (this.block > 1) {
+      out.append(", ").append(this.block).append('x').append(this.block).append(" per character");
+    }
+    out.append('\n');
+    for (int r = firstRow; r < firstRow + rows; r += this.block) {
+      int start = out.length();
+      for (int c = firstCol; c < firstCol + cols; c += this.block) {
+        out.append(this.block == 1 ? this.slot(r, c) : this.density(r, c, size)).append(' ');
+      }
+      // Nothing is printed after the last slot of a row, not even the spaces of invalid slots
+      int end = out.length();
+      while (end > start && out.charAt(end - 1) == ' ') {
+        end--;
+      }
+      out.setLength(end);
+      out.append('\n');
+    }
+    return out.toString();
+  }
+
+  private char slot(int row, int col) {
+    SlotState state = this.model.getSlotAt(row, col);
+    if (state == SlotState.Marble) {
+      return 'O';
+    }
+    return state == SlotState.Empty ? '_' : ' ';
+  }
+
+  private char density(int row, int col, int size) {
+    int valid = 0;
+    int marbles = 0;
+    for (int r = row; r < Math.min(size, row + this.block); r++) {
+      for (int c = col; c < Math.min(size, col + this.block); c++) {
+        SlotState state = this.model.getSlotAt(r, c);
+        if (state != SlotState.Invalid) {
+          valid++;
+        }
+        if (state == SlotState.Marble) {
+          marbles++;
+        }
+      }
+    }
+    if (valid == 0) {
+      return ' ';
+    }
+    if (marbles == 0) {
+      return '_';
+    }
+    return DENSITY.charAt((marbles * DENSITY.length() - 1) / valid);
+  }
+
+  @Override
+  public void renderBoard() throws IOException {
+    this.renderMessage(this.toString());
+  }
+}
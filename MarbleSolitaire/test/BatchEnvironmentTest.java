@@ -0,0 +1,116 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.EuropeanSolitaireModel;
+import cs3500.marblesolitaire.solver.BatchEnvironment;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.Move;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchEnvironmentTest {
+
+  @Test
+  public void testStart() {
+    BatchEnvironment env = new BatchEnvironment(new EnglishSolitaireModel(), 5);
+    long[] masks = new long[env.getMaskWords() * 5];
+    env.legalMoves(masks);
+    int[] counts = new int[5];
+    env.pegCounts(counts);
+    for (int b = 0; b < 5; b++) {
+      assertEquals(4, Long.bitCount(masks[b]) + Long.bitCount(masks[5 + b]));
+      assertEquals(32, counts[b]);
+    }
+  }
+
+  @Test
+  public void testStep() {
+    BatchEnvironment env = new BatchEnvironment(new EnglishSolitaireModel(), 3);
+    BoardGeometry geometry = env.getGeometry();
+    int legal = -1;
+    for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+      if (geometry.toMove(jump).equals(new Move(1, 3, 3, 3))) {
+        legal = jump;
+      }
+    }
+    float[] rewards = new float[3];
+    boolean[] done = new boolean[3];
+    env.step(new int[]{legal, 0, -1}, rewards, done);
+    assertArrayEquals(new float[]{BatchEnvironment.MOVE_REWARD, BatchEnvironment.ILLEGAL_REWARD,
+        BatchEnvironment.ILLEGAL_REWARD}, rewards, 0f);
+    assertArrayEquals(new boolean[3], done);
+
+    int[] counts = new int[3];
+    env.pegCounts(counts);
+    assertArrayEquals(new int[]{31, 32, 32}, counts);
+
+    env.reset(0);
+    env.pegCounts(counts);
+    assertArrayEquals(new int[]{32, 32, 32}, counts);
+  }
+
+  @Test
+  public void testMatchesModel() {
+    int n = 16;
+    BatchEnvironment env = new BatchEnvironment(new EuropeanSolitaireModel(), n);
+    BoardGeometry geometry = env.getGeometry();
+    List<AbstractSolitaireModel> models = new ArrayList<AbstractSolitaireModel>();
+    for (int b = 0; b < n; b++) {
+      models.add(new EuropeanSolitaireModel());
+    }
+    Random random = new Random(31);
+    long[] masks = new long[env.getMaskWords() * n];
+    int[] actions = new int[n];
+    float[] rewards = new float[n];
+    boolean[] done = new boolean[n];
+    int[] counts = new int[n];
+    boolean finished = false;
+    while (!finished) {
+      env.legalMoves(masks);
+      for (int b = 0; b < n; b++) {
+        List<Integer> legal = new ArrayList<Integer>();
+        for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+          Move move = geometry.toMove(jump);
+          boolean valid = models.get(b).validMove(move.getFromRow(), move.getFromCol(),
+                  move.getToRow(), move.getToCol());
+          assertEquals(valid, (masks[(jump / 64) * n + b] >>> (jump % 64) & 1) == 1);
+          if (valid) {
+            legal.add(jump);
+          }
+        }
+        actions[b] = legal.isEmpty() ? 0 : legal.get(random.nextInt(legal.size()));
+        if (!legal.isEmpty()) {
+          Move move = geometry.toMove(actions[b]);
+          models.get(b).move(move.getFromRow(), move.getFromCol(), move.getToRow(),
+                  move.getToCol());
+        }
+      }
+      env.step(actions, rewards, done);
+      env.pegCounts(counts);
+      finished = true;
+      for (int b = 0; b < n; b++) {
+        assertEquals(models.get(b).getScore(), counts[b]);
+        assertArrayEquals(geometry.pegs(models.get(b)), env.getBoard(b));
+        assertEquals(models.get(b).isGameOver(), done[b]);
+        finished &= done[b];
+      }
+    }
+
+    env.reset(done);
+    env.pegCounts(counts);
+    for (int b = 0; b < n; b++) {
+      assertEquals(36, counts[b]);
+    }
+    env.step(actions, rewards, done);
+    assertFalse(done[0]);
+    assertTrue(rewards[0] != 0);
+  }
+}
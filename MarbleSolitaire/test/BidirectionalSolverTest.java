@@ -0,0 +1,100 @@
+import org.junit.Test;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.solver.BidirectionalSolver;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.Move;
+import cs3500.marblesolitaire.solver.PatternResult;
+import cs3500.marblesolitaire.solver.SolverResult;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BidirectionalSolverTest {
+  private final BoardGeometry geometry = new BoardGeometry(new EnglishSolitaireModel());
+
+  private long[] board(int[][] marbles) {
+    long[] board = new long[this.geometry.getWords()];
+    for (int[] marble : marbles) {
+      int hole = this.geometry.holeAt(marble[0], marble[1]);
+      board[hole >>> 6] |= 1L << hole;
+    }
+    return board;
+  }
+
+  // Play moves on a bitboard, checking that each one is legal
+  private void play(long[] board, PatternResult result) {
+    for (Move move : result.getMoves()) {
+      boolean found = false;
+      for (int jump = 0; jump < this.geometry.getJumpCount() && !found; jump++) {
+        if (this.geometry.toMove(jump).equals(move)) {
+          assertTrue(this.geometry.isLegal(board, 0, jump));
+          this.geometry.apply(board, 0, jump);
+          found = true;
+        }
+      }
+      assertTrue(found);
+    }
+  }
+
+  @Test
+  public void testCross() {
+    long[] cross = this.board(new int[][]{{1, 3}, {2, 2}, {2, 3}, {2, 4}, {3, 3}, {4, 3}});
+    long[] center = this.board(new int[][]{{3, 3}});
+    PatternResult result = new BidirectionalSolver(this.geometry).solve(cross, center);
+    assertEquals(SolverResult.Verdict.Solved, result.getVerdict());
+    assertEquals(5, result.getMoves().size());
+    this.play(cross, result);
+    assertArrayEquals(center, cross);
+  }
+
+  @Test
+  public void testModelTarget() {
+    AbstractSolitaireModel target = new EnglishSolitaireModel();
+    target.move(1, 3, 3, 3);
+    target.move(2, 1, 2, 3);
+    target.move(0, 2, 2, 2);
+    target.move(3, 2, 1, 2);
+    target.move(3, 0, 3, 2);
+    target.move(3, 3, 3, 1);
+    target.move(5, 2, 3, 2);
+    target.move(4, 4, 4, 2);
+    PatternResult result = new BidirectionalSolver(this.geometry)
+            .solve(new EnglishSolitaireModel(), target);
+    assertEquals(SolverResult.Verdict.Solved, result.getVerdict());
+    assertEquals(8, result.getMoves().size());
+
+    long[] board = this.geometry.pegs(new EnglishSolitaireModel());
+    this.play(board, result);
+    assertArrayEquals(this.geometry.pegs(target), board);
+  }
+
+  @Test
+  public void testUnsolvable() {
+    AbstractSolitaireModel start = new EnglishSolitaireModel();
+    long[] board = this.geometry.pegs(start);
+    long[] fewer = board.clone();
+    int hole = this.geometry.holeAt(0, 2);
+    fewer[hole >>> 6] &= ~(1L << hole);
+
+    BidirectionalSolver solver = new BidirectionalSolver(this.geometry);
+    assertEquals(SolverResult.Verdict.Unsolvable, solver.solve(board, fewer).getVerdict());
+    assertEquals(SolverResult.Verdict.Unsolvable, solver.solve(fewer, board).getVerdict());
+    assertTrue(solver.solve(board, fewer).getMoves().isEmpty());
+  }
+
+  @Test
+  public void testNodeBudget() {
+    long[] center = this.board(new int[][]{{3, 3}});
+    PatternResult result = new BidirectionalSolver(this.geometry, 10_000)
+            .solve(this.geometry.pegs(new EnglishSolitaireModel()), center);
+    assertEquals(SolverResult.Verdict.Unknown, result.getVerdict());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSolver() {
+    new BidirectionalSolver(this.geometry, 0);
+  }
+}
@@ -0,0 +1,28 @@
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Assertions on boards shared by the tests of the models, parsers and views
+ */
+public final class BoardAssert {
+  private BoardAssert() {
+  }
+
+  /**
+   * Assert that two states have the same size, score and slots
+   *
+   * @param expected the state that is expected
+   * @param actual   the state to check
+   */
+  public static void assertSameBoard(MarbleSolitaireModelState expected,
+                                     MarbleSolitaireModelState actual) {
+    assertEquals(expected.getBoardSize(), actual.getBoardSize());
+    assertEquals(expected.getScore(), actual.getScore());
+    for (int i = 0; i < expected.getBoardSize(); i++) {
+      for (int j = 0; j < expected.getBoardSize(); j++) {
+        assertEquals(expected.getSlotAt(i, j), actual.getSlotAt(i, j));
+      }
+    }
+  }
+}
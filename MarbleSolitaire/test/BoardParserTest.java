@@ -0,0 +1,185 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardImage;
+import cs3500.marblesolitaire.model.hw04.BoardParser;
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.model.hw04.EuropeanSolitaireModel;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.PegSolver;
+import cs3500.marblesolitaire.solver.SolverResult;
+import cs3500.marblesolitaire.view.MarbleSolitaireTextView;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BoardParserTest {
+
+  // Make a few random moves so that boards are not all at their start
+  private static AbstractSolitaireModel scramble(AbstractSolitaireModel model, Random r) {
+    int size = model.getBoardSize();
+    for (int tries = 0; tries < 2000; tries++) {
+      int row = r.nextInt(size);
+      int col = r.nextInt(size);
+      int[][] targets = {{row - 2, col}, {row + 2, col}, {row, col - 2}, {row, col + 2}};
+      int[] to = targets[r.nextInt(4)];
+      if (to[0] >= 0 && to[1] >= 0 && to[0] < size && to[1] < size
+              && model.validMove(row, col, to[0], to[1])) {
+        model.move(row, col, to[0], to[1]);
+      }
+    }
+    return model;
+  }
+
+  @Test
+  public void testText() throws IOException {
+    Random r = new Random(46);
+    AbstractSolitaireModel[] models = {new EnglishSolitaireModel(), new EuropeanSolitaireModel(),
+        scramble(new EnglishSolitaireModel(7), r), scramble(new EuropeanSolitaireModel(5), r)};
+    for (AbstractSolitaireModel model : models) {
+      String text = new MarbleSolitaireTextView(model).toString();
+      BoardImage image = BoardParser.readText(new StringReader(text));
+      BoardAssert.assertSameBoard(model, image);
+      assertTrue(image.hasShapeOf(model));
+      // The format is recognised on its own, and line endings may be Windows ones
+      BoardAssert.assertSameBoard(model,
+              BoardParser.read(new StringReader(text.replace("\n", "\r\n"))));
+    }
+  }
+
+  @Test
+  public void testRunLength() throws IOException {
+    BoardImage english = BoardParser.read(new StringReader(
+            "# The English board\nsize = 7\n2.3O$2.3O$7O$3O_3O$7O$2.3O$2.3O!"));
+    BoardAssert.assertSameBoard(new EnglishSolitaireModel(), english);
+    assertEquals(33, english.getValidCount());
+
+    Random r = new Random(460);
+    AbstractSolitaireModel[] models = {scramble(new EnglishSolitaireModel(9), r),
+        scramble(new EuropeanSolitaireModel(7), r)};
+    for (AbstractSolitaireModel model : models) {
+      StringBuilder out = new StringBuilder();
+      BoardParser.writeRunLength(model, out);
+      BoardAssert.assertSameBoard(model,
+              BoardParser.readRunLength(new StringReader(out.toString())));
+      BoardAssert.assertSameBoard(model, BoardParser.read(new StringReader(out.toString())));
+    }
+
+    // Rows with no valid slot can be skipped with a repeated '$'
+    BoardImage gaps = BoardParser.readRunLength(new StringReader("size = 5 O3$4.O!"));
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, gaps.getSlotAt(0, 0));
+    assertEquals(MarbleSolitaireModelState.SlotState.Invalid, gaps.getSlotAt(1, 0));
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, gaps.getSlotAt(3, 4));
+    assertEquals(2, gaps.getScore());
+  }
+
+  @Test
+  public void testRunLengthHeaderOnRowLine() throws IOException {
+    // Whitespace ends the size even when the first row follows it, count and all
+    BoardImage english = BoardParser.readRunLength(new StringReader(
+            "size = 7 2.3O$2.3O$7O$3O_3O$7O$2.3O$2.3O!"));
+    assertEquals(7, english.getBoardSize());
+    BoardAssert.assertSameBoard(new EnglishSolitaireModel(), english);
+  }
+
+  @Test
+  public void testCustomShape() throws IOException {
+    // A diamond, which no model constructor makes
+    BoardImage diamond = BoardParser.read(new StringReader(
+            "size = 5\n2.O$.3O$2O_2O$.3O$2.O!"));
+    assertEquals(13, diamond.getValidCount());
+    assertEquals(12, diamond.getScore());
+    SolverResult result = new PegSolver(new BoardGeometry(diamond)).solve(diamond);
+    assertEquals(SolverResult.Verdict.Unsolvable, result.getVerdict());
+    assertFalse(diamond.hasShapeOf(new EnglishSolitaireModel()));
+  }
+
+  @Test
+  public void testWideInvalidPrefix() throws IOException {
+    // Thousands of invalid slots before the first valid one must all find room
+    int size = 10000;
+    StringBuilder text = new StringBuilder();
+    for (int col = 0; col < 9000; col++) {
+      text.append("  ");
+    }
+    text.append("O\n");
+    for (int row = 1; row < size; row++) {
+      text.append('\n');
+    }
+    BoardImage wide = BoardParser.read(new StringReader(text.toString()));
+    assertEquals(size, wide.getBoardSize());
+    assertEquals(1, wide.getValidCount());
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, wide.getSlotAt(0, 9000));
+    assertEquals(MarbleSolitaireModelState.SlotState.Invalid, wide.getSlotAt(0, 8999));
+  }
+
+  @Test
+  public void testLoad() throws IOException {
+    AbstractSolitaireModel played = scramble(BoardShape.European.create(5), new Random(4));
+    String text = new MarbleSolitaireTextView(played).toString();
+
+    AbstractSolitaireModel model = BoardShape.European.create(5);
+    model.move(6, 4, 6, 6);
+    model.load(BoardParser.read(new StringReader(text)));
+    BoardAssert.assertSameBoard(played, model);
+    assertEquals(played.getHash(), model.getHash());
+    assertEquals(0, model.snapshot().getPly());
+    BoardAssert.assertSameBoard(played, model.snapshot());
+
+    try {
+      new EnglishSolitaireModel(5).load(BoardParser.read(new StringReader(text)));
+      fail("Position of another shape should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testInvalid() throws IOException {
+    String[] inputs = {"", "O O\nO X\n", "O O\nOO\n", "O O O\n_ O\n", "size = 3\n3O$3O$3O",
+        "size 3\n3O!", "size = 3\n4O!", "size = 3\n3O$3O$3O$O!", "size = 3\n2Ox!",
+        "size = 99999\n!"};
+    for (String input : inputs) {
+      try {
+        BoardParser.read(new StringReader(input));
+        fail("Input should be rejected: " + input);
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testMillionHoles() throws IOException {
+    int size = 1000;
+    StringBuilder text = new StringBuilder(size * (2 * size + 1));
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        text.append((row * 7 + col) % 5 == 0 ? '_' : 'O').append(col < size - 1 ? " " : "\n");
+      }
+    }
+    BoardImage fromText = BoardParser.read(new StringReader(text.toString()));
+    assertEquals(1_000_000, fromText.getValidCount());
+    assertEquals(800_000, fromText.getScore());
+
+    StringBuilder rle = new StringBuilder();
+    BoardParser.writeRunLength(fromText, rle);
+    long start = System.nanoTime();
+    BoardImage fromRle = BoardParser.read(new StringReader(rle.toString()));
+    long textStart = System.nanoTime();
+    BoardParser.read(new StringReader(text.toString()));
+    long end = System.nanoTime();
+    BoardAssert.assertSameBoard(fromText, fromRle);
+    // Generous bounds, so that only a parser doing far too much work fails
+    assertTrue((textStart - start) / 1_000_000 < 1000);
+    assertTrue((end - textStart) / 1_000_000 < 1000);
+  }
+}
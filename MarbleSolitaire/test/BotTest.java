@@ -0,0 +1,112 @@
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.io.Writer;
+
+import cs3500.marblesolitaire.bot.BotReadable;
+import cs3500.marblesolitaire.bot.BotStrategy;
+import cs3500.marblesolitaire.bot.GreedyStrategy;
+import cs3500.marblesolitaire.bot.LoadGenerator;
+import cs3500.marblesolitaire.bot.LoadReport;
+import cs3500.marblesolitaire.bot.RandomStrategy;
+import cs3500.marblesolitaire.bot.SolverStrategy;
+import cs3500.marblesolitaire.controller.HintService;
+import cs3500.marblesolitaire.controller.MarbleSolitaireControllerImpl;
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.model.hw04.EuropeanSolitaireModel;
+import cs3500.marblesolitaire.solver.Move;
+import cs3500.marblesolitaire.view.MarbleSolitaireTextView;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BotTest {
+
+  // Play a whole game through a controller and return it
+  private static MarbleSolitaireControllerImpl play(EnglishSolitaireModel model,
+                                                    BotStrategy strategy, HintService hints) {
+    MarbleSolitaireControllerImpl controller = new MarbleSolitaireControllerImpl(model,
+            new MarbleSolitaireTextView(model, Writer.nullWriter()),
+            new BotReadable(model, strategy));
+    controller.setHintService(hints);
+    controller.playGame();
+    return controller;
+  }
+
+  @Test
+  public void testStrategies() {
+    HintService hints = new HintService(1000);
+    try {
+      BotStrategy[] strategies = {new RandomStrategy(44), new GreedyStrategy(),
+          new SolverStrategy()};
+      for (BotStrategy strategy : strategies) {
+        EnglishSolitaireModel model = new EnglishSolitaireModel();
+        MarbleSolitaireControllerImpl controller = play(model, strategy, hints);
+        assertTrue(model.isGameOver());
+        assertEquals(32 - model.getScore(), controller.getMetrics().getMoves());
+        assertEquals(0, controller.getMetrics().getInvalidMoves());
+        assertEquals(1, controller.getMetrics().getGamesFinished());
+      }
+      // The solver finds a perfect game on the English board
+      EnglishSolitaireModel model = new EnglishSolitaireModel();
+      play(model, new SolverStrategy(), hints);
+      assertEquals(1, model.getScore());
+
+      // A strategy keeps working when the board changes shape
+      BotStrategy greedy = new GreedyStrategy();
+      EuropeanSolitaireModel european = new EuropeanSolitaireModel();
+      Move move = greedy.chooseMove(european);
+      assertTrue(european.validMove(move.getFromRow(), move.getFromCol(), move.getToRow(),
+              move.getToCol()));
+      EnglishSolitaireModel english = new EnglishSolitaireModel();
+      move = greedy.chooseMove(english);
+      assertTrue(english.validMove(move.getFromRow(), move.getFromCol(), move.getToRow(),
+              move.getToCol()));
+    } finally {
+      hints.shutdown();
+    }
+  }
+
+  @Test
+  public void testQuit() {
+    HintService hints = new HintService(1000);
+    try {
+      EnglishSolitaireModel model = new EnglishSolitaireModel();
+      StringWriter output = new StringWriter();
+      MarbleSolitaireControllerImpl controller = new MarbleSolitaireControllerImpl(model,
+              new MarbleSolitaireTextView(model, output),
+              new BotReadable(model, state -> null));
+      controller.setHintService(hints);
+      controller.playGame();
+      assertTrue(controller.isQuit());
+      assertEquals(32, model.getScore());
+      assertEquals(1, controller.getMetrics().getQuits());
+      assertEquals(0, controller.getMetrics().getInvalidMoves());
+      assertTrue(output.toString().endsWith("Score: 32"));
+    } finally {
+      hints.shutdown();
+    }
+  }
+
+  @Test
+  public void testLoadGenerator() throws InterruptedException {
+    HintService hints = new HintService(1000);
+    try {
+      LoadGenerator generator = new LoadGenerator(BoardShape.English, 3, 4,
+              LoadGenerator.strategies("random", 1000));
+      generator.setHintService(hints);
+      LoadReport report = generator.run(200);
+      assertEquals(4, report.getSessions());
+      assertEquals(0, report.getErrors());
+      assertTrue(report.getGames() > 0);
+      assertEquals(report.getGames(), report.getMetrics().getGamesFinished());
+      assertEquals(report.getGames(), report.getGameLatency().getCount());
+      assertTrue(report.getMoves() >= 4 * report.getGames());
+      assertTrue(report.getMovesPerSecond() > 0);
+      assertTrue(report.getTurnLatency().getCount() > 0);
+    } finally {
+      hints.shutdown();
+    }
+  }
+}
@@ -0,0 +1,186 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState.SlotState;
+import cs3500.marblesolitaire.model.hw04.ConcurrentSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConcurrentSolitaireModelTest {
+
+  // The number of marbles on each of the three diagonals (row + col) mod 3 and (row - col) mod 3.
+  // A jump takes one marble off two of the classes and adds one to the third, so every count
+  // changes parity with every move.
+  private static int[] classes(MarbleSolitaireModelState state) {
+    int[] counts = new int[6];
+    for (int i = 0; i < state.getBoardSize(); i++) {
+      for (int j = 0; j < state.getBoardSize(); j++) {
+        if (state.getSlotAt(i, j) == SlotState.Marble) {
+          counts[(i + j) % 3]++;
+          counts[3 + ((i - j) % 3 + 3) % 3]++;
+        }
+      }
+    }
+    return counts;
+  }
+
+  @Test
+  public void testMatchesEnglish() {
+    Random r = new Random(48);
+    for (int game = 0; game < 30; game++) {
+      EnglishSolitaireModel english = new EnglishSolitaireModel(5);
+      ConcurrentSolitaireModel shared = new ConcurrentSolitaireModel(english);
+      BoardAssert.assertSameBoard(english, shared);
+      int size = english.getBoardSize();
+      while (!english.isGameOver()) {
+        assertFalse(shared.isGameOver());
+        int fromRow = r.nextInt(size);
+        int fromCol = r.nextInt(size);
+        int toRow = fromRow + (r.nextBoolean() ? r.nextInt(5) - 2 : 0);
+        int toCol = fromCol + (r.nextBoolean() ? r.nextInt(5) - 2 : 0);
+        boolean legal = toRow >= 0 && toCol >= 0 && toRow < size && toCol < size
+                && english.validMove(fromRow, fromCol, toRow, toCol);
+        assertEquals(legal, shared.tryMove(fromRow, fromCol, toRow, toCol));
+        if (legal) {
+          english.move(fromRow, fromCol, toRow, toCol);
+        }
+      }
+      assertTrue(shared.isGameOver());
+      BoardAssert.assertSameBoard(english, shared);
+    }
+  }
+
+  @Test
+  public void testInvalid() {
+    ConcurrentSolitaireModel shared = new ConcurrentSolitaireModel(new EnglishSolitaireModel());
+    try {
+      shared.move(0, 0, 0, 2);
+      fail("Move from an invalid slot should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      shared.move(1, 3, 3, 3);
+      shared.move(1, 3, 3, 3);
+      fail("Move from an empty slot should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertFalse(shared.tryMove(5, 3, 3, 3));
+    assertFalse(shared.tryMove(-2, 3, 0, 3));
+    assertFalse(shared.tryMove(3, 1, 1, 3));
+    assertEquals(31, shared.getScore());
+    try {
+      shared.getSlotAt(7, 0);
+      fail("Slot off the board should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new ConcurrentSolitaireModel(null);
+      fail("Null position should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRace() throws InterruptedException {
+    // Moves inside one word, across two words and across three words, each raced for by every
+    // thread
+    int[][] moves = {{7, 7, 9, 9, 9}, {7, 11, 9, 9, 9}, {21, 32, 30, 30, 30}};
+    for (int round = 0; round < 50; round++) {
+      for (int[] move : moves) {
+        EnglishSolitaireModel start = new EnglishSolitaireModel(move[0]);
+        ConcurrentSolitaireModel shared = new ConcurrentSolitaireModel(start);
+        assertEquals(1, race(shared, move[1], move[2], move[3], move[4]));
+        assertEquals(start.getScore() - 1, shared.getScore());
+        assertEquals(SlotState.Marble, shared.getSlotAt(move[3], move[4]));
+      }
+    }
+  }
+
+  private static int race(ConcurrentSolitaireModel shared, int fromRow, int fromCol,
+                          int toRow, int toCol) throws InterruptedException {
+    int players = 4;
+    CountDownLatch go = new CountDownLatch(1);
+    AtomicInteger wins = new AtomicInteger();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int p = 0; p < players; p++) {
+      Thread t = new Thread(() -> {
+        try {
+          go.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        if (shared.tryMove(fromRow, fromCol, toRow, toCol)) {
+          wins.incrementAndGet();
+        }
+      });
+      t.start();
+      threads.add(t);
+    }
+    go.countDown();
+    for (Thread t : threads) {
+      t.join();
+    }
+    return wins.get();
+  }
+
+  @Test
+  public void testManyPlayers() throws InterruptedException {
+    EnglishSolitaireModel start = new EnglishSolitaireModel(21);
+    ConcurrentSolitaireModel shared = new ConcurrentSolitaireModel(start);
+    int size = shared.getBoardSize();
+    int[] before = classes(shared);
+    AtomicInteger made = new AtomicInteger();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int p = 0; p < 4; p++) {
+      Random r = new Random(p);
+      Thread t = new Thread(() -> {
+        for (int k = 0; k < 200000; k++) {
+          int row = r.nextInt(size);
+          int col = r.nextInt(size);
+          int dir = r.nextInt(4);
+          int toRow = row + (dir == 0 ? -2 : dir == 1 ? 2 : 0);
+          int toCol = col + (dir == 2 ? -2 : dir == 3 ? 2 : 0);
+          if (shared.tryMove(row, col, toRow, toCol)) {
+            made.incrementAndGet();
+          }
+        }
+      });
+      t.start();
+      threads.add(t);
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+
+    assertTrue(made.get() > 0);
+    assertEquals(start.getScore() - made.get(), shared.getScore());
+    int marbles = 0;
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        marbles += shared.getSlotAt(i, j) == SlotState.Marble ? 1 : 0;
+        assertEquals(start.getSlotAt(i, j) == SlotState.Invalid,
+                shared.getSlotAt(i, j) == SlotState.Invalid);
+      }
+    }
+    assertEquals(shared.getScore(), marbles);
+    // No move was lost or torn, or some class would be off in parity
+    int[] after = classes(shared);
+    for (int c = 0; c < 6; c++) {
+      assertEquals((before[c] + made.get()) % 2, after[c] % 2);
+    }
+  }
+}
@@ -1,12 +1,20 @@
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
 import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
 import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardSnapshot;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.Move;
+import cs3500.marblesolitaire.solver.PegSolver;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class EnglishSolitaireModelTest {
@@ -203,4 +211,220 @@ public class EnglishSolitaireModelTest {
     assertEquals(true, englishSolitaireModel.validMove(3, 1, 3, 3));
     assertEquals(true, englishSolitaireModel.validMove(3, 5, 3, 3));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testSparseBoard() {
+    AbstractSolitaireModel model = new EnglishSolitaireModel();
+    PegSolver solver = new PegSolver(new BoardGeometry(model));
+    int size = model.getBoardSize();
+    assertFalse(model.isSparse());
+
+    List<Move> played = new ArrayList<Move>();
+    while (true) {
+      boolean canMove = false;
+      int marbles = 0;
+      for (int i = 0; i < size; i++) {
+        for (int j = 0; j < size; j++) {
+          if (model.getSlotAt(i, j) == MarbleSolitaireModelState.SlotState.Marble) {
+            marbles++;
+          }
+          int[][] targets = {{i - 2, j}, {i + 2, j}, {i, j - 2}, {i, j + 2}};
+          for (int[] to : targets) {
+            if (to[0] >= 0 && to[1] >= 0 && to[0] < size && to[1] < size) {
+              canMove |= model.validMove(i, j, to[0], to[1]);
+            }
+          }
+        }
+      }
+      assertEquals(marbles, model.getScore());
+      assertEquals(!canMove, model.isGameOver());
+      assertEquals(marbles * AbstractSolitaireModel.SPARSE_RATIO <= 33, model.isSparse());
+      if (!canMove) {
+        break;
+      }
+      Move move = solver.solve(model).getBestMove();
+      model.move(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+      played.add(move);
+    }
+    assertEquals(1, model.getScore());
+    assertTrue(model.isSparse());
+
+    AbstractSolitaireModel copy = model.copy();
+    for (int i = played.size() - 1; i >= 0; i--) {
+      Move move = played.get(i);
+      model.undoMove(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+    }
+    assertEquals(32, model.getScore());
+    assertFalse(model.isSparse());
+    assertEquals(1, copy.getScore());
+    assertTrue(copy.isGameOver());
+  }
+
+  @Test
+  public void testSnapshot() {
+    AbstractSolitaireModel model = new EnglishSolitaireModel();
+    BoardSnapshot start = model.snapshot();
+    assertEquals(0, start.getPly());
+    assertEquals(32, start.getScore());
+    assertTrue(start == model.snapshot());
+
+    model.move(3, 1, 3, 3);
+    model.move(5, 2, 3, 2);
+    BoardSnapshot second = model.snapshot();
+    assertEquals(2, second.getPly());
+    assertEquals(30, second.getScore());
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, second.getSlotAt(5, 2));
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, second.getSlotAt(3, 2));
+    assertEquals(MarbleSolitaireModelState.SlotState.Invalid, second.getSlotAt(0, 0));
+
+    // Later moves and undos leave earlier snapshots untouched
+    model.undoMove(5, 2, 3, 2);
+    assertEquals(1, model.snapshot().getPly());
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, second.getSlotAt(3, 2));
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, start.getSlotAt(3, 3));
+    assertTrue(start == second.atPly(0));
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, second.atPly(1).getSlotAt(3, 2));
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, second.atPly(1).getSlotAt(3, 1));
+    try {
+      second.atPly(3);
+      fail("A snapshot cannot see plies after its own");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    // Taking back the last move returns to the snapshot it was played from
+    assertTrue(model.snapshot() == second.atPly(1));
+
+    // A board changed since its last move is rewound cell by cell
+    model.move(5, 2, 3, 2);
+    model.setSlotAt(0, 3, MarbleSolitaireModelState.SlotState.Empty);
+    model.undoMove(5, 2, 3, 2);
+    assertEquals(1, model.snapshot().getPly());
+    assertEquals(30, model.snapshot().getScore());
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, model.snapshot().getSlotAt(0, 3));
+    assertEquals(MarbleSolitaireModelState.SlotState.Marble, model.snapshot().getSlotAt(5, 2));
+    assertEquals(MarbleSolitaireModelState.SlotState.Empty, model.snapshot().getSlotAt(3, 2));
+  }
+
+  @Test
+  public void testSnapshotOfIllegalJump() {
+    AbstractSolitaireModel model = new EnglishSolitaireModel();
+    // (2,3) already holds a marble, so only two of the three cells change
+    model.moveHelp(0, 3, 2, 3);
+    assertSnapshotMatches(model);
+    assertEquals(1, model.snapshot().getPly());
+    model.undoMove(0, 3, 2, 3);
+    assertSnapshotMatches(model);
+    assertEquals(0, model.snapshot().getPly());
+  }
+
+  private static void assertSnapshotMatches(AbstractSolitaireModel model) {
+    BoardSnapshot snapshot = model.snapshot();
+    assertEquals(model.getScore(), snapshot.getScore());
+    for (int i = 0; i < model.getBoardSize(); i++) {
+      for (int j = 0; j < model.getBoardSize(); j++) {
+        assertEquals(model.getSlotAt(i, j), snapshot.getSlotAt(i, j));
+      }
+    }
+  }
+
+  @Test
+  public void testSnapshotHistory() {
+    Random r = new Random(36);
+    AbstractSolitaireModel model = new EnglishSolitaireModel(21);
+    int size = model.getBoardSize();
+    List<AbstractSolitaireModel> copies = new ArrayList<AbstractSolitaireModel>();
+    copies.add(model.copy());
+    while (copies.size() <= 200) {
+      int fromRow = r.nextInt(size);
+      int fromCol = r.nextInt(size);
+      int[][] targets = {{fromRow - 2, fromCol}, {fromRow + 2, fromCol}, {fromRow, fromCol - 2},
+          {fromRow, fromCol + 2}};
+      int[] to = targets[r.nextInt(4)];
+      if (to[0] < 0 || to[1] < 0 || to[0] >= size || to[1] >= size
+              || !model.validMove(fromRow, fromCol, to[0], to[1])) {
+        continue;
+      }
+      model.move(fromRow, fromCol, to[0], to[1]);
+      copies.add(model.copy());
+    }
+
+    BoardSnapshot last = model.snapshot();
+    assertEquals(200, last.getPly());
+    for (int ply = 0; ply <= 200; ply++) {
+      BoardSnapshot snapshot = last.atPly(ply);
+      AbstractSolitaireModel expected = copies.get(ply);
+      assertEquals(expected.getScore(), snapshot.getScore());
+      for (int i = 0; i < size; i++) {
+        for (int j = 0; j < size; j++) {
+          assertEquals(expected.getSlotAt(i, j), snapshot.getSlotAt(i, j));
+        }
+      }
+    }
+  }
+
+  private static void assertSameGame(AbstractSolitaireModel expected,
+                                     AbstractSolitaireModel actual) {
+    int size = expected.getBoardSize();
+    assertEquals(size, actual.getBoardSize());
+    assertEquals(expected.getScore(), actual.getScore());
+    assertEquals(expected.getHash(), actual.getHash());
+    assertEquals(expected.isSparse(), actual.isSparse());
+    assertEquals(expected.isGameOver(), actual.isGameOver());
+    assertEquals(expected.snapshot().getPly(), actual.snapshot().getPly());
+    assertEquals(expected.snapshot().getScore(), actual.snapshot().getScore());
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        assertEquals(expected.getSlotAt(i, j), actual.getSlotAt(i, j));
+        assertEquals(expected.getSlotAt(i, j), actual.snapshot().getSlotAt(i, j));
+      }
+    }
+  }
+
+  @Test
+  public void testReset() {
+    Random r = new Random(43);
+    EnglishSolitaireModel model = new EnglishSolitaireModel(5);
+    for (int game = 0; game < 20; game++) {
+      // Play a random game to its end, then start over from another hole
+      while (!model.isGameOver()) {
+        List<Move> legal = new ArrayList<Move>();
+        int size = model.getBoardSize();
+        for (int i = 0; i < size; i++) {
+          for (int j = 0; j < size; j++) {
+            int[][] targets = {{i - 2, j}, {i + 2, j}, {i, j - 2}, {i, j + 2}};
+            for (int[] to : targets) {
+              if (to[0] >= 0 && to[1] >= 0 && to[0] < size && to[1] < size
+                      && model.validMove(i, j, to[0], to[1])) {
+                legal.add(new Move(i, j, to[0], to[1]));
+              }
+            }
+          }
+        }
+        Move move = legal.get(r.nextInt(legal.size()));
+        model.move(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+      }
+      int row;
+      int col;
+      do {
+        row = r.nextInt(model.getBoardSize());
+        col = r.nextInt(model.getBoardSize());
+      } while (!model.inRange(row, col));
+      model.reset(row, col);
+      assertSameGame(new EnglishSolitaireModel(5, row, col), model);
+    }
+
+    // Copies share the template but not the board
+    AbstractSolitaireModel copy = model.copy();
+    copy.reset(6, 6);
+    model.reset(6, 6);
+    model.move(6, 4, 6, 6);
+    assertSameGame(new EnglishSolitaireModel(5, 6, 6), copy);
+
+    try {
+      model.reset(0, 0);
+      fail("Reset to an invalid hole should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,138 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.PegSolver;
+import cs3500.marblesolitaire.solver.SolverResult;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlightRecorderEventsTest {
+
+  private static List<RecordedEvent> record(Recording recording, Runnable work)
+          throws IOException {
+    Path file = File.createTempFile("solitaire", ".jfr").toPath();
+    try {
+      recording.start();
+      work.run();
+      recording.stop();
+      recording.dump(file);
+      List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+      for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+        if (event.getEventType().getName().startsWith("cs3500.marblesolitaire.")) {
+          events.add(event);
+        }
+      }
+      return events;
+    } finally {
+      recording.close();
+      Files.delete(file);
+    }
+  }
+
+  private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+    List<RecordedEvent> found = new ArrayList<RecordedEvent>();
+    for (RecordedEvent event : events) {
+      if (event.getEventType().getName().equals("cs3500.marblesolitaire." + name)) {
+        found.add(event);
+      }
+    }
+    return found;
+  }
+
+  @Test
+  public void testSolveEvents() throws IOException {
+    AbstractSolitaireModel model = BoardShape.European.create(3);
+    PegSolver solver = new PegSolver(new BoardGeometry(model), 300_000);
+    SolverResult[] result = new SolverResult[1];
+    Recording recording = new Recording();
+    recording.enable("cs3500.marblesolitaire.SolveStart");
+    recording.enable("cs3500.marblesolitaire.SolveEnd");
+    recording.enable("cs3500.marblesolitaire.TableResize");
+    recording.enable("cs3500.marblesolitaire.SolveSample").withPeriod(Duration.ofMillis(10));
+    List<RecordedEvent> events = record(recording, () -> result[0] = solver.solve(model));
+
+    List<RecordedEvent> starts = named(events, "SolveStart");
+    assertEquals(1, starts.size());
+    assertEquals(model.getScore(), starts.get(0).getInt("pegs"));
+    assertEquals(300_000, starts.get(0).getLong("nodeBudget"));
+
+    List<RecordedEvent> ends = named(events, "SolveEnd");
+    assertEquals(1, ends.size());
+    assertEquals(result[0].getNodes(), ends.get(0).getLong("nodes"));
+    assertEquals(result[0].getVerdict().name(), ends.get(0).getString("verdict"));
+    assertEquals(result[0].getBestFinish(), ends.get(0).getInt("bestFinish"));
+
+    List<RecordedEvent> resizes = named(events, "TableResize");
+    assertTrue(resizes.size() > 0);
+    for (RecordedEvent resize : resizes) {
+      assertEquals(2 * resize.getInt("oldCapacity"), resize.getInt("newCapacity"));
+    }
+    for (RecordedEvent sample : named(events, "SolveSample")) {
+      double hitRate = sample.getDouble("hitRate");
+      assertTrue(hitRate >= 0 && hitRate <= 1);
+      assertTrue(sample.getLong("nodes") <= result[0].getNodes());
+    }
+  }
+
+  @Test
+  public void testSolveEndAfterFailedCheckpoint() throws IOException {
+    AbstractSolitaireModel model = BoardShape.European.create(3);
+    // The last checkpoint of a search that stops early goes to a directory that does not exist
+    Path missing = Files.createTempDirectory("solitaire").resolve("missing").resolve("search");
+    PegSolver solver = new PegSolver(new BoardGeometry(model), 10_000)
+            .withCheckpoints(missing, 1_000_000, false);
+    Recording recording = new Recording();
+    recording.enable("cs3500.marblesolitaire.SolveEnd");
+    boolean[] failed = new boolean[1];
+    List<RecordedEvent> events = record(recording, () -> {
+      try {
+        solver.solve(model);
+      } catch (UncheckedIOException e) {
+        failed[0] = true;
+      }
+    });
+    Files.delete(missing.getParent().getParent());
+
+    assertTrue(failed[0]);
+    List<RecordedEvent> ends = named(events, "SolveEnd");
+    assertEquals(1, ends.size());
+    assertEquals("Unknown", ends.get(0).getString("verdict"));
+  }
+
+  @Test
+  public void testMoveEvents() throws IOException {
+    // Moves are only recorded when asked for
+    EnglishSolitaireModel quiet = new EnglishSolitaireModel();
+    List<RecordedEvent> events = record(new Recording(), () -> quiet.move(3, 1, 3, 3));
+    assertEquals(0, named(events, "Move").size());
+
+    EnglishSolitaireModel model = new EnglishSolitaireModel();
+    Recording recording = new Recording();
+    recording.enable("cs3500.marblesolitaire.Move");
+    events = record(recording, () -> {
+      model.move(3, 1, 3, 3);
+      model.move(5, 2, 3, 2);
+    });
+    List<RecordedEvent> moves = named(events, "Move");
+    assertEquals(2, moves.size());
+    assertEquals(5, moves.get(1).getInt("fromRow"));
+    assertEquals(3, moves.get(1).getInt("toRow"));
+    assertEquals(30, moves.get(1).getInt("score"));
+  }
+}
@@ -0,0 +1,156 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import cs3500.marblesolitaire.archive.Aggregate;
+import cs3500.marblesolitaire.archive.GameColumn;
+import cs3500.marblesolitaire.archive.GameColumnStore;
+import cs3500.marblesolitaire.archive.GameFilter;
+import cs3500.marblesolitaire.archive.GameRecord;
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.solver.Move;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameColumnStoreTest {
+
+  // A game with made-up jumps; the store does not check that they are legal
+  private static GameRecord game(Random r, BoardShape shape) {
+    int size = 7;
+    List<Move> moves = new ArrayList<Move>();
+    int length = r.nextInt(20);
+    for (int i = 0; i < length; i++) {
+      int row = 2 + r.nextInt(3);
+      int col = 2 + r.nextInt(3);
+      int[][] steps = {{-2, 0}, {2, 0}, {0, -2}, {0, 2}};
+      int[] step = steps[r.nextInt(4)];
+      moves.add(new Move(row, col, row + step[0], col + step[1]));
+    }
+    int start = 2 + r.nextInt(3);
+    return new GameRecord(shape, 3, start, size - 1 - start, moves, 1 + r.nextInt(10),
+            r.nextInt(600_000));
+  }
+
+  @Test
+  public void testQuery() throws IOException {
+    Path file = File.createTempFile("games", ".columns").toPath();
+    try {
+      Random r = new Random(40);
+      List<GameRecord> games = new ArrayList<GameRecord>();
+      try (GameColumnStore.Writer writer = new GameColumnStore.Writer(file)) {
+        for (int i = 0; i < 150_000; i++) {
+          GameRecord game = game(r, i < GameColumnStore.BLOCK_ROWS ? BoardShape.English
+                  : BoardShape.European);
+          games.add(game);
+          writer.add(game);
+        }
+      }
+      GameColumnStore store = GameColumnStore.open(file);
+      assertEquals(150_000, store.size());
+      assertEquals(3, store.getBlockCount());
+
+      // Distribution of final scores by board and start hole
+      GameColumnStore.Result result = store.query(GameFilter.all(), GameColumn.Duration,
+              GameColumn.Shape, GameColumn.StartRow, GameColumn.Score);
+      Map<List<Long>, long[]> expected = new HashMap<List<Long>, long[]>();
+      for (GameRecord game : games) {
+        List<Long> key = Arrays.asList((long) game.getShape().ordinal(),
+                (long) game.getStartRow(), (long) game.getScore());
+        long[] aggregate = expected.computeIfAbsent(key,
+            k -> new long[] {0, 0, Long.MAX_VALUE, Long.MIN_VALUE});
+        aggregate[0]++;
+        aggregate[1] += game.getDurationMillis();
+        aggregate[2] = Math.min(aggregate[2], game.getDurationMillis());
+        aggregate[3] = Math.max(aggregate[3], game.getDurationMillis());
+      }
+      assertEquals(expected.size(), result.getGroups().size());
+      List<Long> previous = null;
+      for (Map.Entry<List<Long>, Aggregate> entry : result.getGroups().entrySet()) {
+        long[] aggregate = expected.get(entry.getKey());
+        assertEquals(aggregate[0], entry.getValue().getCount());
+        assertEquals(aggregate[1], entry.getValue().getSum());
+        assertEquals(aggregate[2], entry.getValue().getMin());
+        assertEquals(aggregate[3], entry.getValue().getMax());
+        if (previous != null) {
+          assertTrue(previous.get(0) < entry.getKey().get(0)
+                  || previous.get(0).equals(entry.getKey().get(0))
+                  && previous.get(1) <= entry.getKey().get(1));
+        }
+        previous = entry.getKey();
+      }
+
+      // Zone maps skip the English block when only European games are wanted
+      GameFilter european = GameFilter.all()
+              .where(GameColumn.Shape, BoardShape.European.ordinal())
+              .where(GameColumn.Score, 1)
+              .where(GameColumn.Length, 5, 10);
+      long count = 0;
+      for (GameRecord game : games) {
+        if (game.getShape() == BoardShape.European && game.isWon()
+                && game.getMoves().size() >= 5 && game.getMoves().size() <= 10) {
+          count++;
+        }
+      }
+      assertEquals(count, store.count(european));
+      GameColumnStore.Result filtered = store.query(european, GameColumn.Score);
+      assertEquals(1, filtered.getBlocksSkipped());
+      assertEquals(2, filtered.getBlocksRead());
+      assertEquals(0, store.count(GameFilter.all().where(GameColumn.Score, 11, 100)));
+
+      for (int row : new int[] {0, 1, 65_535, 65_536, 149_999}) {
+        GameRecord game = store.read(row);
+        assertEquals(games.get(row).getShape(), game.getShape());
+        assertEquals(games.get(row).getStartRow(), game.getStartRow());
+        assertEquals(games.get(row).getStartCol(), game.getStartCol());
+        assertEquals(games.get(row).getScore(), game.getScore());
+        assertEquals(games.get(row).getDurationMillis(), game.getDurationMillis());
+        assertEquals(games.get(row).getMoves(), game.getMoves());
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testTornBlock() throws IOException {
+    Path file = File.createTempFile("games", ".columns").toPath();
+    try {
+      Random r = new Random(4);
+      try (GameColumnStore.Writer writer = new GameColumnStore.Writer(file)) {
+        for (int i = 0; i < 100; i++) {
+          writer.add(game(r, BoardShape.English));
+        }
+      }
+      long complete = Files.size(file);
+      // A block cut short by a crash
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+              StandardOpenOption.APPEND)) {
+        channel.write(ByteBuffer.allocate(30).putInt(0, 0x4D534743).putInt(4, 100));
+      }
+      assertEquals(100, GameColumnStore.open(file).size());
+
+      try (GameColumnStore.Writer writer = new GameColumnStore.Writer(file)) {
+        assertEquals(complete, Files.size(file));
+        writer.add(game(r, BoardShape.European));
+      }
+      GameColumnStore store = GameColumnStore.open(file);
+      assertEquals(101, store.size());
+      assertEquals(BoardShape.European, store.read(100).getShape());
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+import org.junit.Test;
+
+import cs3500.marblesolitaire.controller.HintService;
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.Move;
+import cs3500.marblesolitaire.solver.PegSolver;
+import cs3500.marblesolitaire.solver.Position;
+import cs3500.marblesolitaire.solver.SolverCache;
+import cs3500.marblesolitaire.solver.SolverResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class HintServiceTest {
+
+  @Test
+  public void testCoalescing() {
+    HintService hints = new HintService();
+    AbstractSolitaireModel model = new EnglishSolitaireModel();
+    BoardGeometry geometry = new BoardGeometry(model);
+
+    Position first = new Position(geometry, model);
+    Position second = new Position(geometry, new EnglishSolitaireModel());
+    hints.prefetch(first);
+    hints.prefetch(second);
+    assertSame(hints.await(first), hints.await(second));
+
+    Move move = hints.await(first).getBestMove();
+    assertEquals(true, model.validMove(move.getFromRow(), move.getFromCol(),
+            move.getToRow(), move.getToCol()));
+    hints.release(first);
+    hints.release(second);
+    hints.shutdown();
+  }
+
+  @Test
+  public void testRelease() {
+    HintService hints = new HintService();
+    Position position = new Position(new BoardGeometry(new EnglishSolitaireModel()),
+            new EnglishSolitaireModel());
+    hints.prefetch(position);
+    hints.release(position);
+    try {
+      hints.await(position);
+      fail("Waited for a released position and did not see an IllegalArgumentException!");
+    } catch (IllegalArgumentException e) {
+    }
+
+    assertEquals(SolverResult.Verdict.Solved, hints.analyse(position).getVerdict());
+    hints.shutdown();
+  }
+
+  @Test
+  public void testCache() {
+    SolverCache cache = new SolverCache(1 << 20);
+    HintService hints = new HintService(PegSolver.DEFAULT_NODE_BUDGET, cache);
+    Position position = new Position(new BoardGeometry(new EnglishSolitaireModel()),
+            new EnglishSolitaireModel());
+    SolverResult first = hints.analyse(position);
+    SolverResult second = hints.analyse(position);
+    assertEquals(first.getBestMove(), second.getBestMove());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.size());
+    hints.shutdown();
+  }
+}
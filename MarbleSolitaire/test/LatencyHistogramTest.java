@@ -0,0 +1,76 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cs3500.marblesolitaire.metrics.HistogramSnapshot;
+import cs3500.marblesolitaire.metrics.LatencyHistogram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    HistogramSnapshot empty = histogram.snapshot();
+    assertEquals(0, empty.getCount());
+    assertEquals(0, empty.getPercentile(0.5));
+    assertEquals(0, empty.getMax());
+
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i);
+    }
+    histogram.record(-5);
+    HistogramSnapshot snapshot = histogram.snapshot();
+    assertEquals(101, snapshot.getCount());
+    assertEquals(0, snapshot.getPercentile(0));
+    // Small values are exact
+    assertEquals(50, snapshot.getPercentile(0.5));
+    // Larger ones are rounded down to their bucket, within about 3%
+    long p99 = snapshot.getPercentile(0.99);
+    assertTrue(p99 <= 99 && p99 >= 96);
+    assertEquals(100, snapshot.getMax());
+    assertEquals(50, snapshot.getMean(), 1.0);
+
+    try {
+      snapshot.getPercentile(1.5);
+      fail("Fraction above 1 should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testPrecision() {
+    long[] values = {63, 64, 65, 1000, 123_456, 1_000_000_007L, Long.MAX_VALUE};
+    for (long value : values) {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.record(value);
+      long recorded = histogram.snapshot().getMax();
+      assertTrue(recorded <= value);
+      assertTrue(value - recorded <= value / 32);
+    }
+  }
+
+  @Test
+  public void testConcurrentRecording() throws InterruptedException {
+    LatencyHistogram histogram = new LatencyHistogram();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 4; t++) {
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 100_000; i++) {
+          histogram.record(i % 5000);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(400_000, histogram.snapshot().getCount());
+  }
+}
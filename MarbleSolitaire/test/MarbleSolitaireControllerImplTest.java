@@ -2,7 +2,14 @@ import org.junit.Test;
 
 import java.io.*;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import cs3500.marblesolitaire.controller.ControllerMetrics;
 import cs3500.marblesolitaire.controller.MarbleSolitaireControllerImpl;
+import cs3500.marblesolitaire.metrics.HistogramSnapshot;
+import cs3500.marblesolitaire.metrics.MetricsSink;
 import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
 import cs3500.marblesolitaire.view.MarbleSolitaireTextView;
 
@@ -139,4 +146,95 @@ public class MarbleSolitaireControllerImplTest {
     marbleSolitaireControllerImpl.value();
     assertEquals(true, marbleSolitaireControllerImpl.isQuit());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testHint() {
+    EnglishSolitaireModel englishSolitaireModel = new EnglishSolitaireModel();
+    StringWriter output = new StringWriter();
+    MarbleSolitaireTextView marbleSolitaireTextView = new MarbleSolitaireTextView(englishSolitaireModel, output);
+    StringReader input = new StringReader("hint 4");
+    MarbleSolitaireControllerImpl marbleSolitaireControllerImpl = new MarbleSolitaireControllerImpl(englishSolitaireModel, marbleSolitaireTextView, input);
+    assertEquals("4", marbleSolitaireControllerImpl.value());
+    assertEquals("Hint: move the marble at (1, 3) to (3, 3)\n", output.toString());
+
+    englishSolitaireModel.move(1, 3, 3, 3);
+    assertEquals("Hint: move the marble at (2, 1) to (2, 3)\n", marbleSolitaireControllerImpl.hint());
+  }
+
+  @Test
+  public void testMetrics() {
+    EnglishSolitaireModel englishSolitaireModel = new EnglishSolitaireModel();
+    StringWriter output = new StringWriter();
+    MarbleSolitaireTextView marbleSolitaireTextView = new MarbleSolitaireTextView(englishSolitaireModel, output);
+    StringReader input = new StringReader("1 3 3 3 1 1 1 1");
+    MarbleSolitaireControllerImpl marbleSolitaireControllerImpl = new MarbleSolitaireControllerImpl(englishSolitaireModel, marbleSolitaireTextView, input);
+    try {
+      marbleSolitaireControllerImpl.playGame();
+      fail("Input ran out and the game should not have ended");
+    } catch (NoSuchElementException e) {
+      // expected
+    }
+
+    ControllerMetrics metrics = marbleSolitaireControllerImpl.getMetrics();
+    assertEquals(1, metrics.getMoves());
+    assertEquals(1, metrics.getInvalidMoves());
+    assertEquals(0, metrics.getQuits());
+    assertEquals(0, metrics.getGamesFinished());
+    assertEquals(2, metrics.getParseLatency().snapshot().getCount());
+    assertEquals(1, metrics.getMoveLatency().snapshot().getCount());
+    assertEquals(3, metrics.getGameOverLatency().snapshot().getCount());
+    assertEquals(3, metrics.getRenderLatency().snapshot().getCount());
+
+    Map<String, Long> counters = new HashMap<String, Long>();
+    Map<String, HistogramSnapshot> histograms = new HashMap<String, HistogramSnapshot>();
+    marbleSolitaireControllerImpl.setMetricsSink(new MetricsSink() {
+      @Override
+      public void counter(String name, long value) {
+        counters.put(name, value);
+      }
+
+      @Override
+      public void histogram(String name, HistogramSnapshot histogram) {
+        histograms.put(name, histogram);
+      }
+    });
+    marbleSolitaireControllerImpl.publishMetrics();
+    assertEquals(Long.valueOf(1), counters.get("moves"));
+    assertEquals(Long.valueOf(1), counters.get("invalidMoves"));
+    assertEquals(4, counters.size());
+    assertEquals(3, histograms.get("renderBoard").getCount());
+    assertEquals(4, histograms.size());
+  }
+
+  @Test
+  public void testParseLatencyExcludesWaiting() {
+    EnglishSolitaireModel englishSolitaireModel = new EnglishSolitaireModel();
+    StringWriter output = new StringWriter();
+    MarbleSolitaireTextView marbleSolitaireTextView = new MarbleSolitaireTextView(englishSolitaireModel, output);
+    // Input that takes a while to arrive, one value at a time
+    Readable input = new Readable() {
+      private final String[] values = {"1 ", "3 ", "3 ", "3\n", "q\n"};
+      private int next;
+
+      @Override
+      public int read(java.nio.CharBuffer cb) {
+        if (this.next == this.values.length) {
+          return -1;
+        }
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+        cb.put(this.values[this.next++]);
+        return 2;
+      }
+    };
+    MarbleSolitaireControllerImpl marbleSolitaireControllerImpl = new MarbleSolitaireControllerImpl(englishSolitaireModel, marbleSolitaireTextView, input);
+    marbleSolitaireControllerImpl.playGame();
+
+    HistogramSnapshot parse = marbleSolitaireControllerImpl.getMetrics().getParseLatency().snapshot();
+    assertEquals(1, parse.getCount());
+    assertTrue(parse.getMax() < 100_000_000L);
+  }
+}
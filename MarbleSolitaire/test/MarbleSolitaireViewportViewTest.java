@@ -0,0 +1,147 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.view.MarbleSolitaireViewportView;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MarbleSolitaireViewportViewTest {
+
+  // A board of any size that stores nothing and counts the slots read from it
+  private static final class CountingBoard implements MarbleSolitaireModelState {
+    private final int size;
+    private long reads;
+
+    private CountingBoard(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public int getBoardSize() {
+      return this.size;
+    }
+
+    @Override
+    public SlotState getSlotAt(int row, int col) {
+      this.reads++;
+      if (row < 2 || col < 2) {
+        return SlotState.Invalid;
+      }
+      return (row + col) % 3 == 0 ? SlotState.Empty : SlotState.Marble;
+    }
+
+    @Override
+    public int getScore() {
+      return 0;
+    }
+  }
+
+  @Test
+  public void testWholeBoard() throws IOException {
+    EnglishSolitaireModel model = new EnglishSolitaireModel();
+    StringWriter output = new StringWriter();
+    MarbleSolitaireViewportView view = new MarbleSolitaireViewportView(model, output, 10, 10);
+    view.renderBoard();
+    assertEquals("Rows 0-6, columns 0-6 of 7\n"
+            + "    O O O\n"
+            + "    O O O\n"
+            + "O O O O O O O\n"
+            + "O O O _ O O O\n"
+            + "O O O O O O O\n"
+            + "    O O O\n"
+            + "    O O O\n", output.toString());
+  }
+
+  @Test
+  public void testFollowAndRegion() {
+    EnglishSolitaireModel model = new EnglishSolitaireModel(101);
+    MarbleSolitaireViewportView view = new MarbleSolitaireViewportView(model, new StringWriter(),
+            3, 5);
+    // Before any move the window shows the middle of the board
+    assertEquals("Rows 149-151, columns 148-152 of 301\n"
+            + "O O O O O\n"
+            + "O O _ O O\n"
+            + "O O O O O\n", view.toString());
+
+    model.move(150, 152, 150, 150);
+    model.move(150, 149, 150, 151);
+    assertEquals("Rows 149-151, columns 149-153 of 301\n"
+            + "O O O O O\n"
+            + "_ _ O _ O\n"
+            + "O O O O O\n", view.toString());
+    model.undoMove(150, 149, 150, 151);
+    assertTrue(view.toString().startsWith("Rows 149-151, columns 147-151 of 301\n"));
+
+    // Regions are moved inside the board
+    view.showRegion(-5, 298);
+    assertEquals("Rows 0-2, columns 296-300 of 301\n"
+            + "\n"
+            + "\n"
+            + "\n", view.toString());
+    view.showRegion(0, 100);
+    assertEquals("Rows 0-2, columns 100-104 of 301\n"
+            + "O O O O O\n"
+            + "O O O O O\n"
+            + "O O O O O\n", view.toString());
+    view.followLastMove();
+    assertTrue(view.toString().startsWith("Rows 149-151, columns 147-151 of 301\n"));
+  }
+
+  @Test
+  public void testSummary() {
+    EnglishSolitaireModel model = new EnglishSolitaireModel();
+    MarbleSolitaireViewportView view = new MarbleSolitaireViewportView(model, new StringWriter(),
+            4, 4);
+    view.showSummary(7);
+    // 32 of 33 slots hold a marble
+    assertEquals("Rows 0-6, columns 0-6 of 7, 7x7 per character\n"
+            + "@\n", view.toString());
+    view.showSummary(2);
+    assertEquals("Rows 0-6, columns 0-6 of 7, 2x2 per character\n"
+            + "  @ @\n"
+            + "@ # @ @\n"
+            + "@ @ @ @\n"
+            + "  @ @\n", view.toString());
+
+    model.move(1, 3, 3, 3);
+    model.move(2, 1, 2, 3);
+    model.move(0, 2, 2, 2);
+    model.move(0, 4, 0, 2);
+    // The window already covers the board, so asking for a region does not move it
+    view.showSummary(2, 0, 2);
+    assertEquals("Rows 0-6, columns 0-6 of 7, 2x2 per character\n"
+            + "  - +\n"
+            + "# @ @ @\n"
+            + "@ @ @ @\n"
+            + "  @ @\n", view.toString());
+
+    try {
+      view.showSummary(0);
+      fail("Empty blocks should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testCostScalesWithWindow() {
+    CountingBoard board = new CountingBoard(1_000_000_000);
+    MarbleSolitaireViewportView view = new MarbleSolitaireViewportView(board, new StringWriter(),
+            20, 40);
+    view.showRegion(500_000_000, 500_000_000);
+    String window = view.toString();
+    assertEquals(21, window.split("\n").length);
+    assertEquals(20 * 40, board.reads);
+
+    board.reads = 0;
+    view.showSummary(16, 123_456_789, 987_654_321);
+    view.toString();
+    assertEquals(20 * 40 * 16 * 16, board.reads);
+  }
+}
@@ -0,0 +1,223 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState.SlotState;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.MaskSolitaireModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MaskSolitaireModelTest {
+
+  // A mask of the slots within the given reach of the middle row or column, or of the centre
+  private static boolean[][] mask(int size, boolean cross, int reach) {
+    boolean[][] mask = new boolean[size][size];
+    int mid = size / 2;
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        mask[i][j] = cross
+                ? Math.abs(i - mid) <= reach || Math.abs(j - mid) <= reach
+                : Math.abs(i - mid) + Math.abs(j - mid) <= reach;
+      }
+    }
+    return mask;
+  }
+
+  private static List<int[]> legalMoves(AbstractSolitaireModel model) {
+    List<int[]> legal = new ArrayList<int[]>();
+    int size = model.getBoardSize();
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        int[][] targets = {{i - 2, j}, {i + 2, j}, {i, j - 2}, {i, j + 2}};
+        for (int[] to : targets) {
+          if (to[0] >= 0 && to[1] >= 0 && to[0] < size && to[1] < size
+                  && model.validMove(i, j, to[0], to[1])) {
+            legal.add(new int[]{i, j, to[0], to[1]});
+          }
+        }
+      }
+    }
+    return legal;
+  }
+
+  @Test
+  public void testMatchesEnglish() {
+    Random r = new Random(47);
+    for (int game = 0; game < 50; game++) {
+      EnglishSolitaireModel english = new EnglishSolitaireModel();
+      MaskSolitaireModel mask = new MaskSolitaireModel(english, 3, 3);
+      BoardAssert.assertSameBoard(english, mask);
+      assertEquals(english.getHash(), mask.getHash());
+      while (!english.isGameOver()) {
+        assertFalse(mask.isGameOver());
+        List<int[]> legal = legalMoves(english);
+        assertEquals(legal.size(), legalMoves(mask).size());
+        int[] move = legal.get(r.nextInt(legal.size()));
+        english.move(move[0], move[1], move[2], move[3]);
+        mask.move(move[0], move[1], move[2], move[3]);
+        assertEquals(english.getHash(), mask.getHash());
+      }
+      assertTrue(mask.isGameOver());
+      BoardAssert.assertSameBoard(english, mask);
+    }
+  }
+
+  @Test
+  public void testShapes() {
+    MaskSolitaireModel wiegleb = new MaskSolitaireModel(mask(9, true, 1), 4, 4);
+    assertEquals(9, wiegleb.getBoardSize());
+    assertEquals(44, wiegleb.getScore());
+    assertEquals(8, wiegleb.getSymmetryCount());
+    wiegleb.move(4, 2, 4, 4);
+    assertEquals(43, wiegleb.getScore());
+
+    MaskSolitaireModel diamond = new MaskSolitaireModel(mask(9, false, 4), 4, 4);
+    assertEquals(40, diamond.getScore());
+    assertEquals(8, diamond.getSymmetryCount());
+    assertEquals(SlotState.Invalid, diamond.getSlotAt(0, 3));
+    assertEquals(SlotState.Marble, diamond.getSlotAt(0, 4));
+
+    // One extra slot next to a corner of the English board leaves only the identity
+    boolean[][] lopsided = mask(7, true, 1);
+    lopsided[0][1] = true;
+    MaskSolitaireModel odd = new MaskSolitaireModel(lopsided, 0, 3);
+    assertEquals(33, odd.getScore());
+    assertEquals(1, odd.getSymmetryCount());
+    assertTrue(odd.validMove(0, 1, 0, 3));
+    odd.move(0, 1, 0, 3);
+    assertEquals(SlotState.Empty, odd.getSlotAt(0, 1));
+    assertEquals(SlotState.Marble, odd.getSlotAt(0, 3));
+    assertFalse(new EnglishSolitaireModel(0, 3).validMove(0, 1, 0, 3));
+
+    // A ragged mask is laid out on the smallest square that holds it
+    MaskSolitaireModel row = new MaskSolitaireModel(new boolean[][]{{true, true, true}}, 0, 2);
+    assertEquals(3, row.getBoardSize());
+    assertEquals(SlotState.Invalid, row.getSlotAt(1, 0));
+    // Only the mirror along the row maps it onto itself
+    assertEquals(2, row.getSymmetryCount());
+    assertEquals(2, row.getJumpCount());
+  }
+
+  @Test
+  public void testSymmetries() {
+    MaskSolitaireModel english = new MaskSolitaireModel(mask(7, true, 1), 3, 3);
+    assertEquals(8, english.getSymmetryCount());
+    assertEquals(76, english.getJumpCount());
+    for (int s = 0; s < english.getSymmetryCount(); s++) {
+      for (int i = 0; i < 7; i++) {
+        for (int j = 0; j < 7; j++) {
+          if (english.inRange(i, j)) {
+            int image = english.transform(s, i, j);
+            assertTrue(english.inRange(image / 7, image % 7));
+            if (s == 0) {
+              assertEquals(i * 7 + j, image);
+            }
+          }
+        }
+      }
+    }
+    try {
+      english.transform(8, 3, 3);
+      fail("There are only 8 symmetries");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      english.transform(0, 0, 0);
+      fail("Corner is not a slot");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testPagoda() {
+    boolean[][] lopsided = mask(9, true, 1);
+    lopsided[1][2] = true;
+    lopsided[7][0] = true;
+    MaskSolitaireModel model = new MaskSolitaireModel(lopsided, 4, 4);
+    int size = model.getBoardSize();
+    // Every jump removes at least as much weight as it adds, whatever the target
+    for (int tr = 0; tr < size; tr++) {
+      for (int tc = 0; tc < size; tc++) {
+        if (!model.inRange(tr, tc)) {
+          continue;
+        }
+        assertEquals(1.0, model.getPagodaWeight(tr, tc, tr, tc), 0);
+        for (int[] move : legalMoves(model)) {
+          double from = model.getPagodaWeight(move[0], move[1], tr, tc);
+          double over = model.getPagodaWeight((move[0] + move[2]) / 2,
+                  (move[1] + move[3]) / 2, tr, tc);
+          double to = model.getPagodaWeight(move[2], move[3], tr, tc);
+          assertTrue(from + over >= to - 1e-12);
+        }
+      }
+    }
+
+    MaskSolitaireModel row = new MaskSolitaireModel(new boolean[][]{{true, true, true}}, 0, 2);
+    assertTrue(row.canFinishAt(0, 2));
+    assertTrue(row.canFinishAt(0, 0));
+    row.move(0, 0, 0, 2);
+    assertTrue(row.canFinishAt(0, 2));
+    assertFalse(row.canFinishAt(0, 0));
+    assertFalse(row.canFinishAt(0, 1));
+  }
+
+  @Test
+  public void testCopyAndReset() {
+    MaskSolitaireModel diamond = new MaskSolitaireModel(mask(9, false, 4), 4, 4);
+    AbstractSolitaireModel copy = diamond.copy();
+    diamond.move(4, 2, 4, 4);
+    assertEquals(40, copy.getScore());
+    assertEquals(SlotState.Empty, copy.getSlotAt(4, 4));
+    assertEquals(8, ((MaskSolitaireModel) copy).getSymmetryCount());
+
+    diamond.reset(0, 4);
+    assertEquals(40, diamond.getScore());
+    assertEquals(SlotState.Empty, diamond.getSlotAt(0, 4));
+    assertEquals(SlotState.Marble, diamond.getSlotAt(4, 4));
+    BoardAssert.assertSameBoard(new MaskSolitaireModel(mask(9, false, 4), 0, 4), diamond);
+  }
+
+  @Test
+  public void testInvalid() {
+    try {
+      new MaskSolitaireModel((boolean[][]) null, 0, 0);
+      fail("Null mask should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new MaskSolitaireModel(new boolean[][]{{true}, null}, 0, 0);
+      fail("Null row should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new MaskSolitaireModel(mask(7, true, 1), 0, 0);
+      fail("Empty slot outside the mask should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new MaskSolitaireModel(mask(7, true, 1), 3, 9);
+      fail("Empty slot off the board should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new MaskSolitaireModel((MarbleSolitaireModelState) null, 3, 3);
+      fail("Null shape should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
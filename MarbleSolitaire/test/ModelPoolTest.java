@@ -0,0 +1,124 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.model.hw04.EuropeanSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.ModelPool;
+import cs3500.marblesolitaire.model.hw04.MoveEventRing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ModelPoolTest {
+
+  private static void assertStart(AbstractSolitaireModel expected,
+                                  AbstractSolitaireModel actual) {
+    assertEquals(expected.getClass(), actual.getClass());
+    assertEquals(expected.getScore(), actual.getScore());
+    assertEquals(expected.getHash(), actual.getHash());
+    assertEquals(0, actual.snapshot().getPly());
+    for (int i = 0; i < expected.getBoardSize(); i++) {
+      for (int j = 0; j < expected.getBoardSize(); j++) {
+        assertEquals(expected.getSlotAt(i, j), actual.getSlotAt(i, j));
+      }
+    }
+  }
+
+  @Test
+  public void testReuse() {
+    ModelPool pool = new ModelPool(2);
+    AbstractSolitaireModel model = pool.acquire(BoardShape.English, 3);
+    assertStart(new EnglishSolitaireModel(), model);
+    model.move(3, 1, 3, 3);
+    model.setEventRing(new MoveEventRing(7, 16));
+    pool.release(model);
+    assertEquals(1, pool.getIdleCount(BoardShape.English, 3));
+
+    AbstractSolitaireModel again = pool.acquire(BoardShape.English, 3, 0, 3);
+    assertSame(model, again);
+    assertStart(new EnglishSolitaireModel(3, 0, 3), again);
+    assertEquals(0, pool.getIdleCount(BoardShape.English, 3));
+
+    AbstractSolitaireModel european = pool.acquire(BoardShape.European, 5);
+    assertStart(new EuropeanSolitaireModel(5), european);
+    assertNotSame(again, european);
+
+    // Only as many idle models as the limit are kept
+    pool.prewarm(BoardShape.European, 5, 10);
+    assertEquals(2, pool.getIdleCount(BoardShape.European, 5));
+    pool.release(european);
+    assertEquals(2, pool.getIdleCount(BoardShape.European, 5));
+  }
+
+  @Test
+  public void testInvalid() {
+    ModelPool pool = new ModelPool();
+    try {
+      pool.acquire(BoardShape.English, 4);
+      fail("Even arm thickness should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      pool.acquire(BoardShape.English, 3, 0, 0);
+      fail("Invalid empty slot should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    // The model that could not be reset went back to the pool
+    assertEquals(1, pool.getIdleCount(BoardShape.English, 3));
+    try {
+      pool.acquire(null, 3);
+      fail("Null shape should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testConcurrentGames() throws InterruptedException {
+    ModelPool pool = new ModelPool(8);
+    Set<AbstractSolitaireModel> held = Collections.newSetFromMap(
+            new IdentityHashMap<AbstractSolitaireModel, Boolean>());
+    AtomicInteger errors = new AtomicInteger();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 4; t++) {
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 5000; i++) {
+          AbstractSolitaireModel model = pool.acquire(BoardShape.English, 3);
+          synchronized (held) {
+            if (!held.add(model)) {
+              errors.incrementAndGet();
+            }
+          }
+          if (model.getScore() != 32) {
+            errors.incrementAndGet();
+          }
+          model.move(3, 1, 3, 3);
+          synchronized (held) {
+            held.remove(model);
+          }
+          pool.release(model);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(0, errors.get());
+    assertTrue(pool.getIdleCount(BoardShape.English, 3) <= 8);
+  }
+}
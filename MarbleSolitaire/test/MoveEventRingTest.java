@@ -0,0 +1,154 @@
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.MoveEvent;
+import cs3500.marblesolitaire.model.hw04.MoveEventRing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MoveEventRingTest {
+
+  @Test
+  public void testModelEvents() {
+    AbstractSolitaireModel model = new EnglishSolitaireModel();
+    MoveEventRing ring = new MoveEventRing(model.getBoardSize(), 16);
+    model.setEventRing(ring);
+    MoveEventRing.Consumer consumer = ring.newConsumer();
+    MoveEvent event = new MoveEvent();
+    assertFalse(consumer.poll(event));
+
+    long start = model.getHash();
+    model.move(3, 1, 3, 3);
+    assertTrue(consumer.poll(event));
+    assertEquals(0, event.getSequence());
+    assertEquals(3, event.getFromRow());
+    assertEquals(1, event.getFromCol());
+    assertEquals(3, event.getOverRow());
+    assertEquals(2, event.getOverCol());
+    assertEquals(3, event.getToRow());
+    assertEquals(3, event.getToCol());
+    assertEquals(MoveEvent.Kind.Move, event.getKind());
+    assertEquals(1, event.getPly());
+    assertEquals(model.getHash(), event.getHash());
+    assertEquals(start ^ AbstractSolitaireModel.zobrist(3 * 7 + 1)
+            ^ AbstractSolitaireModel.zobrist(3 * 7 + 2)
+            ^ AbstractSolitaireModel.zobrist(3 * 7 + 3), event.getHash());
+    assertFalse(consumer.poll(event));
+
+    model.undoMove(3, 1, 3, 3);
+    assertTrue(consumer.poll(event));
+    assertEquals(MoveEvent.Kind.Undo, event.getKind());
+    assertEquals(0, event.getPly());
+    assertEquals(start, event.getHash());
+
+    // Copies have their own hash but never publish to the original's ring
+    AbstractSolitaireModel copy = model.copy();
+    copy.move(3, 1, 3, 3);
+    assertEquals(model.getHash() ^ AbstractSolitaireModel.zobrist(3 * 7 + 1)
+            ^ AbstractSolitaireModel.zobrist(3 * 7 + 2)
+            ^ AbstractSolitaireModel.zobrist(3 * 7 + 3), copy.getHash());
+    assertFalse(consumer.poll(event));
+
+    // A loaded position is published whole
+    AbstractSolitaireModel played = new EnglishSolitaireModel();
+    played.move(3, 1, 3, 3);
+    model.load(played);
+    assertTrue(consumer.poll(event));
+    assertEquals(MoveEvent.Kind.Position, event.getKind());
+    assertEquals(0, event.getPly());
+    assertEquals(played.getHash(), event.getHash());
+    assertEquals(model.snapshot(), event.getPosition());
+    model.move(5, 2, 3, 2);
+    assertTrue(consumer.poll(event));
+    assertEquals(MoveEvent.Kind.Move, event.getKind());
+    assertEquals(null, event.getPosition());
+  }
+
+  @Test
+  public void testLappedConsumer() {
+    MoveEventRing ring = new MoveEventRing(7, 8);
+    MoveEventRing.Consumer slow = ring.newConsumer();
+    MoveEvent event = new MoveEvent();
+    for (int i = 0; i < 20; i++) {
+      ring.publish(i, i + 1, i + 2, i, i, false);
+    }
+    assertEquals(20, slow.getBacklog());
+    assertTrue(slow.poll(event));
+    assertEquals(12, event.getSequence());
+    assertEquals(12, slow.getMissed());
+    for (int i = 13; i < 20; i++) {
+      assertTrue(slow.poll(event));
+      assertEquals(i, event.getPly());
+    }
+    assertFalse(slow.poll(event));
+    assertEquals(0, slow.getBacklog());
+  }
+
+  @Test
+  public void testConcurrentConsumers() throws InterruptedException {
+    int count = 2_000_000;
+    MoveEventRing ring = new MoveEventRing(7, 64);
+    AtomicReference<String> failure = new AtomicReference<String>();
+    Thread[] consumers = new Thread[3];
+    for (int c = 0; c < consumers.length; c++) {
+      MoveEventRing.Consumer consumer = ring.newConsumer();
+      consumers[c] = new Thread(() -> {
+        MoveEvent event = new MoveEvent();
+        long last = -1;
+        while (last < count - 1) {
+          if (!consumer.poll(event)) {
+            Thread.onSpinWait();
+            continue;
+          }
+          int i = event.getPly();
+          // Every record read must be whole and later than the one before
+          if (event.getSequence() <= last || event.getSequence() != i
+                  || event.getHash() != AbstractSolitaireModel.zobrist(i)
+                  || event.getFromRow() * 7 + event.getFromCol() != (i & 31)
+                  || event.getToRow() * 7 + event.getToCol() != (i & 31) + 2) {
+            failure.compareAndSet(null, "Torn or stale record " + event);
+            return;
+          }
+          last = event.getSequence();
+        }
+        if (consumer.getMissed() + consumer.getBacklog() > count) {
+          failure.compareAndSet(null, "Missed more records than were published");
+        }
+      });
+      consumers[c].start();
+    }
+    for (int i = 0; i < count; i++) {
+      ring.publish(i & 31, (i & 31) + 1, (i & 31) + 2, i, AbstractSolitaireModel.zobrist(i),
+              (i & 1) != 0);
+    }
+    for (Thread consumer : consumers) {
+      consumer.join(60_000);
+    }
+    if (failure.get() != null) {
+      fail(failure.get());
+    }
+  }
+
+  @Test
+  public void testInvalidRing() {
+    try {
+      new MoveEventRing(7, 12);
+      fail("Capacity must be a power of two");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    AbstractSolitaireModel model = new EnglishSolitaireModel();
+    try {
+      model.setEventRing(new MoveEventRing(9, 16));
+      fail("Ring must match the board size");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
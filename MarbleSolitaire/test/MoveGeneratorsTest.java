@@ -0,0 +1,84 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.model.hw04.EuropeanSolitaireModel;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.MoveGenerator;
+import cs3500.marblesolitaire.solver.MoveGenerators;
+import cs3500.marblesolitaire.solver.Perft;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MoveGeneratorsTest {
+
+  @Test
+  public void testStartPosition() {
+    BoardGeometry geometry = new BoardGeometry(new EnglishSolitaireModel());
+    MoveGenerator generator = MoveGenerators.forGeometry(geometry);
+    long[] board = geometry.pegs(new EnglishSolitaireModel());
+    assertEquals(4, generator.countMoves(board, 0));
+    assertTrue(generator.hasMove(board, 0));
+
+    int[] moves = new int[geometry.getJumpCount()];
+    assertEquals(4, generator.generate(board, 0, moves, 0));
+    for (int i = 0; i < 4; i++) {
+      assertEquals(geometry.getJumpTo(moves[i]), geometry.holeAt(3, 3));
+    }
+    assertFalse(generator.hasMove(new long[geometry.getWords()], 0));
+  }
+
+  @Test
+  public void testSameGeometryShared() {
+    BoardGeometry geometry = new BoardGeometry(new EuropeanSolitaireModel());
+    assertSame(MoveGenerators.forGeometry(geometry),
+            MoveGenerators.forGeometry(new BoardGeometry(new EuropeanSolitaireModel())));
+  }
+
+  @Test
+  public void testMatchesTable() {
+    for (BoardShape shape : BoardShape.values()) {
+      for (int arm = 3; arm <= 5; arm += 2) {
+        BoardGeometry geometry = new BoardGeometry(shape.create(arm));
+        MoveGenerator compiled = MoveGenerators.forGeometry(geometry);
+        MoveGenerator table = MoveGenerators.table(geometry);
+        int words = geometry.getWords();
+        Random random = new Random(arm);
+        long[] boards = new long[2 * words];
+        int[] expected = new int[geometry.getJumpCount() + 1];
+        int[] actual = new int[geometry.getJumpCount() + 1];
+        for (int trial = 0; trial < 200; trial++) {
+          for (int hole = 0; hole < geometry.getHoleCount(); hole++) {
+            if (random.nextBoolean()) {
+              boards[words + hole / 64] |= 1L << hole;
+            } else {
+              boards[words + hole / 64] &= ~(1L << hole);
+            }
+          }
+          int count = table.generate(boards, words, expected, 1);
+          assertEquals(count, compiled.generate(boards, words, actual, 1));
+          assertArrayEquals(Arrays.copyOf(expected, count + 1), Arrays.copyOf(actual, count + 1));
+          assertEquals(count, compiled.countMoves(boards, words));
+          assertEquals(count > 0, compiled.hasMove(boards, words));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPerftCompiled() {
+    Perft english = new Perft(new EnglishSolitaireModel());
+    Perft european = new Perft(new EuropeanSolitaireModel());
+    for (int depth = 0; depth <= 6; depth++) {
+      assertEquals(english.count(depth), english.countCompiled(depth));
+      assertEquals(european.count(depth), european.countCompiled(depth));
+    }
+  }
+}
@@ -0,0 +1,164 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import cs3500.marblesolitaire.archive.GameRecord;
+import cs3500.marblesolitaire.archive.OpeningStats;
+import cs3500.marblesolitaire.archive.OpeningTree;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.Move;
+import cs3500.marblesolitaire.solver.PegSolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OpeningTreeTest {
+
+  // Play random legal moves until the game is over, preferring the first few moves listed so
+  // that games share openings
+  private static GameRecord randomGame(Random r) {
+    AbstractSolitaireModel model = BoardShape.English.create(3);
+    List<Move> moves = new ArrayList<Move>();
+    int size = model.getBoardSize();
+    while (!model.isGameOver()) {
+      List<Move> legal = new ArrayList<Move>();
+      for (int i = 0; i < size; i++) {
+        for (int j = 0; j < size; j++) {
+          int[][] targets = {{i - 2, j}, {i + 2, j}, {i, j - 2}, {i, j + 2}};
+          for (int[] to : targets) {
+            if (to[0] >= 0 && to[1] >= 0 && to[0] < size && to[1] < size
+                    && model.validMove(i, j, to[0], to[1])) {
+              legal.add(new Move(i, j, to[0], to[1]));
+            }
+          }
+        }
+      }
+      Move move = legal.get(r.nextInt(2) == 0 ? 0 : r.nextInt(legal.size()));
+      model.move(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+      moves.add(move);
+    }
+    return new GameRecord(BoardShape.English, 3, 3, 3, moves, model.getScore());
+  }
+
+  @Test
+  public void testLookup() throws IOException {
+    Random r = new Random(39);
+    List<GameRecord> games = new ArrayList<GameRecord>();
+    OpeningTree.Builder builder = new OpeningTree.Builder(BoardShape.English, 3, 3, 3);
+    for (int i = 0; i < 2000; i++) {
+      GameRecord game = randomGame(r);
+      games.add(game);
+      builder.add(game);
+    }
+    // A perfect game, so that some opening has wins
+    AbstractSolitaireModel model = BoardShape.English.create(3);
+    PegSolver solver = new PegSolver(new BoardGeometry(model));
+    List<Move> line = new ArrayList<Move>();
+    while (!model.isGameOver()) {
+      Move move = solver.solve(model).getBestMove();
+      model.move(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+      line.add(move);
+    }
+    GameRecord won = new GameRecord(BoardShape.English, 3, 3, 3, line, model.getScore());
+    assertTrue(won.isWon());
+    games.add(won);
+    builder.add(won);
+    assertEquals(2001, builder.size());
+
+    Path file = File.createTempFile("openings", ".tree").toPath();
+    try {
+      builder.write(file);
+      OpeningTree tree = OpeningTree.open(file);
+      assertEquals(BoardShape.English, tree.getShape());
+      assertEquals(2001, tree.lookup(new ArrayList<Move>()).getGames());
+
+      for (int g = 0; g < games.size(); g += 97) {
+        List<Move> moves = games.get(g).getMoves();
+        for (int length = 0; length <= moves.size(); length++) {
+          List<Move> opening = moves.subList(0, length);
+          long wins = 0;
+          long losses = 0;
+          for (GameRecord game : games) {
+            if (game.getMoves().size() >= length
+                    && game.getMoves().subList(0, length).equals(opening)) {
+              wins += game.isWon() ? 1 : 0;
+              losses += game.isWon() ? 0 : 1;
+            }
+          }
+          OpeningStats stats = tree.lookup(opening);
+          assertEquals(wins, stats.getWins());
+          assertEquals(losses, stats.getLosses());
+        }
+      }
+      OpeningStats perfect = tree.lookup(won.getMoves());
+      assertEquals(1, perfect.getWins());
+      assertEquals(1.0, perfect.getWinRate(), 1e-9);
+
+      // Openings no game played
+      assertEquals(0, tree.lookup(Arrays.asList(new Move(3, 1, 3, 3), new Move(3, 1, 3, 3)))
+              .getGames());
+      assertEquals(0, tree.lookup(Arrays.asList(new Move(0, 0, 0, 2))).getGames());
+
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testCompression() throws IOException {
+    Random r = new Random(3);
+    GameRecord game = randomGame(r);
+    Path file = File.createTempFile("openings", ".tree").toPath();
+    try {
+      // Repeats of a game add to the counts but not to the tree
+      OpeningTree.Builder builder = new OpeningTree.Builder(BoardShape.English, 3, 3, 3);
+      for (int i = 0; i < 3; i++) {
+        builder.add(game);
+      }
+      builder.write(file);
+      // A header, the root with one child and a single node labelled with every move
+      int moves = game.getMoves().size();
+      assertEquals(17 + 18 + (12 + 2 * moves) + 4, Files.size(file));
+      OpeningTree tree = OpeningTree.open(file);
+      assertEquals(3, tree.lookup(game.getMoves().subList(0, moves / 2)).getLosses());
+      assertEquals(3, tree.lookup(game.getMoves()).getLosses());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testInvalidGames() {
+    OpeningTree.Builder builder = new OpeningTree.Builder(BoardShape.English, 3, 3, 3);
+    try {
+      builder.add(new GameRecord(BoardShape.European, 3, 3, 3, new ArrayList<Move>(), 36));
+      fail("Game from another board should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      builder.add(new GameRecord(BoardShape.English, 3, 3, 3,
+              Arrays.asList(new Move(3, 1, 3, 3), new Move(3, 1, 3, 3)), 30));
+      fail("Illegal move should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      builder.add(new GameRecord(BoardShape.English, 3, 3, 3,
+              Arrays.asList(new Move(3, 1, 3, 3)), 5));
+      fail("Score that does not match the moves should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,171 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.MoveGenerators;
+import cs3500.marblesolitaire.solver.PatternDatabase;
+import cs3500.marblesolitaire.solver.PegSolver;
+import cs3500.marblesolitaire.solver.SolverResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PatternDatabaseTest {
+
+  @Test
+  public void testRegions() {
+    PatternDatabase database = PatternDatabase.build(BoardShape.European, 3);
+    BoardGeometry geometry = database.getGeometry();
+    boolean[] covered = new boolean[geometry.getHoleCount()];
+    for (int r = 0; r < database.getRegionCount(); r++) {
+      int[] region = database.getRegion(r);
+      assertTrue(region.length <= PatternDatabase.MAX_REGION_HOLES);
+      for (int hole : region) {
+        assertTrue(!covered[hole]);
+        covered[hole] = true;
+      }
+    }
+    for (boolean hole : covered) {
+      assertTrue(hole);
+    }
+  }
+
+  @Test
+  public void testAdmissible() {
+    PatternDatabase database = PatternDatabase.build(BoardShape.English, 3);
+    BoardGeometry geometry = database.getGeometry();
+    // The start is solvable, so it must not be ruled out
+    assertEquals(1, database.bound(geometry.pegs(new EnglishSolitaireModel()), 0));
+    assertEquals(0, database.bound(new long[geometry.getWords()], 0));
+
+    int[] regionOf = new int[geometry.getHoleCount()];
+    int[] bitOf = new int[geometry.getHoleCount()];
+    for (int r = 0; r < database.getRegionCount(); r++) {
+      int[] region = database.getRegion(r);
+      for (int i = 0; i < region.length; i++) {
+        regionOf[region[i]] = r;
+        bitOf[region[i]] = i;
+      }
+      assertEquals(0, database.getWeight(0, r, 0));
+    }
+    // No jump may raise the weight of a position for any finishing hole
+    for (int finish = 0; finish < geometry.getHoleCount(); finish++) {
+      int[] weights = new int[geometry.getHoleCount()];
+      for (int hole = 0; hole < weights.length; hole++) {
+        weights[hole] = database.getWeight(finish, regionOf[hole], 1 << bitOf[hole]);
+        assertTrue(weights[hole] > 0);
+      }
+      for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+        assertTrue(weights[geometry.getJumpTo(jump)]
+                <= weights[geometry.getJumpFrom(jump)] + weights[geometry.getJumpOver(jump)]);
+      }
+    }
+  }
+
+  @Test
+  public void testBound() {
+    PatternDatabase english = PatternDatabase.build(BoardShape.English, 3);
+    BoardGeometry geometry = english.getGeometry();
+    assertEquals(1, english.bound(pegsAt(geometry, 3, 3, 3, 4), 0));
+    // A single marble could be in this position class, but the two are too far apart to meet
+    assertEquals(2, english.bound(pegsAt(geometry, 4, 6, 6, 3), 0));
+
+    // No single marble is in the position class of the European board without its center
+    PatternDatabase european = PatternDatabase.build(BoardShape.European, 3);
+    assertEquals(2, european.bound(
+            european.getGeometry().pegs(BoardShape.European.create(3)), 0));
+  }
+
+  @Test
+  public void testSaveLoad() throws IOException {
+    Path file = File.createTempFile("patterns", ".pdb").toPath();
+    try {
+      PatternDatabase database = PatternDatabase.build(BoardShape.English, 3);
+      database.save(file);
+      PatternDatabase loaded = PatternDatabase.load(file);
+      assertEquals(database.getGeometry(), loaded.getGeometry());
+      assertEquals(database.getRegionCount(), loaded.getRegionCount());
+      for (int r = 0; r < database.getRegionCount(); r++) {
+        int[] region = database.getRegion(r);
+        assertEquals(region.length, loaded.getRegion(r).length);
+        for (int finish = 0; finish < database.getGeometry().getHoleCount(); finish++) {
+          for (int pattern = 0; pattern < 1 << region.length; pattern++) {
+            assertEquals(database.getWeight(finish, r, pattern),
+                    loaded.getWeight(finish, r, pattern));
+          }
+        }
+      }
+      long[] far = pegsAt(loaded.getGeometry(), 4, 6, 6, 3);
+      assertEquals(2, loaded.bound(far, 0));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testSolverWithDatabase() {
+    PatternDatabase database = PatternDatabase.build(BoardShape.English, 3);
+    BoardGeometry geometry = database.getGeometry();
+    long[] start = geometry.pegs(BoardShape.English.create(3, 4, 1));
+    PegSolver plain = new PegSolver(geometry, PegSolver.DEFAULT_NODE_BUDGET,
+            MoveGenerators.forGeometry(geometry));
+    PegSolver pruned = new PegSolver(geometry, PegSolver.DEFAULT_NODE_BUDGET,
+            MoveGenerators.forGeometry(geometry), database);
+    SolverResult without = plain.solve(start);
+    SolverResult with = pruned.solve(start);
+    assertEquals(SolverResult.Verdict.Solved, with.getVerdict());
+    assertEquals(1, with.getBestFinish());
+    assertTrue(with.getNodes() < without.getNodes());
+
+    // The position class proves the European board unsolvable from its center at once
+    PatternDatabase european = PatternDatabase.build(BoardShape.European, 3);
+    BoardGeometry board = european.getGeometry();
+    long[] center = board.pegs(BoardShape.European.create(3));
+    assertEquals(SolverResult.Verdict.Unknown,
+            new PegSolver(board, 100_000, MoveGenerators.forGeometry(board)).solve(center)
+                    .getVerdict());
+    SolverResult proven = new PegSolver(board, 100_000, MoveGenerators.forGeometry(board),
+            european).solve(center);
+    assertEquals(SolverResult.Verdict.Unsolvable, proven.getVerdict());
+    assertTrue(proven.getNodes() < 100);
+  }
+
+  @Test
+  public void testOtherBoard() {
+    PatternDatabase database = PatternDatabase.build(BoardShape.English, 3);
+    BoardGeometry european = new BoardGeometry(BoardShape.European.create(3));
+    try {
+      new PegSolver(european, 1000, MoveGenerators.forGeometry(european), database);
+      fail("Databases of another board should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testTooLarge() {
+    // Over 2000 holes, whose tables would need more bytes than an int can count
+    try {
+      PatternDatabase.build(BoardShape.English, 21);
+      fail("Tables too large for one buffer should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  private static long[] pegsAt(BoardGeometry geometry, int... cells) {
+    long[] board = new long[geometry.getWords()];
+    for (int i = 0; i < cells.length; i += 2) {
+      int hole = geometry.holeAt(cells[i], cells[i + 1]);
+      board[hole >>> 6] |= 1L << hole;
+    }
+    return board;
+  }
+}
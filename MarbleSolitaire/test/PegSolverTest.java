@@ -0,0 +1,204 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.EuropeanSolitaireModel;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.Move;
+import cs3500.marblesolitaire.solver.PegSolver;
+import cs3500.marblesolitaire.solver.SolverResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PegSolverTest {
+
+  @Test
+  public void testGeometry() {
+    BoardGeometry geometry = new BoardGeometry(new EnglishSolitaireModel());
+    assertEquals(7, geometry.getBoardSize());
+    assertEquals(33, geometry.getHoleCount());
+    assertEquals(1, geometry.getWords());
+    assertEquals(76, geometry.getJumpCount());
+    assertEquals(-1, geometry.holeAt(0, 0));
+    assertEquals(0, geometry.holeAt(0, 2));
+    assertEquals(16, geometry.holeAt(3, 3));
+    assertEquals(32, BoardGeometry.pegCount(geometry.pegs(new EnglishSolitaireModel())));
+    assertEquals(geometry, new BoardGeometry(new EnglishSolitaireModel(2, 2)));
+  }
+
+  @Test
+  public void testSolveEnglish() {
+    AbstractSolitaireModel model = new EnglishSolitaireModel();
+    PegSolver solver = new PegSolver(new BoardGeometry(model));
+
+    // Follow the solver's hints all the way to a single marble
+    while (model.getScore() > 1) {
+      SolverResult result = solver.solve(model);
+      assertEquals(SolverResult.Verdict.Solved, result.getVerdict());
+      assertEquals(1, result.getBestFinish());
+      Move move = result.getBestMove();
+      model.move(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+    }
+    assertEquals(1, model.getScore());
+  }
+
+  @Test
+  public void testAlreadySolved() {
+    AbstractSolitaireModel model = new EnglishSolitaireModel();
+    model.move(3, 5, 3, 3);
+    model.move(3, 2, 3, 4);
+    model.move(3, 0, 3, 2);
+    model.move(5, 3, 3, 3);
+    model.move(3, 3, 3, 1);
+    model.move(5, 2, 3, 2);
+    model.move(4, 0, 4, 2);
+    model.move(2, 1, 4, 1);
+    model.move(2, 3, 2, 1);
+    model.move(2, 0, 2, 2);
+    model.move(2, 5, 2, 3);
+    model.move(4, 4, 2, 4);
+    model.move(2, 3, 2, 5);
+    model.move(0, 4, 2, 4);
+    model.move(0, 2, 0, 4);
+    model.move(4, 6, 4, 4);
+    model.move(2, 6, 4, 6);
+    model.move(3, 2, 5, 2);
+    model.move(1, 2, 3, 2);
+    model.move(6, 2, 4, 2);
+    model.move(3, 2, 5, 2);
+    model.move(6, 4, 6, 2);
+    model.move(6, 2, 4, 2);
+    model.move(4, 1, 4, 3);
+    model.move(4, 3, 4, 5);
+    model.move(4, 6, 4, 4);
+    model.move(5, 4, 3, 4);
+    model.move(3, 4, 1, 4);
+    model.move(0, 4, 2, 4);
+    model.move(2, 5, 2, 3);
+    model.move(1, 3, 3, 3);
+
+    SolverResult result = new PegSolver(new BoardGeometry(model)).solve(model);
+    assertEquals(SolverResult.Verdict.Solved, result.getVerdict());
+    assertNull(result.getBestMove());
+    assertEquals(1, result.getBestFinish());
+  }
+
+  @Test
+  public void testNodeBudget() {
+    AbstractSolitaireModel model = new EnglishSolitaireModel(5);
+    SolverResult result = new PegSolver(new BoardGeometry(model), 1).solve(model);
+    assertEquals(SolverResult.Verdict.Unknown, result.getVerdict());
+    assertTrue(model.validMove(result.getBestMove().getFromRow(), result.getBestMove().getFromCol(),
+            result.getBestMove().getToRow(), result.getBestMove().getToCol()));
+  }
+
+  @Test
+  public void testInvalidSolver() {
+    try {
+      new PegSolver(null);
+      fail("Tried to create a PegSolver without a geometry and did not see an IllegalArgumentException!");
+    } catch (IllegalArgumentException e) {
+    }
+
+    try {
+      new PegSolver(new BoardGeometry(new EnglishSolitaireModel()), 0);
+      fail("Tried to create a PegSolver with no budget and did not see an IllegalArgumentException!");
+    } catch (IllegalArgumentException e) {
+    }
+  }
+
+  private static void assertSameResult(SolverResult expected, SolverResult actual) {
+    assertEquals(expected.getVerdict(), actual.getVerdict());
+    assertEquals(expected.getBestMove(), actual.getBestMove());
+    assertEquals(expected.getBestFinish(), actual.getBestFinish());
+    assertEquals(expected.getNodes(), actual.getNodes());
+  }
+
+  @Test
+  public void testCheckpoint() throws IOException {
+    EnglishSolitaireModel model = new EnglishSolitaireModel(1, 3);
+    BoardGeometry geometry = new BoardGeometry(model);
+    SolverResult full = new PegSolver(geometry, 1_000_000).solve(model);
+    assertEquals(SolverResult.Verdict.Solved, full.getVerdict());
+    assertTrue(full.getNodes() > 20000);
+
+    Path file = File.createTempFile("solve", ".checkpoint").toPath();
+    try {
+      // A search that runs out of budget saves where it stopped, and with its table of dead ends
+      // carries on to exactly the result of a search that never stopped
+      SolverResult stopped = new PegSolver(geometry, 16384)
+              .withCheckpoints(file, 4096, true).solve(model);
+      assertEquals(SolverResult.Verdict.Unknown, stopped.getVerdict());
+      assertSameResult(full, new PegSolver(geometry, 1_000_000).resume(file));
+
+      // Without the table it searches some positions again but finds the same answer
+      new PegSolver(geometry, 16384).withCheckpoints(file, 4096, false).solve(model);
+      SolverResult resumed = new PegSolver(geometry, 1_000_000).resume(file);
+      assertEquals(SolverResult.Verdict.Solved, resumed.getVerdict());
+      assertEquals(1, resumed.getBestFinish());
+      assertTrue(resumed.getNodes() >= full.getNodes());
+
+      // A search that finishes leaves its last periodic checkpoint, which also resumes to the
+      // same result
+      Files.delete(file);
+      assertSameResult(full, new PegSolver(geometry, 1_000_000)
+              .withCheckpoints(file, 4096, true).solve(model));
+      assertTrue(Files.exists(file));
+      assertSameResult(full, new PegSolver(geometry, 1_000_000).resume(file));
+
+      // A stopped search resumed by a solver that saves checkpoints can be stopped again
+      new PegSolver(geometry, 8192).withCheckpoints(file, 4096, true).solve(model);
+      new PegSolver(geometry, 24576).withCheckpoints(file, 4096, true).resume(file);
+      assertSameResult(full, new PegSolver(geometry, 1_000_000).resume(file));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testInvalidCheckpoint() throws IOException {
+    EnglishSolitaireModel model = new EnglishSolitaireModel(1, 3);
+    BoardGeometry geometry = new BoardGeometry(model);
+    Path file = File.createTempFile("solve", ".checkpoint").toPath();
+    try {
+      try {
+        new PegSolver(geometry).resume(file);
+        fail("An empty file is not a checkpoint");
+      } catch (IOException e) {
+        // expected
+      }
+      new PegSolver(geometry, 4096).withCheckpoints(file, 4096, true).solve(model);
+      try {
+        new PegSolver(new BoardGeometry(new EuropeanSolitaireModel())).resume(file);
+        fail("Checkpoint of another board should be rejected");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      byte[] bytes = Files.readAllBytes(file);
+      Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+      try {
+        new PegSolver(geometry).resume(file);
+        fail("A truncated checkpoint should be rejected");
+      } catch (IOException e) {
+        // expected
+      }
+      try {
+        new PegSolver(geometry).withCheckpoints(file, 0, false);
+        fail("Checkpoints need a positive interval");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+import org.junit.Test;
+
+import java.util.Map;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.model.hw04.EuropeanSolitaireModel;
+import cs3500.marblesolitaire.solver.Move;
+import cs3500.marblesolitaire.solver.Perft;
+import cs3500.marblesolitaire.view.MarbleSolitaireTextView;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class PerftTest {
+
+  @Test
+  public void testEnglishCounts() {
+    long[] expected = {1, 4, 12, 60, 400, 2960, 24600, 221072};
+    Perft perft = new Perft(new EnglishSolitaireModel());
+    for (int depth = 0; depth < expected.length; depth++) {
+      assertEquals(expected[depth], perft.count(depth));
+    }
+  }
+
+  @Test
+  public void testEuropeanCounts() {
+    long[] expected = {1, 4, 20, 140, 1056, 9456, 94800};
+    Perft perft = new Perft(new EuropeanSolitaireModel());
+    for (int depth = 0; depth < expected.length; depth++) {
+      assertEquals(expected[depth], perft.count(depth));
+    }
+  }
+
+  @Test
+  public void testDivide() {
+    Perft perft = new Perft(new EnglishSolitaireModel());
+    Map<Move, Long> divided = perft.divide(5);
+    Map<Move, Long> parallel = perft.divideParallel(5);
+    assertEquals(4, divided.size());
+    assertEquals(divided, parallel);
+
+    long total = 0;
+    for (long count : divided.values()) {
+      total += count;
+    }
+    assertEquals(2960, total);
+    assertEquals(740, (long) divided.get(new Move(1, 3, 3, 3)));
+  }
+
+  @Test
+  public void testModelRestored() {
+    AbstractSolitaireModel model = BoardShape.English.create(5);
+    String before = new MarbleSolitaireTextView(model).toString();
+    new Perft(model).count(4);
+    new Perft(model).divideParallel(3);
+    assertEquals(before, new MarbleSolitaireTextView(model).toString());
+    assertEquals(104, model.getScore());
+  }
+
+  @Test
+  public void testInvalidDepth() {
+    try {
+      new Perft(new EnglishSolitaireModel()).count(-1);
+      fail("Counted a negative depth and did not see an IllegalArgumentException!");
+    } catch (IllegalArgumentException e) {
+    }
+  }
+}
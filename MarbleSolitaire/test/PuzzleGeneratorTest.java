@@ -0,0 +1,130 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import cs3500.marblesolitaire.model.hw02.MarbleSolitaireModelState;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.PegSolver;
+import cs3500.marblesolitaire.solver.PuzzleGenerator;
+import cs3500.marblesolitaire.solver.PuzzlePack;
+import cs3500.marblesolitaire.solver.SolverResult;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PuzzleGeneratorTest {
+
+  @Test
+  public void testSolvable() {
+    PuzzleGenerator generator = new PuzzleGenerator(BoardShape.European, 3, 6, 12);
+    BoardGeometry geometry = generator.getGeometry();
+    PegSolver solver = new PegSolver(geometry);
+    SplittableRandom random = new SplittableRandom(1);
+    long[] board = new long[geometry.getWords()];
+    long[] canonical = new long[geometry.getWords()];
+    for (int i = 0; i < 50; i++) {
+      generator.generate(random, board, 0);
+      int pegs = BoardGeometry.pegCount(board);
+      assertTrue(pegs >= 7 && pegs <= 13);
+      geometry.canonicalize(board, canonical);
+      assertArrayEquals(canonical, board);
+      assertEquals(SolverResult.Verdict.Solved, solver.solve(board).getVerdict());
+    }
+  }
+
+  @Test
+  public void testPack() throws IOException {
+    Path first = File.createTempFile("puzzles", ".pack").toPath();
+    Path second = File.createTempFile("puzzles", ".pack").toPath();
+    try {
+      PuzzleGenerator generator = new PuzzleGenerator(BoardShape.English, 3, 8, 8);
+      try (PuzzlePack.Writer out = new PuzzlePack.Writer(first, BoardShape.English, 3)) {
+        assertEquals(5000, generator.generate(7, 5000, out));
+      }
+      try (PuzzlePack.Writer out = new PuzzlePack.Writer(second, BoardShape.English, 3)) {
+        generator.generate(7, 5000, out);
+      }
+      assertTrue(Arrays.equals(Files.readAllBytes(first), Files.readAllBytes(second)));
+
+      PuzzlePack pack = PuzzlePack.open(first);
+      assertEquals(5000, pack.size());
+      assertEquals(BoardShape.English, pack.getShape());
+      Set<String> distinct = new HashSet<String>();
+      for (int i = 0; i < pack.size(); i++) {
+        long[] board = pack.getBoard(i);
+        assertEquals(9, BoardGeometry.pegCount(board));
+        distinct.add(Arrays.toString(board));
+      }
+      assertEquals(5000, distinct.size());
+
+      AbstractSolitaireModel model = pack.load(42);
+      assertEquals(9, model.getScore());
+      assertArrayEquals(pack.getBoard(42), pack.getGeometry().pegs(model));
+    } finally {
+      Files.delete(first);
+      Files.delete(second);
+    }
+  }
+
+  @Test
+  public void testSetSlot() {
+    AbstractSolitaireModel model = BoardShape.English.create(3);
+    model.setSlotAt(3, 3, MarbleSolitaireModelState.SlotState.Marble);
+    model.setSlotAt(0, 3, MarbleSolitaireModelState.SlotState.Empty);
+    assertEquals(32, model.getScore());
+    try {
+      model.setSlotAt(0, 0, MarbleSolitaireModelState.SlotState.Marble);
+      fail("Put a marble in an invalid slot and did not see an IllegalArgumentException!");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidRange() {
+    new PuzzleGenerator(BoardShape.English, 3, 5, 33);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnreachableDepth() {
+    new PuzzleGenerator(BoardShape.English, 3, 31, 32);
+  }
+
+  @Test
+  public void testGiveUp() throws IOException {
+    Path file = File.createTempFile("puzzles", ".pack").toPath();
+    try (PuzzlePack.Writer out = new PuzzlePack.Writer(file, BoardShape.English, 3)) {
+      new PuzzleGenerator(BoardShape.English, 3, 31, 31).generate(1, 10, out);
+      fail("Grew puzzles no random walk reaches and did not see an IllegalStateException!");
+    } catch (IllegalStateException e) {
+      // expected
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testSmallPack() throws IOException {
+    Path file = File.createTempFile("puzzles", ".pack").toPath();
+    try {
+      PuzzleGenerator generator = new PuzzleGenerator(BoardShape.European, 3, 20, 24);
+      try (PuzzlePack.Writer out = new PuzzlePack.Writer(file, BoardShape.European, 3)) {
+        assertEquals(3, generator.generate(5, 3, out));
+      }
+      assertEquals(3, PuzzlePack.open(file).size());
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
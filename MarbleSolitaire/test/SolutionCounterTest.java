@@ -0,0 +1,149 @@
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.Move;
+import cs3500.marblesolitaire.solver.PegSolver;
+import cs3500.marblesolitaire.solver.SolutionCounter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SolutionCounterTest {
+
+  // Count the solutions ending in the target, or anywhere if it is -1, by playing every one
+  private static long enumerate(BoardGeometry geometry, long[] board, int target) {
+    int pegs = BoardGeometry.pegCount(board);
+    if (pegs == 1) {
+      return target < 0 || board[0] == 1L << target ? 1 : 0;
+    }
+    long count = 0;
+    for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+      if (geometry.isLegal(board, 0, jump)) {
+        long[] child = board.clone();
+        geometry.apply(child, 0, jump);
+        count += enumerate(geometry, child, target);
+      }
+    }
+    return count;
+  }
+
+  // Play random moves from a new English game until the given number of marbles is left
+  private static long[] midGame(BoardGeometry geometry, Random r, int pegs) {
+    long[] board = geometry.pegs(new EnglishSolitaireModel());
+    while (BoardGeometry.pegCount(board) > pegs) {
+      int jump = r.nextInt(geometry.getJumpCount());
+      if (geometry.isLegal(board, 0, jump)) {
+        geometry.apply(board, 0, jump);
+      }
+    }
+    return board;
+  }
+
+  // Follow the solver from a new English game until the given number of marbles is left
+  private static long[] solvedLine(BoardGeometry geometry, int pegs) {
+    EnglishSolitaireModel model = new EnglishSolitaireModel();
+    PegSolver solver = new PegSolver(geometry);
+    while (model.getScore() > pegs) {
+      Move move = solver.solve(model).getBestMove();
+      model.move(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+    }
+    return geometry.pegs(model);
+  }
+
+  @Test
+  public void testMatchesEnumeration() {
+    BoardGeometry geometry = new BoardGeometry(new EnglishSolitaireModel());
+    SolutionCounter anywhere = new SolutionCounter(geometry);
+    SolutionCounter centre = new SolutionCounter(geometry, 3, 3);
+    Random r = new Random(50);
+    for (int game = 0; game < 40; game++) {
+      long[] board = midGame(geometry, r, 13);
+      assertEquals(BigInteger.valueOf(enumerate(geometry, board, -1)),
+              anywhere.count(board[0]));
+      assertEquals(BigInteger.valueOf(enumerate(geometry, board, geometry.holeAt(3, 3))),
+              centre.count(board[0]));
+    }
+
+    // Random games rarely stay solvable, so also follow the solver
+    long[] board = solvedLine(geometry, 13);
+    long expected = enumerate(geometry, board, -1);
+    assertTrue(expected > 0);
+    assertEquals(BigInteger.valueOf(expected), anywhere.count(board[0]));
+  }
+
+  @Test
+  public void testTargetsAddUp() {
+    BoardGeometry geometry = new BoardGeometry(new EnglishSolitaireModel());
+    long board = solvedLine(geometry, 18)[0];
+    BigInteger anywhere = new SolutionCounter(geometry).count(board);
+    BigInteger sum = BigInteger.ZERO;
+    for (int hole = 0; hole < geometry.getHoleCount(); hole++) {
+      sum = sum.add(new SolutionCounter(geometry, geometry.rowOf(hole), geometry.colOf(hole))
+              .count(board));
+    }
+    assertTrue(anywhere.signum() > 0);
+    assertEquals(anywhere, sum);
+  }
+
+  @Test
+  public void testEveryStart() {
+    // A 4 by 4 square, small enough to play out every game
+    boolean[] valid = new boolean[16];
+    Arrays.fill(valid, true);
+    BoardGeometry geometry = BoardGeometry.fromMask(4, valid);
+    SolutionCounter counter = new SolutionCounter(geometry);
+    BigInteger[] counts = counter.countEveryStart();
+    assertEquals(16, counts.length);
+    for (int hole = 0; hole < 16; hole++) {
+      long[] board = {0xFFFFL & ~(1L << hole)};
+      assertEquals(BigInteger.valueOf(enumerate(geometry, board, -1)), counts[hole]);
+    }
+    // No game from a corner ends with one marble, and the other holes are images of each other
+    assertEquals(BigInteger.ZERO, counts[0]);
+    assertEquals(BigInteger.valueOf(210422), counts[1]);
+    assertEquals(counts[1], counts[14]);
+    assertTrue(counter.getTableSize() > 0);
+
+    assertEquals(BigInteger.ONE, counter.count(1L << 5));
+    assertEquals(BigInteger.ZERO, counter.count(0));
+  }
+
+  @Test
+  public void testLastMoves() {
+    EnglishSolitaireModel model = new EnglishSolitaireModel();
+    BoardGeometry geometry = new BoardGeometry(model);
+    // Two marbles side by side can finish either way
+    long board = (1L << geometry.holeAt(3, 2)) | (1L << geometry.holeAt(3, 3));
+    assertEquals(BigInteger.valueOf(2), new SolutionCounter(geometry).count(board));
+    assertEquals(BigInteger.ONE, new SolutionCounter(geometry, 3, 4).count(board));
+    assertEquals(BigInteger.ZERO, new SolutionCounter(geometry, 3, 3).count(board));
+  }
+
+  @Test
+  public void testInvalid() {
+    try {
+      new SolutionCounter(new BoardGeometry(new EnglishSolitaireModel(5)));
+      fail("Boards of more than 64 holes should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new SolutionCounter(new BoardGeometry(new EnglishSolitaireModel()), 0, 0);
+      fail("Target off the board should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new SolutionCounter(null);
+      fail("Null geometry should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,104 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.Move;
+import cs3500.marblesolitaire.solver.Position;
+import cs3500.marblesolitaire.solver.SolverCache;
+import cs3500.marblesolitaire.solver.SolverResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SolverCacheTest {
+  private final BoardGeometry geometry = new BoardGeometry(new EnglishSolitaireModel());
+
+  @Test
+  public void testSymmetricHit() {
+    SolverCache cache = new SolverCache(1 << 20);
+    AbstractSolitaireModel top = new EnglishSolitaireModel();
+    top.move(1, 3, 3, 3);
+    AbstractSolitaireModel left = new EnglishSolitaireModel();
+    left.move(3, 1, 3, 3);
+
+    assertNull(cache.get(new Position(this.geometry, top)));
+    cache.put(new Position(this.geometry, top), new SolverResult(SolverResult.Verdict.Solved,
+            new Move(2, 1, 2, 3), 1, 10));
+
+    // The left opening is the top opening reflected along the diagonal
+    SolverResult result = cache.get(new Position(this.geometry, left));
+    assertEquals(SolverResult.Verdict.Solved, result.getVerdict());
+    assertEquals(new Move(1, 2, 3, 2), result.getBestMove());
+    assertTrue(left.validMove(1, 2, 3, 2));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(0.5, cache.getHitRate(), 0.0001);
+  }
+
+  @Test
+  public void testBounded() {
+    SolverCache cache = new SolverCache(64 * 1024, 1);
+    long[] board = new long[1];
+    for (int i = 0; i < 10000; i++) {
+      board[0] = i * 0x9E3779B97F4A7C15L >>> 31;
+      cache.put(new Position(this.geometry, board),
+              new SolverResult(SolverResult.Verdict.Unknown, null, 2, i));
+    }
+    assertTrue(cache.getWeightedSize() <= 64 * 1024);
+    assertTrue(cache.size() < 10000);
+    assertTrue(cache.getEvictionCount() + cache.getRejectionCount() > 0);
+  }
+
+  @Test
+  public void testFrequentEntriesSurvive() {
+    SolverCache cache = new SolverCache(64 * 1024, 1);
+    Position hot = new Position(this.geometry, new EnglishSolitaireModel());
+    cache.put(hot, new SolverResult(SolverResult.Verdict.Solved, null, 1, 0));
+    long[] board = new long[1];
+    for (int i = 1; i < 10000; i++) {
+      assertTrue(cache.get(hot) != null);
+      board[0] = i * 0x9E3779B97F4A7C15L >>> 31;
+      cache.put(new Position(this.geometry, board),
+              new SolverResult(SolverResult.Verdict.Unknown, null, 2, i));
+    }
+    assertEquals(SolverResult.Verdict.Solved, cache.get(hot).getVerdict());
+  }
+
+  @Test
+  public void testSnapshot() throws IOException {
+    SolverCache cache = new SolverCache(1 << 20);
+    AbstractSolitaireModel model = new EnglishSolitaireModel();
+    model.move(1, 3, 3, 3);
+    cache.put(new Position(this.geometry, model), new SolverResult(SolverResult.Verdict.Solved,
+            new Move(2, 1, 2, 3), 1, 42));
+
+    Path file = File.createTempFile("solver-cache", ".bin").toPath();
+    try {
+      cache.save(file);
+      SolverCache loaded = SolverCache.load(file, 1 << 20);
+      assertEquals(1, loaded.size());
+      SolverResult result = loaded.get(new Position(this.geometry, model));
+      assertEquals(new Move(2, 1, 2, 3), result.getBestMove());
+      assertEquals(42, result.getNodes());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testInvalidCache() {
+    try {
+      new SolverCache(1024, 3);
+      fail("Tried to create a SolverCache with 3 stripes and did not see an IllegalArgumentException!");
+    } catch (IllegalArgumentException e) {
+    }
+  }
+}
@@ -0,0 +1,176 @@
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import cs3500.marblesolitaire.model.hw02.EnglishSolitaireModel;
+import cs3500.marblesolitaire.model.hw04.AbstractSolitaireModel;
+import cs3500.marblesolitaire.spectator.SpectatorBoard;
+import cs3500.marblesolitaire.spectator.SpectatorServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpectatorServerTest {
+
+  private static Socket watch(SpectatorServer server, int session) throws IOException {
+    Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+    socket.setSoTimeout(10_000);
+    new DataOutputStream(socket.getOutputStream()).writeInt(session);
+    return socket;
+  }
+
+  @Test
+  public void testStream() throws IOException {
+    try (SpectatorServer server = new SpectatorServer(0)) {
+      AbstractSolitaireModel model = new EnglishSolitaireModel();
+      model.move(3, 1, 3, 3);
+      int session = server.host(model);
+
+      try (Socket early = watch(server, session)) {
+        DataInputStream in = new DataInputStream(early.getInputStream());
+        SpectatorBoard board = new SpectatorBoard();
+        assertTrue(board.readFrame(in));
+        BoardAssert.assertSameBoard(model, board);
+        assertEquals(1, board.getPly());
+
+        model.move(5, 2, 3, 2);
+        model.move(4, 0, 4, 2);
+        model.undoMove(4, 0, 4, 2);
+        for (int i = 0; i < 3; i++) {
+          assertTrue(board.readFrame(in));
+        }
+        BoardAssert.assertSameBoard(model, board);
+        assertEquals(2, board.getPly());
+
+        // A late joiner starts from a keyframe of the board as it is now
+        try (Socket late = watch(server, session)) {
+          DataInputStream lateIn = new DataInputStream(late.getInputStream());
+          SpectatorBoard lateBoard = new SpectatorBoard();
+          assertTrue(lateBoard.readFrame(lateIn));
+          BoardAssert.assertSameBoard(model, lateBoard);
+
+          model.move(3, 3, 3, 1);
+          server.end(session);
+          assertTrue(board.readFrame(in));
+          assertFalse(board.readFrame(in));
+          assertTrue(board.isEnded());
+          BoardAssert.assertSameBoard(model, board);
+          assertTrue(lateBoard.readFrame(lateIn));
+          assertFalse(lateBoard.readFrame(lateIn));
+          BoardAssert.assertSameBoard(model, lateBoard);
+          assertEquals(-1, lateIn.read());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testLoadAndUndoAtStart() throws IOException {
+    try (SpectatorServer server = new SpectatorServer(0)) {
+      AbstractSolitaireModel model = new EnglishSolitaireModel();
+      int session = server.host(model);
+      try (Socket socket = watch(server, session)) {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        SpectatorBoard board = new SpectatorBoard();
+        assertTrue(board.readFrame(in));
+        model.move(3, 1, 3, 3);
+        model.move(5, 2, 3, 2);
+        assertTrue(board.readFrame(in));
+        assertTrue(board.readFrame(in));
+        assertEquals(2, board.getPly());
+
+        // Loading a position starts the game over at ply 0 with a keyframe
+        AbstractSolitaireModel played = new EnglishSolitaireModel();
+        played.move(3, 1, 3, 3);
+        model.load(played);
+        assertTrue(board.readFrame(in));
+        BoardAssert.assertSameBoard(model, board);
+        assertEquals(0, board.getPly());
+
+        // A move taken back at ply 0 is still an undo, and later moves are not
+        model.undoMove(3, 1, 3, 3);
+        model.move(3, 1, 3, 3);
+        model.move(5, 2, 3, 2);
+        for (int i = 0; i < 3; i++) {
+          assertTrue(board.readFrame(in));
+        }
+        BoardAssert.assertSameBoard(model, board);
+        assertEquals(model.snapshot().getPly(), board.getPly());
+      }
+    }
+  }
+
+  @Test
+  public void testReset() throws IOException {
+    try (SpectatorServer server = new SpectatorServer(0)) {
+      AbstractSolitaireModel model = new EnglishSolitaireModel();
+      int session = server.host(model);
+      try (Socket socket = watch(server, session)) {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        SpectatorBoard board = new SpectatorBoard();
+        assertTrue(board.readFrame(in));
+        model.move(3, 1, 3, 3);
+        assertTrue(board.readFrame(in));
+
+        // A new game on the same model keeps being streamed, starting from a keyframe
+        model.reset(0, 2);
+        assertTrue(board.readFrame(in));
+        BoardAssert.assertSameBoard(model, board);
+        assertEquals(0, board.getPly());
+        model.move(2, 2, 0, 2);
+        assertTrue(board.readFrame(in));
+        BoardAssert.assertSameBoard(model, board);
+        assertEquals(1, board.getPly());
+      }
+    }
+  }
+
+  @Test
+  public void testUnknownSession() throws IOException {
+    try (SpectatorServer server = new SpectatorServer(0);
+         Socket socket = watch(server, 42)) {
+      assertEquals(-1, socket.getInputStream().read());
+    }
+  }
+
+  @Test
+  public void testManySpectators() throws IOException {
+    try (SpectatorServer server = new SpectatorServer(0)) {
+      AbstractSolitaireModel model = new EnglishSolitaireModel();
+      int session = server.host(model);
+      List<Socket> sockets = new ArrayList<Socket>();
+      List<SpectatorBoard> boards = new ArrayList<SpectatorBoard>();
+      try {
+        for (int i = 0; i < 200; i++) {
+          Socket socket = watch(server, session);
+          sockets.add(socket);
+          SpectatorBoard board = new SpectatorBoard();
+          board.readFrame(new DataInputStream(socket.getInputStream()));
+          boards.add(board);
+        }
+        assertEquals(200, server.getSpectatorCount());
+
+        model.move(3, 1, 3, 3);
+        model.move(5, 2, 3, 2);
+        for (int i = 0; i < sockets.size(); i++) {
+          DataInputStream in = new DataInputStream(sockets.get(i).getInputStream());
+          while (boards.get(i).getPly() < 2) {
+            boards.get(i).readFrame(in);
+          }
+          BoardAssert.assertSameBoard(model, boards.get(i));
+        }
+      } finally {
+        for (Socket socket : sockets) {
+          socket.close();
+        }
+      }
+    }
+  }
+}
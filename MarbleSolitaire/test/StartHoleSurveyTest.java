@@ -0,0 +1,76 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import cs3500.marblesolitaire.model.hw04.BoardShape;
+import cs3500.marblesolitaire.solver.BoardGeometry;
+import cs3500.marblesolitaire.solver.SolverResult;
+import cs3500.marblesolitaire.solver.StartHoleSurvey;
+import cs3500.marblesolitaire.solver.StartHoleTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class StartHoleSurveyTest {
+
+  @Test
+  public void testRepresentatives() {
+    assertEquals(7, new StartHoleSurvey(BoardShape.English, 3, 1000).getRepresentatives().size());
+    assertEquals(8, new StartHoleSurvey(BoardShape.European, 3, 1000).getRepresentatives().size());
+  }
+
+  @Test
+  public void testSurvey() throws IOException {
+    StartHoleTable table = new StartHoleSurvey(BoardShape.English, 3, 100_000).run(null);
+    assertEquals(SolverResult.Verdict.Solved, table.getVerdict(3, 3));
+    assertEquals(1, table.getBestFinish(3, 3));
+
+    BoardGeometry geometry = table.getGeometry();
+    for (int hole = 0; hole < geometry.getHoleCount(); hole++) {
+      for (int symmetry = 0; symmetry < geometry.getSymmetryCount(); symmetry++) {
+        int image = geometry.transform(symmetry, hole);
+        assertEquals(table.getVerdict(hole), table.getVerdict(image));
+        assertEquals(table.getBestFinish(hole), table.getBestFinish(image));
+      }
+    }
+  }
+
+  @Test
+  public void testCheckpoint() throws IOException {
+    Path checkpoint = File.createTempFile("survey", ".ckpt").toPath();
+    Path saved = File.createTempFile("survey", ".tbl").toPath();
+    try {
+      StartHoleTable first = new StartHoleSurvey(BoardShape.English, 3, 100_000).run(checkpoint);
+      long size = Files.size(checkpoint);
+
+      // A record cut short by a crash is dropped, and the finished holes are not solved again
+      Files.write(checkpoint, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+      StartHoleTable resumed = new StartHoleSurvey(BoardShape.English, 3, 1).run(checkpoint);
+      assertEquals(size, Files.size(checkpoint));
+
+      resumed.save(saved);
+      StartHoleTable loaded = StartHoleTable.load(saved);
+      assertEquals(BoardShape.English, loaded.getShape());
+      assertEquals(3, loaded.getArmThickness());
+      for (int hole = 0; hole < first.getGeometry().getHoleCount(); hole++) {
+        assertEquals(first.getVerdict(hole), resumed.getVerdict(hole));
+        assertEquals(first.getBestFinish(hole), loaded.getBestFinish(hole));
+      }
+
+      try {
+        new StartHoleSurvey(BoardShape.European, 3, 1).run(checkpoint);
+        fail("Resumed a European survey from an English checkpoint and did not see an "
+                + "IllegalArgumentException!");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    } finally {
+      Files.delete(checkpoint);
+      Files.delete(saved);
+    }
+  }
+}